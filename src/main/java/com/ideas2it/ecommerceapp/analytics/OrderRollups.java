@@ -0,0 +1,364 @@
+package com.ideas2it.ecommerceapp.analytics;
+
+import com.ideas2it.ecommerceapp.model.Order;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Order counts and revenue by status, bucketed per minute, hour and day of the order date.
+ * A bucket holds the orders placed within it by the status they have now, so placing an
+ * order adds to one status and a status change moves the order between two; range sums
+ * then read a handful of buckets instead of the orders themselves.
+ *
+ * <p>Each bucket is a single array of counts followed by revenue in cents, one slot per
+ * status. Minute buckets are kept for a limited time and hour buckets somewhat longer;
+ * day buckets are kept for good. A range is summed from day buckets where it covers
+ * whole days and from finer buckets at its edges, so a sum reads at most a few hundred
+ * buckets plus one per day. Edges are widened to the finest bucket still kept: to the
+ * minute while minute buckets last, and to the hour or day beyond.
+ *
+ * <p>Every change is also added to a set of pending deltas, which the owner drains to
+ * persist the buckets. The spans a range sum reads can be had on their own, to sum
+ * persisted buckets the same way. All methods are thread-safe.
+ */
+public class OrderRollups {
+
+    public enum Granularity {
+        MINUTE(1), HOUR(60), DAY(24 * 60);
+
+        private final long minutes;
+
+        Granularity(long minutes) {
+            this.minutes = minutes;
+        }
+
+        public long minutes() {
+            return minutes;
+        }
+    }
+
+    /**
+     * A bucket of one granularity, identified by the minute it starts at, counted from the epoch.
+     */
+    public record Bucket(Granularity granularity, long startMinute) {
+        public static Bucket of(Granularity granularity, LocalDateTime start) {
+            return new Bucket(granularity, floor(toMinute(start), granularity.minutes()));
+        }
+
+        public LocalDateTime start() {
+            return toDateTime(startMinute);
+        }
+    }
+
+    /**
+     * Counts and revenue per status over a range, and the range they actually cover.
+     */
+    public record Totals(LocalDateTime start, LocalDateTime end, long[] counts, long[] revenueCents) {
+        public long count(Order.OrderStatus status) {
+            return counts[status.ordinal()];
+        }
+
+        public long revenueCents(Order.OrderStatus status) {
+            return revenueCents[status.ordinal()];
+        }
+
+        public long totalCount() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * The buckets of one granularity from one start, inclusive, to another, exclusive.
+     */
+    public record Span(Granularity granularity, LocalDateTime start, LocalDateTime end) {
+    }
+
+    /**
+     * The spans a range sum reads, and the range they cover together.
+     */
+    public record Cover(LocalDateTime start, LocalDateTime end, List<Span> spans) {
+    }
+
+    private interface SpanConsumer {
+        void accept(Granularity granularity, long fromMinute, long toMinute);
+    }
+
+    private static final int STATUSES = Order.OrderStatus.values().length;
+
+    private final long minuteRetentionMinutes;
+    private final long hourRetentionMinutes;
+    private final Map<Granularity, NavigableMap<Long, long[]>> buckets = new EnumMap<>(Granularity.class);
+    private Map<Bucket, long[]> pending = new HashMap<>();
+
+    // Earliest minute and hour bucket still kept; always a whole hour and a whole day
+    private long minuteFloor;
+    private long hourFloor;
+
+    /**
+     * @param minuteRetentionMillis How long minute buckets are kept
+     * @param hourRetentionMillis How long hour buckets are kept
+     * @param now The current time, from which the retention is counted
+     */
+    public OrderRollups(long minuteRetentionMillis, long hourRetentionMillis, LocalDateTime now) {
+        this.minuteRetentionMinutes = minuteRetentionMillis / 60_000;
+        this.hourRetentionMinutes = hourRetentionMillis / 60_000;
+        for (Granularity granularity : Granularity.values()) {
+            buckets.put(granularity, new TreeMap<>());
+        }
+        setFloors(now);
+    }
+
+    /**
+     * Adds orders of one status placed at the given time to every bucket still kept for it.
+     * Negative values take them away again.
+     *
+     * @param orderDate The order date
+     * @param status The status to count them under
+     * @param count The number of orders
+     * @param revenueCents Their total amount, in cents
+     */
+    public synchronized void add(LocalDateTime orderDate, Order.OrderStatus status, long count, long revenueCents) {
+        long minute = toMinute(orderDate);
+        for (Granularity granularity : Granularity.values()) {
+            long start = floor(minute, granularity.minutes());
+            if (start < floorOf(granularity)) {
+                continue;
+            }
+            addTo(buckets.get(granularity).computeIfAbsent(start, key -> new long[2 * STATUSES]), status, count, revenueCents);
+            addTo(pending.computeIfAbsent(new Bucket(granularity, start), key -> new long[2 * STATUSES]),
+                    status, count, revenueCents);
+        }
+    }
+
+    /**
+     * Adds persisted values to one bucket, without recording them as pending.
+     *
+     * @param bucket The bucket
+     * @param status The status
+     * @param count The number of orders
+     * @param revenueCents Their total amount, in cents
+     */
+    public synchronized void load(Bucket bucket, Order.OrderStatus status, long count, long revenueCents) {
+        if (bucket.startMinute() < floorOf(bucket.granularity())) {
+            return;
+        }
+        addTo(buckets.get(bucket.granularity()).computeIfAbsent(bucket.startMinute(), key -> new long[2 * STATUSES]),
+                status, count, revenueCents);
+    }
+
+    /**
+     * Sums the orders placed within a range, by status.
+     *
+     * @param start The start of the range, inclusive, or null for no lower bound
+     * @param end The end of the range, exclusive, or null for no upper bound
+     * @return The totals, with the range widened to the buckets read
+     */
+    public synchronized Totals sum(LocalDateTime start, LocalDateTime end) {
+        long[] range = widen(start == null ? Long.MIN_VALUE / 2 : toMinute(start),
+                end == null ? Long.MAX_VALUE / 2 : toMinuteExact(end));
+        long[] totals = new long[2 * STATUSES];
+        forEachSpan(range[0], range[1], (granularity, from, to) -> sumInto(totals, granularity, from, to));
+        return totals(start == null ? null : toDateTime(range[0]), end == null ? null : toDateTime(range[1]), totals);
+    }
+
+    /**
+     * Returns the spans of buckets a sum over a range reads, widened like {@link #sum}.
+     *
+     * @param start The start of the range, inclusive
+     * @param end The end of the range, exclusive
+     * @return The spans, none of them empty, and the range they cover
+     */
+    public synchronized Cover cover(LocalDateTime start, LocalDateTime end) {
+        long[] range = widen(toMinute(start), toMinuteExact(end));
+        List<Span> spans = new ArrayList<>();
+        forEachSpan(range[0], range[1], (granularity, from, to) ->
+                spans.add(new Span(granularity, toDateTime(from), toDateTime(to))));
+        return new Cover(toDateTime(range[0]), toDateTime(range[1]), spans);
+    }
+
+    /**
+     * Sums the pending changes that fall within the spans of a cover.
+     *
+     * @param cover A cover returned by {@link #cover}
+     * @return The totals of the changes not yet drained
+     */
+    public synchronized Totals sumPending(Cover cover) {
+        long[] totals = new long[2 * STATUSES];
+        for (Span span : cover.spans()) {
+            long from = toMinute(span.start());
+            long to = toMinute(span.end());
+            pending.forEach((bucket, values) -> {
+                if (bucket.granularity() == span.granularity() && bucket.startMinute() >= from && bucket.startMinute() < to) {
+                    for (int i = 0; i < totals.length; i++) {
+                        totals[i] += values[i];
+                    }
+                }
+            });
+        }
+        return totals(cover.start(), cover.end(), totals);
+    }
+
+    /**
+     * Drops the minute and hour buckets that have outlived their retention.
+     *
+     * @param now The current time
+     */
+    public synchronized void prune(LocalDateTime now) {
+        setFloors(now);
+        buckets.get(Granularity.MINUTE).headMap(minuteFloor).clear();
+        buckets.get(Granularity.HOUR).headMap(hourFloor).clear();
+    }
+
+    /**
+     * Hands over the changes since the previous call and starts collecting anew.
+     *
+     * @return The summed change per bucket: counts followed by revenue in cents, one slot per status
+     */
+    public synchronized Map<Bucket, long[]> drainPending() {
+        Map<Bucket, long[]> drained = pending;
+        pending = new HashMap<>();
+        return drained;
+    }
+
+    /**
+     * Puts back changes that could not be persisted, ahead of any made since.
+     *
+     * @param deltas Changes previously returned by {@link #drainPending}
+     */
+    public synchronized void restorePending(Map<Bucket, long[]> deltas) {
+        deltas.forEach((bucket, delta) -> {
+            long[] values = pending.computeIfAbsent(bucket, key -> new long[2 * STATUSES]);
+            for (int i = 0; i < values.length; i++) {
+                values[i] += delta[i];
+            }
+        });
+    }
+
+    /**
+     * @param granularity The granularity
+     * @return The start of the earliest bucket of that granularity still kept, or null if all are
+     */
+    public synchronized LocalDateTime retainedFrom(Granularity granularity) {
+        return granularity == Granularity.DAY ? null : toDateTime(floorOf(granularity));
+    }
+
+    /**
+     * @return The number of buckets held in memory
+     */
+    public synchronized int size() {
+        return buckets.values().stream().mapToInt(Map::size).sum();
+    }
+
+    // Widens the edges of a range to buckets that are still kept
+    private long[] widen(long s, long e) {
+        if (s < minuteFloor) {
+            s = floor(s, Granularity.HOUR.minutes());
+        }
+        if (s < hourFloor) {
+            s = floor(s, Granularity.DAY.minutes());
+        }
+        if (floor(e, Granularity.HOUR.minutes()) < minuteFloor) {
+            e = ceil(e, Granularity.HOUR.minutes());
+        }
+        if (floor(e, Granularity.DAY.minutes()) < hourFloor) {
+            e = ceil(e, Granularity.DAY.minutes());
+        }
+        return new long[] {s, e};
+    }
+
+    // Splits a widened range into whole days in the middle and finer buckets at its edges
+    private static void forEachSpan(long s, long e, SpanConsumer consumer) {
+        long hourStart = ceil(s, Granularity.HOUR.minutes());
+        long hourEnd = floor(e, Granularity.HOUR.minutes());
+        if (hourStart >= hourEnd) {
+            span(consumer, Granularity.MINUTE, s, e);
+            return;
+        }
+        span(consumer, Granularity.MINUTE, s, hourStart);
+        span(consumer, Granularity.MINUTE, hourEnd, e);
+        long dayStart = ceil(hourStart, Granularity.DAY.minutes());
+        long dayEnd = floor(hourEnd, Granularity.DAY.minutes());
+        if (dayStart >= dayEnd) {
+            span(consumer, Granularity.HOUR, hourStart, hourEnd);
+        } else {
+            span(consumer, Granularity.HOUR, hourStart, dayStart);
+            span(consumer, Granularity.DAY, dayStart, dayEnd);
+            span(consumer, Granularity.HOUR, dayEnd, hourEnd);
+        }
+    }
+
+    private static void span(SpanConsumer consumer, Granularity granularity, long from, long to) {
+        if (from < to) {
+            consumer.accept(granularity, from, to);
+        }
+    }
+
+    private void sumInto(long[] totals, Granularity granularity, long from, long to) {
+        for (long[] values : buckets.get(granularity).subMap(from, to).values()) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += values[i];
+            }
+        }
+    }
+
+    private static Totals totals(LocalDateTime start, LocalDateTime end, long[] totals) {
+        long[] counts = new long[STATUSES];
+        long[] revenue = new long[STATUSES];
+        System.arraycopy(totals, 0, counts, 0, STATUSES);
+        System.arraycopy(totals, STATUSES, revenue, 0, STATUSES);
+        return new Totals(start, end, counts, revenue);
+    }
+
+    private void setFloors(LocalDateTime now) {
+        long minute = toMinute(now);
+        minuteFloor = floor(minute - minuteRetentionMinutes, Granularity.HOUR.minutes());
+        hourFloor = floor(minute - hourRetentionMinutes, Granularity.DAY.minutes());
+    }
+
+    private long floorOf(Granularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> minuteFloor;
+            case HOUR -> hourFloor;
+            case DAY -> Long.MIN_VALUE;
+        };
+    }
+
+    private static void addTo(long[] values, Order.OrderStatus status, long count, long revenueCents) {
+        values[status.ordinal()] += count;
+        values[STATUSES + status.ordinal()] += revenueCents;
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // Like toMinute, but a time past the start of its minute counts into the next one
+    private static long toMinuteExact(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        return time.getNano() == 0 ? Math.floorDiv(seconds + 59, 60) : Math.floorDiv(seconds, 60) + 1;
+    }
+
+    private static LocalDateTime toDateTime(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static long floor(long minute, long unit) {
+        return Math.floorDiv(minute, unit) * unit;
+    }
+
+    private static long ceil(long minute, long unit) {
+        return -Math.floorDiv(-minute, unit) * unit;
+    }
+}
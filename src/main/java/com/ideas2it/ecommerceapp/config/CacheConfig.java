@@ -0,0 +1,43 @@
+package com.ideas2it.ecommerceapp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache configuration backed by Caffeine.
+ * Every named cache gets its own spec and records statistics, which Spring Boot
+ * actuator binds to the Prometheus registry (cache_gets, cache_evictions, ...).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+
+    @Value("${spring.cache.caffeine.spec:maximumSize=500,expireAfterAccess=600s}")
+    private String defaultSpec;
+
+    @Value("${app.cache.products.spec:maximumSize=10000,expireAfterWrite=600s}")
+    private String productsSpec;
+
+    /**
+     * Builds the cache manager. It is wrapped in a transaction-aware proxy so that
+     * evictions issued inside a transaction are applied only after commit, which
+     * stops a concurrent reader from re-caching the pre-commit row.
+     *
+     * @return The application cache manager
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.from(defaultSpec).recordStats());
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.from(productsSpec).recordStats().build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,43 @@
+package com.ideas2it.ecommerceapp.config;
+
+import com.ideas2it.ecommerceapp.exception.CheckoutFailedException;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.util.IdempotencyStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Idempotency key configuration.
+ * Orders placed under an Idempotency-Key header are remembered for the TTL, so a client
+ * retrying after a timeout gets the original order back instead of a second one.
+ * A checkout that failed after its order was reserved is replayed too, as its payment
+ * may have been taken; earlier failures are forgotten so the client can retry them.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${app.order.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @Value("${app.order.idempotency.max-keys:10000}")
+    private long maxKeys;
+
+    @Value("${app.order.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    /**
+     * Builds the store of orders placed under an idempotency key.
+     *
+     * @param meterRegistry The registry the outcome counters are bound to
+     * @return The order idempotency store
+     */
+    @Bean
+    public IdempotencyStore<Order> orderIdempotencyStore(MeterRegistry meterRegistry) {
+        return new IdempotencyStore<>("order-placement", Duration.ofMillis(ttlMs), maxKeys,
+                Duration.ofMillis(waitTimeoutMs), CheckoutFailedException.class::isInstance, meterRegistry);
+    }
+}
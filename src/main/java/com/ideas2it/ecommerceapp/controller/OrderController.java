@@ -2,33 +2,68 @@ package com.ideas2it.ecommerceapp.controller;
 
 import jakarta.validation.Valid;
 import com.ideas2it.ecommerceapp.dto.ApiResponse;
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderIntakeStatus;
 import com.ideas2it.ecommerceapp.dto.OrderPaymentRequest;
+import com.ideas2it.ecommerceapp.dto.OrderStats;
 import com.ideas2it.ecommerceapp.exception.GlobalExceptionHandler;
+import com.ideas2it.ecommerceapp.exception.IdempotencyConflictException;
+import com.ideas2it.ecommerceapp.exception.IdempotencyKeyMismatchException;
+import com.ideas2it.ecommerceapp.exception.OrderWriterUnavailableException;
 import com.ideas2it.ecommerceapp.model.Order;
 import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.service.CheckoutService;
+import com.ideas2it.ecommerceapp.service.OrderAnalyticsService;
+import com.ideas2it.ecommerceapp.service.OrderExportService;
+import com.ideas2it.ecommerceapp.service.OrderIntakeService;
 import com.ideas2it.ecommerceapp.service.OrderService;
+import com.ideas2it.ecommerceapp.util.IdempotencyStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private IdempotencyStore<Order> orderIdempotencyStore;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<Order>>> getAllOrders() {
@@ -40,6 +75,50 @@ public class OrderController {
         }
     }
 
+    /**
+     * Streams the orders matching the optional filters, with their lines, as NDJSON or CSV.
+     * Rows are written while they are read from the database, so the body is not
+     * wrapped in an ApiResponse and memory use does not grow with the export.
+     * Requires ADMIN role.
+     *
+     * @param format Either "ndjson" (one order per line) or "csv" (one order line per row)
+     * @param status The status to filter by, if any
+     * @param start The earliest order date, if any
+     * @param end The latest order date, if any
+     * @return ResponseEntity whose body streams the orders
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportOrders(@RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        OrderExportService.Format exportFormat;
+        Order.OrderStatus orderStatus;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("Invalid export format: " + format, null));
+        }
+        try {
+            orderStatus = status == null ? null : Order.OrderStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("Invalid order status: " + status, null));
+        }
+
+        StreamingResponseBody body = outputStream ->
+            orderExportService.exportOrders(orderStatus, start, end, exportFormat, outputStream);
+        if (exportFormat == OrderExportService.Format.CSV) {
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.csv\"")
+                .body(body);
+        }
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Order>> getOrderById(@PathVariable Long id) {
         try {
@@ -72,29 +151,135 @@ public class OrderController {
         }
     }
 
+    /**
+     * Places an order. A request carrying an Idempotency-Key header is placed at most once:
+     * a retry with the same key gets the original order back, or waits for it while the
+     * first request is still running.
+     *
+     * @param items The items to order
+     * @param idempotencyKey An optional key identifying the request across retries
+     * @param authentication The authenticated user
+     * @return ResponseEntity containing the placed order
+     */
     @PostMapping
-    public ResponseEntity<ApiResponse<Order>> placeOrder(@Valid @RequestBody Set<OrderItem> items, Authentication authentication) {
+    public ResponseEntity<ApiResponse<Order>> placeOrder(@Valid @RequestBody Set<OrderItem> items,
+                                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                         Authentication authentication) {
         try {
             String username = authentication.getName();
             // Get user ID from username would be handled in service
             Long userId = 0L; // This would be retrieved from userService
-            Order order = orderService.placeOrder(userId, items);
+            Order order = placeOnce(username, idempotencyKey, fingerprint(items, null),
+                    () -> orderService.placeOrder(userId, items));
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(ApiResponse.success("Order placed successfully", order));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IdempotencyKeyMismatchException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (IdempotencyConflictException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (OrderWriterUnavailableException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Places an order and processes its payment. A request carrying an Idempotency-Key
+     * header is placed and charged at most once, as for {@link #placeOrder}.
+     *
+     * @param request The items, payment method and payment details
+     * @param idempotencyKey An optional key identifying the request across retries
+     * @param authentication The authenticated user
+     * @return ResponseEntity containing the placed order
+     */
     @PostMapping("/with-payment")
-    public ResponseEntity<ApiResponse<Order>> placeOrderWithPayment(@Valid @RequestBody OrderPaymentRequest request, Authentication authentication) {
+    public ResponseEntity<ApiResponse<Order>> placeOrderWithPayment(@Valid @RequestBody OrderPaymentRequest request,
+                                                                    @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                    Authentication authentication) {
         try {
             String username = authentication.getName();
             // Get user ID from username would be handled in service
             Long userId = 0L; // This would be retrieved from userService
-            Order order = orderService.placeOrderWithPayment(userId, request.getItems(), request.getPaymentMethod(), request.getPaymentDetails());
+            // Payment details are left out of the fingerprint so no hash of card data is kept
+            Order order = placeOnce(username, idempotencyKey, fingerprint(request.getItems(), request.getPaymentMethod()),
+                    () -> orderService.placeOrderWithPayment(userId, request.getItems(), request.getPaymentMethod(), request.getPaymentDetails()));
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(ApiResponse.success("Order placed and payment processed successfully", order));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IdempotencyKeyMismatchException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (IdempotencyConflictException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Places the order directly, or through the idempotency store when the client sent a key
+    private Order placeOnce(String username, String idempotencyKey, String fingerprint, Supplier<Order> placement) {
+        if (idempotencyKey == null) {
+            return placement.get();
+        }
+        return orderIdempotencyStore.execute(username, idempotencyKey, fingerprint, placement);
+    }
+
+    // Only what placement reads is fingerprinted, with the lines sorted, so equal requests match whatever their order
+    private static String fingerprint(Set<OrderItem> items, String paymentMethod) {
+        String lines = items == null ? "" : items.stream()
+                .map(item -> (item.getProduct() == null ? null : item.getProduct().getId()) + "x" + item.getQuantity())
+                .sorted()
+                .collect(Collectors.joining(","));
+        return IdempotencyStore.fingerprint(lines + ";" + paymentMethod);
+    }
+
+    /**
+     * Accepts an order with payment for asynchronous placement and answers at once with
+     * 202 Accepted. The order is placed by a background worker; its outcome is polled at
+     * the URI in the Location header.
+     *
+     * @param request The items, payment method and payment details
+     * @param authentication The authenticated user
+     * @return ResponseEntity containing the intake status and its token
+     */
+    @PostMapping("/with-payment/async")
+    public ResponseEntity<ApiResponse<OrderIntakeStatus>> submitOrderWithPayment(@Valid @RequestBody OrderPaymentRequest request,
+                                                                                Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            // Get user ID from username would be handled in service
+            Long userId = 0L; // This would be retrieved from userService
+            OrderIntakeStatus intake = orderIntakeService.submit(userId, request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/intake/" + intake.token()))
+                    .body(ApiResponse.success("Order accepted for processing", intake));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (NoSuchElementException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves the status of an order accepted for asynchronous placement.
+     *
+     * @param token The token returned when the order was accepted
+     * @return ResponseEntity containing the intake status, with the order ID once placed
+     */
+    @GetMapping("/intake/{token}")
+    public ResponseEntity<ApiResponse<OrderIntakeStatus>> getIntakeStatus(@PathVariable String token) {
+        try {
+            OrderIntakeStatus intake = orderIntakeService.getStatus(token);
+            return ResponseEntity.ok(ApiResponse.success("Order intake status retrieved successfully", intake));
+        } catch (NoSuchElementException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
         } catch (Exception e) {
             return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -115,6 +300,19 @@ public class OrderController {
 
             Order order = orderService.updateOrderStatus(id, orderStatus);
             return ResponseEntity.ok(ApiResponse.success("Order status updated successfully", order));
+        } catch (IllegalStateException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PutMapping("/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<Long>>> cancelOrders(@RequestBody List<Long> orderIds) {
+        try {
+            List<Long> cancelled = orderService.cancelOrders(orderIds);
+            return ResponseEntity.ok(ApiResponse.success(cancelled.size() + " orders cancelled", cancelled));
         } catch (Exception e) {
             return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -140,6 +338,36 @@ public class OrderController {
         }
     }
 
+    /**
+     * Settles an order whose checkout is in doubt, after its payment was checked with the
+     * gateway: confirms it with the gateway's transaction ID, or cancels it and returns its
+     * stock if the payment was not taken.
+     * Requires ADMIN role.
+     *
+     * @param id The ID of the order
+     * @param paid Whether the gateway took the payment
+     * @param transactionId The gateway transaction ID, required if the payment was taken
+     * @return ResponseEntity containing the settled order
+     */
+    @PutMapping("/{id}/checkout/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Order>> reconcileCheckout(@PathVariable Long id,
+                                                                @RequestParam boolean paid,
+                                                                @RequestParam(required = false) String transactionId) {
+        try {
+            Order order = checkoutService.reconcile(id, paid, transactionId);
+            return ResponseEntity.ok(ApiResponse.success("Checkout reconciled successfully", order));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (NoSuchElementException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/by-status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<Order>>> getOrdersByStatus(@RequestParam String status) {
@@ -159,6 +387,36 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/by-status/summaries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<OrderDto>>> getOrderSummariesByStatus(@RequestParam String status) {
+        try {
+            Order.OrderStatus orderStatus;
+            try {
+                orderStatus = Order.OrderStatus.valueOf(status);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid order status: " + status, null));
+            }
+
+            List<OrderDto> orders = orderService.getOrderSummariesByStatus(orderStatus);
+            return ResponseEntity.ok(ApiResponse.success("Orders retrieved successfully", orders));
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/user/{userId}/summaries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Page<OrderDto>>> getOrderSummariesByUser(@PathVariable Long userId, Pageable pageable) {
+        try {
+            Page<OrderDto> orders = orderService.getOrderSummariesByUser(userId, pageable);
+            return ResponseEntity.ok(ApiResponse.success("User orders retrieved successfully", orders));
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/by-date")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<List<Order>>> getOrdersByDateRange(
@@ -183,4 +441,21 @@ public class OrderController {
             return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderStats>> getOrderStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("Start must be before end", null));
+        }
+        try {
+            OrderStats stats = orderAnalyticsService.getStats(start, end);
+            return ResponseEntity.ok(ApiResponse.success("Order statistics retrieved successfully", stats));
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -1,17 +1,49 @@
 package com.ideas2it.ecommerceapp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import com.ideas2it.ecommerceapp.dto.ApiResponse;
+import com.ideas2it.ecommerceapp.dto.CatalogSnapshot;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateRequest;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateResult;
+import com.ideas2it.ecommerceapp.dto.ProductCursorPage;
+import com.ideas2it.ecommerceapp.dto.ProductImportResult;
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
+import com.ideas2it.ecommerceapp.dto.StockDrift;
 import com.ideas2it.ecommerceapp.exception.GlobalExceptionHandler;
 import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.service.CatalogSnapshotService;
+import com.ideas2it.ecommerceapp.service.LowStockService;
+import com.ideas2it.ecommerceapp.service.ProductImportService;
+import com.ideas2it.ecommerceapp.service.ProductSearchService;
 import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.ShardedStockService;
+import com.ideas2it.ecommerceapp.service.StockMovementService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * REST controller for managing product-related operations.
@@ -22,9 +54,32 @@ import java.util.List;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private LowStockService lowStockService;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Retrieves all active products.
      *
@@ -40,6 +95,145 @@ public class ProductController {
         }
     }
 
+    /**
+     * Retrieves one page of active products using cursor-based pagination.
+     *
+     * @param cursor The cursor returned with the previous page; omit for the first page
+     * @param size The maximum number of products per page (defaults to 50)
+     * @param sort The ordering of the listing, either "id" or "price" (defaults to "id")
+     * @return ResponseEntity containing the page and the cursor for the next one
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<ProductCursorPage>> getProductPage(@RequestParam(required = false) String cursor,
+                                                                        @RequestParam(defaultValue = "50") int size,
+                                                                        @RequestParam(defaultValue = "id") String sort) {
+        try {
+            ProductCursorPage.SortKey sortKey;
+            try {
+                sortKey = ProductCursorPage.SortKey.valueOf(sort.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid sort key: " + sort, null));
+            }
+
+            ProductCursorPage page = productService.getProductPage(cursor, size, sortKey);
+            return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", page));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves a page of lightweight active product summaries without descriptions.
+     *
+     * @param afterId The ID of the last product on the previous page; omit for the first page
+     * @param size The maximum number of products per page (defaults to 50)
+     * @return ResponseEntity containing the product summaries
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<ApiResponse<List<ProductSummaryDto>>> getProductSummaries(@RequestParam(required = false) Long afterId,
+                                                                                   @RequestParam(defaultValue = "50") int size) {
+        try {
+            List<ProductSummaryDto> summaries = productService.getProductSummaries(afterId, size);
+            return ResponseEntity.ok(ApiResponse.success("Product summaries retrieved successfully", summaries));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Streams all active products as newline-delimited JSON, one product per line.
+     * The body is written while rows are read from the database, so it is not
+     * wrapped in an ApiResponse.
+     *
+     * @return ResponseEntity whose body streams the active catalog
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            productService.streamActiveProducts(product -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(product));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Searches active products by name and description.
+     * Answered from the in-memory search index without a database round trip.
+     *
+     * @param q The search terms; each term also matches words it is a prefix of
+     * @param minPrice The optional inclusive lower price bound
+     * @param maxPrice The optional inclusive upper price bound
+     * @param limit The maximum number of results (defaults to 20)
+     * @return ResponseEntity containing the matching products ordered by relevance
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<ProductSearchHit>>> searchProducts(@RequestParam String q,
+                                                                              @RequestParam(required = false) BigDecimal minPrice,
+                                                                              @RequestParam(required = false) BigDecimal maxPrice,
+                                                                              @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<ProductSearchHit> hits = productSearchService.search(q, minPrice, maxPrice, limit);
+            return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", hits));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves all active products from the pre-serialized catalog snapshot.
+     * The response carries a strong ETag; a matching If-None-Match is answered with 304.
+     *
+     * @param ifNoneMatch The ETags the client already holds
+     * @param acceptEncoding The encodings the client accepts; gzip is served when listed
+     * @return ResponseEntity containing the serialized catalog, or 304 if unchanged
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<?> getCatalogSnapshot(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            return snapshotResponse(catalogSnapshotService.getCatalogSnapshot(), ifNoneMatch, acceptEncoding);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves a specific product from its pre-serialized snapshot.
+     * The response carries a strong ETag; a matching If-None-Match is answered with 304.
+     *
+     * @param id The ID of the product to retrieve
+     * @param ifNoneMatch The ETags the client already holds
+     * @param acceptEncoding The encodings the client accepts; gzip is served when listed
+     * @return ResponseEntity containing the serialized product, or 304 if unchanged
+     */
+    @GetMapping("/catalog/{id}")
+    public ResponseEntity<?> getProductSnapshot(@PathVariable Long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            return snapshotResponse(catalogSnapshotService.getProductSnapshot(id), ifNoneMatch, acceptEncoding);
+        } catch (NoSuchElementException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Retrieves a specific product by its ID.
      *
@@ -75,6 +269,57 @@ public class ProductController {
         }
     }
 
+    /**
+     * Imports products in bulk from a CSV or JSON Lines request body.
+     * The body is streamed rather than buffered, so feeds of any size can be sent.
+     * Requires ADMIN role.
+     *
+     * @param format The body format, either "csv" (with a header row) or "jsonl" (defaults to "csv")
+     * @param body The raw request body
+     * @return ResponseEntity containing row counts, throughput and rejected rows
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON, MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductImportResult>> importProducts(@RequestParam(defaultValue = "csv") String format,
+                                                                          InputStream body) {
+        try {
+            ProductImportService.Format importFormat;
+            try {
+                importFormat = ProductImportService.Format.valueOf(format.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid import format: " + format, null));
+            }
+
+            ProductImportResult result = productImportService.importProducts(body, importFormat);
+            return ResponseEntity.ok(ApiResponse.success("Product import completed", result));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Applies a price, stock or status change to many products at once.
+     * Requires ADMIN role.
+     *
+     * @param request The change to apply, with either a list of product IDs or a filter
+     * @return ResponseEntity containing the number of matched, updated and skipped products
+     */
+    @PostMapping("/bulk-update")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ProductBulkUpdateResult>> bulkUpdateProducts(@RequestBody ProductBulkUpdateRequest request) {
+        try {
+            ProductBulkUpdateResult result = productService.bulkUpdateProducts(request);
+            return ResponseEntity.ok(ApiResponse.success("Products updated successfully", result));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Updates an existing product.
      * Requires ADMIN role.
@@ -94,6 +339,95 @@ public class ProductController {
         }
     }
 
+    /**
+     * Spreads the stock of a hot product over several shard rows, so concurrent
+     * purchases do not queue on one row. A count of 0 or 1 turns sharding off.
+     * Requires ADMIN role.
+     *
+     * @param id The ID of the product
+     * @param shards The number of shards
+     * @return ResponseEntity containing the product with its current stock
+     */
+    @PutMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Product>> setStockShards(@PathVariable Long id, @RequestParam int shards) {
+        try {
+            shardedStockService.setShardCount(id, shards);
+            return ResponseEntity.ok(ApiResponse.success("Stock shards updated successfully", productService.getProductById(id)));
+        } catch (IllegalArgumentException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (NoSuchElementException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves the stock movements of a product within a time range, oldest first.
+     * Requires ADMIN role.
+     *
+     * @param id The ID of the product
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, inclusive
+     * @param pageable Pagination information
+     * @return ResponseEntity containing a page of stock movements
+     */
+    @GetMapping("/{id}/stock-movements")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Page<StockMovement>>> getStockMovements(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Pageable pageable) {
+        try {
+            Page<StockMovement> movements = stockMovementService.getMovements(id, from, to, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Stock movements retrieved successfully", movements));
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Retrieves the stock a product had at a point in time, according to its movement journal.
+     * Requires ADMIN role.
+     *
+     * @param id The ID of the product
+     * @param time The point in time
+     * @return ResponseEntity containing the stock at that time
+     */
+    @GetMapping("/{id}/stock-at")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> getStockAt(@PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        try {
+            int stock = stockMovementService.getStockAt(id, time);
+            return ResponseEntity.ok(ApiResponse.success("Stock retrieved successfully", stock));
+        } catch (NoSuchElementException e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Compares the stored stock of every product with its movement journal.
+     * Requires ADMIN role.
+     *
+     * @return ResponseEntity containing the products whose stock differs from their journal
+     */
+    @GetMapping("/stock-reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<StockDrift>>> reconcileStock() {
+        try {
+            List<StockDrift> drifts = stockMovementService.reconcile();
+            return ResponseEntity.ok(ApiResponse.success("Stock reconciled successfully", drifts));
+        } catch (Exception e) {
+            return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Soft deletes a product by setting its active status to false.
      * Requires ADMIN role.
@@ -113,7 +447,7 @@ public class ProductController {
     }
 
     /**
-     * Retrieves products with stock quantities below a specified threshold.
+     * Retrieves active products with stock quantities below a specified threshold.
      * Requires ADMIN role.
      *
      * @param threshold The stock level threshold (defaults to 10)
@@ -129,4 +463,44 @@ public class ProductController {
             return GlobalExceptionHandler.errorResponseEntity(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Opens a server-sent event stream of low-stock threshold crossings, so dashboards
+     * are told when a product falls below or clears a threshold instead of polling.
+     * Requires ADMIN role.
+     *
+     * @return The event stream; each event is named "low-stock"
+     */
+    @GetMapping(value = "/low-stock/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamLowStockEvents() {
+        return lowStockService.subscribe();
+    }
+
+    private ResponseEntity<byte[]> snapshotResponse(CatalogSnapshot snapshot, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && Arrays.stream(acceptEncoding.split(","))
+                .map(encoding -> encoding.trim().split(";")[0])
+                .anyMatch("gzip"::equalsIgnoreCase);
+        String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+
+        // If-None-Match uses weak comparison, so a W/ prefix is ignored
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(candidate -> candidate.startsWith("W/") ? candidate.substring(2) : candidate)
+                .anyMatch(candidate -> candidate.equals("*") || candidate.equals(etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(gzip ? snapshot.gzip() : snapshot.json());
+    }
 }
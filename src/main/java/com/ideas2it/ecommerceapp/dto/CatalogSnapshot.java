@@ -0,0 +1,25 @@
+package com.ideas2it.ecommerceapp.dto;
+
+/**
+ * A pre-serialized JSON response body together with its gzip encoding and strong ETags.
+ * The byte arrays are shared between requests and must never be modified.
+ */
+public record CatalogSnapshot(
+    byte[] json,
+
+    byte[] gzip,
+
+    String etag,
+
+    String gzipEtag
+) {
+    // Compact canonical constructor for validation
+    public CatalogSnapshot {
+        if (json == null || gzip == null) {
+            throw new IllegalArgumentException("Snapshot content cannot be null");
+        }
+        if (etag == null || gzipEtag == null) {
+            throw new IllegalArgumentException("Snapshot ETags cannot be null");
+        }
+    }
+}
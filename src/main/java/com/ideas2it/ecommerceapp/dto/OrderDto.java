@@ -35,6 +35,16 @@ public record OrderDto(
 
     Set<OrderItemDto> items
 ) {
+    // Header-only constructor used by JPQL projections; items are attached with withItems
+    public OrderDto(Long id, Long userId, LocalDateTime orderDate, Order.OrderStatus status, BigDecimal totalAmount,
+                    Order.PaymentStatus paymentStatus, String paymentMethod, String shippingAddress) {
+        this(id, userId, orderDate, status, totalAmount, paymentStatus, paymentMethod, shippingAddress, Set.of());
+    }
+
+    public OrderDto withItems(Set<OrderItemDto> orderItems) {
+        return new OrderDto(id, userId, orderDate, status, totalAmount, paymentStatus, paymentMethod, shippingAddress, orderItems);
+    }
+
     // Compact canonical constructor for validation
     public OrderDto {
         if (userId == null) {
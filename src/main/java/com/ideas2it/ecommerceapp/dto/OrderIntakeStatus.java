@@ -0,0 +1,28 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import com.ideas2it.ecommerceapp.model.OrderIntake;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where an asynchronously placed order stands. The order id is set once it is placed,
+ * the failure reason once it has failed.
+ */
+public record OrderIntakeStatus(
+    String token,
+
+    OrderIntake.IntakeStatus status,
+
+    Long orderId,
+
+    String failureReason,
+
+    LocalDateTime acceptedAt,
+
+    LocalDateTime updatedAt
+) {
+    public static OrderIntakeStatus of(OrderIntake intake) {
+        return new OrderIntakeStatus(intake.getToken(), intake.getStatus(), intake.getOrderId(),
+                intake.getFailureReason(), intake.getAcceptedAt(), intake.getUpdatedAt());
+    }
+}
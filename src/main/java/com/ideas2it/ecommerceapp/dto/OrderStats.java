@@ -0,0 +1,25 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import com.ideas2it.ecommerceapp.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * The number and total amount of the orders placed within a range, by their current status.
+ * The range is the one actually covered, which may be wider than the one asked for
+ * because it is made up of whole minutes, hours or days.
+ */
+public record OrderStats(
+    LocalDateTime start,
+
+    LocalDateTime end,
+
+    long totalOrders,
+
+    Map<Order.OrderStatus, Long> orders,
+
+    Map<Order.OrderStatus, BigDecimal> revenue
+) {
+}
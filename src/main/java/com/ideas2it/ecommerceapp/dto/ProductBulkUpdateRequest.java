@@ -0,0 +1,58 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A bulk mutation applied to a set of products. Targets are given either as an
+ * explicit id list or as a filter, never both.
+ * {@code value} is the percentage for PRICE_PERCENT, the new price for PRICE_SET,
+ * the amount to add for PRICE_DELTA and STOCK_DELTA, and is ignored for
+ * ACTIVATE and DEACTIVATE.
+ */
+public record ProductBulkUpdateRequest(
+    List<Long> productIds,
+
+    Filter filter,
+
+    Operation operation,
+
+    BigDecimal value
+) {
+    public enum Operation {
+        PRICE_PERCENT, PRICE_SET, PRICE_DELTA, STOCK_DELTA, ACTIVATE, DEACTIVATE
+    }
+
+    /**
+     * Selects products by attribute; null bounds are not applied.
+     */
+    public record Filter(Boolean active, BigDecimal minPrice, BigDecimal maxPrice) {
+    }
+
+    // Compact canonical constructor for validation
+    public ProductBulkUpdateRequest {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation is required");
+        }
+        if ((productIds == null) == (filter == null)) {
+            throw new IllegalArgumentException("Exactly one of productIds or filter must be given");
+        }
+        if (productIds != null && productIds.stream().anyMatch(id -> id == null)) {
+            throw new IllegalArgumentException("Product IDs cannot contain null");
+        }
+        boolean needsValue = operation != Operation.ACTIVATE && operation != Operation.DEACTIVATE;
+        if (needsValue && value == null) {
+            throw new IllegalArgumentException("A value is required for " + operation);
+        }
+        if (operation == Operation.STOCK_DELTA && value.stripTrailingZeros().scale() > 0) {
+            throw new IllegalArgumentException("Stock delta must be a whole number");
+        }
+        if (operation == Operation.PRICE_PERCENT && value.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new IllegalArgumentException("Price percentage must be greater than -100");
+        }
+        if (operation == Operation.PRICE_SET && value.signum() < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        productIds = productIds == null ? null : List.copyOf(productIds);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ideas2it.ecommerceapp.dto;
+
+/**
+ * Outcome of a bulk product update. {@code skipped} counts targeted products that
+ * were left unchanged, either because they do not exist or because the change
+ * would have made their price or stock negative.
+ */
+public record ProductBulkUpdateResult(
+    long matched,
+
+    long updated,
+
+    long skipped,
+
+    int chunks
+) {
+    // Compact canonical constructor for validation
+    public ProductBulkUpdateResult {
+        if (matched < 0 || updated < 0 || skipped < 0) {
+            throw new IllegalArgumentException("Counts cannot be negative");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import com.ideas2it.ecommerceapp.model.Product;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product listing.
+ * {@code nextCursor} is opaque to clients and is null on the last page.
+ */
+public record ProductCursorPage(
+    List<Product> items,
+
+    String nextCursor,
+
+    boolean hasMore
+) {
+    public enum SortKey {
+        ID, PRICE
+    }
+
+    // Compact canonical constructor for validation
+    public ProductCursorPage {
+        if (items == null) {
+            throw new IllegalArgumentException("Items cannot be null");
+        }
+        if (hasMore && nextCursor == null) {
+            throw new IllegalArgumentException("Next cursor is required when more items are available");
+        }
+    }
+}
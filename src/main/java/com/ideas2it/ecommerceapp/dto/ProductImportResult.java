@@ -0,0 +1,34 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import. Only the first rejected rows are listed in
+ * {@code errors}; {@code failed} always holds the full count.
+ */
+public record ProductImportResult(
+    long rowsRead,
+
+    long imported,
+
+    long failed,
+
+    int batches,
+
+    long elapsedMillis,
+
+    double rowsPerSecond,
+
+    List<RowError> errors
+) {
+    public record RowError(long row, String message) {
+    }
+
+    // Compact canonical constructor for validation
+    public ProductImportResult {
+        if (rowsRead < 0 || imported < 0 || failed < 0) {
+            throw new IllegalArgumentException("Row counts cannot be negative");
+        }
+        errors = errors == null ? List.of() : List.copyOf(errors);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSearchHit(
+    Long id,
+
+    String name,
+
+    BigDecimal price,
+
+    String imageUrl,
+
+    double score
+) {
+    // Compact canonical constructor for validation
+    public ProductSearchHit {
+        if (id == null) {
+            throw new IllegalArgumentException("Product ID cannot be null");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ideas2it.ecommerceapp.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only listing view of a product. It leaves out the description, which is
+ * by far the largest column and is only needed on the product detail page.
+ */
+public record ProductSummaryDto(
+    Long id,
+
+    String name,
+
+    BigDecimal price,
+
+    Integer stockQuantity,
+
+    String imageUrl
+) {
+    // Compact canonical constructor for validation
+    public ProductSummaryDto {
+        if (id == null) {
+            throw new IllegalArgumentException("Product ID cannot be null");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ideas2it.ecommerceapp.dto;
+
+/**
+ * A product whose stored stock differs from the stock its movement journal adds up to.
+ */
+public record StockDrift(
+    Long productId,
+
+    int storedStock,
+
+    int journaledStock
+) {
+    public int difference() {
+        return storedStock - journaledStock;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ideas2it.ecommerceapp.exception;
+
+/**
+ * Thrown when a checkout fails after its order was reserved, so that the stock, and
+ * possibly the payment, of the order were already taken.
+ */
+public class CheckoutFailedException extends RuntimeException {
+    private final Long orderId;
+
+    public CheckoutFailedException(Long orderId, String message, Throwable cause) {
+        super(message, cause);
+        this.orderId = orderId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ideas2it.ecommerceapp.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
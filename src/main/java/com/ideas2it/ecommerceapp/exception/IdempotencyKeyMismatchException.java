@@ -0,0 +1,7 @@
+package com.ideas2it.ecommerceapp.exception;
+
+public class IdempotencyKeyMismatchException extends IdempotencyConflictException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
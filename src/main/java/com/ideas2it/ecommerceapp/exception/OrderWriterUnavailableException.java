@@ -0,0 +1,7 @@
+package com.ideas2it.ecommerceapp.exception;
+
+public class OrderWriterUnavailableException extends IllegalStateException {
+    public OrderWriterUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,190 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for large numbers of timeouts with coarse precision.
+ * Time is divided into ticks and a timeout is hashed into the bucket of the tick
+ * it falls due in; timeouts more than one revolution away also count the rounds
+ * they still have to wait. Scheduling and cancelling are O(1) and a tick only
+ * touches its own bucket, so the cost of the clock does not grow with the number
+ * of pending timeouts the way a priority queue or one scheduled task per timeout
+ * does. Timeouts fire up to one tick late, never early.
+ *
+ * <p>Any thread may schedule or cancel. {@link #advance} must be driven by a single
+ * thread; new and cancelled timeouts are handed over to it through queues.
+ *
+ * @param <T> The payload carried by each timeout
+ */
+public class HashedTimingWheel<T> {
+
+    private static final int ACTIVE = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<Set<Timeout<T>>> buckets;
+    private final int mask;
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // Next tick to process; only read and written by the advancing thread
+    private long tick;
+
+    /**
+     * A scheduled timeout. It ends exactly once, either cancelled or expired.
+     *
+     * @param <T> The payload type
+     */
+    public static final class Timeout<T> {
+        private final HashedTimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineMillis;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+        private long remainingRounds;
+        private int bucket = -1;
+
+        private Timeout(HashedTimingWheel<T> wheel, T payload, long deadlineMillis) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public long deadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return True if the timeout was still pending, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ACTIVE, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * @param tickMillis The length of one tick, which is also the timing precision
+     * @param ticksPerWheel The number of buckets; rounded up to a power of two
+     * @param startMillis The time the wheel starts at
+     */
+    public HashedTimingWheel(long tickMillis, int ticksPerWheel, long startMillis) {
+        if (tickMillis < 1 || ticksPerWheel < 1) {
+            throw new IllegalArgumentException("Tick length and wheel size must be positive");
+        }
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Schedules a timeout.
+     *
+     * @param payload The payload handed to the expiry callback
+     * @param deadlineMillis The time at which the timeout expires
+     * @return A handle that can cancel the timeout
+     */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(this, payload, deadlineMillis);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Processes every tick that has ended by the given time and hands each expired
+     * payload to the callback, in tick order.
+     *
+     * @param nowMillis The current time
+     * @param onExpiry Receives the payload of every timeout that expired
+     * @return The number of expired timeouts
+     */
+    public int advance(long nowMillis, Consumer<T> onExpiry) {
+        int expired = 0;
+        while (startMillis + (tick + 1) * tickMillis <= nowMillis) {
+            transferScheduled();
+            removeCancelled();
+            Iterator<Timeout<T>> bucket = buckets.get((int) (tick & mask)).iterator();
+            while (bucket.hasNext()) {
+                Timeout<T> timeout = bucket.next();
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                    continue;
+                }
+                bucket.remove();
+                if (timeout.state.compareAndSet(ACTIVE, EXPIRED)) {
+                    pending.decrementAndGet();
+                    onExpiry.accept(timeout.payload);
+                    expired++;
+                }
+            }
+            tick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the number of timeouts that have neither expired nor been cancelled.
+     *
+     * @return The pending timeout count
+     */
+    public int size() {
+        return pending.get();
+    }
+
+    private void transferScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state.get() != ACTIVE) {
+                continue;
+            }
+            // The tick during which the deadline passes; overdue timeouts go into the current tick
+            long dueTick = Math.max(Math.floorDiv(timeout.deadlineMillis - startMillis, tickMillis), tick);
+            timeout.remainingRounds = (dueTick - tick) / buckets.size();
+            timeout.bucket = (int) (dueTick & mask);
+            buckets.get(timeout.bucket).add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // Timeouts not transferred yet are skipped by transferScheduled instead
+            if (timeout.bucket >= 0) {
+                buckets.get(timeout.bucket).remove(timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-process claims on the stock shard rows of one product. A transaction claims a
+ * shard before updating its row and keeps the claim until it completes, so no two
+ * transactions of this instance ever wait on the same shard row.
+ *
+ * <p>That matters because a guarded UPDATE which waits for a row and then finds too
+ * little stock still holds the row lock until its transaction ends. A buyer that
+ * moved on to another shard while holding such a lock could deadlock with a buyer
+ * doing the same the other way round. With claims, an UPDATE that matches nothing
+ * has not waited and holds nothing, so the buyer can release the claim at once.
+ * A rebalance claims every shard, which waits for the buyers in flight to finish.
+ *
+ * <p>At any time the number of free permits is at most the number of unclaimed shards,
+ * so a thread holding a permit always finds a shard to claim.
+ */
+public class ShardClaims {
+
+    private final int shards;
+    private final Semaphore permits;
+    private final AtomicIntegerArray claimed;
+
+    public ShardClaims(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shards = shards;
+        // Fair, so a rebalance waiting for every permit is not starved by new buyers
+        this.permits = new Semaphore(shards, true);
+        this.claimed = new AtomicIntegerArray(shards);
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    /**
+     * Claims any unclaimed shard, waiting while all of them are claimed.
+     *
+     * @param start The shard to look at first, so concurrent callers spread out
+     * @param timeoutMillis How long to wait for a shard
+     * @return The claimed shard index, or -1 if none became free in time
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public int claimAny(int start, long timeoutMillis) throws InterruptedException {
+        if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return -1;
+        }
+        for (int i = 0; ; i++) {
+            int shard = Math.floorMod(start + i, shards);
+            if (claimed.compareAndSet(shard, 0, 1)) {
+                return shard;
+            }
+        }
+    }
+
+    /**
+     * Claims a specific shard if it is unclaimed, without waiting.
+     *
+     * @param shard The shard index
+     * @return True if the shard was claimed
+     */
+    public boolean tryClaim(int shard) {
+        if (shard < 0 || shard >= shards || !permits.tryAcquire()) {
+            return false;
+        }
+        if (claimed.compareAndSet(shard, 0, 1)) {
+            return true;
+        }
+        permits.release();
+        return false;
+    }
+
+    /**
+     * Releases a claim taken by {@link #claimAny} or {@link #tryClaim}.
+     *
+     * @param shard The shard index
+     */
+    public void release(int shard) {
+        claimed.set(shard, 0);
+        permits.release();
+    }
+
+    /**
+     * Claims every shard, waiting for current claims to be released.
+     * The caller must not hold a claim on this product itself.
+     *
+     * @param timeoutMillis How long to wait
+     * @return True if all shards were claimed, false on timeout
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public boolean claimAll(long timeoutMillis) throws InterruptedException {
+        return permits.tryAcquire(shards, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Releases the claim taken by {@link #claimAll}.
+     */
+    public void releaseAll() {
+        permits.release(shards);
+    }
+}
@@ -0,0 +1,249 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of stock movements, split into segment files.
+ * Every entry carries a sequence number that increases by one per entry, so a
+ * checkpoint is a single number: everything at or below it has been written to
+ * the database and everything above it must be replayed after a restart.
+ * Each record ends with a CRC; a torn record at the end of the last segment, as
+ * left by a crash mid-write, is discarded on open.
+ *
+ * <p>Records are written straight to the file channel, so they survive a crash of
+ * the process as soon as append returns. Surviving a crash of the machine needs
+ * synchronous writes, which cost one device flush per entry.
+ */
+public class StockJournal implements AutoCloseable {
+
+    // sequence (8) + product id (8) + delta (4) + crc (4)
+    static final int RECORD_SIZE = 24;
+
+    private static final String SEGMENT_PREFIX = "stock-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean syncWrites;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private long lastSequence;
+
+    /**
+     * A single stock movement.
+     */
+    public record Entry(long sequence, long productId, int delta) {
+    }
+
+    /**
+     * @param directory The directory holding the segment files; created if missing
+     * @param segmentBytes The size after which a new segment is started
+     * @param syncWrites Whether each append waits until the record is on the storage device
+     */
+    public StockJournal(Path directory, long segmentBytes, boolean syncWrites) {
+        if (segmentBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment size must hold at least one record");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Returns whether the directory holds any segment files.
+     *
+     * @return True if there is an existing journal
+     */
+    public boolean exists() {
+        return !segments().isEmpty();
+    }
+
+    /**
+     * Reads the journal and prepares it for appending.
+     *
+     * @param afterSequence The checkpoint; entries at or below it are skipped
+     * @param replay Receives every entry above the checkpoint, in sequence order
+     * @return The sequence number of the last entry in the journal, or the checkpoint if it is higher
+     */
+    public synchronized long open(long afterSequence, Consumer<Entry> replay) {
+        try {
+            Files.createDirectories(directory);
+            lastSequence = afterSequence;
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                readSegment(segments.get(i), i == segments.size() - 1, afterSequence, replay);
+            }
+            Path active = segments.isEmpty() ? segmentPath(lastSequence + 1) : segments.get(segments.size() - 1);
+            channel = openForAppend(active);
+            return lastSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open stock journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a movement and assigns it the next sequence number.
+     *
+     * @param productId The product whose stock moved
+     * @param delta The change in available stock
+     * @return The sequence number of the new entry
+     */
+    public synchronized long append(long productId, int delta) {
+        if (channel == null) {
+            throw new IllegalStateException("Stock journal is not open");
+        }
+        long sequence = lastSequence + 1;
+        buffer.clear();
+        buffer.putLong(sequence).putLong(productId).putInt(delta);
+        crc.reset();
+        crc.update(buffer.array(), 0, RECORD_SIZE - 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to stock journal", e);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence number of the most recent entry.
+     *
+     * @return The last assigned sequence number
+     */
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Drops segments that lie entirely at or below the checkpoint, first starting a
+     * new segment if the active one has grown past the segment size.
+     *
+     * @param checkpoint The highest sequence number that is safely in the database
+     */
+    public synchronized void truncate(long checkpoint) {
+        try {
+            if (channel != null && channel.size() >= segmentBytes) {
+                channel.close();
+                channel = openForAppend(segmentPath(lastSequence + 1));
+            }
+            List<Path> segments = segments();
+            // A segment is obsolete once the segment after it starts at or below checkpoint + 1
+            for (int i = 0; i < segments.size() - 1; i++) {
+                if (firstSequence(segments.get(i + 1)) - 1 > checkpoint) {
+                    break;
+                }
+                Files.delete(segments.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate stock journal", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close stock journal", e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private void readSegment(Path segment, boolean last, long afterSequence, Consumer<Entry> replay) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        long validBytes = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (true) {
+                record.clear();
+                while (record.hasRemaining()) {
+                    if (in.read(record) <= 0) {
+                        break;
+                    }
+                }
+                if (record.hasRemaining() || !intact(record)) {
+                    break;
+                }
+                record.flip();
+                Entry entry = new Entry(record.getLong(), record.getLong(), record.getInt());
+                if (entry.sequence() > afterSequence && entry.sequence() != lastSequence + 1) {
+                    throw new IllegalStateException("Stock journal has a gap before sequence " + entry.sequence()
+                            + " in " + segment.getFileName());
+                }
+                if (entry.sequence() > afterSequence) {
+                    replay.accept(entry);
+                }
+                lastSequence = Math.max(lastSequence, entry.sequence());
+                validBytes += RECORD_SIZE;
+            }
+        }
+        if (validBytes < Files.size(segment)) {
+            if (!last) {
+                throw new IllegalStateException("Stock journal segment " + segment.getFileName() + " is corrupt");
+            }
+            // Only the tail of the newest segment can be torn; cut it off before appending
+            try (FileChannel out = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                out.truncate(validBytes);
+            }
+        }
+    }
+
+    private boolean intact(ByteBuffer record) {
+        crc.reset();
+        crc.update(record.array(), 0, RECORD_SIZE - 4);
+        return record.getInt(RECORD_SIZE - 4) == (int) crc.getValue();
+    }
+
+    private FileChannel openForAppend(Path segment) throws IOException {
+        return syncWrites
+                ? FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC)
+                : FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            // Zero-padded names sort in sequence order
+            segments.sort(null);
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list stock journal segments", e);
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,234 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongToIntFunction;
+
+/**
+ * In-memory available-stock counters, authoritative while the ledger is in use.
+ * Products are spread over a fixed number of lock stripes, so buyers of different
+ * products rarely wait on each other and buyers of the same product hold a lock
+ * only for a counter check and a journal append, never for a database round trip.
+ *
+ * <p>Besides the available stock, each counter keeps the net movement that has not
+ * yet been written to the database. {@link #drain()} takes those movements for all
+ * products together with the journal sequence they cover, which is what makes the
+ * database checkpoint exact.
+ */
+public class StockLedger {
+
+    private final StockJournal journal;
+    private final ReentrantLock[] locks;
+    private final Map<Long, Counter>[] counters;
+
+    /**
+     * The movements taken by one drain.
+     *
+     * @param deltas Net change in stock per product since the previous drain
+     * @param sequence The last journal sequence included in the deltas
+     */
+    public record Drain(Map<Long, Integer> deltas, long sequence) {
+    }
+
+    private static final class Counter {
+        private int available;
+        private int pending;
+
+        private Counter(int available) {
+            this.available = available;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public StockLedger(StockJournal journal, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        this.journal = journal;
+        this.locks = new ReentrantLock[stripes];
+        this.counters = new Map[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+            counters[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Takes stock if enough is available and journals the movement.
+     * A product seen for the first time is loaded through the loader while its stripe
+     * is locked, so concurrent first reservations load it only once.
+     *
+     * @param productId The product to reserve
+     * @param quantity The quantity to take
+     * @param loader Returns the persisted stock of a product not held yet
+     * @return True if the stock was reserved, false if too little was available
+     */
+    public boolean reserve(long productId, int quantity, LongToIntFunction loader) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int stripe = stripe(productId);
+        locks[stripe].lock();
+        try {
+            Counter counter = counters[stripe].computeIfAbsent(productId, id -> new Counter(loader.applyAsInt(id)));
+            if (counter.available < quantity) {
+                return false;
+            }
+            journal.append(productId, -quantity);
+            counter.available -= quantity;
+            counter.pending -= quantity;
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Returns stock, for example when the order that reserved it is rolled back.
+     *
+     * @param productId The product to return stock to
+     * @param quantity The quantity to return
+     * @param loader Returns the persisted stock of a product not held yet
+     */
+    public void release(long productId, int quantity, LongToIntFunction loader) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        int stripe = stripe(productId);
+        locks[stripe].lock();
+        try {
+            Counter counter = counters[stripe].computeIfAbsent(productId, id -> new Counter(loader.applyAsInt(id)));
+            journal.append(productId, quantity);
+            counter.available += quantity;
+            counter.pending += quantity;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Re-applies a journal entry during recovery without journaling it again.
+     * The movement counts as unwritten until the next drain.
+     *
+     * @param entry The entry to replay
+     * @param loader Returns the persisted stock of a product not held yet
+     */
+    public void replay(StockJournal.Entry entry, LongToIntFunction loader) {
+        int stripe = stripe(entry.productId());
+        locks[stripe].lock();
+        try {
+            Counter counter = counters[stripe].computeIfAbsent(entry.productId(), id -> new Counter(loader.applyAsInt(id)));
+            counter.available += entry.delta();
+            counter.pending += entry.delta();
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Takes the unwritten movements of all products. All stripes are locked for the
+     * duration, which is a map scan, so the deltas and the journal sequence match.
+     *
+     * @return The movements to write and the sequence they cover
+     */
+    public Drain drain() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            Map<Long, Integer> deltas = new HashMap<>();
+            for (Map<Long, Counter> stripe : counters) {
+                stripe.forEach((productId, counter) -> {
+                    if (counter.pending != 0) {
+                        deltas.put(productId, counter.pending);
+                        counter.pending = 0;
+                    }
+                });
+            }
+            return new Drain(deltas, journal.lastSequence());
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Puts back movements whose database write failed, so the next drain retries them.
+     *
+     * @param drain The drain that could not be written
+     */
+    public void restore(Drain drain) {
+        drain.deltas().forEach((productId, delta) -> {
+            int stripe = stripe(productId);
+            locks[stripe].lock();
+            try {
+                Counter counter = counters[stripe].get(productId);
+                if (counter != null) {
+                    counter.pending += delta;
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        });
+    }
+
+    /**
+     * Realigns a counter with stock that was changed in the database by something
+     * other than the ledger. Movements not yet written are kept on top of it.
+     *
+     * @param productId The product to realign
+     * @param persistedStock The stock now stored in the database
+     */
+    public void resync(long productId, int persistedStock) {
+        int stripe = stripe(productId);
+        locks[stripe].lock();
+        try {
+            Counter counter = counters[stripe].get(productId);
+            if (counter != null) {
+                counter.available = Math.max(0, persistedStock + counter.pending);
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Returns whether the ledger holds a counter for the product.
+     *
+     * @param productId The product ID
+     * @return True if the product's stock is held in memory
+     */
+    public boolean isTracked(long productId) {
+        int stripe = stripe(productId);
+        locks[stripe].lock();
+        try {
+            return counters[stripe].containsKey(productId);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Returns the available stock held for a product.
+     *
+     * @param productId The product ID
+     * @return The available stock, or -1 if the product is not held
+     */
+    public int available(long productId) {
+        int stripe = stripe(productId);
+        locks[stripe].lock();
+        try {
+            Counter counter = counters[stripe].get(productId);
+            return counter == null ? -1 : counter.available;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    private int stripe(long productId) {
+        // Spread sequential ids over the stripes
+        return Math.floorMod(Long.hashCode(productId) * 0x9E3779B9, locks.length);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ideas2it.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The progress of an order paid for at checkout. Stock is reserved and the order
+ * committed before the payment gateway is called, outside any transaction, and the
+ * checkout records how far that got, so an interrupted checkout can be confirmed or
+ * compensated later.
+ *
+ * <p>RESERVED: the order and its stock are committed, the gateway has not been called.
+ * PAYING: the gateway is being called. CONFIRMED: paid and the order is processing.
+ * COMPENSATED: not paid, the order is cancelled and its stock returned. IN_DOUBT: the
+ * gateway may or may not have taken the payment; the stock stays reserved until an
+ * administrator reconciles the checkout with the gateway.
+ */
+@Entity
+@Table(name = "checkouts", indexes = {
+        @Index(name = "idx_checkouts_state", columnList = "state, updated_at"),
+        @Index(name = "idx_checkouts_intake", columnList = "intake_token")
+})
+@Data
+public class Checkout {
+    // States in which the order is still settled by the checkout itself, by the recovery or by reconciliation
+    public static final List<CheckoutState> UNSETTLED_STATES =
+            List.of(CheckoutState.RESERVED, CheckoutState.PAYING, CheckoutState.IN_DOUBT);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, unique = true)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private String paymentMethod;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CheckoutState state;
+
+    // Set once the gateway has taken the payment
+    private String transactionId;
+
+    private String failureReason;
+
+    // Token of the order intake that placed the order, if it was placed asynchronously
+    @Column(name = "intake_token", length = 36)
+    private String intakeToken;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum CheckoutState {
+        RESERVED, PAYING, CONFIRMED, COMPENSATED, IN_DOUBT
+    }
+
+    public Checkout() {
+        // Default constructor
+    }
+
+    public Checkout(Long orderId, String paymentMethod, BigDecimal amount) {
+        this.orderId = orderId;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.state = CheckoutState.RESERVED;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+}
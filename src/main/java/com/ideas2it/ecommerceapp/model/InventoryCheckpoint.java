@@ -0,0 +1,36 @@
+package com.ideas2it.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Highest stock journal sequence whose movements are in the products table.
+ * There is a single row; it is updated in the same transaction as the stock it covers.
+ */
+@Entity
+@Table(name = "inventory_checkpoints")
+@Data
+public class InventoryCheckpoint {
+    public static final long LEDGER_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long lastSequence;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public InventoryCheckpoint() {
+        // Default constructor
+    }
+
+    public InventoryCheckpoint(Long id, Long lastSequence) {
+        this.id = id;
+        this.lastSequence = lastSequence;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -12,9 +12,25 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_date", columnList = "status, orderDate"),
+        @Index(name = "idx_orders_user_date", columnList = "user_id, orderDate"),
+        @Index(name = "idx_orders_date", columnList = "orderDate")
+})
+@NamedEntityGraph(name = Order.DETAILS_GRAPH,
+        attributeNodes = {
+            @NamedAttributeNode(value = "user", subgraph = "user"),
+            @NamedAttributeNode(value = "items", subgraph = "items")
+        },
+        subgraphs = {
+            @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("roles")),
+            @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("product"))
+        })
 @Data
 public class Order {
+    // Everything an order response serializes: the user with its roles, and the items with their products
+    public static final String DETAILS_GRAPH = "Order.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
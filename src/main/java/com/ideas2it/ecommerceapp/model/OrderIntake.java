@@ -0,0 +1,73 @@
+package com.ideas2it.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An order request accepted for asynchronous placement. The lines and the payment
+ * method are stored; payment details never are, they are only held in memory until
+ * a worker places the order.
+ */
+@Entity
+@Table(name = "order_intakes", indexes = {
+        @Index(name = "idx_order_intakes_status", columnList = "status, id")
+})
+@Data
+public class OrderIntake {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Handed to the client to poll with; not guessable, unlike the id
+    @Column(nullable = false, unique = true, length = 36)
+    private String token;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "order_intake_lines", joinColumns = @JoinColumn(name = "intake_id"))
+    @MapKeyColumn(name = "product_id")
+    @Column(name = "quantity", nullable = false)
+    private Map<Long, Integer> quantities = new HashMap<>();
+
+    @Column(nullable = false)
+    private String paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IntakeStatus status;
+
+    // Set once the order is placed
+    private Long orderId;
+
+    private String failureReason;
+
+    @Column(nullable = false)
+    private LocalDateTime acceptedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum IntakeStatus {
+        QUEUED, PROCESSING, COMPLETED, FAILED
+    }
+
+    public OrderIntake() {
+        // Default constructor
+    }
+
+    public OrderIntake(String token, Long userId, Map<Long, Integer> quantities, String paymentMethod) {
+        this.token = token;
+        this.userId = userId;
+        this.quantities = new HashMap<>(quantities);
+        this.paymentMethod = paymentMethod;
+        this.status = IntakeStatus.QUEUED;
+        this.acceptedAt = LocalDateTime.now();
+        this.updatedAt = this.acceptedAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ideas2it.ecommerceapp.model;
+
+import com.ideas2it.ecommerceapp.analytics.OrderRollups;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The orders placed within one minute, hour or day that currently have one status,
+ * and their total amount. Rows are only ever incremented, by the deltas each instance
+ * flushes, so several instances can share the table.
+ */
+@Entity
+@Table(name = "order_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"granularity", "bucket_start", "status"}))
+@Data
+public class OrderRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private OrderRollups.Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    public OrderRollup() {
+        // Default constructor
+    }
+}
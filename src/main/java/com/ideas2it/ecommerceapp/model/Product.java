@@ -1,5 +1,6 @@
 package com.ideas2it.ecommerceapp.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -11,7 +12,9 @@ import org.springframework.security.core.parameters.P;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_stock", columnList = "stockQuantity")
+})
 @Data
 public class Product {
     @Id
@@ -37,6 +40,11 @@ public class Product {
     @Column(nullable = false)
     private Integer stockQuantity;
 
+    // Number of stock shards for a hot product, or null while its stock is this single counter.
+    // While sharded, stockQuantity is a copy of the shard total written back periodically
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer stockShards;
+
     private String imageUrl;
 
     @NotNull(message = "Active status is required")
@@ -0,0 +1,39 @@
+package com.ideas2it.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * One slice of the stock of a product whose stock is sharded. Buyers decrement
+ * a randomly chosen slice, so concurrent purchases of a hot product lock different
+ * rows instead of all queueing on the products row. The stock of the product is
+ * the sum of its slices.
+ */
+@Entity
+@Table(name = "product_stock_shards",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "shard_index"}))
+@Data
+public class ProductStockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public ProductStockShard() {
+        // Default constructor
+    }
+
+    public ProductStockShard(Long productId, Integer shardIndex, Integer quantity) {
+        this.productId = productId;
+        this.shardIndex = shardIndex;
+        this.quantity = quantity;
+    }
+}
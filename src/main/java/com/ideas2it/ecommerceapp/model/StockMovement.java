@@ -0,0 +1,56 @@
+package com.ideas2it.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to the stock of a product. Movements are only ever appended; the stock
+ * of a product at any time is the sum of its movements up to then.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_product_time", columnList = "product_id, occurred_at"),
+        @Index(name = "idx_stock_movements_time", columnList = "occurred_at")
+})
+@Data
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Signed; negative for stock leaving
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false)
+    private MovementType type;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public enum MovementType {
+        // Stock a product had when it was created or when journaling started
+        OPENING,
+        SALE,
+        // Stock returned by a cancelled order
+        RESTOCK,
+        // Set or changed by an administrator
+        ADJUSTMENT
+    }
+
+    public StockMovement() {
+        // Default constructor
+    }
+
+    public StockMovement(Long productId, Integer quantity, MovementType type) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.type = type;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ideas2it.ecommerceapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The stock of a product implied by all of its movements before a point in time.
+ * A snapshot is only written for products that moved since the previous one, so the
+ * latest snapshot of a product at or before any time, plus the movements after it,
+ * gives its stock at that time.
+ */
+@Entity
+@Table(name = "stock_snapshots",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "taken_at"}))
+@Data
+public class StockSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "stock_quantity", nullable = false)
+    private Integer stockQuantity;
+
+    // Covers movements that occurred strictly before this time
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    public StockSnapshot() {
+        // Default constructor
+    }
+
+    public StockSnapshot(Long productId, Integer stockQuantity, LocalDateTime takenAt) {
+        this.productId = productId;
+        this.stockQuantity = stockQuantity;
+        this.takenAt = takenAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ideas2it.ecommerceapp.notification.observer;
+
+import lombok.Getter;
+
+/**
+ * Event that occurs when an active product's stock crosses a low-stock threshold.
+ * CLEARED is raised when the stock recovers or the product stops being sold.
+ */
+@Getter
+public class LowStockEvent extends BaseEvent {
+    private final Long productId;
+    private final String productName;
+    private final int threshold;
+    private final int stockQuantity;
+    private final Crossing crossing;
+
+    public enum Crossing {
+        BELOW, CLEARED
+    }
+
+    public LowStockEvent(Long productId, String productName, int threshold, int stockQuantity, Crossing crossing) {
+        super("LOW_STOCK");
+        this.productId = productId;
+        this.productName = productName;
+        this.threshold = threshold;
+        this.stockQuantity = stockQuantity;
+        this.crossing = crossing;
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("Product %s with stock %d %s low-stock threshold %d",
+                productId, stockQuantity, crossing == Crossing.BELOW ? "fell below" : "cleared", threshold);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ideas2it.ecommerceapp.notification.observer;
+
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Event that occurs when one or more products are created, modified or removed.
+ * It only carries ids; listeners reload whatever state they need.
+ * A BULK_IMPORTED event carries no ids and means any part of the catalog may have changed.
+ */
+@Getter
+public class ProductChangedEvent extends BaseEvent {
+    private final Set<Long> productIds;
+    private final ChangeType changeType;
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED, STOCK_CHANGED, BULK_IMPORTED
+    }
+
+    public ProductChangedEvent(Set<Long> productIds, ChangeType changeType) {
+        super("PRODUCT_CHANGED");
+        this.productIds = Set.copyOf(productIds);
+        this.changeType = changeType;
+    }
+
+    public ProductChangedEvent(Long productId, ChangeType changeType) {
+        this(Set.of(productId), changeType);
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("Products %s changed (%s)", productIds, changeType);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CheckoutRepository extends JpaRepository<Checkout, Long> {
+    // Every transition names the states it may leave, so a checkout that has moved on is left alone
+    @Modifying
+    @Query("UPDATE Checkout c SET c.state = :to, c.updatedAt = :now WHERE c.id = :id AND c.state IN :from")
+    int transition(Long id, Collection<Checkout.CheckoutState> from, Checkout.CheckoutState to, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Checkout c SET c.state = 'CONFIRMED', c.transactionId = :transactionId, c.updatedAt = :now " +
+           "WHERE c.id = :id AND c.state IN :from")
+    int markConfirmed(Long id, Collection<Checkout.CheckoutState> from, String transactionId, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Checkout c SET c.state = 'COMPENSATED', c.failureReason = :reason, c.updatedAt = :now " +
+           "WHERE c.id = :id AND c.state IN :from")
+    int markCompensated(Long id, Collection<Checkout.CheckoutState> from, String reason, LocalDateTime now);
+
+    @Query("SELECT c FROM Checkout c WHERE c.state IN :states AND c.updatedAt < :cutoff ORDER BY c.id")
+    List<Checkout> findStale(Collection<Checkout.CheckoutState> states, LocalDateTime cutoff, Pageable pageable);
+
+    @Query("SELECT c.orderId FROM Checkout c WHERE c.orderId IN :orderIds AND c.state IN :states")
+    List<Long> findOrderIdsByState(Collection<Long> orderIds, Collection<Checkout.CheckoutState> states);
+
+    Optional<Checkout> findByOrderId(Long orderId);
+
+    long countByState(Checkout.CheckoutState state);
+}
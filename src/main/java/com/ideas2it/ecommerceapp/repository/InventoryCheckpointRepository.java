@@ -0,0 +1,18 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, Long> {
+    // Moves the checkpoint forward only, so a late retry can never rewind it
+    @Modifying
+    @Query("UPDATE InventoryCheckpoint c SET c.lastSequence = :sequence, c.updatedAt = :updatedAt " +
+           "WHERE c.id = :id AND c.lastSequence < :sequence")
+    int advance(Long id, long sequence, LocalDateTime updatedAt);
+}
@@ -0,0 +1,100 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC-level batch inserts into the orders and order_items tables.
+ * Hibernate inserts IDENTITY-keyed rows one statement at a time, so orders written
+ * together are sent as one batched statement for the orders and one for their items.
+ */
+@Repository
+public class OrderBatchRepository {
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (user_id, order_date, status, total_amount, payment_status, payment_method, " +
+            "shipping_address, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_ORDER_ITEM =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price, subtotal) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given orders and their items as two JDBC batches. Ids are assigned by
+     * the database and set on the orders and items.
+     *
+     * @param orders The orders to insert, each with its user and items set
+     */
+    public void insertOrders(List<Order> orders) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ORDER, new String[] {"id"})) {
+                for (Order order : orders) {
+                    ps.setLong(1, order.getUser().getId());
+                    ps.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+                    ps.setString(3, order.getStatus().name());
+                    ps.setBigDecimal(4, order.getTotalAmount());
+                    ps.setString(5, order.getPaymentStatus().name());
+                    ps.setString(6, order.getPaymentMethod());
+                    ps.setString(7, order.getShippingAddress());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                long[] ids = generatedIds(ps, orders.size(), "order");
+                for (int i = 0; i < orders.size(); i++) {
+                    orders.get(i).setId(ids[i]);
+                    orders.get(i).setVersion(0L);
+                }
+            }
+
+            List<OrderItem> items = new ArrayList<>();
+            orders.forEach(order -> items.addAll(order.getItems()));
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ORDER_ITEM, new String[] {"id"})) {
+                for (OrderItem item : items) {
+                    ps.setLong(1, item.getOrder().getId());
+                    ps.setLong(2, item.getProduct().getId());
+                    ps.setInt(3, item.getQuantity());
+                    ps.setBigDecimal(4, item.getUnitPrice());
+                    ps.setBigDecimal(5, item.getSubtotal());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                long[] ids = generatedIds(ps, items.size(), "order item");
+                for (int i = 0; i < items.size(); i++) {
+                    items.get(i).setId(ids[i]);
+                }
+            }
+            return null;
+        });
+    }
+
+    // Reads one generated id per batched row; a driver that returns fewer or more would misassign ids
+    private static long[] generatedIds(PreparedStatement ps, int rows, String entity) throws SQLException {
+        long[] ids = new long[rows];
+        int count = 0;
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+                if (count < rows) {
+                    ids[count] = keys.getLong(1);
+                }
+                count++;
+            }
+        }
+        if (count != rows) {
+            throw new IllegalStateException("Inserted " + rows + " " + entity + " rows but got " + count + " generated ids");
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderItemDto;
+import com.ideas2it.ecommerceapp.model.Order;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-level reads of orders for export.
+ * Orders and their lines are read as one joined, forward-only result set in order id
+ * order, and each order is handed on as soon as its last line has been read, so only
+ * one order is held in memory no matter how many the export covers.
+ */
+@Repository
+public class OrderExportRepository {
+
+    private static final String SELECT_ORDER_LINES =
+            "SELECT o.id, o.user_id, o.order_date, o.status, o.total_amount, o.payment_status, o.payment_method, " +
+            "o.shipping_address, i.id, i.product_id, i.quantity, i.unit_price, i.subtotal, p.name " +
+            "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id LEFT JOIN products p ON p.id = i.product_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams the orders matching the given filters, with their items, in order id order.
+     * Must run in a transaction for drivers that only use a cursor with auto-commit off.
+     *
+     * @param status The status to filter by, or null for all statuses
+     * @param start The earliest order date, inclusive, or null for no lower bound
+     * @param end The latest order date, inclusive, or null for no upper bound
+     * @param fetchSize The number of rows the driver fetches per round trip
+     * @param consumer The callback receiving each order
+     * @return The number of orders streamed
+     */
+    public long streamOrders(Order.OrderStatus status, LocalDateTime start, LocalDateTime end, int fetchSize,
+                             Consumer<OrderDto> consumer) {
+        StringBuilder sql = new StringBuilder(SELECT_ORDER_LINES);
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (status != null) {
+            conditions.add("o.status = ?");
+            params.add(status.name());
+        }
+        if (start != null) {
+            conditions.add("o.order_date >= ?");
+            params.add(Timestamp.valueOf(start));
+        }
+        if (end != null) {
+            conditions.add("o.order_date <= ?");
+            params.add(Timestamp.valueOf(end));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY o.id, i.id");
+
+        OrderAssembler assembler = new OrderAssembler(consumer);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, assembler::addRow);
+        assembler.finish();
+        return assembler.orders;
+    }
+
+    // Collects the lines of the current order and hands it on when the next one starts
+    private static final class OrderAssembler {
+        private final Consumer<OrderDto> consumer;
+        private OrderDto current;
+        private Set<OrderItemDto> items;
+        private long orders;
+
+        OrderAssembler(Consumer<OrderDto> consumer) {
+            this.consumer = consumer;
+        }
+
+        void addRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong(1);
+            if (current == null || current.id() != orderId) {
+                finish();
+                current = new OrderDto(orderId, rs.getLong(2), rs.getTimestamp(3).toLocalDateTime(),
+                        Order.OrderStatus.valueOf(rs.getString(4)), rs.getBigDecimal(5),
+                        Order.PaymentStatus.valueOf(rs.getString(6)), rs.getString(7), rs.getString(8));
+                items = new LinkedHashSet<>();
+            }
+            long itemId = rs.getLong(9);
+            if (!rs.wasNull()) {
+                items.add(new OrderItemDto(itemId, rs.getLong(10), rs.getInt(11), rs.getBigDecimal(12),
+                        rs.getBigDecimal(13), rs.getString(14)));
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                consumer.accept(current.withItems(items));
+                orders++;
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.OrderIntake;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, Long> {
+    Optional<OrderIntake> findByToken(String token);
+
+    @Query("SELECT DISTINCT i FROM OrderIntake i LEFT JOIN FETCH i.quantities WHERE i.id IN :ids ORDER BY i.id")
+    List<OrderIntake> findAllWithLinesByIdIn(Collection<Long> ids);
+
+    @Query("SELECT i.id FROM OrderIntake i WHERE i.status = :status ORDER BY i.id")
+    List<Long> findIdsByStatus(OrderIntake.IntakeStatus status, Pageable pageable);
+
+    // Moves intakes from one status to another; only rows still in the expected status change
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = :to, i.updatedAt = :now WHERE i.id IN :ids AND i.status = :from")
+    int updateStatus(Collection<Long> ids, OrderIntake.IntakeStatus from, OrderIntake.IntakeStatus to, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = 'COMPLETED', i.orderId = :orderId, i.updatedAt = :now WHERE i.id = :id")
+    int markCompleted(Long id, Long orderId, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = 'FAILED', i.failureReason = :reason, i.updatedAt = :now WHERE i.id = :id")
+    int markFailed(Long id, String reason, LocalDateTime now);
+
+    // Completes the intakes in progress whose order was reserved and not compensated, with that order
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = 'COMPLETED', i.updatedAt = :now, " +
+           "i.orderId = (SELECT c.orderId FROM Checkout c WHERE c.intakeToken = i.token) " +
+           "WHERE i.status = 'PROCESSING' AND EXISTS " +
+           "(SELECT c.id FROM Checkout c WHERE c.intakeToken = i.token AND c.state <> 'COMPENSATED')")
+    int completeByCheckout(LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = 'FAILED', i.failureReason = :reason, i.updatedAt = :now " +
+           "WHERE i.status IN :statuses")
+    int markFailedByStatus(Collection<OrderIntake.IntakeStatus> statuses, String reason, LocalDateTime now);
+}
@@ -1,28 +1,88 @@
 package com.ideas2it.ecommerceapp.repository;
 
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.model.Checkout;
 import com.ideas2it.ecommerceapp.model.Order;
 import com.ideas2it.ecommerceapp.model.User;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUser(User user);
+    List<Order> findByStatus(Order.OrderStatus status);
 
-    Page<Order> findByUser(User user, Pageable pageable);
+    // Order reads that are returned as entities load the whole details graph in one statement
+    @EntityGraph(Order.DETAILS_GRAPH)
+    Optional<Order> findWithDetailsById(Long id);
 
-    List<Order> findByStatus(Order.OrderStatus status);
+    @EntityGraph(Order.DETAILS_GRAPH)
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithDetails();
+
+    @EntityGraph(Order.DETAILS_GRAPH)
+    List<Order> findWithDetailsByUser(User user);
+
+    @EntityGraph(Order.DETAILS_GRAPH)
+    List<Order> findWithDetailsByStatus(Order.OrderStatus status);
+
+    @EntityGraph(Order.DETAILS_GRAPH)
+    List<Order> findWithDetailsByOrderDateBetween(LocalDateTime start, LocalDateTime end);
+
+    @EntityGraph(Order.DETAILS_GRAPH)
+    List<Order> findWithDetailsByIdIn(Collection<Long> ids);
+
+    // A page of order ids; the orders are then loaded by id, so paging never applies to joined item rows
+    @Query(value = "SELECT o.id FROM Order o WHERE o.user = :user",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user = :user")
+    Page<Long> findIdsByUser(User user, Pageable pageable);
 
-    List<Order> findByOrderDateBetween(LocalDateTime start, LocalDateTime end);
+    // The next page of stale orders after a given id, skipping orders with a checkout in the given states.
+    // The orders are locked in id order and rows another transaction holds are skipped, so several
+    // reapers can walk the same range at once; dialects without SKIP LOCKED wait for the lock instead.
+    // A lock timeout of -2 is Hibernate's value for SKIP LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.orderDate < :cutoffDate AND o.id > :afterId " +
+           "AND NOT EXISTS (SELECT c.id FROM Checkout c WHERE c.orderId = o.id AND c.state IN :checkoutStates) " +
+           "ORDER BY o.id")
+    List<Order> findStaleOrders(Order.OrderStatus status, LocalDateTime cutoffDate, Long afterId,
+                                Collection<Checkout.CheckoutState> checkoutStates, Pageable pageable);
 
-    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.orderDate < :cutoffDate")
-    List<Order> findStaleOrders(Order.OrderStatus status, LocalDateTime cutoffDate);
+    @Query("SELECT COUNT(o), MIN(o.orderDate) FROM Order o WHERE o.status = :status AND o.orderDate < :cutoffDate " +
+           "AND NOT EXISTS (SELECT c.id FROM Checkout c WHERE c.orderId = o.id AND c.state IN :checkoutStates)")
+    List<Object[]> countStaleOrders(Order.OrderStatus status, LocalDateTime cutoffDate,
+                                    Collection<Checkout.CheckoutState> checkoutStates);
+
+    // Locks in id order, so concurrent cancellations of overlapping orders cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status <> :status ORDER BY o.id")
+    List<Order> findAllByIdAndStatusNotForUpdate(Collection<Long> ids, Order.OrderStatus status);
+
+    // Ordered quantity per product over the given orders, without loading items or products
+    @Query("SELECT i.product.id, SUM(i.quantity) FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.product.id")
+    List<Object[]> sumQuantitiesByProduct(Collection<Long> orderIds);
+
+    // Settles the payment of a pending order without loading it; an order that has moved on is left alone
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentStatus = :paymentStatus, o.status = :status, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.status = 'PENDING'")
+    int updatePayment(Long id, Order.PaymentStatus paymentStatus, Order.OrderStatus status);
 
     @Query("SELECT COUNT(o) FROM Order o WHERE o.orderDate >= :startDate")
     Long countOrdersSince(LocalDateTime startDate);
@@ -30,4 +90,25 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // For analytics
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status AND o.orderDate BETWEEN :startDate AND :endDate")
     Long countOrdersByStatusAndDateRange(Order.OrderStatus status, LocalDateTime startDate, LocalDateTime endDate);
+
+    // Read-only projections; order headers and their items are fetched in two queries
+    // so that paging applies to orders rather than to joined item rows
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(value = "SELECT new com.ideas2it.ecommerceapp.dto.OrderDto(o.id, o.user.id, o.orderDate, o.status, " +
+                   "o.totalAmount, o.paymentStatus, o.paymentMethod, o.shippingAddress) " +
+                   "FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderDto> findDtosByUserId(Long userId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("SELECT new com.ideas2it.ecommerceapp.dto.OrderDto(o.id, o.user.id, o.orderDate, o.status, " +
+           "o.totalAmount, o.paymentStatus, o.paymentMethod, o.shippingAddress) " +
+           "FROM Order o WHERE o.status = :status ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderDto> findDtosByStatus(Order.OrderStatus status);
+
+    // Each row is the owning order id followed by an OrderItemDto
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("SELECT i.order.id, new com.ideas2it.ecommerceapp.dto.OrderItemDto(i.id, p.id, i.quantity, i.unitPrice, " +
+           "i.subtotal, p.name) FROM OrderItem i JOIN i.product p WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<Object[]> findItemDtosByOrderIds(Collection<Long> orderIds);
 }
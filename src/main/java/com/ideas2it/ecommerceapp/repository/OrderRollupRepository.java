@@ -0,0 +1,181 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.analytics.OrderRollups;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderRollup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-level access to the order rollups. Changes are written as increments, one JDBC
+ * batch of updates followed by one batch of inserts for the buckets that had no row yet.
+ */
+@Repository
+public class OrderRollupRepository {
+
+    private static final String INCREMENT =
+            "UPDATE order_rollups SET order_count = order_count + ?, revenue = revenue + ? " +
+            "WHERE granularity = ? AND bucket_start = ? AND status = ?";
+
+    private static final String INSERT =
+            "INSERT INTO order_rollups (granularity, bucket_start, status, order_count, revenue) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SPAN = "(granularity = ? AND bucket_start >= ? AND bucket_start < ?)";
+
+    // A zero row in the first day bucket, which no order falls in; its unique key lets one instance build the rollups
+    private static final String INSERT_BUILD_MARKER =
+            "INSERT INTO order_rollups (granularity, bucket_start, status, order_count, revenue) VALUES ('DAY', ?, 'PENDING', 0, 0)";
+
+    private static final LocalDateTime BUILD_MARKER_BUCKET = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String DELETE_BEFORE = "DELETE FROM order_rollups WHERE granularity = ? AND bucket_start < ?";
+
+    // Read once, when the rollups are first built; the orders are summed per minute by the database
+    private static final String SUM_ORDERS_BY_MINUTE =
+            "SELECT DATE_TRUNC('MINUTE', order_date), status, COUNT(*), SUM(total_amount) FROM orders " +
+            "GROUP BY DATE_TRUNC('MINUTE', order_date), status";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return Whether no rollups have been written yet
+     */
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT id FROM order_rollups FETCH FIRST 1 ROWS ONLY", Long.class).isEmpty();
+    }
+
+    /**
+     * Claims the initial build of the rollups for the current transaction. The claim
+     * waits for a concurrent one to end and fails if that one committed.
+     *
+     * @throws org.springframework.dao.DataAccessException If another instance has claimed the build
+     */
+    public void claimBuild() {
+        jdbcTemplate.update(INSERT_BUILD_MARKER, Timestamp.valueOf(BUILD_MARKER_BUCKET));
+    }
+
+    /**
+     * Adds the given changes to their rows, creating the rows that do not exist yet.
+     * Changes of zero are skipped.
+     *
+     * @param deltas The change per bucket: counts followed by revenue in cents, one slot per status
+     * @return The number of rows written
+     */
+    public int applyDeltas(Map<OrderRollups.Bucket, long[]> deltas) {
+        Order.OrderStatus[] statuses = Order.OrderStatus.values();
+        List<OrderRollup> rows = new ArrayList<>();
+        deltas.forEach((bucket, delta) -> {
+            for (Order.OrderStatus status : statuses) {
+                long count = delta[status.ordinal()];
+                long revenueCents = delta[statuses.length + status.ordinal()];
+                if (count != 0 || revenueCents != 0) {
+                    OrderRollup row = new OrderRollup();
+                    row.setGranularity(bucket.granularity());
+                    row.setBucketStart(bucket.start());
+                    row.setStatus(status);
+                    row.setOrderCount(count);
+                    row.setRevenue(BigDecimal.valueOf(revenueCents, 2));
+                    rows.add(row);
+                }
+            }
+        });
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(INCREMENT, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getOrderCount());
+            ps.setBigDecimal(2, row.getRevenue());
+            ps.setString(3, row.getGranularity().name());
+            ps.setTimestamp(4, Timestamp.valueOf(row.getBucketStart()));
+            ps.setString(5, row.getStatus().name());
+        })[0];
+        List<OrderRollup> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, missing, missing.size(), (ps, row) -> {
+                ps.setString(1, row.getGranularity().name());
+                ps.setTimestamp(2, Timestamp.valueOf(row.getBucketStart()));
+                ps.setString(3, row.getStatus().name());
+                ps.setLong(4, row.getOrderCount());
+                ps.setBigDecimal(5, row.getRevenue());
+            });
+        }
+        return rows.size();
+    }
+
+    /**
+     * Sums the rollups within the given spans per status, in one query.
+     *
+     * @param spans The spans of buckets to read
+     * @param consumer The callback receiving the count and revenue of each status that has rows
+     */
+    public void sumSpans(List<OrderRollups.Span> spans, Consumer<OrderRollup> consumer) {
+        if (spans.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT status, SUM(order_count), SUM(revenue) FROM order_rollups WHERE " +
+                String.join(" OR ", Collections.nCopies(spans.size(), SPAN)) + " GROUP BY status";
+        List<Object> args = new ArrayList<>();
+        for (OrderRollups.Span span : spans) {
+            args.add(span.granularity().name());
+            args.add(Timestamp.valueOf(span.start()));
+            args.add(Timestamp.valueOf(span.end()));
+        }
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            OrderRollup row = new OrderRollup();
+            row.setStatus(Order.OrderStatus.valueOf(rs.getString(1)));
+            row.setOrderCount(rs.getLong(2));
+            row.setRevenue(rs.getBigDecimal(3));
+            consumer.accept(row);
+        }, args.toArray());
+    }
+
+    /**
+     * Deletes the rollups of one granularity before a given bucket.
+     *
+     * @param granularity The granularity
+     * @param before The start of the earliest bucket to keep
+     * @return The number of rows deleted
+     */
+    public int deleteBefore(OrderRollups.Granularity granularity, LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_BEFORE, granularity.name(), Timestamp.valueOf(before));
+    }
+
+    /**
+     * Sums all orders per minute of their order date and status, as minute rollups.
+     *
+     * @param consumer The callback receiving each minute and status that has orders
+     */
+    public void sumOrdersByMinute(Consumer<OrderRollup> consumer) {
+        jdbcTemplate.query(SUM_ORDERS_BY_MINUTE, (RowCallbackHandler) rs -> consumer.accept(minuteRow(rs)));
+    }
+
+    private static OrderRollup minuteRow(ResultSet rs) throws SQLException {
+        OrderRollup row = new OrderRollup();
+        row.setGranularity(OrderRollups.Granularity.MINUTE);
+        row.setBucketStart(rs.getTimestamp(1).toLocalDateTime());
+        row.setStatus(Order.OrderStatus.valueOf(rs.getString(2)));
+        row.setOrderCount(rs.getLong(3));
+        row.setRevenue(rs.getBigDecimal(4));
+        return row;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC-level batch operations on the products table.
+ * Hibernate cannot batch inserts for IDENTITY keys because it needs each generated
+ * id back before continuing, so bulk paths bypass the persistence context and
+ * send one batched statement per chunk instead.
+ */
+@Repository
+public class ProductBatchRepository {
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, description, price, stock_quantity, image_url, active, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1 " +
+            "WHERE id = ? AND stock_quantity >= ? AND stock_shards IS NULL";
+
+    private static final String INCREMENT_STOCK =
+            "UPDATE products SET stock_quantity = stock_quantity + ?, version = version + 1 " +
+            "WHERE id = ? AND stock_shards IS NULL";
+
+    private static final String ADJUST_STOCK =
+            "UPDATE products SET stock_quantity = GREATEST(stock_quantity + ?, 0), version = version + 1 WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given products as a single JDBC batch. Ids are assigned by the database
+     * and set on the products.
+     *
+     * @param products The products to insert
+     * @return The update count of each statement in the batch
+     */
+    public int[] insertProducts(List<Product> products) {
+        return jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_PRODUCT, new String[] {"id"})) {
+                for (Product product : products) {
+                    ps.setString(1, product.getName());
+                    ps.setString(2, product.getDescription());
+                    ps.setBigDecimal(3, product.getPrice());
+                    ps.setInt(4, product.getStockQuantity());
+                    ps.setString(5, product.getImageUrl());
+                    ps.setBoolean(6, product.getActive());
+                    ps.addBatch();
+                }
+                int[] updateCounts = ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < products.size() && keys.next(); i++) {
+                        products.get(i).setId(keys.getLong(1));
+                    }
+                }
+                return updateCounts;
+            }
+        });
+    }
+
+    /**
+     * Takes stock from several products as a single JDBC batch of guarded decrements.
+     * Rows are updated, and therefore locked, in the iteration order of the map, so
+     * callers pass a map sorted by id to keep concurrent batches deadlock-free.
+     *
+     * @param quantities The quantity to take per product ID
+     * @return The update count of each statement in map order; 0 means too little stock or sharded stock
+     */
+    public int[] decrementStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> rows = List.copyOf(quantities.entrySet());
+        return jdbcTemplate.batchUpdate(DECREMENT_STOCK, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+            ps.setInt(3, row.getValue());
+        })[0];
+    }
+
+    /**
+     * Returns stock to several products as a single JDBC batch of increments. The sum is
+     * computed by the database, so concurrent purchases are never overwritten. Rows are
+     * updated in the iteration order of the map; callers pass a map sorted by id.
+     *
+     * @param quantities The quantity to return per product ID
+     * @return The update count of each statement in map order; 0 means a missing product or sharded stock
+     */
+    public int[] incrementStock(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> rows = List.copyOf(quantities.entrySet());
+        return jdbcTemplate.batchUpdate(INCREMENT_STOCK, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        })[0];
+    }
+
+    /**
+     * Applies net stock movements as a single JDBC batch, one UPDATE per product.
+     * Stock never drops below zero, since an administrator may have lowered it
+     * below what was still waiting to be written.
+     *
+     * @param deltas The change in stock per product ID
+     * @return The update count of each statement in the batch
+     */
+    public int[] adjustStock(Map<Long, Integer> deltas) {
+        List<Map.Entry<Long, Integer>> rows = List.copyOf(deltas.entrySet());
+        return jdbcTemplate.batchUpdate(ADJUST_STOCK, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        })[0];
+    }
+}
@@ -1,14 +1,23 @@
 package com.ideas2it.ecommerceapp.repository;
 
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
 import com.ideas2it.ecommerceapp.model.Product;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -19,6 +28,112 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdWithPessimisticLock(Long id);
 
+    // Locks all rows in one statement and in ascending id order, so orders sharing products cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(Collection<Long> ids);
+
+    // Guarded decrement; returns 0 when the product is missing, has too little stock or has sharded stock
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity AND p.stockShards IS NULL")
+    int decrementStock(Long id, int quantity);
+
+    // Rows of [id, stockShards] for every product with sharded stock
+    @Query("SELECT p.id, p.stockShards FROM Product p WHERE p.stockShards IS NOT NULL")
+    List<Object[]> findStockShardCounts();
+
+    // Read past the persistence context, so a product resharded by another instance is seen as it is now
+    @Query("SELECT p.stockShards FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockShardsById(Long id);
+
+    // Writes the shard totals back to the products row. The copy is derived data, so the
+    // version is left alone and an administrator's concurrent save never fails over it
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = " +
+           "(SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = p.id) " +
+           "WHERE p.id IN :ids AND p.stockShards IS NOT NULL")
+    int copyShardedStock(Collection<Long> ids);
+
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockQuantityById(Long id);
+
     // Find products with low stock
     List<Product> findByStockQuantityLessThan(Integer threshold);
+
+    // Active products with low stock, lowest stock first
+    List<Product> findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc(Integer threshold);
+
+    // Keyset pagination on (id); returning a List means no count query is issued
+    List<Product> findByActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Keyset pagination on (price, id)
+    List<Product> findByActiveTrueOrderByPriceAscIdAsc(Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND (p.price > :price OR (p.price = :price AND p.id > :afterId)) " +
+           "ORDER BY p.price ASC, p.id ASC")
+    List<Product> findActiveAfterPriceAndId(BigDecimal price, Long afterId, Pageable pageable);
+
+    // Forward-only cursor over the active catalog; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.active = true ORDER BY p.id")
+    Stream<Product> streamActiveProducts();
+
+    // Read-only listing projection; never loads the description or creates managed entities
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("SELECT new com.ideas2it.ecommerceapp.dto.ProductSummaryDto(p.id, p.name, p.price, p.stockQuantity, p.imageUrl) " +
+           "FROM Product p WHERE p.active = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductSummaryDto> findActiveSummaries(Long afterId, Pageable pageable);
+
+    // Keyset scan of ids for filter-based bulk updates; null filter values match everything
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId " +
+           "AND (:active IS NULL OR p.active = :active) " +
+           "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+           "AND (:maxPrice IS NULL OR p.price <= :maxPrice) ORDER BY p.id")
+    List<Long> findIdsByFilter(Long afterId, Boolean active, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+
+    // Set-based bulk updates. Each one bumps the version so concurrent optimistic writers
+    // fail instead of silently overwriting, and skips rows the change would make invalid.
+    // Price arithmetic is native SQL: Hibernate renders decimal parameters inside JPQL
+    // arithmetic as an untyped cast that H2 rejects
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE products SET price = ROUND(price * :factor, 2), version = version + 1 WHERE id IN (:ids)",
+           nativeQuery = true)
+    int scalePrices(Collection<Long> ids, BigDecimal factor);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.price = :price, p.version = p.version + 1 WHERE p.id IN :ids")
+    int setPrices(Collection<Long> ids, BigDecimal price);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE products SET price = price + :delta, version = version + 1 " +
+                   "WHERE id IN (:ids) AND price + :delta >= 0",
+           nativeQuery = true)
+    int adjustPrices(Collection<Long> ids, BigDecimal delta);
+
+    // Locks, in id order, the products a stock delta can be applied to by adjustStock
+    @Query(value = "SELECT id FROM products WHERE id IN (:ids) AND stock_quantity + :delta >= 0 " +
+                   "AND stock_shards IS NULL ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockAdjustableStock(Collection<Long> ids, int delta);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND p.active = true")
+    List<Long> findActiveIds(Collection<Long> ids);
+
+    // Rows of [productId, stockQuantity] for every product
+    @Query("SELECT p.id, p.stockQuantity FROM Product p")
+    List<Object[]> findAllStockQuantities();
+
+    // Products with sharded stock are skipped; their stock lives in the shard rows
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :delta, p.version = p.version + 1 " +
+           "WHERE p.id IN :ids AND p.stockQuantity + :delta >= 0 AND p.stockShards IS NULL")
+    int adjustStock(Collection<Long> ids, int delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.active = :active, p.version = p.version + 1 WHERE p.id IN :ids AND p.active <> :active")
+    int setActive(Collection<Long> ids, boolean active);
 }
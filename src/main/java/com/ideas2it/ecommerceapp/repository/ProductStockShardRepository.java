@@ -0,0 +1,46 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.ProductStockShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+    // Guarded decrement of one shard; returns 0 when the shard has too little stock
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity - :quantity " +
+           "WHERE s.productId = :productId AND s.shardIndex = :shardIndex AND s.quantity >= :quantity")
+    int takeStock(Long productId, int shardIndex, int quantity);
+
+    @Modifying
+    @Query("UPDATE ProductStockShard s SET s.quantity = s.quantity + :quantity " +
+           "WHERE s.productId = :productId AND s.shardIndex = :shardIndex")
+    int addStock(Long productId, int shardIndex, int quantity);
+
+    // Unlocked read of the shards that could serve a quantity on their own
+    @Query("SELECT s.shardIndex FROM ProductStockShard s WHERE s.productId = :productId AND s.quantity >= :quantity")
+    List<Integer> findShardIndexesWithStock(Long productId, int quantity);
+
+    // Locks all shards of a product in index order, so two rebalances cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockShard s WHERE s.productId = :productId ORDER BY s.shardIndex")
+    List<ProductStockShard> findByProductIdForUpdate(Long productId);
+
+    @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM ProductStockShard s WHERE s.productId = :productId")
+    long sumStock(Long productId);
+
+    // Rows of [productId, total stock]
+    @Query("SELECT s.productId, SUM(s.quantity) FROM ProductStockShard s WHERE s.productId IN :productIds GROUP BY s.productId")
+    List<Object[]> sumStockByProductIds(Collection<Long> productIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM ProductStockShard s WHERE s.productId = :productId")
+    int deleteByProductId(Long productId);
+}
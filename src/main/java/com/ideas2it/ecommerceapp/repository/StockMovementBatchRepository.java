@@ -0,0 +1,75 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.model.StockSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC-level batch writes to the stock journal tables. Movements and snapshots use
+ * IDENTITY keys, which Hibernate cannot batch, and are never read back as entities
+ * by the code that writes them.
+ */
+@Repository
+public class StockMovementBatchRepository {
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (product_id, quantity, movement_type, occurred_at) VALUES (?, ?, ?, ?)";
+
+    // Sharded products hold their stock in the shard rows
+    private static final String INSERT_OPENING_BALANCES =
+            "INSERT INTO stock_movements (product_id, quantity, movement_type, occurred_at) " +
+            "SELECT p.id, CASE WHEN p.stock_shards IS NULL THEN p.stock_quantity " +
+            "ELSE (SELECT COALESCE(SUM(s.quantity), 0) FROM product_stock_shards s WHERE s.product_id = p.id) END, " +
+            "'OPENING', ? FROM products p";
+
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO stock_snapshots (product_id, stock_quantity, taken_at) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Appends the given movements as a single JDBC batch.
+     *
+     * @param movements The movements to append, each with its time set
+     * @return The update count of each statement in the batch
+     */
+    public int[] insertMovements(List<StockMovement> movements) {
+        return jdbcTemplate.batchUpdate(INSERT_MOVEMENT, movements, movements.size(), (ps, movement) -> {
+            ps.setLong(1, movement.getProductId());
+            ps.setInt(2, movement.getQuantity());
+            ps.setString(3, movement.getType().name());
+            ps.setTimestamp(4, Timestamp.valueOf(movement.getOccurredAt()));
+        })[0];
+    }
+
+    /**
+     * Records the current stock of every product as an opening movement, with one statement.
+     *
+     * @param occurredAt The time of the opening movements
+     * @return The number of movements written
+     */
+    public int insertOpeningBalances(LocalDateTime occurredAt) {
+        return jdbcTemplate.update(INSERT_OPENING_BALANCES, Timestamp.valueOf(occurredAt));
+    }
+
+    /**
+     * Inserts the given snapshots as a single JDBC batch.
+     *
+     * @param snapshots The snapshots to insert
+     * @return The update count of each statement in the batch
+     */
+    public int[] insertSnapshots(List<StockSnapshot> snapshots) {
+        return jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, snapshots, snapshots.size(), (ps, snapshot) -> {
+            ps.setLong(1, snapshot.getProductId());
+            ps.setInt(2, snapshot.getStockQuantity());
+            ps.setTimestamp(3, Timestamp.valueOf(snapshot.getTakenAt()));
+        })[0];
+    }
+}
@@ -0,0 +1,34 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    // Whether journaling has started at all
+    Optional<StockMovement> findFirstByOrderByIdAsc();
+
+    Page<StockMovement> findByProductIdAndOccurredAtBetweenOrderByOccurredAtAscIdAsc(Long productId, LocalDateTime from,
+                                                                                  LocalDateTime to, Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(m.quantity), 0) FROM StockMovement m " +
+           "WHERE m.productId = :productId AND m.occurredAt >= :from AND m.occurredAt <= :to")
+    long sumQuantity(Long productId, LocalDateTime from, LocalDateTime to);
+
+    // Rows of [productId, net quantity] for movements in [from, to)
+    @Query("SELECT m.productId, SUM(m.quantity) FROM StockMovement m " +
+           "WHERE m.occurredAt >= :from AND m.occurredAt < :to GROUP BY m.productId")
+    List<Object[]> sumQuantitiesByProduct(LocalDateTime from, LocalDateTime to);
+
+    // Rows of [productId, net quantity] for movements at or after a time
+    @Query("SELECT m.productId, SUM(m.quantity) FROM StockMovement m WHERE m.occurredAt >= :from GROUP BY m.productId")
+    List<Object[]> sumQuantitiesByProductSince(LocalDateTime from);
+}
@@ -0,0 +1,29 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    Optional<StockSnapshot> findFirstByProductIdAndTakenAtLessThanEqualOrderByTakenAtDesc(Long productId, LocalDateTime time);
+
+    @Query("SELECT MAX(s.takenAt) FROM StockSnapshot s")
+    Optional<LocalDateTime> findLatestTakenAt();
+
+    // Rows of [productId, stock] from the latest snapshot of each given product
+    @Query("SELECT s.productId, s.stockQuantity FROM StockSnapshot s WHERE s.productId IN :productIds " +
+           "AND s.takenAt = (SELECT MAX(l.takenAt) FROM StockSnapshot l WHERE l.productId = s.productId)")
+    List<Object[]> findLatestStocks(Collection<Long> productIds);
+
+    // Rows of [productId, stock] from the latest snapshot of every product
+    @Query("SELECT s.productId, s.stockQuantity FROM StockSnapshot s " +
+           "WHERE s.takenAt = (SELECT MAX(l.takenAt) FROM StockSnapshot l WHERE l.productId = s.productId)")
+    List<Object[]> findAllLatestStocks();
+}
@@ -0,0 +1,310 @@
+package com.ideas2it.ecommerceapp.search;
+
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product names and descriptions, ranked with BM25.
+ * Query terms match exactly or as prefixes of indexed terms; prefix expansions
+ * score lower than exact hits. Reads share a lock, so concurrent searches never
+ * block each other and only wait for the short incremental updates.
+ */
+public class ProductSearchIndex {
+
+    // Standard BM25 tuning parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Name tokens count as this many occurrences so title matches outrank description matches
+    private static final int NAME_WEIGHT = 2;
+
+    private static final double PREFIX_MATCH_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "the", "of", "for", "with", "in", "on", "to", "or");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> weighted term frequency); sorted so prefixes are a range scan
+    private TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * A product as seen by the index.
+     */
+    public record Document(Long id, String name, BigDecimal price, String imageUrl, Map<String, Integer> terms, int length) {
+    }
+
+    /**
+     * Builds the searchable form of a product. Tokenization is independent of the
+     * index state, which lets a full rebuild analyze products in parallel.
+     *
+     * @param id The product ID
+     * @param name The product name
+     * @param description The product description, may be null
+     * @param price The product price
+     * @param imageUrl The product image URL, may be null
+     * @return The analyzed document
+     */
+    public static Document analyze(Long id, String name, String description, BigDecimal price, String imageUrl) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(name)) {
+            terms.merge(token, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String token : tokenize(description)) {
+            terms.merge(token, 1, Integer::sum);
+            length++;
+        }
+        return new Document(id, name, price, imageUrl, terms, length);
+    }
+
+    /**
+     * Splits text into lower-case alphanumeric tokens, dropping stop words.
+     *
+     * @param text The text to tokenize, may be null
+     * @return The tokens in order of appearance
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Collects the content of a new index one document at a time, away from the live
+     * index, so a rebuild never holds all products or all documents at once. Not
+     * thread-safe; the content is swapped in with {@link #replaceAll(Builder)}.
+     */
+    public static class Builder {
+        private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private long totalLength;
+
+        /**
+         * Adds the document of a product not added before.
+         *
+         * @param document The document to index
+         */
+        public void add(Document document) {
+            documents.put(document.id(), document);
+            totalLength += document.length();
+            document.terms().forEach((term, tf) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), tf));
+        }
+
+        /**
+         * @return The number of documents collected
+         */
+        public int size() {
+            return documents.size();
+        }
+    }
+
+    /**
+     * Replaces the whole index content with the given documents.
+     *
+     * @param analyzed The documents to index
+     */
+    public void replaceAll(Collection<Document> analyzed) {
+        Builder builder = new Builder();
+        analyzed.forEach(builder::add);
+        replaceAll(builder);
+    }
+
+    /**
+     * Replaces the whole index content with what a builder collected. The builder
+     * must not be used afterwards.
+     *
+     * @param builder The builder holding the new content
+     */
+    public void replaceAll(Builder builder) {
+        lock.writeLock().lock();
+        try {
+            postings = builder.postings;
+            documents = builder.documents;
+            totalLength = builder.totalLength;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a document, replacing any previous version of the same product.
+     *
+     * @param document The document to index
+     */
+    public void upsert(Document document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.id());
+            documents.put(document.id(), document);
+            totalLength += document.length();
+            document.terms().forEach((term, tf) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index. Unknown ids are ignored.
+     *
+     * @param productId The ID of the product to remove
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return The document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query The free-text query
+     * @param minPrice The inclusive lower price bound, or null
+     * @param maxPrice The inclusive upper price bound, or null
+     * @param limit The maximum number of hits to return
+     * @return The best matching products, highest score first
+     */
+    public List<ProductSearchHit> search(String query, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String queryTerm : queryTerms) {
+                Map<Long, Integer> exact = postings.get(queryTerm);
+                if (exact != null) {
+                    accumulate(scores, exact, 1.0, documentCount, averageLength);
+                }
+                if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+                    int expansions = 0;
+                    for (Map.Entry<String, Map<Long, Integer>> entry
+                            : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                        if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        accumulate(scores, entry.getValue(), PREFIX_MATCH_WEIGHT, documentCount, averageLength);
+                    }
+                }
+            }
+
+            // Keep only the top hits in a bounded min-heap
+            Comparator<ProductSearchHit> byScore = Comparator.comparingDouble(ProductSearchHit::score)
+                    .thenComparing(ProductSearchHit::id, Comparator.reverseOrder());
+            PriorityQueue<ProductSearchHit> top = new PriorityQueue<>(limit + 1, byScore);
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                Document document = documents.get(entry.getKey());
+                if (!inPriceRange(document.price(), minPrice, maxPrice)) {
+                    continue;
+                }
+                top.add(new ProductSearchHit(document.id(), document.name(), document.price(),
+                        document.imageUrl(), entry.getValue()));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<ProductSearchHit> hits = new ArrayList<>(top);
+            hits.sort(byScore.reversed());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Integer> posting, double weight,
+                            int documentCount, double averageLength) {
+        int documentFrequency = posting.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+            int tf = entry.getValue();
+            int length = documents.get(entry.getKey()).length();
+            double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+            scores.merge(entry.getKey(), weight * score, Double::sum);
+        }
+    }
+
+    private static boolean inPriceRange(BigDecimal price, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice != null && price.compareTo(minPrice) < 0) {
+            return false;
+        }
+        return maxPrice == null || price.compareTo(maxPrice) <= 0;
+    }
+
+    private void removeInternal(Long productId) {
+        Document previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length();
+        for (String term : previous.terms().keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
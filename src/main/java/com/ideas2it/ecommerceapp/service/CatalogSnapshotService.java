@@ -0,0 +1,11 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.CatalogSnapshot;
+
+public interface CatalogSnapshotService {
+    CatalogSnapshot getCatalogSnapshot();
+
+    CatalogSnapshot getProductSnapshot(Long productId);
+
+    void rebuildCatalog();
+}
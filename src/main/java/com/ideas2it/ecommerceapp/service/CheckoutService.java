@@ -0,0 +1,9 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Order;
+
+public interface CheckoutService {
+    int recover();
+
+    Order reconcile(Long orderId, boolean paid, String transactionId);
+}
@@ -0,0 +1,11 @@
+package com.ideas2it.ecommerceapp.service;
+
+public interface InventoryLedgerService {
+    boolean isActive();
+
+    void reserve(Long productId, int quantity);
+
+    void release(Long productId, int quantity);
+
+    int flush();
+}
@@ -0,0 +1,14 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+public interface LowStockService {
+    List<Product> getLowStockProducts(int threshold);
+
+    SseEmitter subscribe();
+
+    void rebuild();
+}
@@ -0,0 +1,18 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.OrderStats;
+import com.ideas2it.ecommerceapp.model.Order;
+
+import java.time.LocalDateTime;
+
+public interface OrderAnalyticsService {
+    void recordPlaced(Order order);
+
+    void recordStatusChange(Order order, Order.OrderStatus previousStatus, Order.OrderStatus status);
+
+    long countOrders(Order.OrderStatus status, LocalDateTime start, LocalDateTime end);
+
+    OrderStats getStats(LocalDateTime start, LocalDateTime end);
+
+    int flush();
+}
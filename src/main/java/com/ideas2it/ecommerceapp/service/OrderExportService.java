@@ -0,0 +1,14 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Order;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface OrderExportService {
+    enum Format {
+        NDJSON, CSV
+    }
+
+    long exportOrders(Order.OrderStatus status, LocalDateTime start, LocalDateTime end, Format format, OutputStream out);
+}
@@ -0,0 +1,12 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+
+import java.util.Set;
+
+public interface OrderGroupCommitService {
+    boolean isEnabled();
+
+    Order placeOrder(Long userId, Set<OrderItem> items);
+}
@@ -0,0 +1,12 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.OrderIntakeStatus;
+import com.ideas2it.ecommerceapp.dto.OrderPaymentRequest;
+
+public interface OrderIntakeService {
+    OrderIntakeStatus submit(Long userId, OrderPaymentRequest request);
+
+    OrderIntakeStatus getStatus(String token);
+
+    int drain();
+}
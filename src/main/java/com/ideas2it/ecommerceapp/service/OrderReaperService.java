@@ -0,0 +1,5 @@
+package com.ideas2it.ecommerceapp.service;
+
+public interface OrderReaperService {
+    int reap();
+}
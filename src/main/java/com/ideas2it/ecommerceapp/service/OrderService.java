@@ -1,5 +1,6 @@
 package com.ideas2it.ecommerceapp.service;
 
+import com.ideas2it.ecommerceapp.dto.OrderDto;
 import com.ideas2it.ecommerceapp.model.Order;
 import com.ideas2it.ecommerceapp.model.OrderItem;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentDetails;
@@ -7,6 +8,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -19,10 +21,16 @@ public interface OrderService {
 
     Page<Order> getOrdersByUserPaginated(Long userId, Pageable pageable);
 
+    Page<OrderDto> getOrderSummariesByUser(Long userId, Pageable pageable);
+
+    List<OrderDto> getOrderSummariesByStatus(Order.OrderStatus status);
+
     Order placeOrder(Long userId, Set<OrderItem> items);
 
     Order updateOrderStatus(Long orderId, Order.OrderStatus status);
 
+    List<Long> cancelOrders(Collection<Long> orderIds);
+
     Order updatePaymentStatus(Long orderId, Order.PaymentStatus paymentStatus);
 
     List<Order> getOrdersByStatus(Order.OrderStatus status);
@@ -40,4 +48,16 @@ public interface OrderService {
      * @return the placed Order
      */
     Order placeOrderWithPayment(Long userId, Set<OrderItem> items, String paymentMethod, PaymentDetails paymentDetails);
+
+    /**
+     * Place an order with payment processing on behalf of an order intake.
+     * @param userId the user placing the order
+     * @param items the items to order
+     * @param paymentMethod the payment method (e.g., "CreditCard", "Paypal", "BankTransfer")
+     * @param paymentDetails the payment details
+     * @param intakeToken the token of the intake, recorded on the checkout with the order
+     * @return the placed Order
+     */
+    Order placeOrderWithPayment(Long userId, Set<OrderItem> items, String paymentMethod, PaymentDetails paymentDetails,
+                                String intakeToken);
 }
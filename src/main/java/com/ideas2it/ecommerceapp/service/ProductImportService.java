@@ -0,0 +1,13 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.ProductImportResult;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+    enum Format {
+        CSV, JSONL
+    }
+
+    ProductImportResult importProducts(InputStream input, Format format);
+}
@@ -0,0 +1,12 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ProductSearchService {
+    List<ProductSearchHit> search(String query, BigDecimal minPrice, BigDecimal maxPrice, int limit);
+
+    void rebuildIndex();
+}
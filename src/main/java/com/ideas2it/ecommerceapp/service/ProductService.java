@@ -1,9 +1,24 @@
 package com.ideas2it.ecommerceapp.service;
 
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateRequest;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateResult;
+import com.ideas2it.ecommerceapp.dto.ProductCursorPage;
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
 import com.ideas2it.ecommerceapp.model.Product;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ProductService {
+    enum StockUpdateMode {
+        // One guarded UPDATE that succeeds only if enough stock is left
+        ATOMIC,
+        // Lock the row, check and save the entity
+        PESSIMISTIC,
+        // Reserve against the in-memory inventory ledger; the table is written behind
+        LEDGER
+    }
+
     List<Product> getAllProducts();
 
     Product getProductById(Long id);
@@ -14,7 +29,19 @@ public interface ProductService {
 
     void updateProductStock(Long productId, int quantity);
 
+    Map<Long, Product> reserveStock(Map<Long, Integer> quantities);
+
+    void restockProducts(Map<Long, Integer> quantities);
+
     void deleteProduct(Long id);
 
     List<Product> getLowStockProducts(int threshold);
+
+    ProductCursorPage getProductPage(String cursor, int size, ProductCursorPage.SortKey sortKey);
+
+    void streamActiveProducts(Consumer<Product> consumer);
+
+    List<ProductSummaryDto> getProductSummaries(Long afterId, int size);
+
+    ProductBulkUpdateResult bulkUpdateProducts(ProductBulkUpdateRequest request);
 }
@@ -0,0 +1,20 @@
+package com.ideas2it.ecommerceapp.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ShardedStockService {
+    boolean isSharded(Long productId);
+
+    void setShardCount(Long productId, int shards);
+
+    void reserve(Long productId, int quantity);
+
+    void release(Long productId, int quantity);
+
+    int setStock(Long productId, int quantity);
+
+    Map<Long, Integer> getStocks(Collection<Long> productIds);
+
+    int flush();
+}
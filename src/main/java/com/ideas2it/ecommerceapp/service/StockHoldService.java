@@ -0,0 +1,18 @@
+package com.ideas2it.ecommerceapp.service;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface StockHoldService {
+    void placeHold(Long userId, Long productId, int quantity);
+
+    void releaseHold(Long userId, Long productId);
+
+    void releaseHolds(Long userId);
+
+    int getHeldQuantity(Long productId);
+
+    void checkAvailable(Map<Long, Integer> quantities, Set<Long> buyerIds);
+
+    int getActiveHoldCount();
+}
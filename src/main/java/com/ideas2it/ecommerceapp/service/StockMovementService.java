@@ -0,0 +1,26 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.StockDrift;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface StockMovementService {
+    void record(Long productId, int quantity, StockMovement.MovementType type);
+
+    void record(Map<Long, Integer> quantities, StockMovement.MovementType type);
+
+    int flush();
+
+    Page<StockMovement> getMovements(Long productId, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    int getStockAt(Long productId, LocalDateTime time);
+
+    int takeSnapshot();
+
+    List<StockDrift> reconcile();
+}
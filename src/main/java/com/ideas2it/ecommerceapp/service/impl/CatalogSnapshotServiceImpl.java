@@ -0,0 +1,227 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ideas2it.ecommerceapp.dto.ApiResponse;
+import com.ideas2it.ecommerceapp.dto.CatalogSnapshot;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.service.CatalogSnapshotService;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Implementation of the CatalogSnapshotService interface that keeps the JSON
+ * responses for the active catalog and for individual products pre-serialized.
+ * Reads return shared immutable byte arrays, so serving them needs neither a
+ * database query nor Jackson. Product writes refresh the affected product
+ * snapshots and schedule one debounced rebuild of the catalog snapshot. Stock
+ * changes, which come with every purchase, refresh only the product snapshots and
+ * leave the catalog to a rebuild on a much longer delay.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService {
+
+    private static final String CATALOG_MESSAGE = "Products retrieved successfully";
+    private static final String PRODUCT_MESSAGE = "Product retrieved successfully";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Delay that coalesces bursts of writes into a single catalog rebuild
+    @Value("${app.catalog.snapshot.rebuild-delay-ms:250}")
+    private long rebuildDelayMs;
+
+    // Stock levels in the catalog may trail purchases by up to this long
+    @Value("${app.catalog.snapshot.stock-rebuild-delay-ms:30000}")
+    private long stockRebuildDelayMs;
+
+    @Value("${app.catalog.snapshot.max-product-snapshots:10000}")
+    private long maxProductSnapshots;
+
+    private volatile CatalogSnapshot catalogSnapshot;
+
+    private Cache<Long, CatalogSnapshot> productSnapshots;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+
+    private final AtomicBoolean stockRebuildScheduled = new AtomicBoolean(false);
+
+    private ScheduledExecutorService rebuildExecutor;
+
+    @PostConstruct
+    public void init() {
+        productSnapshots = Caffeine.newBuilder().maximumSize(maxProductSnapshots).build();
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the serialized active catalog, building it on first use.
+     *
+     * @return The current catalog snapshot
+     */
+    @Override
+    public CatalogSnapshot getCatalogSnapshot() {
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (catalogSnapshot == null) {
+                    rebuildCatalog();
+                }
+                snapshot = catalogSnapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the serialized form of a single product, building it on first use.
+     *
+     * @param productId The ID of the product
+     * @return The product snapshot
+     * @throws NoSuchElementException If no product with the specified ID exists
+     */
+    @Override
+    public CatalogSnapshot getProductSnapshot(Long productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Product ID cannot be null");
+        }
+        return productSnapshots.get(productId, this::buildProductSnapshot);
+    }
+
+    /**
+     * Re-serializes the active catalog from the database and swaps it in.
+     * The catalog is streamed straight into the JSON generator, so only the
+     * resulting bytes are held in memory.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildCatalog() {
+        long start = System.currentTimeMillis();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            generator.writeStartObject();
+            generator.writeStringField("result", "SUCCESS");
+            generator.writeStringField("message", CATALOG_MESSAGE);
+            generator.writeArrayFieldStart("data");
+            productService.streamActiveProducts(product -> {
+                try {
+                    objectMapper.writeValue(generator, product);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeBooleanField("success", true);
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize catalog snapshot", e);
+        }
+        catalogSnapshot = toSnapshot(buffer.toByteArray());
+        log.info("Catalog snapshot rebuilt ({} bytes) in {} ms", buffer.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Refreshes snapshots after a committed product change.
+     * Product snapshots that are held are regenerated right away, while the catalog
+     * is rebuilt once after a short delay so bursts of writes cost a single rebuild.
+     * For stock changes the catalog waits for the longer stock rebuild delay.
+     *
+     * @param event The product change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (Long productId : event.getProductIds()) {
+            if (productSnapshots.getIfPresent(productId) != null) {
+                try {
+                    productSnapshots.put(productId, buildProductSnapshot(productId));
+                } catch (NoSuchElementException e) {
+                    productSnapshots.invalidate(productId);
+                }
+            }
+        }
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            scheduleCatalogRebuild(stockRebuildScheduled, stockRebuildDelayMs);
+        } else {
+            scheduleCatalogRebuild(rebuildScheduled, rebuildDelayMs);
+        }
+    }
+
+    private void scheduleCatalogRebuild(AtomicBoolean scheduled, long delayMs) {
+        if (scheduled.compareAndSet(false, true)) {
+            rebuildExecutor.schedule(() -> {
+                scheduled.set(false);
+                try {
+                    rebuildCatalog();
+                } catch (RuntimeException e) {
+                    log.error("Catalog snapshot rebuild failed; serving previous snapshot", e);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Read through the product service, which has the live stock of sharded products
+    private CatalogSnapshot buildProductSnapshot(Long productId) {
+        Product product = productService.getProductById(productId);
+        try {
+            return toSnapshot(objectMapper.writeValueAsBytes(ApiResponse.success(PRODUCT_MESSAGE, product)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize product snapshot", e);
+        }
+    }
+
+    private CatalogSnapshot toSnapshot(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress snapshot", e);
+        }
+        String hash = sha256(json);
+        return new CatalogSnapshot(json, compressed.toByteArray(), "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
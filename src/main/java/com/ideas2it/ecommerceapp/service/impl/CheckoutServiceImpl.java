@@ -0,0 +1,177 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.CheckoutRepository;
+import com.ideas2it.ecommerceapp.service.CheckoutService;
+import com.ideas2it.ecommerceapp.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the CheckoutService interface that settles checkouts left unfinished,
+ * typically by a crash between the steps of an order placement with payment.
+ * A checkout still RESERVED never reached the payment gateway, so its order is cancelled
+ * and its stock returned. A checkout still PAYING may have been charged; nothing is
+ * known about the payment, so it is marked IN_DOUBT with its stock still reserved, until
+ * an administrator has checked the payment with the gateway and reconciles it.
+ *
+ * <p>Only checkouts untouched for longer than the stale age are settled, so a checkout
+ * still running on a slow gateway is never taken for an abandoned one.
+ */
+@Service
+@Slf4j
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private static final List<Checkout.CheckoutState> UNFINISHED =
+            List.of(Checkout.CheckoutState.RESERVED, Checkout.CheckoutState.PAYING);
+
+    @Autowired
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.checkout.recovery-interval-ms:60000}")
+    private long recoveryIntervalMs;
+
+    @Value("${app.order.checkout.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${app.order.checkout.recovery-batch-size:100}")
+    private int batchSize;
+
+    private ScheduledExecutorService recoveryExecutor;
+
+    @PostConstruct
+    public void init() {
+        recoveryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkout-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recoveryExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                recover();
+            } catch (RuntimeException e) {
+                log.error("Checkout recovery failed; retrying on the next run", e);
+            }
+        }, recoveryIntervalMs, recoveryIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recoveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Settles the checkouts left RESERVED or PAYING for longer than the stale age, oldest first.
+     * Each checkout is settled in its own transaction, so one failure does not hold up the rest.
+     *
+     * @return The number of checkouts settled
+     */
+    @Override
+    public synchronized int recover() {
+        int settled = 0;
+        int settledInBatch;
+        List<Checkout> stale;
+        do {
+            LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+            stale = checkoutRepository.findStale(UNFINISHED, cutoff, PageRequest.of(0, batchSize));
+            settledInBatch = 0;
+            for (Checkout checkout : stale) {
+                try {
+                    if (settle(checkout)) {
+                        settledInBatch++;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Settling checkout {} of order {} failed", checkout.getId(), checkout.getOrderId(), e);
+                }
+            }
+            settled += settledInBatch;
+        } while (stale.size() == batchSize && settledInBatch > 0);
+        if (settled > 0) {
+            log.info("Settled {} unfinished checkouts", settled);
+        }
+        return settled;
+    }
+
+    /**
+     * Settles a checkout left IN_DOUBT, once the payment has been checked with the gateway.
+     * A payment the gateway took confirms the order with its transaction ID; otherwise the
+     * order is cancelled, its stock returned and its payment marked failed.
+     *
+     * @param orderId The ID of the order whose checkout is in doubt
+     * @param paid Whether the gateway took the payment
+     * @param transactionId The gateway transaction ID of the payment, required if it was taken
+     * @return The order as settled
+     * @throws IllegalArgumentException If the payment was taken but no transaction ID is given
+     * @throws NoSuchElementException If the order has no checkout
+     * @throws IllegalStateException If the checkout is not in doubt
+     */
+    @Override
+    public Order reconcile(Long orderId, boolean paid, String transactionId) {
+        if (paid && (transactionId == null || transactionId.isBlank())) {
+            throw new IllegalArgumentException("The transaction ID of the payment is required to confirm the order");
+        }
+        Order order = transactionTemplate.execute(status -> {
+            Checkout checkout = checkoutRepository.findByOrderId(orderId)
+                    .orElseThrow(() -> new NoSuchElementException("Checkout not found for order: " + orderId));
+            LocalDateTime now = LocalDateTime.now();
+            List<Checkout.CheckoutState> inDoubt = List.of(Checkout.CheckoutState.IN_DOUBT);
+            if (paid) {
+                if (checkoutRepository.markConfirmed(checkout.getId(), inDoubt, transactionId, now) == 0) {
+                    throw new IllegalStateException("Checkout of order " + orderId + " is not in doubt");
+                }
+                return orderService.updatePaymentStatus(orderId, Order.PaymentStatus.COMPLETED);
+            }
+            if (checkoutRepository.markCompensated(checkout.getId(), inDoubt,
+                    "Payment was not taken by the gateway", now) == 0) {
+                throw new IllegalStateException("Checkout of order " + orderId + " is not in doubt");
+            }
+            orderService.cancelOrders(List.of(orderId));
+            return orderService.updatePaymentStatus(orderId, Order.PaymentStatus.FAILED);
+        });
+        log.info("Reconciled the checkout of order {} as {}", orderId, paid ? "paid by " + transactionId : "unpaid");
+        return order;
+    }
+
+    private boolean settle(Checkout checkout) {
+        Boolean changed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (checkout.getState() == Checkout.CheckoutState.RESERVED) {
+                if (checkoutRepository.markCompensated(checkout.getId(), List.of(Checkout.CheckoutState.RESERVED),
+                        "Checkout was interrupted before payment", now) == 0) {
+                    return false;
+                }
+                orderService.cancelOrders(List.of(checkout.getOrderId()));
+                orderService.updatePaymentStatus(checkout.getOrderId(), Order.PaymentStatus.FAILED);
+                return true;
+            }
+            return checkoutRepository.transition(checkout.getId(), List.of(Checkout.CheckoutState.PAYING),
+                    Checkout.CheckoutState.IN_DOUBT, now) > 0;
+        });
+        if (Boolean.TRUE.equals(changed) && checkout.getState() == Checkout.CheckoutState.PAYING) {
+            log.warn("Payment of order {} ({} {}) is in doubt and needs reconciling with the gateway",
+                    checkout.getOrderId(), checkout.getAmount(), checkout.getPaymentMethod());
+        }
+        return Boolean.TRUE.equals(changed);
+    }
+}
@@ -0,0 +1,319 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.inventory.StockJournal;
+import com.ideas2it.ecommerceapp.inventory.StockLedger;
+import com.ideas2it.ecommerceapp.model.InventoryCheckpoint;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.InventoryCheckpointRepository;
+import com.ideas2it.ecommerceapp.repository.ProductBatchRepository;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.InventoryLedgerService;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.util.AfterTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the InventoryLedgerService interface used when the stock update
+ * mode is LEDGER. Reservations are decided against in-memory counters and recorded
+ * in an append-only journal; a background task writes the net movement per product
+ * to the products table in one JDBC batch, together with the journal sequence it
+ * covers. After a restart, journal entries above that checkpoint are replayed on
+ * top of the stored stock, so no acknowledged reservation is lost or applied twice.
+ *
+ * <p>A journal left behind by an earlier run is recovered and written back on
+ * startup even when another mode is configured now.
+ */
+@Service
+@Slf4j
+public class InventoryLedgerServiceImpl implements InventoryLedgerService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBatchRepository productBatchRepository;
+
+    @Autowired
+    private InventoryCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.inventory.stock-update-mode:ATOMIC}")
+    private ProductService.StockUpdateMode stockUpdateMode;
+
+    @Value("${app.inventory.ledger.journal-dir:data/inventory-journal}")
+    private String journalDir;
+
+    // A new journal segment is started once the current one reaches this size
+    @Value("${app.inventory.ledger.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    // Wait for the storage device on every append, so reservations also survive a power loss
+    @Value("${app.inventory.ledger.sync-writes:false}")
+    private boolean syncWrites;
+
+    @Value("${app.inventory.ledger.stripes:64}")
+    private int stripes;
+
+    @Value("${app.inventory.ledger.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private StockJournal journal;
+
+    private StockLedger ledger;
+
+    private volatile boolean active;
+
+    private long checkpointSequence;
+
+    // Products whose stock was changed in the database by something other than the ledger
+    private final Set<Long> staleProducts = ConcurrentHashMap.newKeySet();
+
+    // The event flush is publishing itself; it must not mark its own products stale
+    private volatile ProductChangedEvent flushEvent;
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        journal = new StockJournal(Path.of(journalDir), segmentBytes, syncWrites);
+        boolean ledgerMode = stockUpdateMode == ProductService.StockUpdateMode.LEDGER;
+        if (!ledgerMode && !journal.exists()) {
+            return;
+        }
+        recover();
+        if (!ledgerMode) {
+            journal.close();
+            ledger = null;
+            log.info("Inventory ledger journal written back; stock update mode is {}", stockUpdateMode);
+            return;
+        }
+        active = true;
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Inventory ledger flush failed; movements stay journaled and will be retried", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                flushExecutor.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!active) {
+            return;
+        }
+        active = false;
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Final inventory ledger flush failed; the journal will be replayed on the next start", e);
+        }
+        journal.close();
+    }
+
+    /**
+     * Returns whether reservations are being taken by the ledger.
+     *
+     * @return True if the stock update mode is LEDGER and recovery has completed
+     */
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Takes stock for a product from its in-memory counter.
+     * The reservation is journaled before this method returns. If it is made inside a
+     * transaction that later rolls back, the stock is returned automatically.
+     *
+     * @param productId The ID of the product
+     * @param quantity The quantity to take
+     * @throws NoSuchElementException If no product with the specified ID exists
+     * @throws IllegalStateException If there is insufficient stock or the ledger is not active
+     */
+    @Override
+    public void reserve(Long productId, int quantity) {
+        requireActive();
+        if (!ledger.reserve(productId, quantity, this::persistedStock)) {
+            throw new IllegalStateException("Insufficient stock for product with id: " + productId);
+        }
+        AfterTransaction.rollback(() -> ledger.release(productId, quantity, this::persistedStock));
+    }
+
+    /**
+     * Returns stock to a product's in-memory counter.
+     *
+     * @param productId The ID of the product
+     * @param quantity The quantity to return
+     * @throws NoSuchElementException If no product with the specified ID exists
+     * @throws IllegalStateException If the ledger is not active
+     */
+    @Override
+    public void release(Long productId, int quantity) {
+        requireActive();
+        ledger.release(productId, quantity, this::persistedStock);
+    }
+
+    /**
+     * Writes the movements journaled since the last flush to the products table and
+     * advances the checkpoint in the same transaction. Afterwards, journal segments
+     * below the checkpoint are dropped and counters of products changed elsewhere are
+     * realigned with the table.
+     *
+     * @return The number of products whose stock was written
+     */
+    @Override
+    public synchronized int flush() {
+        if (ledger == null) {
+            return 0;
+        }
+        StockLedger.Drain drain = ledger.drain();
+        if (drain.sequence() > checkpointSequence) {
+            try {
+                transactionTemplate.execute(status -> {
+                    if (!drain.deltas().isEmpty()) {
+                        productBatchRepository.adjustStock(drain.deltas());
+                    }
+                    checkpointRepository.advance(InventoryCheckpoint.LEDGER_ID, drain.sequence(), LocalDateTime.now());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                ledger.restore(drain);
+                throw e;
+            }
+            checkpointSequence = drain.sequence();
+            journal.truncate(checkpointSequence);
+            if (!drain.deltas().isEmpty()) {
+                ProductChangedEvent event = new ProductChangedEvent(drain.deltas().keySet(),
+                        ProductChangedEvent.ChangeType.STOCK_CHANGED);
+                flushEvent = event;
+                try {
+                    eventPublisher.publishEvent(event);
+                } finally {
+                    flushEvent = null;
+                }
+            }
+        }
+        resyncStaleProducts();
+        return drain.deltas().size();
+    }
+
+    /**
+     * Marks held products whose stock was changed outside the ledger, such as by an
+     * order cancellation or an administrator, for realignment on the next flush.
+     *
+     * @param event The product change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!active || event == flushEvent) {
+            return;
+        }
+        for (Long productId : event.getProductIds()) {
+            if (ledger.isTracked(productId)) {
+                staleProducts.add(productId);
+            }
+        }
+    }
+
+    private void recover() {
+        Optional<InventoryCheckpoint> checkpoint = checkpointRepository.findById(InventoryCheckpoint.LEDGER_ID);
+        if (checkpoint.isEmpty()) {
+            if (journal.exists()) {
+                // The journal was written against a database that no longer has its checkpoint
+                archiveJournal();
+            }
+            checkpointRepository.save(new InventoryCheckpoint(InventoryCheckpoint.LEDGER_ID, 0L));
+        }
+        checkpointSequence = checkpoint.map(InventoryCheckpoint::getLastSequence).orElse(0L);
+
+        ledger = new StockLedger(journal, stripes);
+        // Replayed and skipped movement counts
+        long[] counts = new long[2];
+        long lastSequence = journal.open(checkpointSequence, entry -> {
+            try {
+                ledger.replay(entry, this::persistedStock);
+                counts[0]++;
+            } catch (NoSuchElementException e) {
+                counts[1]++;
+            }
+        });
+        if (counts[1] > 0) {
+            log.warn("Skipped {} journaled movements of products that no longer exist", counts[1]);
+        }
+        log.info("Inventory ledger recovered: checkpoint {}, {} movements replayed up to sequence {}",
+                checkpointSequence, counts[0], lastSequence);
+        flush();
+    }
+
+    private void archiveJournal() {
+        Path directory = Path.of(journalDir);
+        Path archive = directory.resolveSibling(directory.getFileName() + ".orphaned-" + System.currentTimeMillis());
+        try {
+            Files.move(directory, archive);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive stock journal " + directory, e);
+        }
+        log.warn("No inventory checkpoint found in the database; moved the existing journal to {}", archive);
+        journal = new StockJournal(directory, segmentBytes, syncWrites);
+    }
+
+    private void resyncStaleProducts() {
+        for (Long productId : List.copyOf(staleProducts)) {
+            staleProducts.remove(productId);
+            productRepository.findStockQuantityById(productId)
+                    .ifPresent(stock -> ledger.resync(productId, stock));
+        }
+    }
+
+    private int persistedStock(long productId) {
+        return productRepository.findStockQuantityById(productId)
+                .orElseThrow(() -> new NoSuchElementException("Product not found with id: " + productId));
+    }
+
+    private void requireActive() {
+        if (!active) {
+            throw new IllegalStateException("Inventory ledger is not active");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.notification.observer.LowStockEvent;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.LowStockService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Implementation of the LowStockService interface that keeps every active product
+ * below the highest configured threshold in a set sorted by stock level.
+ * The set is maintained from product change events, so a read for any threshold up
+ * to that maximum is a head-set view in memory rather than a table scan. Crossings
+ * of the configured thresholds are published as LowStockEvents and pushed to
+ * server-sent event subscribers.
+ */
+@Service
+@Slf4j
+public class LowStockServiceImpl implements LowStockService {
+
+    private static final Comparator<Product> BY_STOCK_LEVEL =
+            Comparator.comparing(Product::getStockQuantity).thenComparing(Product::getId);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.inventory.low-stock.thresholds:5,10,25}")
+    private int[] thresholds;
+
+    @Value("${app.inventory.low-stock.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    private int maxThreshold;
+
+    // Tracked products by id, and the same products ordered by (stock, id)
+    private final Map<Long, Product> tracked = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Product> lowStock = new ConcurrentSkipListSet<>(BY_STOCK_LEVEL);
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    // Reads fall back to the database and crossings are not announced until the first rebuild
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        if (thresholds.length == 0 || Arrays.stream(thresholds).anyMatch(threshold -> threshold < 1)) {
+            throw new IllegalStateException("Low-stock thresholds must be positive");
+        }
+        thresholds = Arrays.stream(thresholds).sorted().distinct().toArray();
+        maxThreshold = thresholds[thresholds.length - 1];
+    }
+
+    /**
+     * Retrieves active products whose stock is below the given threshold, lowest stock first.
+     * Thresholds up to the highest configured one are served from memory; larger ones
+     * are delegated to the database.
+     *
+     * @param threshold The stock level below which products should be returned
+     * @return The matching products
+     */
+    @Override
+    public List<Product> getLowStockProducts(int threshold) {
+        if (threshold < 1) {
+            return List.of();
+        }
+        if (!ready || threshold > maxThreshold) {
+            return productRepository.findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc(threshold);
+        }
+        return List.copyOf(lowStock.headSet(probe(threshold)));
+    }
+
+    /**
+     * Registers a server-sent event stream that receives every threshold crossing.
+     *
+     * @return The emitter to return from the controller
+     */
+    @Override
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * Reloads the tracked products from the database, announcing any crossings that
+     * the incremental updates missed.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Product> current = new HashMap<>();
+        for (Product product : productRepository.findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc(maxThreshold)) {
+            current.put(product.getId(), product);
+        }
+        Set<Long> ids = new HashSet<>(current.keySet());
+        ids.addAll(tracked.keySet());
+
+        List<LowStockEvent> crossings = new ArrayList<>();
+        for (Long id : ids) {
+            crossings.addAll(update(id, current.get(id)));
+        }
+        boolean announce = ready;
+        ready = true;
+        if (announce) {
+            crossings.forEach(this::publish);
+        }
+        log.info("Low-stock tracker rebuilt with {} products below {}", tracked.size(), maxThreshold);
+    }
+
+    /**
+     * Re-evaluates the changed products once their change has committed.
+     *
+     * @param event The product change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.BULK_IMPORTED) {
+            rebuild();
+            return;
+        }
+        Map<Long, Product> current = new HashMap<>();
+        for (Product product : productRepository.findAllById(event.getProductIds())) {
+            current.put(product.getId(), product);
+        }
+        List<LowStockEvent> crossings = new ArrayList<>();
+        for (Long id : event.getProductIds()) {
+            crossings.addAll(update(id, current.get(id)));
+        }
+        if (ready) {
+            crossings.forEach(this::publish);
+        }
+    }
+
+    private synchronized List<LowStockEvent> update(Long id, Product current) {
+        Product previous = tracked.get(id);
+        if (previous != null && current != null && isOlder(current, previous)) {
+            // A listener that loaded the row later has already applied a newer version
+            return List.of();
+        }
+        Product next = current != null && Boolean.TRUE.equals(current.getActive())
+                && current.getStockQuantity() < maxThreshold ? current : null;
+
+        if (previous != null) {
+            lowStock.remove(previous);
+        }
+        if (next != null) {
+            tracked.put(id, next);
+            lowStock.add(next);
+        } else {
+            tracked.remove(id);
+        }
+
+        List<LowStockEvent> crossings = new ArrayList<>();
+        int previousStock = previous == null ? Integer.MAX_VALUE : previous.getStockQuantity();
+        int nextStock = next == null ? Integer.MAX_VALUE : next.getStockQuantity();
+        for (int threshold : thresholds) {
+            if (previousStock >= threshold && nextStock < threshold) {
+                crossings.add(new LowStockEvent(id, next.getName(), threshold, nextStock, LowStockEvent.Crossing.BELOW));
+            } else if (previousStock < threshold && nextStock >= threshold) {
+                Product reference = current != null ? current : previous;
+                crossings.add(new LowStockEvent(id, reference.getName(), threshold, reference.getStockQuantity(),
+                        LowStockEvent.Crossing.CLEARED));
+            }
+        }
+        return crossings;
+    }
+
+    private void publish(LowStockEvent event) {
+        eventPublisher.publishEvent(event);
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().id(event.getEventId()).name("low-stock").data(event));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private static boolean isOlder(Product candidate, Product reference) {
+        return candidate.getVersion() != null && reference.getVersion() != null
+                && candidate.getVersion() < reference.getVersion();
+    }
+
+    private static Product probe(int stockQuantity) {
+        Product probe = new Product();
+        probe.setId(Long.MIN_VALUE);
+        probe.setStockQuantity(stockQuantity);
+        return probe;
+    }
+}
@@ -0,0 +1,254 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.analytics.OrderRollups;
+import com.ideas2it.ecommerceapp.dto.OrderStats;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.OrderRollupRepository;
+import com.ideas2it.ecommerceapp.service.OrderAnalyticsService;
+import com.ideas2it.ecommerceapp.util.AfterTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementation of the OrderAnalyticsService interface that answers order counts and
+ * revenue from the rollup table, instead of counting the orders table.
+ * Placing an order and changing its status update the rollups in memory once the
+ * transaction commits; a background task writes the changes to the rollup table as
+ * increments and drops buckets that have outlived their retention.
+ *
+ * <p>Several instances can share the table, since each only adds its own changes.
+ * A range is summed from the table plus the changes this instance has not written yet,
+ * so the changes of other instances show up within one flush interval. Changes not yet
+ * written when an instance stops abruptly are lost.
+ *
+ * <p>The first instance to start on an empty table builds the rollups from the orders
+ * with one grouped query. It claims the build in the same transaction, so instances
+ * starting together do not both add the orders.
+ */
+@Service
+@Slf4j
+public class OrderAnalyticsServiceImpl implements OrderAnalyticsService {
+
+    // Ranges without a bound are read from and up to here
+    private static final LocalDateTime ROLLUPS_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime ROLLUPS_END = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.analytics.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    @Value("${app.order.analytics.minute-retention-ms:172800000}")
+    private long minuteRetentionMs;
+
+    @Value("${app.order.analytics.hour-retention-ms:7776000000}")
+    private long hourRetentionMs;
+
+    private OrderRollups rollups;
+    private ScheduledExecutorService flushExecutor;
+
+    // Reads wait for a flush in progress, whose changes are neither pending nor committed
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        rollups = new OrderRollups(minuteRetentionMs, hourRetentionMs, LocalDateTime.now());
+        if (rollupRepository.isEmpty()) {
+            build();
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+                prune();
+            } catch (RuntimeException e) {
+                log.error("Order rollup flush failed; the changes will be retried", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Final order rollup flush failed", e);
+        }
+    }
+
+    // Builds the rollups from the orders, unless another instance has claimed the build
+    private void build() {
+        try {
+            Integer written = transactionTemplate.execute(status -> {
+                rollupRepository.claimBuild();
+                rollupRepository.sumOrdersByMinute(row ->
+                        rollups.add(row.getBucketStart(), row.getStatus(), row.getOrderCount(), toCents(row.getRevenue())));
+                return rollupRepository.applyDeltas(rollups.drainPending());
+            });
+            log.info("Built order rollups from the orders table; {} rows written", written);
+        } catch (DataAccessException e) {
+            log.info("Order rollups are built by another instance ({})", e.getMessage());
+        }
+    }
+
+    /**
+     * Counts a newly placed order under its status, once the transaction placing it commits.
+     *
+     * @param order The order, with its date, status and total amount set
+     */
+    @Override
+    public void recordPlaced(Order order) {
+        LocalDateTime orderDate = order.getOrderDate();
+        Order.OrderStatus status = order.getStatus();
+        long cents = toCents(order.getTotalAmount());
+        AfterTransaction.commit(() -> rollups.add(orderDate, status, 1, cents));
+    }
+
+    /**
+     * Moves an order from one status to another, once the transaction changing it commits.
+     *
+     * @param order The order, with its date and total amount set
+     * @param previousStatus The status the order had
+     * @param status The status the order has now
+     */
+    @Override
+    public void recordStatusChange(Order order, Order.OrderStatus previousStatus, Order.OrderStatus status) {
+        if (previousStatus == status) {
+            return;
+        }
+        LocalDateTime orderDate = order.getOrderDate();
+        long cents = toCents(order.getTotalAmount());
+        AfterTransaction.commit(() -> {
+            rollups.add(orderDate, previousStatus, -1, -cents);
+            rollups.add(orderDate, status, 1, cents);
+        });
+    }
+
+    /**
+     * Counts the orders placed within a range from the rollups.
+     * The range is widened to whole buckets: to the minute for recent orders, and to
+     * the hour or day for orders older than the minute or hour buckets are kept.
+     *
+     * @param status The status to count, or null for all statuses
+     * @param start The start of the range, inclusive, or null for no lower bound
+     * @param end The end of the range, exclusive, or null for no upper bound
+     * @return The number of orders
+     */
+    @Override
+    public long countOrders(Order.OrderStatus status, LocalDateTime start, LocalDateTime end) {
+        OrderRollups.Totals totals = sum(start, end);
+        return status == null ? totals.totalCount() : totals.count(status);
+    }
+
+    /**
+     * Sums the orders placed within a range from the rollups, by their current status.
+     * The range is widened to whole buckets, as for {@link #countOrders}.
+     *
+     * @param start The start of the range, inclusive
+     * @param end The end of the range, exclusive
+     * @return The number and total amount of the orders per status, and the range covered
+     */
+    @Override
+    public OrderStats getStats(LocalDateTime start, LocalDateTime end) {
+        OrderRollups.Totals totals = sum(start, end);
+        Map<Order.OrderStatus, Long> orders = new EnumMap<>(Order.OrderStatus.class);
+        Map<Order.OrderStatus, BigDecimal> revenue = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            orders.put(status, totals.count(status));
+            revenue.put(status, BigDecimal.valueOf(totals.revenueCents(status), 2));
+        }
+        return new OrderStats(totals.start(), totals.end(), totals.totalCount(), orders, revenue);
+    }
+
+    /**
+     * Writes the changes since the previous flush to the rollup table.
+     * If the write fails the changes are kept for the next flush.
+     *
+     * @return The number of rows written
+     */
+    @Override
+    public int flush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<OrderRollups.Bucket, long[]> deltas = rollups.drainPending();
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+            try {
+                Integer written = transactionTemplate.execute(status -> rollupRepository.applyDeltas(deltas));
+                return written == null ? 0 : written;
+            } catch (RuntimeException e) {
+                rollups.restorePending(deltas);
+                throw e;
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    // Sums the rollup table and this instance's unwritten changes over the buckets covering the range
+    private OrderRollups.Totals sum(LocalDateTime start, LocalDateTime end) {
+        OrderRollups.Cover cover = rollups.cover(Objects.requireNonNullElse(start, ROLLUPS_START),
+                Objects.requireNonNullElse(end, ROLLUPS_END));
+        OrderRollups.Totals totals;
+        flushLock.readLock().lock();
+        try {
+            totals = rollups.sumPending(cover);
+            rollupRepository.sumSpans(cover.spans(), row -> {
+                totals.counts()[row.getStatus().ordinal()] += row.getOrderCount();
+                totals.revenueCents()[row.getStatus().ordinal()] += toCents(row.getRevenue());
+            });
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        return new OrderRollups.Totals(start == null ? null : totals.start(), end == null ? null : totals.end(),
+                totals.counts(), totals.revenueCents());
+    }
+
+    // Drops expired buckets, from the table only once they have moved past a whole hour or day
+    private void prune() {
+        LocalDateTime minutesFrom = rollups.retainedFrom(OrderRollups.Granularity.MINUTE);
+        LocalDateTime hoursFrom = rollups.retainedFrom(OrderRollups.Granularity.HOUR);
+        rollups.prune(LocalDateTime.now());
+        LocalDateTime newMinutesFrom = rollups.retainedFrom(OrderRollups.Granularity.MINUTE);
+        LocalDateTime newHoursFrom = rollups.retainedFrom(OrderRollups.Granularity.HOUR);
+        if (!newMinutesFrom.equals(minutesFrom) || !newHoursFrom.equals(hoursFrom)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepository.deleteBefore(OrderRollups.Granularity.MINUTE, newMinutesFrom);
+                rollupRepository.deleteBefore(OrderRollups.Granularity.HOUR, newHoursFrom);
+            });
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
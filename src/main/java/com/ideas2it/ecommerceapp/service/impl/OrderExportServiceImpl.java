@@ -0,0 +1,115 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderItemDto;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.OrderExportRepository;
+import com.ideas2it.ecommerceapp.service.OrderExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Implementation of the OrderExportService interface that writes orders straight from
+ * a database cursor to an output stream. Each order is formatted and written as soon
+ * as its lines have been read, so memory use does not grow with the size of the export.
+ */
+@Service
+@Slf4j
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final String CSV_HEADER = "order_id,user_id,order_date,status,total_amount,payment_status," +
+            "payment_method,shipping_address,item_id,product_id,product_name,quantity,unit_price,subtotal";
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.order.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Exports the orders matching the given filters in order id order.
+     * NDJSON writes one order with its items per line; CSV writes a header row and then
+     * one row per order line, repeating the order columns, or one row with empty item
+     * columns for an order without lines.
+     *
+     * @param status The status to filter by, or null for all statuses
+     * @param start The earliest order date, inclusive, or null for no lower bound
+     * @param end The latest order date, inclusive, or null for no upper bound
+     * @param format The output format
+     * @param out The stream to write to; it is flushed but not closed
+     * @return The number of orders exported
+     * @throws UncheckedIOException If writing to the stream fails
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOrders(Order.OrderStatus status, LocalDateTime start, LocalDateTime end, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            long exported = orderExportRepository.streamOrders(status, start, end, fetchSize, order -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsv(order, writer);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(order));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            log.info("Exported {} orders as {}", exported, format);
+            return exported;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsv(OrderDto order, Writer writer) throws IOException {
+        String orderColumns = String.join(",", csv(order.id()), csv(order.userId()), csv(order.orderDate()),
+                csv(order.status()), csv(order.totalAmount()), csv(order.paymentStatus()),
+                csv(order.paymentMethod()), csv(order.shippingAddress()));
+        if (order.items().isEmpty()) {
+            writer.write(orderColumns);
+            writer.write(",,,,,,\n");
+            return;
+        }
+        for (OrderItemDto item : order.items()) {
+            writer.write(orderColumns);
+            writer.write(',');
+            writer.write(String.join(",", csv(item.id()), csv(item.productId()), csv(item.productName()),
+                    csv(item.quantity()), csv(item.unitPrice()), csv(item.subtotal())));
+            writer.write('\n');
+        }
+    }
+
+    // Quotes a field if it contains a separator, a quote or a line break, doubling any quotes
+    private static String csv(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,329 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.exception.OrderWriterUnavailableException;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.User;
+import com.ideas2it.ecommerceapp.repository.OrderBatchRepository;
+import com.ideas2it.ecommerceapp.repository.UserRepository;
+import com.ideas2it.ecommerceapp.service.OrderAnalyticsService;
+import com.ideas2it.ecommerceapp.service.OrderGroupCommitService;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.StockHoldService;
+import com.ideas2it.ecommerceapp.util.AfterTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Implementation of the OrderGroupCommitService interface that writes the orders of
+ * concurrent callers together. Callers queue their order and wait; a single writer
+ * thread collects orders until the batch window closes or the batch is full, reserves
+ * the stock of all of them with one call, inserts them with JDBC batching and commits
+ * once, then hands every caller its order. One commit is thus shared by many orders.
+ *
+ * <p>Each order in a batch commits or fails with the others. If the batch fails, for
+ * instance because one order asks for more stock than is left, its orders are retried
+ * one by one so that only the failing order is refused.
+ *
+ * <p>A caller waits at most the configured wait timeout for its order. If the writer
+ * has not taken the order by then it is withdrawn; on shutdown every order still
+ * queued is refused, so no caller is left waiting on a writer that has stopped.
+ *
+ * <p>Published meters: {@code order.group_commit.latency} (from queueing to commit),
+ * {@code order.group_commit.batch_size} and {@code order.group_commit.orders} by
+ * outcome, whose rate is the throughput.
+ */
+@Service
+@Slf4j
+public class OrderGroupCommitServiceImpl implements OrderGroupCommitService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.order.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.order.group-commit.window-ms:2}")
+    private long windowMs;
+
+    @Value("${app.order.group-commit.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${app.order.group-commit.max-queued:10000}")
+    private int maxQueued;
+
+    @Value("${app.order.group-commit.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.order.group-commit.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private record PendingOrder(Long userId, Set<OrderItem> items, long queuedAt, CompletableFuture<Order> result) {
+    }
+
+    private BlockingQueue<PendingOrder> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Timer latency;
+    private DistributionSummary batchSizes;
+    private Counter committedOrders;
+    private Counter failedOrders;
+    private Counter splitBatches;
+
+    @PostConstruct
+    public void init() {
+        latency = Timer.builder("order.group_commit.latency")
+                .description("Time from queueing an order to its commit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("order.group_commit.batch_size")
+                .description("Orders written per commit")
+                .register(meterRegistry);
+        committedOrders = ordersCounter("committed");
+        failedOrders = ordersCounter("failed");
+        splitBatches = Counter.builder("order.group_commit.split_batches")
+                .description("Batches retried order by order after failing")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(maxQueued);
+        running = true;
+        writer = new Thread(this::writeLoop, "order-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        // The writer drains the orders already queued before it stops
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever the writer did not get to is refused rather than left waiting
+        List<PendingOrder> unwritten = new ArrayList<>();
+        queue.drainTo(unwritten);
+        if (!unwritten.isEmpty()) {
+            log.warn("Order writer stopped with {} orders still queued", unwritten.size());
+        }
+        unwritten.forEach(pending -> pending.result().completeExceptionally(
+                new OrderWriterUnavailableException("The order writer stopped before writing the order")));
+    }
+
+    /**
+     * Returns whether orders are placed through the group-commit writer.
+     *
+     * @return true if the writer is enabled
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Places an order through the writer and waits until the batch holding it has committed.
+     * Stock is reserved and the order priced in the writer's transaction, exactly as a
+     * direct placement would do.
+     *
+     * @param userId The ID of the user placing the order
+     * @param items The set of items being ordered
+     * @return The created order
+     * @throws NoSuchElementException If the user or a product does not exist
+     * @throws IllegalStateException If there is too little stock
+     * @throws OrderWriterUnavailableException If the writer is stopped or full, or the order
+     *         was not written within the wait timeout
+     */
+    @Override
+    public Order placeOrder(Long userId, Set<OrderItem> items) {
+        if (!running) {
+            throw new OrderWriterUnavailableException("The order writer is not running");
+        }
+        PendingOrder pending = new PendingOrder(userId, items, System.nanoTime(), new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new OrderWriterUnavailableException("Too many orders are waiting to be written; please try again later");
+        }
+        // The writer may have stopped and drained the queue just before the offer
+        if (!running && queue.remove(pending)) {
+            throw new OrderWriterUnavailableException("The order writer is not running");
+        }
+        try {
+            return pending.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Removal and the writer's poll share the queue's lock, so a removed order is never written
+            if (queue.remove(pending)) {
+                throw new OrderWriterUnavailableException("The order was not written in time and was withdrawn; please try again later");
+            }
+            throw new OrderWriterUnavailableException("The order is still being written; check your orders before trying again");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new OrderWriterUnavailableException("Interrupted while waiting for the order to be written");
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatch);
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // The window opens with the first order and closes early once the batch is full
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    PendingOrder next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result().completeExceptionally(
+                        new IllegalStateException("The order writer was interrupted")));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Writing a batch of {} orders failed", batch.size(), e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Commits the batch, or retries its orders one by one so only the failing ones are refused
+    private void write(List<PendingOrder> batch) {
+        List<Order> orders;
+        try {
+            orders = transactionTemplate.execute(status -> insert(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failedOrders.increment();
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.debug("Batch of {} orders failed ({}); writing them one by one", batch.size(), e.getMessage());
+            splitBatches.increment();
+            for (PendingOrder pending : batch) {
+                write(List.of(pending));
+            }
+            return;
+        }
+        batchSizes.record(batch.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOrder pending = batch.get(i);
+            latency.record(now - pending.queuedAt(), TimeUnit.NANOSECONDS);
+            committedOrders.increment();
+            pending.result().complete(orders.get(i));
+        }
+    }
+
+    private List<Order> insert(List<PendingOrder> batch) {
+        Set<Long> userIds = new HashSet<>();
+        batch.forEach(pending -> userIds.add(pending.userId()));
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+
+        // The stock of the whole batch is reserved in one call, in product id order
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (PendingOrder pending : batch) {
+            if (!users.containsKey(pending.userId())) {
+                throw new NoSuchElementException("User not found with id: " + pending.userId());
+            }
+            for (OrderItem item : pending.items()) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        // Stock held in other users' carts is not for sale
+        stockHoldService.checkAvailable(quantities, userIds);
+        Map<Long, Product> products = productService.reserveStock(quantities);
+
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            Order order = new Order();
+            order.setUser(users.get(pending.userId()));
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus(Order.OrderStatus.PENDING);
+            order.setPaymentStatus(Order.PaymentStatus.PENDING);
+            OrderServiceImpl.addItems(order, pending.items(), products);
+            orders.add(order);
+        }
+        orderBatchRepository.insertOrders(orders);
+        releaseCartHoldsAfterCommit(batch);
+        orders.forEach(orderAnalyticsService::recordPlaced);
+        return orders;
+    }
+
+    // The ordered stock is now taken from the table, so the users' cart holds on it can go
+    private void releaseCartHoldsAfterCommit(List<PendingOrder> batch) {
+        AfterTransaction.commit(() -> batch.forEach(pending -> pending.items()
+                .forEach(item -> stockHoldService.releaseHold(pending.userId(), item.getProduct().getId()))));
+    }
+
+    private Counter ordersCounter(String outcome) {
+        return Counter.builder("order.group_commit.orders")
+                .description("Orders handled by the group-commit writer, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,280 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.dto.OrderIntakeStatus;
+import com.ideas2it.ecommerceapp.dto.OrderPaymentRequest;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderIntake;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.payment.strategy.PaymentDetails;
+import com.ideas2it.ecommerceapp.payment.strategy.PaymentStrategyFactory;
+import com.ideas2it.ecommerceapp.repository.OrderIntakeRepository;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.repository.UserRepository;
+import com.ideas2it.ecommerceapp.service.OrderIntakeService;
+import com.ideas2it.ecommerceapp.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of the OrderIntakeService interface that places orders off the request
+ * thread. A request is validated, stored as a queued intake and answered at once; a
+ * poller claims queued intakes in batches and hands them to a bounded pool of workers,
+ * each of which places one order exactly as a synchronous request would.
+ *
+ * <p>Payment details are held in memory only, keyed by intake token, so card data is
+ * never written to the database. Intakes left queued or in progress by a previous run
+ * therefore cannot be placed and are failed on startup, except those whose order was
+ * already reserved: the checkout of such an order records the intake token, and the
+ * intake is completed with that order instead. The details held in memory also cap how
+ * many intakes may wait at once.
+ */
+@Service
+@Slf4j
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    private static final int MAX_FAILURE_REASON = 255;
+
+    @Autowired
+    private OrderIntakeRepository intakeRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PaymentStrategyFactory paymentStrategyFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.intake.workers:8}")
+    private int workers;
+
+    @Value("${app.order.intake.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.order.intake.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${app.order.intake.max-queued:10000}")
+    private int maxQueued;
+
+    // Payment details of accepted intakes by token; never written to the database
+    private final Map<String, PaymentDetails> paymentDetails = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService poller;
+    private ThreadPoolExecutor workerPool;
+
+    @PostConstruct
+    public void init() {
+        // An intake whose order got as far as its checkout must not be failed, as it may have been paid
+        Integer placed = transactionTemplate.execute(status -> intakeRepository.completeByCheckout(LocalDateTime.now()));
+        if (placed != null && placed > 0) {
+            log.info("Completed {} order intakes whose orders were placed before the previous run stopped", placed);
+        }
+        Integer abandoned = transactionTemplate.execute(status -> intakeRepository.markFailedByStatus(
+                List.of(OrderIntake.IntakeStatus.QUEUED, OrderIntake.IntakeStatus.PROCESSING),
+                "Payment details were not kept across a restart; please place the order again", LocalDateTime.now()));
+        if (abandoned != null && abandoned > 0) {
+            log.warn("Failed {} order intakes left unfinished by the previous run", abandoned);
+        }
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        // The queue holds at most one claimed batch; the poller never claims more than fits
+        workerPool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(batchSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-intake-" + workerNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                log.error("Claiming order intakes failed; retrying on the next poll", e);
+            }
+        }, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        workerPool.shutdown();
+        try {
+            workerPool.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Validates an order request and queues it for placement.
+     * The user, the payment method and the products are checked now; stock and payment
+     * are checked when the order is placed.
+     *
+     * @param userId The ID of the user placing the order
+     * @param request The items, payment method and payment details
+     * @return The status of the queued intake, including the token to poll with
+     * @throws IllegalArgumentException If the request is malformed or names an unknown payment method
+     * @throws NoSuchElementException If the user or a product does not exist or is inactive
+     * @throws IllegalStateException If too many intakes are already waiting
+     */
+    @Override
+    public OrderIntakeStatus submit(Long userId, OrderPaymentRequest request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : request.getItems()) {
+            if (item.getProduct() == null || item.getProduct().getId() == null) {
+                throw new IllegalArgumentException("Every item must name a product");
+            }
+            if (item.getQuantity() == null || item.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity must be at least 1");
+            }
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        paymentStrategyFactory.getStrategy(request.getPaymentMethod());
+        if (!userRepository.existsById(userId)) {
+            throw new NoSuchElementException("User not found with id: " + userId);
+        }
+        Set<Long> missing = new HashSet<>(quantities.keySet());
+        productRepository.findActiveIds(quantities.keySet()).forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            throw new NoSuchElementException("Products not found or inactive: " + missing);
+        }
+        if (paymentDetails.size() >= maxQueued) {
+            throw new IllegalStateException("Too many orders are waiting to be placed; please try again later");
+        }
+
+        // The details are in place before the intake can be claimed
+        String token = UUID.randomUUID().toString();
+        PaymentDetails details = request.getPaymentDetails() != null
+                ? request.getPaymentDetails() : PaymentDetails.builder().build();
+        paymentDetails.put(token, details);
+        try {
+            OrderIntake intake = intakeRepository.save(new OrderIntake(token, userId, quantities, request.getPaymentMethod()));
+            return OrderIntakeStatus.of(intake);
+        } catch (RuntimeException e) {
+            paymentDetails.remove(token);
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the status of an intake.
+     *
+     * @param token The token returned when the intake was accepted
+     * @return The status of the intake
+     * @throws NoSuchElementException If no intake has the given token
+     */
+    @Override
+    public OrderIntakeStatus getStatus(String token) {
+        return intakeRepository.findByToken(token)
+                .map(OrderIntakeStatus::of)
+                .orElseThrow(() -> new NoSuchElementException("Order intake not found: " + token));
+    }
+
+    /**
+     * Claims as many queued intakes as the worker pool has room for, oldest first, and
+     * hands them to the workers.
+     *
+     * @return The number of intakes claimed
+     */
+    @Override
+    public synchronized int drain() {
+        int room = Math.min(batchSize, workerPool.getQueue().remainingCapacity());
+        if (room == 0) {
+            return 0;
+        }
+        List<OrderIntake> claimed = transactionTemplate.execute(status -> {
+            List<Long> ids = intakeRepository.findIdsByStatus(OrderIntake.IntakeStatus.QUEUED, PageRequest.of(0, room));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            intakeRepository.updateStatus(ids, OrderIntake.IntakeStatus.QUEUED, OrderIntake.IntakeStatus.PROCESSING,
+                    LocalDateTime.now());
+            return intakeRepository.findAllWithLinesByIdIn(ids);
+        });
+        for (OrderIntake intake : claimed) {
+            workerPool.execute(() -> place(intake));
+        }
+        return claimed.size();
+    }
+
+    // Places the order and completes the intake, or fails the intake
+    private void place(OrderIntake intake) {
+        PaymentDetails details = paymentDetails.remove(intake.getToken());
+        if (details == null) {
+            fail(intake, "Payment details are no longer available; please place the order again");
+            return;
+        }
+        Set<OrderItem> items = new HashSet<>();
+        intake.getQuantities().forEach((productId, quantity) -> {
+            OrderItem item = new OrderItem();
+            Product product = new Product();
+            product.setId(productId);
+            item.setProduct(product);
+            item.setQuantity(quantity);
+            items.add(item);
+        });
+        Order order;
+        try {
+            // Placement runs its own transactions, so none may be open around the payment call
+            order = orderService.placeOrderWithPayment(intake.getUserId(), items, intake.getPaymentMethod(), details,
+                    intake.getToken());
+        } catch (RuntimeException e) {
+            log.info("Order intake {} failed: {}", intake.getId(), e.getMessage());
+            fail(intake, e.getMessage());
+            return;
+        }
+        // The order is placed and paid, so the intake must never be failed from here on
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    intakeRepository.markCompleted(intake.getId(), order.getId(), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.error("Completing order intake {} with order {} failed; it is completed on the next startup",
+                    intake.getId(), order.getId(), e);
+        }
+    }
+
+    private void fail(OrderIntake intake, String reason) {
+        String trimmed = reason == null ? "Order could not be placed"
+                : reason.length() > MAX_FAILURE_REASON ? reason.substring(0, MAX_FAILURE_REASON) : reason;
+        transactionTemplate.executeWithoutResult(status ->
+                intakeRepository.markFailed(intake.getId(), trimmed, LocalDateTime.now()));
+    }
+}
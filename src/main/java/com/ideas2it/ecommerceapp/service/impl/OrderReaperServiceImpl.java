@@ -0,0 +1,162 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.OrderRepository;
+import com.ideas2it.ecommerceapp.service.OrderReaperService;
+import com.ideas2it.ecommerceapp.service.OrderService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of the OrderReaperService interface that cancels orders left PENDING
+ * for longer than the stale age and returns their stock.
+ * Stale orders are walked in id order, one chunk per transaction: each chunk is locked,
+ * skipping orders another reaper holds, and cancelled with one batch of restocks. Every
+ * instance can therefore run the reaper at once without cancelling an order twice.
+ *
+ * <p>Orders with a checkout still in progress or in doubt are left to the checkout
+ * recovery, since their payment may yet be, or already have been, taken.
+ *
+ * <p>Published meters: {@code order.reaper.cancelled}, whose rate is the throughput,
+ * {@code order.reaper.backlog} (stale orders left after the last run),
+ * {@code order.reaper.lag} (how long past the stale age the oldest of them is) and
+ * {@code order.reaper.run} (the duration of each run).
+ */
+@Service
+@Slf4j
+public class OrderReaperServiceImpl implements OrderReaperService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.order.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.order.reaper.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${app.order.reaper.stale-after-ms:86400000}")
+    private long staleAfterMs;
+
+    @Value("${app.order.reaper.batch-size:100}")
+    private int batchSize;
+
+    private record Chunk(int found, int cancelled, Long lastId) {
+    }
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private Counter cancelledOrders;
+    private Timer runs;
+    private ScheduledExecutorService reaperExecutor;
+
+    @PostConstruct
+    public void init() {
+        cancelledOrders = Counter.builder("order.reaper.cancelled")
+                .description("Stale orders cancelled by the reaper")
+                .register(meterRegistry);
+        runs = Timer.builder("order.reaper.run")
+                .description("Duration of a reaper run")
+                .register(meterRegistry);
+        Gauge.builder("order.reaper.backlog", backlog, AtomicLong::get)
+                .description("Stale orders left after the last reaper run")
+                .register(meterRegistry);
+        Gauge.builder("order.reaper.lag", lagSeconds, AtomicLong::get)
+                .description("How long past the stale age the oldest stale order left is")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        reaperExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaperExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                reap();
+            } catch (RuntimeException e) {
+                log.error("Reaping stale orders failed; retrying on the next run", e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reaperExecutor != null) {
+            reaperExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cancels the orders left PENDING for longer than the stale age, oldest id first,
+     * and returns their stock. Each chunk of orders is cancelled in its own transaction.
+     * The backlog and lag meters are updated once the walk ends.
+     *
+     * @return The number of orders cancelled
+     */
+    @Override
+    public synchronized int reap() {
+        long started = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+        int cancelled = 0;
+        Long afterId = 0L;
+        try {
+            Chunk chunk;
+            do {
+                Long from = afterId;
+                chunk = transactionTemplate.execute(status -> {
+                    List<Order> stale = orderRepository.findStaleOrders(Order.OrderStatus.PENDING, cutoff, from,
+                            Checkout.UNSETTLED_STATES, PageRequest.of(0, batchSize));
+                    if (stale.isEmpty()) {
+                        return new Chunk(0, 0, from);
+                    }
+                    List<Long> ids = stale.stream().map(Order::getId).toList();
+                    return new Chunk(ids.size(), orderService.cancelOrders(ids).size(), ids.get(ids.size() - 1));
+                });
+                cancelled += chunk.cancelled();
+                cancelledOrders.increment(chunk.cancelled());
+                afterId = chunk.lastId();
+            } while (chunk.found() == batchSize);
+        } finally {
+            runs.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+
+        Object[] left = orderRepository.countStaleOrders(Order.OrderStatus.PENDING, cutoff, Checkout.UNSETTLED_STATES).get(0);
+        backlog.set(((Number) left[0]).longValue());
+        lagSeconds.set(left[1] == null ? 0 : Duration.between((LocalDateTime) left[1], cutoff).toSeconds());
+        if (cancelled > 0) {
+            log.info("Cancelled {} stale orders; {} left", cancelled, backlog.get());
+        }
+        return cancelled;
+    }
+}
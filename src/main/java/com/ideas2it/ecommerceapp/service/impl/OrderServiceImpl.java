@@ -1,30 +1,48 @@
 package com.ideas2it.ecommerceapp.service.impl;
 
+import com.ideas2it.ecommerceapp.exception.CheckoutFailedException;
 import com.ideas2it.ecommerceapp.exception.ProductUnavailableException;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentDetails;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentProcessingException;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentStrategy;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentStrategyFactory;
-import jakarta.transaction.Transactional;
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderItemDto;
+import com.ideas2it.ecommerceapp.model.Checkout;
 import com.ideas2it.ecommerceapp.model.Order;
 import com.ideas2it.ecommerceapp.model.OrderItem;
 import com.ideas2it.ecommerceapp.model.Product;
 import com.ideas2it.ecommerceapp.model.User;
+import com.ideas2it.ecommerceapp.repository.CheckoutRepository;
 import com.ideas2it.ecommerceapp.repository.OrderRepository;
 import com.ideas2it.ecommerceapp.repository.UserRepository;
+import com.ideas2it.ecommerceapp.service.OrderAnalyticsService;
+import com.ideas2it.ecommerceapp.service.OrderGroupCommitService;
 import com.ideas2it.ecommerceapp.service.OrderService;
 import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.StockHoldService;
 import com.ideas2it.ecommerceapp.notification.observer.NotificationObserver;
+import com.ideas2it.ecommerceapp.util.AfterTransaction;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the OrderService interface that provides functionality
@@ -34,6 +52,7 @@ import java.util.Set;
  * It uses the Observer pattern for notifications and the Strategy pattern for payment processing.
  */
 @Service
+@Slf4j
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
@@ -41,6 +60,11 @@ public class OrderServiceImpl implements OrderService {
     private final ProductService productService;
     private final List<NotificationObserver> notificationObservers;
     private final PaymentStrategyFactory paymentStrategyFactory;
+    private final StockHoldService stockHoldService;
+    private final CheckoutRepository checkoutRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderGroupCommitService orderGroupCommitService;
+    private final OrderAnalyticsService orderAnalyticsService;
 
     @Autowired
     public OrderServiceImpl(
@@ -48,12 +72,22 @@ public class OrderServiceImpl implements OrderService {
             UserRepository userRepository,
             ProductService productService,
             List<NotificationObserver> notificationObservers,
-            PaymentStrategyFactory paymentStrategyFactory) {
+            PaymentStrategyFactory paymentStrategyFactory,
+            StockHoldService stockHoldService,
+            CheckoutRepository checkoutRepository,
+            TransactionTemplate transactionTemplate,
+            OrderGroupCommitService orderGroupCommitService,
+            OrderAnalyticsService orderAnalyticsService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productService = productService;
         this.notificationObservers = notificationObservers;
         this.paymentStrategyFactory = paymentStrategyFactory;
+        this.stockHoldService = stockHoldService;
+        this.checkoutRepository = checkoutRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.orderGroupCommitService = orderGroupCommitService;
+        this.orderAnalyticsService = orderAnalyticsService;
     }
 
     /**
@@ -63,7 +97,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        return orderRepository.findAllWithDetails();
     }
 
     /**
@@ -75,7 +109,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public Order getOrderById(Long id) {
-        return orderRepository.findById(id)
+        return orderRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new NoSuchElementException("Order not found with id: " + id));
     }
 
@@ -90,11 +124,13 @@ public class OrderServiceImpl implements OrderService {
     public List<Order> getOrdersByUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NoSuchElementException("User not found with id: " + userId));
-        return orderRepository.findByUser(user);
+        return orderRepository.findWithDetailsByUser(user);
     }
 
     /**
      * Retrieves a paginated list of orders for a specific user.
+     * The page is selected by order id first and the orders of that page are then
+     * loaded with their details, so paging is done by the database.
      *
      * @param userId The ID of the user whose orders are being retrieved
      * @param pageable Pagination information
@@ -102,15 +138,66 @@ public class OrderServiceImpl implements OrderService {
      * @throws NoSuchElementException If no user with the specified ID exists
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<Order> getOrdersByUserPaginated(Long userId, Pageable pageable) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NoSuchElementException("User not found with id: " + userId));
-        return orderRepository.findByUser(user, pageable);
+        Page<Long> orderIds = orderRepository.findIdsByUser(user, pageable);
+        if (orderIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, orderIds.getTotalElements());
+        }
+        Map<Long, Order> orders = new HashMap<>();
+        orderRepository.findWithDetailsByIdIn(orderIds.getContent()).forEach(order -> orders.put(order.getId(), order));
+        return orderIds.map(orders::get);
+    }
+
+    /**
+     * Retrieves a page of a user's orders as read-only projections, newest first.
+     * Only the selected columns are read and no entities are put in the persistence context.
+     *
+     * @param userId The ID of the user whose orders are being retrieved
+     * @param pageable Pagination information
+     * @return A page of order summaries including their items
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderDto> getOrderSummariesByUser(Long userId, Pageable pageable) {
+        Page<OrderDto> orders = orderRepository.findDtosByUserId(userId, pageable);
+        return new PageImpl<>(attachItems(orders.getContent()), orders.getPageable(), orders.getTotalElements());
+    }
+
+    /**
+     * Retrieves all orders with a specific status as read-only projections, newest first.
+     *
+     * @param status The status to filter orders by
+     * @return A list of order summaries including their items
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDto> getOrderSummariesByStatus(Order.OrderStatus status) {
+        return attachItems(orderRepository.findDtosByStatus(status));
+    }
+
+    private List<OrderDto> attachItems(List<OrderDto> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, Set<OrderItemDto>> itemsByOrder = new HashMap<>();
+        List<Long> orderIds = orders.stream().map(OrderDto::id).toList();
+        for (Object[] row : orderRepository.findItemDtosByOrderIds(orderIds)) {
+            itemsByOrder.computeIfAbsent((Long) row[0], id -> new LinkedHashSet<>()).add((OrderItemDto) row[1]);
+        }
+        return orders.stream()
+                .map(order -> order.withItems(itemsByOrder.getOrDefault(order.id(), Set.of())))
+                .toList();
     }
 
     /**
      * Places a new order for a user with the specified items.
-     * This method also updates product inventory.
+     * This method also updates product inventory, for all lines in a single batch.
+     * Once the order commits, the user's cart holds on the ordered products are released.
+     * With group commit enabled the order is written together with those of concurrent
+     * callers, in one transaction; otherwise it commits on its own.
      *
      * @param userId The ID of the user placing the order
      * @param items The set of items being ordered
@@ -118,44 +205,22 @@ public class OrderServiceImpl implements OrderService {
      * @throws NoSuchElementException If no user with the specified ID exists
      */
     @Override
-    @Transactional
     public Order placeOrder(Long userId, Set<OrderItem> items) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NoSuchElementException("User not found with id: " + userId));
-
-        // Create new order
-        Order order = new Order();
-        order.setUser(user);
-        order.setOrderDate(LocalDateTime.now());
-        order.setStatus(Order.OrderStatus.PENDING);
-        order.setPaymentStatus(Order.PaymentStatus.PENDING);
-
-        // Add items to order and calculate total
-        BigDecimal total = BigDecimal.ZERO;
-        for (OrderItem item : items) {
-            Product product = productService.getProductById(item.getProduct().getId());
-
-            // Update inventory
-            productService.updateProductStock(product.getId(), item.getQuantity());
-
-            // Set order item details
-            item.setProduct(product);
-            item.setUnitPrice(product.getPrice());
-            item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-            order.addItem(item);
-
-            // Add to total
-            total = total.add(item.getSubtotal());
+        if (orderGroupCommitService.isEnabled()) {
+            return orderGroupCommitService.placeOrder(userId, items);
         }
-
-        order.setTotalAmount(total);
-        return orderRepository.save(order);
+        return transactionTemplate.execute(status -> orderRepository.save(createOrder(userId, items)));
     }
 
     /**
-     * Places a new order with payment processing.
-     * This method creates an order, processes payment using the specified payment method,
-     * updates product inventory, and notifies observers of successful orders.
+     * Places a new order with payment processing, as a checkout in three steps so that
+     * no row lock or connection is held while the payment gateway is called:
+     * the stock is reserved and the order committed with its checkout; the payment is
+     * then processed outside any transaction; and the order is finally confirmed, or
+     * cancelled with its stock returned if the payment was declined. A checkout
+     * interrupted between the steps is settled by the checkout recovery.
+     * Observers are notified of successful orders, and once the order commits the
+     * user's cart holds on the ordered products are released.
      *
      * @param userId The ID of the user placing the order
      * @param items The set of items being ordered
@@ -163,11 +228,105 @@ public class OrderServiceImpl implements OrderService {
      * @param paymentDetails Payment details required for processing
      * @return The created order
      * @throws NoSuchElementException If no user with the specified ID exists
-     * @throws RuntimeException If payment processing fails
+     * @throws CheckoutFailedException If the order was reserved but payment failed, its outcome
+     *         is unknown or the order could not be confirmed
      */
     @Override
-    @Transactional
     public Order placeOrderWithPayment(Long userId, Set<OrderItem> items, String paymentMethod, PaymentDetails paymentDetails) {
+        return placeOrderWithPayment(userId, items, paymentMethod, paymentDetails, null);
+    }
+
+    /**
+     * Places a new order with payment processing, as {@link #placeOrderWithPayment(Long, Set, String, PaymentDetails)}
+     * does, and records the intake token on its checkout, so an intake interrupted after the
+     * order was reserved can still find its order.
+     *
+     * @param userId The ID of the user placing the order
+     * @param items The set of items being ordered
+     * @param paymentMethod The payment method to use (e.g., "CREDIT_CARD", "PAYPAL")
+     * @param paymentDetails Payment details required for processing
+     * @param intakeToken The token of the order intake placing the order, or null
+     * @return The created order
+     * @throws NoSuchElementException If no user with the specified ID exists
+     * @throws CheckoutFailedException If the order was reserved but payment failed, its outcome
+     *         is unknown or the order could not be confirmed
+     */
+    @Override
+    public Order placeOrderWithPayment(Long userId, Set<OrderItem> items, String paymentMethod, PaymentDetails paymentDetails,
+                                       String intakeToken) {
+        // Select payment strategy using factory
+        PaymentStrategy strategy = paymentStrategyFactory.getStrategy(paymentMethod);
+
+        // Reserve: the stock is taken and the order committed, pending payment
+        Reservation reservation = transactionTemplate.execute(status -> {
+            Order reserved = createOrder(userId, items);
+            reserved.setPaymentMethod(paymentMethod);
+            Order saved = orderRepository.save(reserved);
+            Checkout pending = new Checkout(saved.getId(), paymentMethod, saved.getTotalAmount());
+            pending.setIntakeToken(intakeToken);
+            Checkout checkout = checkoutRepository.save(pending);
+            return new Reservation(saved, checkout.getId());
+        });
+        Order order = reservation.order();
+        Long checkoutId = reservation.checkoutId();
+        Integer paying = transactionTemplate.execute(status -> checkoutRepository.transition(checkoutId,
+                List.of(Checkout.CheckoutState.RESERVED), Checkout.CheckoutState.PAYING, LocalDateTime.now()));
+        if (paying == null || paying == 0) {
+            throw new CheckoutFailedException(order.getId(), "Checkout of order " + order.getId() + " was settled before payment", null);
+        }
+
+        // Pay: no transaction is open while the gateway works
+        String transactionId;
+        try {
+            transactionId = strategy.processPayment(order.getTotalAmount(), paymentDetails);
+        } catch (PaymentProcessingException e) {
+            compensate(checkoutId, order, List.of(Checkout.CheckoutState.PAYING), e.getMessage());
+            throw new CheckoutFailedException(order.getId(), "Payment failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // The gateway may have taken the payment, so the stock stays reserved until it is reconciled
+            transactionTemplate.executeWithoutResult(status -> checkoutRepository.transition(checkoutId,
+                    List.of(Checkout.CheckoutState.PAYING), Checkout.CheckoutState.IN_DOUBT, LocalDateTime.now()));
+            log.error("Payment outcome unknown for order {}; left in doubt", order.getId(), e);
+            throw new CheckoutFailedException(order.getId(), "Payment outcome unknown: " + e.getMessage(), e);
+        }
+
+        // Confirm: the payment is recorded, or refunded if that fails or the checkout or order has moved on
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (checkoutRepository.markConfirmed(checkoutId,
+                        List.of(Checkout.CheckoutState.PAYING, Checkout.CheckoutState.IN_DOUBT), transactionId,
+                        LocalDateTime.now()) == 0) {
+                    throw new IllegalStateException("Checkout of order " + order.getId() + " was settled during payment");
+                }
+                if (orderRepository.updatePayment(order.getId(), Order.PaymentStatus.COMPLETED,
+                        Order.OrderStatus.PROCESSING) == 0) {
+                    throw new IllegalStateException("Order " + order.getId() + " is no longer pending");
+                }
+                orderAnalyticsService.recordStatusChange(order, order.getStatus(), Order.OrderStatus.PROCESSING);
+            });
+        } catch (RuntimeException e) {
+            log.error("Confirming order {} failed; refunding transaction {}", order.getId(), transactionId, e);
+            refund(strategy, transactionId, order, paymentDetails);
+            compensate(checkoutId, order, List.of(Checkout.CheckoutState.PAYING), "Order could not be confirmed");
+            throw new CheckoutFailedException(order.getId(), e.getMessage(), e);
+        }
+        order.setPaymentStatus(Order.PaymentStatus.COMPLETED);
+        order.setStatus(Order.OrderStatus.PROCESSING);
+
+        // Notify observers if payment succeeded
+        if (notificationObservers != null && !notificationObservers.isEmpty()) {
+            for (NotificationObserver observer : notificationObservers) {
+                observer.notify(order, "Order placed and payment completed.");
+            }
+        }
+        return order;
+    }
+
+    private record Reservation(Order order, Long checkoutId) {
+    }
+
+    // Builds the order and reserves its stock; the caller saves it in the same transaction
+    private Order createOrder(Long userId, Set<OrderItem> items) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NoSuchElementException("User not found with id: " + userId));
 
@@ -178,16 +337,24 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Order.OrderStatus.PENDING);
         order.setPaymentStatus(Order.PaymentStatus.PENDING);
 
-        // Add items to order and calculate total
+        // Update inventory for all lines at once
+        Map<Long, Product> products = reserveStock(userId, items);
+
+        addItems(order, items, products);
+        releaseCartHoldsAfterCommit(userId, items);
+        orderAnalyticsService.recordPlaced(order);
+        return order;
+    }
+
+    // Prices the items at the current product prices, adds them to the order and sets its total
+    static void addItems(Order order, Set<OrderItem> items, Map<Long, Product> products) {
         BigDecimal total = BigDecimal.ZERO;
         for (OrderItem item : items) {
-            Product product = productService.getProductById(item.getProduct().getId());
+            Product product = products.get(item.getProduct().getId());
 
             if (product == null) {
                 throw new ProductUnavailableException("Product not found with id: " + item.getProduct().getId());
             }
-            // Update inventory
-            productService.updateProductStock(product.getId(), item.getQuantity());
 
             // Set order item details
             item.setProduct(product);
@@ -198,62 +365,109 @@ public class OrderServiceImpl implements OrderService {
             // Add to total
             total = total.add(item.getSubtotal());
         }
-
         order.setTotalAmount(total);
+    }
 
-        // Select payment strategy using factory
-        PaymentStrategy strategy = paymentStrategyFactory.getStrategy(paymentMethod);
-
-        // Process payment
+    // Cancels the unpaid order and returns its stock, unless the checkout has already moved on
+    private void compensate(Long checkoutId, Order order, List<Checkout.CheckoutState> from, String reason) {
         try {
-            String transactionId = strategy.processPayment(total, paymentDetails);
-            order.setPaymentStatus(Order.PaymentStatus.COMPLETED);
-            order.setStatus(Order.OrderStatus.PROCESSING);
-            // Optionally store transactionId in order if needed
-        } catch (PaymentProcessingException e) {
-            order.setPaymentStatus(Order.PaymentStatus.FAILED);
-            order.setStatus(Order.OrderStatus.PENDING);
-            // Optionally log or handle payment failure
-            throw new RuntimeException("Payment failed: " + e.getMessage(), e);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (checkoutRepository.markCompensated(checkoutId, from, reason, LocalDateTime.now()) > 0) {
+                    cancel(List.of(order.getId())).forEach(cancelled -> cancelled.setPaymentStatus(Order.PaymentStatus.FAILED));
+                    order.setStatus(Order.OrderStatus.CANCELLED);
+                    order.setPaymentStatus(Order.PaymentStatus.FAILED);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Left for the checkout recovery
+            log.error("Compensating order {} failed", order.getId(), e);
         }
+    }
 
-        // Save order
-        Order savedOrder = orderRepository.save(order);
-        // Notify observers if payment succeeded
-        if (order.getPaymentStatus() == Order.PaymentStatus.COMPLETED
-                && notificationObservers != null && !notificationObservers.isEmpty()) {
-            for (NotificationObserver observer : notificationObservers) {
-                observer.notify(savedOrder, "Order placed and payment completed.");
-            }
+    private void refund(PaymentStrategy strategy, String transactionId, Order order, PaymentDetails paymentDetails) {
+        try {
+            strategy.refundPayment(transactionId, order.getTotalAmount(), paymentDetails);
+        } catch (PaymentProcessingException | RuntimeException e) {
+            log.error("Refunding transaction {} of order {} failed", transactionId, order.getId(), e);
         }
-        return savedOrder;
     }
 
     /**
      * Updates the status of an existing order.
-     * If the order is canceled, product inventory is restored.
+     * If the order is canceled, product inventory is restored, unless it already was.
      *
      * @param orderId The ID of the order to update
      * @param status The new status for the order
      * @return The updated order
      * @throws NoSuchElementException If no order with the specified ID exists
+     * @throws IllegalStateException If the order is to be cancelled while its checkout is unsettled
      */
     @Override
     @Transactional
     public Order updateOrderStatus(Long orderId, Order.OrderStatus status) {
+        if (status == Order.OrderStatus.CANCELLED) {
+            List<Order> cancelled = cancel(List.of(orderId));
+            if (!cancelled.isEmpty()) {
+                return cancelled.get(0);
+            }
+            Order order = getOrderById(orderId);
+            if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+                throw new IllegalStateException("Order " + orderId + " has a checkout in progress and cannot be cancelled");
+            }
+            return order;
+        }
         Order order = getOrderById(orderId);
+        orderAnalyticsService.recordStatusChange(order, order.getStatus(), status);
         order.setStatus(status);
+        return orderRepository.save(order);
+    }
 
-        // If order is canceled, restore inventory
-        if (status == Order.OrderStatus.CANCELLED) {
-            for (OrderItem item : order.getItems()) {
-                Product product = item.getProduct();
-                product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-                // Product will be saved by cascade
+    /**
+     * Cancels several orders at once and restores their inventory.
+     * The orders are locked in id order and those already cancelled are skipped, so
+     * their stock is never returned twice. Orders whose checkout is still unsettled are
+     * skipped too; the checkout cancels them itself if their payment fails. The
+     * quantities of all lines are summed per product by the database and returned with
+     * one batch of increments.
+     *
+     * @param orderIds The IDs of the orders to cancel
+     * @return The IDs of the orders this call cancelled, in ascending order
+     */
+    @Override
+    @Transactional
+    public List<Long> cancelOrders(Collection<Long> orderIds) {
+        return cancel(orderIds).stream().map(Order::getId).toList();
+    }
+
+    private List<Order> cancel(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<Order> orders = orderRepository.findAllByIdAndStatusNotForUpdate(orderIds, Order.OrderStatus.CANCELLED);
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        // A payment may still confirm these; cancelling them would return stock that is then sold
+        Set<Long> unsettled = new HashSet<>(checkoutRepository.findOrderIdsByState(
+                orders.stream().map(Order::getId).toList(), Checkout.UNSETTLED_STATES));
+        if (!unsettled.isEmpty()) {
+            orders = orders.stream().filter(order -> !unsettled.contains(order.getId())).toList();
+            if (orders.isEmpty()) {
+                return orders;
             }
         }
-
-        return orderRepository.save(order);
+        // The locked orders are flushed as one batched UPDATE
+        orders.forEach(order -> {
+            orderAnalyticsService.recordStatusChange(order, order.getStatus(), Order.OrderStatus.CANCELLED);
+            order.setStatus(Order.OrderStatus.CANCELLED);
+        });
+        List<Long> cancelledIds = orders.stream().map(Order::getId).toList();
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : orderRepository.sumQuantitiesByProduct(cancelledIds)) {
+            quantities.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        productService.restockProducts(quantities);
+        return orders;
     }
 
     /**
@@ -274,6 +488,7 @@ public class OrderServiceImpl implements OrderService {
         // If payment is completed, update order status to processing
         if (paymentStatus == Order.PaymentStatus.COMPLETED &&
             order.getStatus() == Order.OrderStatus.PENDING) {
+            orderAnalyticsService.recordStatusChange(order, Order.OrderStatus.PENDING, Order.OrderStatus.PROCESSING);
             order.setStatus(Order.OrderStatus.PROCESSING);
         }
 
@@ -288,7 +503,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<Order> getOrdersByStatus(Order.OrderStatus status) {
-        return orderRepository.findByStatus(status);
+        return orderRepository.findWithDetailsByStatus(status);
     }
 
     /**
@@ -300,17 +515,38 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<Order> getOrdersInDateRange(LocalDateTime start, LocalDateTime end) {
-        return orderRepository.findByOrderDateBetween(start, end);
+        return orderRepository.findWithDetailsByOrderDateBetween(start, end);
     }
 
     /**
      * Counts the number of orders placed since a specific time.
+     * The count is read from the order rollups rather than the orders table, so the
+     * threshold is rounded down to the minute, or to the hour or day for older times.
      *
      * @param since The time threshold
      * @return The number of orders placed since the specified time
      */
     @Override
     public Long countRecentOrders(LocalDateTime since) {
-        return orderRepository.countOrdersSince(since);
+        return orderAnalyticsService.countOrders(null, since, null);
+    }
+
+    // Sums the ordered quantity per product, since two lines may name the same product,
+    // and leaves the stock other users hold in their carts alone
+    private Map<Long, Product> reserveStock(Long userId, Set<OrderItem> items) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        stockHoldService.checkAvailable(quantities, Set.of(userId));
+        return productService.reserveStock(quantities);
+    }
+
+    // The ordered stock is now taken from the table, so the user's cart holds on it can go
+    private void releaseCartHoldsAfterCommit(Long userId, Set<OrderItem> items) {
+        Set<Long> productIds = items.stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toSet());
+        AfterTransaction.commit(() -> productIds.forEach(productId -> stockHoldService.releaseHold(userId, productId)));
     }
 }
@@ -0,0 +1,298 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ideas2it.ecommerceapp.dto.ProductImportResult;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductBatchRepository;
+import com.ideas2it.ecommerceapp.service.ProductImportService;
+import com.ideas2it.ecommerceapp.service.StockMovementService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the ProductImportService interface that loads supplier feeds.
+ * Input is read line by line and written in fixed-size JDBC batches, each in its
+ * own transaction, so memory use is bounded by the batch size rather than the
+ * feed size. A batch the database rejects is retried row by row so that one bad
+ * row does not take its neighbours down with it.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "stockquantity", "imageurl", "active");
+
+    @Autowired
+    private ProductBatchRepository productBatchRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Value("${app.product.import.batch-size:1000}")
+    private int batchSize;
+
+    // Caps the error report so a completely broken feed cannot exhaust memory
+    @Value("${app.product.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Imports products from a CSV or JSON Lines stream.
+     * CSV input must start with a header row naming the columns name, description,
+     * price, stockQuantity, imageUrl and active; only name, price and stockQuantity
+     * are required. Quoted CSV fields may not span lines.
+     *
+     * @param input The feed to import; it is read to the end but not closed
+     * @param format The format of the feed
+     * @return Counts, throughput and the first rejected rows
+     * @throws IllegalArgumentException If the format is missing or the CSV header is invalid
+     */
+    @Override
+    public ProductImportResult importProducts(InputStream input, Format format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Import format cannot be null");
+        }
+        long start = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        List<Product> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            Map<String, Integer> header = format == Format.CSV ? readCsvHeader(reader) : null;
+            long lineNumber = header == null ? 0 : 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.rowsRead++;
+                try {
+                    Product product = format == Format.CSV ? parseCsvRow(line, header) : parseJsonRow(line);
+                    String violations = validate(product);
+                    if (violations != null) {
+                        progress.reject(lineNumber, violations);
+                        continue;
+                    }
+                    batch.add(product);
+                    batchRows.add(lineNumber);
+                } catch (IllegalArgumentException | IOException e) {
+                    progress.reject(lineNumber, "Malformed row: " + e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    flush(batch, batchRows, progress);
+                }
+            }
+            flush(batch, batchRows, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import stream", e);
+        }
+
+        if (progress.imported > 0) {
+            eventPublisher.publishEvent(new ProductChangedEvent(Set.of(), ProductChangedEvent.ChangeType.BULK_IMPORTED));
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : progress.rowsRead * 1_000_000_000.0 / elapsedNanos;
+        log.info("Product import finished: {} rows read, {} imported, {} failed in {} ms",
+                progress.rowsRead, progress.imported, progress.failed, elapsedMillis);
+        return new ProductImportResult(progress.rowsRead, progress.imported, progress.failed, progress.batches,
+                elapsedMillis, rowsPerSecond, progress.errors);
+    }
+
+    private void flush(List<Product> batch, List<Long> batchRows, ImportProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        progress.batches++;
+        try {
+            transactionTemplate.execute(status -> insert(batch));
+            progress.imported += batch.size();
+        } catch (DataAccessException e) {
+            // Isolate the offending rows by retrying the batch one row at a time
+            for (int i = 0; i < batch.size(); i++) {
+                List<Product> single = List.of(batch.get(i));
+                try {
+                    transactionTemplate.execute(status -> insert(single));
+                    progress.imported++;
+                } catch (DataAccessException rowError) {
+                    progress.reject(batchRows.get(i), "Rejected by database: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+        batchRows.clear();
+    }
+
+    // The initial stock of the inserted products is journaled in the same transaction
+    private int[] insert(List<Product> products) {
+        int[] updateCounts = productBatchRepository.insertProducts(products);
+        Map<Long, Integer> openings = new HashMap<>();
+        for (Product product : products) {
+            if (product.getId() != null) {
+                openings.put(product.getId(), product.getStockQuantity());
+            }
+        }
+        stockMovementService.record(openings, StockMovement.MovementType.OPENING);
+        return updateCounts;
+    }
+
+    private String validate(Product product) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Product parseJsonRow(String line) throws IOException {
+        Product product = objectMapper.readValue(line, Product.class);
+        // A line holding only null parses to no product at all
+        if (product == null) {
+            throw new IllegalArgumentException("Row is not a JSON object");
+        }
+        // Ids and versions are always assigned by the database
+        product.setId(null);
+        product.setVersion(null);
+        if (product.getActive() == null) {
+            product.setActive(true);
+        }
+        return product;
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV input is empty");
+        }
+        Map<String, Integer> header = new HashMap<>();
+        List<String> columns = parseCsvLine(headerLine);
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "");
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown CSV column: " + columns.get(i));
+            }
+            header.put(column, i);
+        }
+        for (String required : List.of("name", "price", "stockquantity")) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + required);
+            }
+        }
+        return header;
+    }
+
+    private Product parseCsvRow(String line, Map<String, Integer> header) {
+        List<String> values = parseCsvLine(line);
+        Product product = new Product();
+        product.setName(column(values, header, "name"));
+        product.setDescription(column(values, header, "description"));
+        String price = column(values, header, "price");
+        product.setPrice(price == null ? null : new BigDecimal(price));
+        String stock = column(values, header, "stockquantity");
+        product.setStockQuantity(stock == null ? null : Integer.valueOf(stock));
+        product.setImageUrl(column(values, header, "imageurl"));
+        String active = column(values, header, "active");
+        product.setActive(active == null || Boolean.parseBoolean(active));
+        return product;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits one CSV line into fields, honouring double-quoted fields and "" escapes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private class ImportProgress {
+        private long rowsRead;
+        private long imported;
+        private long failed;
+        private int batches;
+        private final List<ProductImportResult.RowError> errors = new ArrayList<>();
+
+        private void reject(long row, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportResult.RowError(row, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.search.ProductSearchIndex;
+import com.ideas2it.ecommerceapp.service.ProductSearchService;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of the ProductSearchService interface backed by an in-memory
+ * inverted index. The index is rebuilt at startup and kept current from
+ * product change events, so searches never touch the database.
+ *
+ * <p>A rebuild builds a new index while the old one keeps serving searches and
+ * incremental changes. Changes that arrive during a rebuild are also recorded and
+ * re-applied to the new index once it is swapped in, since the catalog it was read
+ * from may predate them.
+ */
+@Service
+@Slf4j
+public class ProductSearchServiceImpl implements ProductSearchService {
+
+    // Upper bound for the number of hits a single search may return
+    private static final int MAX_LIMIT = 100;
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    private final Object rebuildLock = new Object();
+
+    // Changes seen while a rebuild runs, by product; a null document is a removal. Null when no rebuild runs
+    private Map<Long, ProductSearchIndex.Document> pendingChanges;
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private ExecutorService rebuildExecutor;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @PostConstruct
+    public void init() {
+        rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-search-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Searches active products by name and description.
+     *
+     * @param query The free-text query; the terms match whole words or word prefixes
+     * @param minPrice The inclusive lower price bound, or null for no bound
+     * @param maxPrice The inclusive upper price bound, or null for no bound
+     * @param limit The maximum number of hits to return
+     * @return The matching products ordered by relevance
+     * @throws IllegalArgumentException If the query is blank or the limit or price range is invalid
+     */
+    @Override
+    public List<ProductSearchHit> search(String query, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Minimum price cannot exceed maximum price");
+        }
+        return index.search(query, minPrice, maxPrice, limit);
+    }
+
+    /**
+     * Rebuilds the whole index from the active catalog. Products are analyzed as
+     * they come off a streaming cursor, so neither the catalog nor its documents are
+     * held in a list. Rebuilds run one at a time.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                pendingChanges = new HashMap<>();
+            }
+            Map<Long, ProductSearchIndex.Document> changes;
+            ProductSearchIndex.Builder builder = new ProductSearchIndex.Builder();
+            try {
+                productService.streamActiveProducts(product -> builder.add(analyze(product)));
+                index.replaceAll(builder);
+            } finally {
+                synchronized (this) {
+                    changes = pendingChanges;
+                    pendingChanges = null;
+                }
+            }
+            // Changes made after the swap went to the new index directly; these may predate it
+            changes.forEach((productId, document) -> {
+                if (document == null) {
+                    index.remove(productId);
+                } else {
+                    index.upsert(document);
+                }
+            });
+            log.info("Product search index rebuilt with {} products in {} ms ({} changes re-applied)",
+                    builder.size(), System.currentTimeMillis() - start, changes.size());
+        }
+    }
+
+    /**
+     * Applies a committed product change to the index.
+     * Stock changes do not affect searchable fields and are ignored; bulk imports
+     * do not say which products changed and trigger a full rebuild, which runs in
+     * the background.
+     *
+     * @param event The product change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.STOCK_CHANGED) {
+            return;
+        }
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.BULK_IMPORTED) {
+            scheduleRebuild();
+            return;
+        }
+
+        Set<Long> missing = new HashSet<>(event.getProductIds());
+        for (Product product : productRepository.findAllById(event.getProductIds())) {
+            missing.remove(product.getId());
+            if (Boolean.TRUE.equals(product.getActive())) {
+                upsert(analyze(product));
+            } else {
+                remove(product.getId());
+            }
+        }
+        missing.forEach(this::remove);
+    }
+
+    // A rebuild waiting to start reads the catalog late enough to cover this request too
+    private void scheduleRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            rebuildQueued.set(false);
+            try {
+                rebuildIndex();
+            } catch (RuntimeException e) {
+                log.error("Product search index rebuild failed", e);
+            }
+        });
+    }
+
+    private void upsert(ProductSearchIndex.Document document) {
+        synchronized (this) {
+            if (pendingChanges != null) {
+                pendingChanges.put(document.id(), document);
+            }
+        }
+        index.upsert(document);
+    }
+
+    private void remove(Long productId) {
+        synchronized (this) {
+            if (pendingChanges != null) {
+                pendingChanges.put(productId, null);
+            }
+        }
+        index.remove(productId);
+    }
+
+    private ProductSearchIndex.Document analyze(Product product) {
+        return ProductSearchIndex.analyze(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getImageUrl());
+    }
+}
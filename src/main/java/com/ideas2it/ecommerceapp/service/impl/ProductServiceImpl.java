@@ -1,15 +1,58 @@
 package com.ideas2it.ecommerceapp.service.impl;
 
-import jakarta.transaction.Transactional;
+import com.ideas2it.ecommerceapp.config.CacheConfig;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateRequest;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateResult;
+import com.ideas2it.ecommerceapp.dto.ProductCursorPage;
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
 import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductBatchRepository;
 import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.InventoryLedgerService;
+import com.ideas2it.ecommerceapp.service.LowStockService;
 import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.ShardedStockService;
+import com.ideas2it.ecommerceapp.service.StockMovementService;
+import com.ideas2it.ecommerceapp.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the ProductService interface that provides functionality
@@ -20,21 +63,78 @@ import java.util.Optional;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // Upper bound for a single keyset page
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final String CURSOR_SEPARATOR = "|";
+
     @Autowired
     private ProductRepository productRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private LowStockService lowStockService;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private ProductBatchRepository productBatchRepository;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Value("${app.inventory.stock-update-mode:ATOMIC}")
+    private StockUpdateMode stockUpdateMode = StockUpdateMode.ATOMIC;
+
+    // How long a request waits for another request's in-flight load of the same product
+    @Value("${app.product.load-coalescing.timeout-ms:2000}")
+    private long loadCoalescingTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<Long, Product> productLoads;
+
+    // Number of products touched by each bulk UPDATE statement and transaction
+    @Value("${app.product.bulk-update.chunk-size:500}")
+    private int bulkUpdateChunkSize;
+
+    @PostConstruct
+    public void init() {
+        productLoads = new SingleFlight<>("product-load", Duration.ofMillis(loadCoalescingTimeoutMs), meterRegistry);
+    }
+
     /**
      * Retrieves all active products from the database.
+     * Products with sharded stock carry the live total of their shards.
      *
      * @return A list of all active products
      */
     @Override
     public List<Product> getAllProducts() {
-        return productRepository.findByActiveTrue();
+        return withShardedStock(productRepository.findByActiveTrue());
     }
 
     /**
      * Retrieves a specific product by its ID.
+     * Results are served from the product cache; a miss falls through to the database.
+     * Concurrent misses for the same product share a single database load.
+     * A product with sharded stock carries the live total of its shards.
      *
      * @param id The ID of the product to retrieve
      * @return The product with the specified ID
@@ -42,27 +142,35 @@ public class ProductServiceImpl implements ProductService {
      * @throws NoSuchElementException If no product with the specified ID exists
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id", condition = "#id != null")
     public Product getProductById(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("Product ID cannot be null");
         }
-        return productRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Product not found with id: " + id));
+        return productLoads.execute(id, () -> withShardedStock(loadProduct(id)));
     }
 
     /**
      * Creates a new product in the database.
+     * Listeners such as the search index are notified once the product is stored.
+     * Its initial stock is journaled as an opening movement.
      *
      * @param product The product entity to be created
      * @return The created product with assigned ID
      */
     @Override
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        stockMovementService.record(savedProduct.getId(), savedProduct.getStockQuantity(), StockMovement.MovementType.OPENING);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ProductChangedEvent.ChangeType.CREATED));
+        return savedProduct;
     }
 
     /**
      * Updates an existing product with new details.
+     * For a product with sharded stock, the new stock is spread over its shards.
+     * A change of stock is journaled as an adjustment.
      *
      * @param id The ID of the product to update
      * @param productDetails The product entity containing updated details
@@ -70,20 +178,36 @@ public class ProductServiceImpl implements ProductService {
      * @throws NoSuchElementException If no product with the specified ID exists
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+        Product product = loadProduct(id);
+        // The version check on save rejects the update if a purchase changed the stock meanwhile
+        int previousStock = product.getStockQuantity();
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
         product.setStockQuantity(productDetails.getStockQuantity());
         product.setImageUrl(productDetails.getImageUrl());
         product.setActive(productDetails.getActive());
-        return productRepository.save(product);
+        if (isSharded(id)) {
+            previousStock = shardedStockService.setStock(id, productDetails.getStockQuantity());
+        }
+        Product savedProduct = productRepository.save(product);
+        stockMovementService.record(id, productDetails.getStockQuantity() - previousStock,
+                StockMovement.MovementType.ADJUSTMENT);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.UPDATED));
+        return savedProduct;
     }
 
     /**
      * Updates the stock quantity of a product by reducing it by the specified amount.
-     * Uses pessimistic locking to prevent concurrent updates leading to overselling.
+     * In ATOMIC mode (the default) the check and the decrement are a single guarded
+     * UPDATE, so no row lock is held between reading and writing the stock. In
+     * PESSIMISTIC mode the row is locked, checked and saved back. In LEDGER mode the
+     * stock is taken from the in-memory inventory ledger and written back later.
+     * Products with sharded stock are served by one of their shard rows in the
+     * ATOMIC and PESSIMISTIC modes, and their products row is not touched.
      *
      * @param productId The ID of the product whose stock needs to be updated
      * @param quantity The quantity to be reduced from the current stock
@@ -92,19 +216,175 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public void updateProductStock(Long productId, int quantity) {
-        // Using pessimistic lock to prevent concurrent updates to stock
-        Optional<Product> productOpt = productRepository.findByIdWithPessimisticLock(productId);
-        Product product = productOpt.orElseThrow(() ->
-            new NoSuchElementException("Product not found with id: " + productId));
+        // Written when the transaction commits, so it is dropped if the stock cannot be taken
+        stockMovementService.record(productId, -quantity, StockMovement.MovementType.SALE);
+        if (stockUpdateMode == StockUpdateMode.LEDGER) {
+            // The ledger announces the change once it has written the stock back
+            inventoryLedgerService.reserve(productId, quantity);
+            return;
+        }
+        if (isSharded(productId)) {
+            // The shard total is written back to the products row, and announced, periodically
+            shardedStockService.reserve(productId, quantity);
+            return;
+        }
+        if (stockUpdateMode == StockUpdateMode.ATOMIC) {
+            if (productRepository.decrementStock(productId, quantity) == 0) {
+                // Nothing matched; find out whether the product is missing, sharded or short of stock
+                Product product = loadProduct(productId);
+                if (product.getStockShards() != null) {
+                    shardedStockService.reserve(productId, quantity);
+                    return;
+                }
+                throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+            }
+        } else {
+            // Using pessimistic lock to prevent concurrent updates to stock
+            Optional<Product> productOpt = productRepository.findByIdWithPessimisticLock(productId);
+            Product product = productOpt.orElseThrow(() ->
+                new NoSuchElementException("Product not found with id: " + productId));
+            if (product.getStockShards() != null) {
+                shardedStockService.reserve(productId, quantity);
+                return;
+            }
 
-        int newQuantity = product.getStockQuantity() - quantity;
-        if (newQuantity < 0) {
-            throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+            int newQuantity = product.getStockQuantity() - quantity;
+            if (newQuantity < 0) {
+                throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+            }
+
+            product.setStockQuantity(newQuantity);
+            productRepository.save(product);
         }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+    }
 
-        product.setStockQuantity(newQuantity);
-        productRepository.save(product);
+    /**
+     * Takes stock for all lines of an order at once.
+     * The products are loaded with a single IN query and their stock is decremented in
+     * one JDBC batch. Rows are always locked in ascending id order, so two orders that
+     * share products lock them in the same sequence and cannot deadlock. Either every
+     * product is decremented or, through the rollback, none is. Products with sharded
+     * stock take theirs from a shard row each, after all products rows, also in id order.
+     * Every line is journaled as a sale.
+     *
+     * @param quantities The quantity to take per product ID
+     * @return The products by ID, as loaded before the decrement
+     * @throws NoSuchElementException If any of the products does not exist
+     * @throws IllegalStateException If any of the products has insufficient stock
+     */
+    @Override
+    @Transactional
+    public Map<Long, Product> reserveStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return Map.of();
+        }
+        // Sharded products never lock their products row
+        SortedMap<Long, Integer> ordered = new TreeMap<>();
+        SortedMap<Long, Integer> sharded = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> (isSharded(productId) ? sharded : ordered).put(productId, quantity));
+
+        List<Product> loaded = new ArrayList<>();
+        if (stockUpdateMode == StockUpdateMode.PESSIMISTIC) {
+            if (!ordered.isEmpty()) {
+                loaded.addAll(productRepository.findAllByIdForUpdate(ordered.keySet()));
+            }
+            if (!sharded.isEmpty()) {
+                loaded.addAll(productRepository.findAllById(sharded.keySet()));
+            }
+        } else {
+            loaded.addAll(productRepository.findAllById(quantities.keySet()));
+        }
+        Map<Long, Product> products = new HashMap<>();
+        loaded.forEach(product -> products.put(product.getId(), product));
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new NoSuchElementException("Product not found with id: " + productId);
+            }
+        }
+
+        switch (stockUpdateMode) {
+            case LEDGER -> {
+                // Each reservation is returned to the ledger if the transaction rolls back
+                ordered.forEach(inventoryLedgerService::reserve);
+            }
+            case ATOMIC -> {
+                int[] updateCounts = ordered.isEmpty() ? new int[0] : productBatchRepository.decrementStock(ordered);
+                int line = 0;
+                for (Long productId : List.copyOf(ordered.keySet())) {
+                    if (updateCounts[line++] == 0) {
+                        Product product = products.get(productId);
+                        if (product.getStockShards() == null) {
+                            throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+                        }
+                        sharded.put(productId, ordered.remove(productId));
+                    }
+                }
+            }
+            case PESSIMISTIC -> {
+                // The rows are locked; the changed entities are flushed as one batched UPDATE
+                for (Long productId : List.copyOf(ordered.keySet())) {
+                    Product product = products.get(productId);
+                    if (product.getStockShards() != null) {
+                        sharded.put(productId, ordered.remove(productId));
+                        continue;
+                    }
+                    int newQuantity = product.getStockQuantity() - ordered.get(productId);
+                    if (newQuantity < 0) {
+                        throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+                    }
+                    product.setStockQuantity(newQuantity);
+                }
+            }
+        }
+        sharded.forEach(shardedStockService::reserve);
+        Map<Long, Integer> sold = new HashMap<>();
+        quantities.forEach((productId, quantity) -> sold.put(productId, -quantity));
+        stockMovementService.record(sold, StockMovement.MovementType.SALE);
+        // The ledger announces its changes once it has written the stock back
+        if (stockUpdateMode != StockUpdateMode.LEDGER && !ordered.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ordered.keySet(), ProductChangedEvent.ChangeType.STOCK_CHANGED));
+        }
+        return products;
+    }
+
+    /**
+     * Returns stock to several products at once, such as the lines of cancelled orders.
+     * The increments are applied by the database in one JDBC batch, in ascending id
+     * order like reservations, so they neither overwrite nor deadlock with concurrent
+     * purchases. Products with sharded stock get theirs back on one of their shards.
+     * Every product is journaled as a restock.
+     *
+     * @param quantities The quantity to return per product ID
+     * @throws IllegalArgumentException If any quantity is not positive
+     * @throws IllegalStateException If a product is missing and has no shards either
+     */
+    @Override
+    @Transactional
+    public void restockProducts(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        if (quantities.values().stream().anyMatch(quantity -> quantity == null || quantity < 1)) {
+            throw new IllegalArgumentException("Restock quantities must be positive");
+        }
+        SortedMap<Long, Integer> ordered = new TreeMap<>(quantities);
+        if (stockUpdateMode == StockUpdateMode.LEDGER) {
+            // The products rows are authoritative here; the ledger realigns its counters on the change event
+            productBatchRepository.adjustStock(ordered);
+        } else {
+            int[] updateCounts = productBatchRepository.incrementStock(ordered);
+            int line = 0;
+            for (Map.Entry<Long, Integer> entry : ordered.entrySet()) {
+                if (updateCounts[line++] == 0) {
+                    shardedStockService.release(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        stockMovementService.record(ordered, StockMovement.MovementType.RESTOCK);
+        eventPublisher.publishEvent(new ProductChangedEvent(ordered.keySet(), ProductChangedEvent.ChangeType.STOCK_CHANGED));
     }
 
     /**
@@ -115,21 +395,263 @@ public class ProductServiceImpl implements ProductService {
      * @throws NoSuchElementException If no product with the specified ID exists
      */
     @Override
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = loadProduct(id);
         product.setActive(false);
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.ChangeType.DELETED));
     }
 
     /**
-     * Retrieves all products whose stock quantity is below a specified threshold.
-     * Useful for inventory management and reordering alerts.
+     * Retrieves all active products whose stock quantity is below a specified threshold,
+     * lowest stock first. Useful for inventory management and reordering alerts.
+     * Served from the low-stock tracker, so polling it does not scan the products table.
      *
      * @param threshold The stock level below which products should be returned
      * @return A list of products with stock quantity below the threshold
      */
     @Override
     public List<Product> getLowStockProducts(int threshold) {
-        return productRepository.findByStockQuantityLessThan(threshold);
+        return lowStockService.getLowStockProducts(threshold);
+    }
+
+    /**
+     * Retrieves one page of active products using keyset pagination.
+     * Unlike offset paging, the cost of a page does not grow with its position in the catalog.
+     *
+     * @param cursor The opaque cursor returned with the previous page, or null for the first page
+     * @param size The maximum number of products to return
+     * @param sortKey The ordering of the listing; must match the ordering the cursor was issued for
+     * @return The page of products together with the cursor for the next page
+     * @throws IllegalArgumentException If the size is out of range or the cursor is malformed
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductCursorPage getProductPage(String cursor, int size, ProductCursorPage.SortKey sortKey) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (sortKey == null) {
+            throw new IllegalArgumentException("Sort key cannot be null");
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Product> products;
+        if (sortKey == ProductCursorPage.SortKey.ID) {
+            Long afterId = cursor == null ? 0L : Long.valueOf(decodeCursor(cursor, sortKey)[1]);
+            products = productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(afterId, limit);
+        } else if (cursor == null) {
+            products = productRepository.findByActiveTrueOrderByPriceAscIdAsc(limit);
+        } else {
+            String[] parts = decodeCursor(cursor, sortKey);
+            products = productRepository.findActiveAfterPriceAndId(new BigDecimal(parts[1]), Long.valueOf(parts[2]), limit);
+        }
+
+        boolean hasMore = products.size() > size;
+        List<Product> items = hasMore ? products.subList(0, size) : products;
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1), sortKey) : null;
+        return new ProductCursorPage(List.copyOf(items), nextCursor, hasMore);
+    }
+
+    /**
+     * Streams every active product to the given consumer in id order.
+     * Rows are read through a forward-only cursor and detached once consumed,
+     * so memory use stays flat regardless of catalog size.
+     *
+     * @param consumer The callback receiving each product
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamActiveProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamActiveProducts()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+
+    /**
+     * Retrieves a page of active products as read-only summaries in id order.
+     * The projection skips the description column and builds no managed entities,
+     * and the read-only transaction runs with Hibernate's flush mode set to MANUAL,
+     * so there is no snapshot copy or dirty check per row.
+     *
+     * @param afterId The last product ID of the previous page, or null for the first page
+     * @param size The maximum number of summaries to return
+     * @return The product summaries
+     * @throws IllegalArgumentException If the size is out of range
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummaryDto> getProductSummaries(Long afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return productRepository.findActiveSummaries(afterId == null ? 0L : afterId, PageRequest.of(0, size));
+    }
+
+    /**
+     * Applies one price, stock or status change to many products with set-based
+     * UPDATE statements instead of loading and saving each entity.
+     * Targets are processed in chunks, each in its own transaction, so a large
+     * catalog never holds row locks for long. Every updated row gets its version
+     * bumped, and one change event per chunk evicts the affected cache entries.
+     *
+     * @param request The change to apply and the products to apply it to
+     * @return The number of targeted, updated and skipped products
+     * @throws IllegalArgumentException If the request is null
+     */
+    @Override
+    public ProductBulkUpdateResult bulkUpdateProducts(ProductBulkUpdateRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Bulk update request cannot be null");
+        }
+        long matched = 0;
+        long updated = 0;
+        int chunks = 0;
+
+        if (request.productIds() != null) {
+            List<Long> ids = List.copyOf(new LinkedHashSet<>(request.productIds()));
+            for (int from = 0; from < ids.size(); from += bulkUpdateChunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + bulkUpdateChunkSize, ids.size()));
+                matched += chunk.size();
+                updated += applyBulkUpdate(chunk, request);
+                chunks++;
+            }
+        } else {
+            ProductBulkUpdateRequest.Filter filter = request.filter();
+            PageRequest limit = PageRequest.of(0, bulkUpdateChunkSize);
+            long afterId = 0;
+            List<Long> chunk;
+            do {
+                chunk = productRepository.findIdsByFilter(afterId, filter.active(), filter.minPrice(), filter.maxPrice(), limit);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                matched += chunk.size();
+                updated += applyBulkUpdate(chunk, request);
+                chunks++;
+                afterId = chunk.get(chunk.size() - 1);
+            } while (chunk.size() == bulkUpdateChunkSize);
+        }
+        return new ProductBulkUpdateResult(matched, updated, matched - updated, chunks);
+    }
+
+    private int applyBulkUpdate(List<Long> ids, ProductBulkUpdateRequest request) {
+        BigDecimal value = request.value();
+        Integer updated = transactionTemplate.execute(status -> switch (request.operation()) {
+            case PRICE_PERCENT -> productRepository.scalePrices(ids,
+                    BigDecimal.ONE.add(value.divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP)));
+            case PRICE_SET -> productRepository.setPrices(ids, value);
+            case PRICE_DELTA -> productRepository.adjustPrices(ids, value);
+            case STOCK_DELTA -> adjustStock(ids, value.intValueExact());
+            case ACTIVATE -> productRepository.setActive(ids, true);
+            case DEACTIVATE -> productRepository.setActive(ids, false);
+        });
+
+        // Published after the chunk committed; cache entries are evicted by evictChangedProducts
+        ProductChangedEvent.ChangeType changeType = request.operation() == ProductBulkUpdateRequest.Operation.STOCK_DELTA
+                ? ProductChangedEvent.ChangeType.STOCK_CHANGED
+                : ProductChangedEvent.ChangeType.UPDATED;
+        eventPublisher.publishEvent(new ProductChangedEvent(Set.copyOf(ids), changeType));
+        return updated == null ? 0 : updated;
+    }
+
+    // Locks the rows the delta applies to first, so exactly those are journaled
+    private int adjustStock(List<Long> ids, int delta) {
+        List<Long> adjustable = productRepository.lockAdjustableStock(ids, delta);
+        if (adjustable.isEmpty()) {
+            return 0;
+        }
+        int updated = productRepository.adjustStock(adjustable, delta);
+        Map<Long, Integer> adjustments = new HashMap<>();
+        adjustable.forEach(productId -> adjustments.put(productId, delta));
+        stockMovementService.record(adjustments, StockMovement.MovementType.ADJUSTMENT);
+        return updated;
+    }
+
+    /**
+     * Evicts products changed outside the annotated single-product methods, such as
+     * bulk updates and order cancellations, from the product cache once the change
+     * has committed. Runs before the other listeners, which may read the products back.
+     *
+     * @param event The product change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void evictChangedProducts(ProductChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            event.getProductIds().forEach(cache::evict);
+        }
+    }
+
+    // The ledger keeps all stock in memory, so shards are only used by the row-based modes
+    private boolean isSharded(Long productId) {
+        return stockUpdateMode != StockUpdateMode.LEDGER && shardedStockService.isSharded(productId);
+    }
+
+    // The products row of a sharded product holds a periodically written copy of its stock.
+    // The shard total goes on a detached copy, as setting it on the managed entity would
+    // write the row, and bump its version, on the next flush
+    private Product withShardedStock(Product product) {
+        if (isSharded(product.getId())) {
+            Integer stock = shardedStockService.getStocks(List.of(product.getId())).get(product.getId());
+            // Without shard rows the product has been unsharded meanwhile and its row is current
+            return stock == null ? product : withStock(product, stock);
+        }
+        return product;
+    }
+
+    private List<Product> withShardedStock(List<Product> products) {
+        List<Long> shardedIds = products.stream().map(Product::getId).filter(this::isSharded).toList();
+        if (shardedIds.isEmpty()) {
+            return products;
+        }
+        Map<Long, Integer> stocks = shardedStockService.getStocks(shardedIds);
+        return products.stream()
+                .map(product -> stocks.containsKey(product.getId()) ? withStock(product, stocks.get(product.getId())) : product)
+                .toList();
+    }
+
+    private static Product withStock(Product product, int stock) {
+        Product copy = new Product();
+        BeanUtils.copyProperties(product, copy);
+        copy.setStockQuantity(stock);
+        return copy;
+    }
+
+    // Writers load their own copy so they never modify an instance shared with coalesced readers
+    private Product loadProduct(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Product ID cannot be null");
+        }
+        return productRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Product not found with id: " + id));
+    }
+
+    private String encodeCursor(Product last, ProductCursorPage.SortKey sortKey) {
+        String raw = sortKey == ProductCursorPage.SortKey.ID
+                ? sortKey + CURSOR_SEPARATOR + last.getId()
+                : sortKey + CURSOR_SEPARATOR + last.getPrice().toPlainString() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, ProductCursorPage.SortKey sortKey) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split("\\" + CURSOR_SEPARATOR);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int expectedParts = sortKey == ProductCursorPage.SortKey.ID ? 2 : 3;
+        if (parts.length != expectedParts || !parts[0].equals(sortKey.name())) {
+            throw new IllegalArgumentException("Cursor does not match sort order " + sortKey);
+        }
+        return parts;
     }
 }
@@ -0,0 +1,461 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.inventory.ShardClaims;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.ProductStockShard;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.repository.ProductStockShardRepository;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.ShardedStockService;
+import com.ideas2it.ecommerceapp.util.AfterTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the ShardedStockService interface for products whose stock is
+ * split over several shard rows. A purchase decrements one randomly chosen shard with
+ * a guarded UPDATE, so buyers of a hot product contend on different rows instead of
+ * serializing on the products row. When the chosen shard is short, the other shards
+ * are tried; only when no single shard can serve the quantity are all shards of the
+ * product locked, the purchase taken from their total and the rest spread evenly again.
+ * Buyers on this instance claim a shard in memory before touching its row, so they
+ * never wait for each other's row locks; see {@link ShardClaims}.
+ *
+ * <p>Another instance may shard, reshard or unshard a product at any time. Whenever
+ * this instance finds no claims or no shard rows for a product, it re-reads the shard
+ * count from the products row and replaces or drops its claims to match.
+ *
+ * <p>The products row keeps a copy of the shard total for listings and low-stock
+ * queries. It is written back by a background task and trails purchases by up to
+ * one flush interval; ProductService reads the live total from the shards.
+ *
+ * <p>Sharding is not used in LEDGER mode, which already keeps stock off the products row.
+ */
+@Service
+@Slf4j
+public class ShardedStockServiceImpl implements ShardedStockService {
+
+    // Beyond this a rebalance locks more rows than the contention it saves
+    private static final int MAX_SHARDS = 256;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.inventory.stock-update-mode:ATOMIC}")
+    private ProductService.StockUpdateMode stockUpdateMode;
+
+    @Value("${app.inventory.sharding.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    // How long a buyer waits for a free shard, or a rebalance for all of them
+    @Value("${app.inventory.sharding.claim-timeout-ms:5000}")
+    private long claimTimeoutMs;
+
+    // Claims per product known to be sharded; the stockShards column of the products row is authoritative
+    private final Map<Long, ShardClaims> shardClaims = new ConcurrentHashMap<>();
+
+    private record Claim(ShardClaims claims, int shard) {
+        void release() {
+            claims.release(shard);
+        }
+    }
+
+    // Products whose shard total changed since it was last copied to the products row
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        for (Object[] row : productRepository.findStockShardCounts()) {
+            shardClaims.put((Long) row[0], new ShardClaims((Integer) row[1]));
+        }
+        if (stockUpdateMode == ProductService.StockUpdateMode.LEDGER) {
+            if (!shardClaims.isEmpty()) {
+                log.warn("{} products have sharded stock, which LEDGER mode ignores; their products rows " +
+                        "hold the shard totals as last written back", shardClaims.size());
+            }
+            shardClaims.clear();
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-shard-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Failed to write sharded stock totals back; they will be retried", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Final write-back of sharded stock totals failed", e);
+        }
+    }
+
+    /**
+     * Returns whether a product's stock is spread over shards, as far as this instance
+     * knows. A product it has stale claims for is found out at its first shard access.
+     *
+     * @param productId The ID of the product
+     * @return True if the product has sharded stock
+     */
+    @Override
+    public boolean isSharded(Long productId) {
+        return shardClaims.containsKey(productId);
+    }
+
+    /**
+     * Spreads a product's stock over the given number of shards, or gathers it back
+     * into the products row when the count is 0 or 1. The product row and its shards
+     * are locked while the stock moves, so no purchase is lost; purchases of the
+     * product that race with the change may fail and can be retried.
+     *
+     * @param productId The ID of the product
+     * @param shards The number of shards, or 0 or 1 to stop sharding
+     * @throws IllegalArgumentException If the shard count is out of range
+     * @throws NoSuchElementException If no product with the specified ID exists
+     * @throws IllegalStateException If the stock update mode is LEDGER
+     */
+    @Override
+    @Transactional
+    public void setShardCount(Long productId, int shards) {
+        if (shards < 0 || shards > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 0 and " + MAX_SHARDS);
+        }
+        if (stockUpdateMode == ProductService.StockUpdateMode.LEDGER) {
+            throw new IllegalStateException("Stock cannot be sharded in LEDGER mode");
+        }
+        ShardClaims previous = shardClaims.get(productId);
+        if (previous != null) {
+            claimAllShards(productId, previous);
+        }
+        Product product = productRepository.findByIdWithPessimisticLock(productId)
+                .orElseThrow(() -> new NoSuchElementException("Product not found with id: " + productId));
+
+        int stock = product.getStockQuantity();
+        if (product.getStockShards() != null) {
+            stock = shardRepository.findByProductIdForUpdate(productId).stream()
+                    .mapToInt(ProductStockShard::getQuantity)
+                    .sum();
+            shardRepository.deleteByProductId(productId);
+        }
+        Integer shardCount = shards > 1 ? shards : null;
+        if (shardCount != null) {
+            List<ProductStockShard> rows = new ArrayList<>(shardCount);
+            for (int index = 0; index < shardCount; index++) {
+                rows.add(new ProductStockShard(productId, index, share(stock, shardCount, index)));
+            }
+            shardRepository.saveAll(rows);
+        }
+        product.setStockShards(shardCount);
+        product.setStockQuantity(stock);
+        productRepository.save(product);
+
+        // Runs before the previous claims are released, so buyers waiting on them start over on the new ones
+        AfterTransaction.commit(() -> {
+            if (shardCount == null) {
+                shardClaims.remove(productId);
+            } else {
+                shardClaims.put(productId, new ShardClaims(shardCount));
+            }
+        });
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.UPDATED));
+        log.info("Stock of product {} ({} units) now spread over {} shards", productId, stock, shards > 1 ? shards : 1);
+    }
+
+    /**
+     * Takes stock from one of the product's shards.
+     *
+     * @param productId The ID of the product
+     * @param quantity The quantity to take
+     * @throws IllegalArgumentException If the quantity is not positive
+     * @throws IllegalStateException If the product is not sharded or has insufficient stock
+     */
+    @Override
+    @Transactional
+    public void reserve(Long productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Claim claim = claimShard(productId);
+        if (shardRepository.takeStock(productId, claim.shard(), quantity) > 0) {
+            releaseAfterCompletion(claim);
+        } else {
+            // Nobody else here had the row, so the update did not wait for it and holds no lock on it
+            claim.release();
+            if (!takeFromAnyShard(productId, claim.claims(), quantity)) {
+                rebalanceAndTake(productId, claim.claims(), quantity);
+            }
+        }
+        AfterTransaction.commit(() -> changedProducts.add(productId));
+    }
+
+    /**
+     * Returns stock to one of the product's shards.
+     *
+     * @param productId The ID of the product
+     * @param quantity The quantity to return
+     * @throws IllegalArgumentException If the quantity is not positive
+     * @throws IllegalStateException If the product is not sharded
+     */
+    @Override
+    @Transactional
+    public void release(Long productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Claim claim = claimShard(productId);
+        releaseAfterCompletion(claim);
+        if (shardRepository.addStock(productId, claim.shard(), quantity) == 0) {
+            // The shard is gone; the product was resharded or unsharded by another instance
+            refreshClaims(productId);
+            throw notSharded(productId);
+        }
+        AfterTransaction.commit(() -> changedProducts.add(productId));
+    }
+
+    /**
+     * Replaces the stock of a product, spread evenly over its shards.
+     *
+     * @param productId The ID of the product
+     * @param quantity The new total stock
+     * @return The total stock before the change
+     * @throws IllegalArgumentException If the quantity is negative
+     * @throws IllegalStateException If the product is not sharded
+     */
+    @Override
+    @Transactional
+    public int setStock(Long productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock quantity must be greater than or equal to 0");
+        }
+        claimAllShards(productId, claimsFor(productId));
+        List<ProductStockShard> shards = lockShards(productId);
+        int previous = shards.stream().mapToInt(ProductStockShard::getQuantity).sum();
+        redistribute(shards, quantity);
+        AfterTransaction.commit(() -> changedProducts.add(productId));
+        return previous;
+    }
+
+    /**
+     * Returns the current stock of several sharded products with one query.
+     *
+     * @param productIds The IDs of the products
+     * @return The total stock per product ID; products without shards are missing
+     */
+    @Override
+    public Map<Long, Integer> getStocks(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (Object[] row : shardRepository.sumStockByProductIds(productIds)) {
+            stocks.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        // Asked for as sharded but without shard rows, so possibly unsharded by another instance
+        productIds.stream()
+                .filter(productId -> !stocks.containsKey(productId) && shardClaims.containsKey(productId))
+                .forEach(this::refreshClaims);
+        return stocks;
+    }
+
+    /**
+     * Copies the shard totals of products bought or restocked since the last flush to
+     * their products rows with one UPDATE, then announces the stock change so caches
+     * and low-stock tracking pick it up.
+     *
+     * @return The number of products written back
+     */
+    @Override
+    public synchronized int flush() {
+        if (changedProducts.isEmpty()) {
+            return 0;
+        }
+        List<Long> productIds = List.copyOf(changedProducts);
+        changedProducts.removeAll(productIds);
+        try {
+            transactionTemplate.execute(status -> productRepository.copyShardedStock(productIds));
+        } catch (RuntimeException e) {
+            changedProducts.addAll(productIds);
+            throw e;
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(Set.copyOf(productIds),
+                ProductChangedEvent.ChangeType.STOCK_CHANGED));
+        return productIds.size();
+    }
+
+    private ShardClaims claimsFor(Long productId) {
+        ShardClaims claims = shardClaims.get(productId);
+        if (claims != null) {
+            return claims;
+        }
+        // Sharded by another instance, or not yet visible here
+        claims = refreshClaims(productId);
+        if (claims == null) {
+            throw notSharded(productId);
+        }
+        return claims;
+    }
+
+    // Matches the claims to the shard count on the products row; returns null, with the claims dropped, if there is none
+    private ShardClaims refreshClaims(Long productId) {
+        Integer shards = productRepository.findStockShardsById(productId).orElse(null);
+        if (shards == null) {
+            if (shardClaims.remove(productId) != null) {
+                log.info("Dropped the shard claims of product {}, whose stock is no longer sharded", productId);
+            }
+            return null;
+        }
+        return shardClaims.compute(productId, (id, claims) ->
+                claims != null && claims.shards() == shards ? claims : new ShardClaims(shards));
+    }
+
+    // Claims a random free shard; starts over if the product is resharded meanwhile
+    private Claim claimShard(Long productId) {
+        while (true) {
+            ShardClaims claims = claimsFor(productId);
+            int shard;
+            try {
+                shard = claims.claimAny(ThreadLocalRandom.current().nextInt(claims.shards()), claimTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a stock shard of product " + productId);
+            }
+            if (shard < 0) {
+                throw new IllegalStateException("Timed out waiting for a stock shard of product " + productId);
+            }
+            if (shardClaims.get(productId) == claims) {
+                return new Claim(claims, shard);
+            }
+            claims.release(shard);
+        }
+    }
+
+    // Shards are read without locks; the guard in takeStock catches one drained meanwhile
+    private boolean takeFromAnyShard(Long productId, ShardClaims claims, int quantity) {
+        List<Integer> candidates = shardRepository.findShardIndexesWithStock(productId, quantity);
+        int offset = candidates.isEmpty() ? 0 : ThreadLocalRandom.current().nextInt(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            int shard = candidates.get((offset + i) % candidates.size());
+            if (!claims.tryClaim(shard)) {
+                continue;
+            }
+            if (shardRepository.takeStock(productId, shard, quantity) > 0) {
+                releaseAfterCompletion(new Claim(claims, shard));
+                return true;
+            }
+            claims.release(shard);
+        }
+        return false;
+    }
+
+    // No shard can serve the quantity alone; take it from the total and even the shards out
+    private void rebalanceAndTake(Long productId, ShardClaims claims, int quantity) {
+        // Not even the committed total is enough, so there is no point waiting for the buyers in flight
+        if (shardRepository.sumStock(productId) < quantity) {
+            if (refreshClaims(productId) == null) {
+                throw notSharded(productId);
+            }
+            throw new IllegalStateException("Insufficient stock for product with id: " + productId);
+        }
+        claimAllShards(productId, claims);
+        List<ProductStockShard> shards = lockShards(productId);
+        int stock = shards.stream().mapToInt(ProductStockShard::getQuantity).sum();
+        if (stock < quantity) {
+            throw new IllegalStateException("Insufficient stock for product with id: " + productId);
+        }
+        redistribute(shards, stock - quantity);
+    }
+
+    // Claims every shard until the transaction completes
+    private void claimAllShards(Long productId, ShardClaims claims) {
+        boolean claimed;
+        try {
+            claimed = claims.claimAll(claimTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the stock shards of product " + productId);
+        }
+        if (!claimed) {
+            throw new IllegalStateException("Timed out waiting for the stock shards of product " + productId);
+        }
+        AfterTransaction.completion(claims::releaseAll);
+    }
+
+    // Never empty; a product without shard rows has its claims refreshed and is refused
+    private List<ProductStockShard> lockShards(Long productId) {
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        if (shards.isEmpty()) {
+            refreshClaims(productId);
+            throw notSharded(productId);
+        }
+        return shards;
+    }
+
+    private static IllegalStateException notSharded(Long productId) {
+        return new IllegalStateException("Stock of product " + productId + " is not sharded");
+    }
+
+    private static void redistribute(List<ProductStockShard> shards, int stock) {
+        for (int index = 0; index < shards.size(); index++) {
+            shards.get(index).setQuantity(share(stock, shards.size(), index));
+        }
+    }
+
+    // Even split; the first stock % shards shards get one unit more
+    private static int share(int stock, int shards, int index) {
+        return stock / shards + (index < stock % shards ? 1 : 0);
+    }
+
+    private static void releaseAfterCompletion(Claim claim) {
+        AfterTransaction.completion(claim::release);
+    }
+}
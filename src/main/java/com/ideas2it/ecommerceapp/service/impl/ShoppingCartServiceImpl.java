@@ -10,6 +10,7 @@ import com.ideas2it.ecommerceapp.model.CartItem;
 import com.ideas2it.ecommerceapp.model.Product;
 import com.ideas2it.ecommerceapp.service.ProductService;
 import com.ideas2it.ecommerceapp.service.ShoppingCartService;
+import com.ideas2it.ecommerceapp.service.StockHoldService;
 import com.ideas2it.ecommerceapp.repository.CartRepository;
 import com.ideas2it.ecommerceapp.repository.CartItemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +32,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductService productService;
+    private final StockHoldService stockHoldService;
 
     // Maximum quantity limit per product in cart
     private static final int MAX_QUANTITY_PER_PRODUCT = 10;
@@ -41,26 +43,30 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      * @param cartRepository Repository for cart operations
      * @param cartItemRepository Repository for cart item operations
      * @param productService Service for product-related operations
+     * @param stockHoldService Service that holds stock for cart items
      */
     @Autowired
     public ShoppingCartServiceImpl(CartRepository cartRepository,
                                   CartItemRepository cartItemRepository,
-                                  ProductService productService) {
+                                  ProductService productService,
+                                  StockHoldService stockHoldService) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productService = productService;
+        this.stockHoldService = stockHoldService;
     }
 
     /**
      * Adds a product to a user's shopping cart. If the product already exists in the cart,
      * the quantity will be incremented. Otherwise, a new cart item is created.
+     * The cart quantity is held for the user until it is ordered, removed or the hold expires.
      *
      * @param userId The ID of the user whose cart is being modified
      * @param productId The ID of the product to add to the cart
      * @param quantity The quantity of the product to add
      * @throws IllegalArgumentException If userId or productId is null
      * @throws ProductUnavailableException If the product does not exist
-     * @throws OutOfStockException If the requested quantity exceeds available stock
+     * @throws OutOfStockException If the requested quantity exceeds the stock not held by other carts
      * @throws MaximumQuantityExceededException If the requested quantity exceeds the maximum allowed
      */
     @Override
@@ -96,6 +102,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         if (newQuantity > MAX_QUANTITY_PER_PRODUCT) {
             throw new MaximumQuantityExceededException("Cannot add more than " + MAX_QUANTITY_PER_PRODUCT + " units of this product");
         }
+        stockHoldService.placeHold(userId, productId, newQuantity);
 
         if (existingItem.isPresent()) {
             CartItem item = existingItem.get();
@@ -130,7 +137,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     /**
      * Updates the quantity of a product in the user's cart. If the quantity is set to
-     * zero or negative, the item is removed from the cart.
+     * zero or negative, the item is removed from the cart. The hold on the product is
+     * adjusted to the new quantity.
      *
      * @param userId The ID of the user whose cart is being modified
      * @param productId The ID of the product to update
@@ -155,6 +163,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
                         if (quantity > MAX_QUANTITY_PER_PRODUCT) {
                             throw new MaximumQuantityExceededException("Cannot add more than " + MAX_QUANTITY_PER_PRODUCT + " units of this product");
                         }
+                        stockHoldService.placeHold(userId, productId, quantity);
                         item.setQuantity(quantity);
                     }
                     break;
@@ -162,6 +171,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
             }
             if (toRemove != null) {
                 cart.getItems().remove(toRemove);
+                stockHoldService.releaseHold(userId, productId);
             }
             cartRepository.save(cart);
         }
@@ -179,6 +189,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         if (cart != null) {
             cart.getItems().removeIf(item -> item.getProduct().getId().equals(productId));
             cartRepository.save(cart);
+            stockHoldService.releaseHold(userId, productId);
         }
     }
 
@@ -193,6 +204,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         if (cart != null) {
             cart.clear();
             cartRepository.save(cart);
+            stockHoldService.releaseHolds(userId);
         }
     }
 
@@ -0,0 +1,296 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.exception.OutOfStockException;
+import com.ideas2it.ecommerceapp.inventory.HashedTimingWheel;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.StockHoldService;
+import com.ideas2it.ecommerceapp.util.AfterTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the StockHoldService interface that keeps soft reservations
+ * for cart items in memory. A hold sets aside stock for one user and product until
+ * it is released or its TTL runs out; other users can only add what is left after
+ * all holds. Expiry is driven by a hashed timing wheel ticked by a single thread,
+ * so holds cost O(1) to place, replace and release whatever their number.
+ *
+ * <p>Holds do not change the stored stock. The order that buys the items is what
+ * decrements it, after which the hold is released. Orders check the stock against
+ * the holds of other users before they take it.
+ *
+ * <p>A hold placed or released inside a transaction, such as the one that saves the
+ * cart, is put back the way it was if that transaction rolls back.
+ */
+@Service
+@Slf4j
+public class StockHoldServiceImpl implements StockHoldService {
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${app.cart.hold.ttl-ms:900000}")
+    private long holdTtlMs;
+
+    // Expiry precision; a hold lasts at most one tick longer than its TTL
+    @Value("${app.cart.hold.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.cart.hold.wheel-size:1024}")
+    private int wheelSize;
+
+    private record HoldKey(Long userId, Long productId) {
+    }
+
+    private record Hold(HoldKey key, int quantity) {
+    }
+
+    private final Map<HoldKey, HashedTimingWheel.Timeout<Hold>> holds = new ConcurrentHashMap<>();
+
+    // Total held quantity per product; every change to a product's holds runs inside compute on its entry
+    private final Map<Long, Integer> heldByProduct = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> heldProductsByUser = new ConcurrentHashMap<>();
+
+    private HashedTimingWheel<Hold> wheel;
+
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void init() {
+        wheel = new HashedTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-hold-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::expireHolds, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Holds stock for a user's cart item, replacing any hold the user already has on
+     * the product and restarting its TTL. If the surrounding transaction rolls back,
+     * the replaced hold is restored with a fresh TTL, or the new hold released.
+     *
+     * @param userId The ID of the user
+     * @param productId The ID of the product
+     * @param quantity The total quantity to hold
+     * @throws IllegalArgumentException If the quantity is not positive
+     * @throws NoSuchElementException If no product with the specified ID exists
+     * @throws OutOfStockException If the stock not held by other users is less than the quantity
+     */
+    @Override
+    public void placeHold(Long userId, Long productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Hold quantity must be positive");
+        }
+        Product product = productService.getProductById(productId);
+        int stock = product.getStockQuantity();
+        HoldKey key = new HoldKey(userId, productId);
+        Hold hold = new Hold(key, quantity);
+        int[] replaced = new int[1];
+        heldByProduct.compute(productId, (id, held) -> {
+            int total = held == null ? 0 : held;
+            HashedTimingWheel.Timeout<Hold> previous = holds.get(key);
+            int own = previous == null || previous.isExpired() ? 0 : previous.payload().quantity();
+            if (stock - total + own < quantity) {
+                throw new OutOfStockException("Only " + Math.max(0, stock - total + own)
+                        + " units of this product are available");
+            }
+            if (previous != null) {
+                if (previous.cancel()) {
+                    total -= previous.payload().quantity();
+                    replaced[0] = previous.payload().quantity();
+                } else if (stock - total < quantity) {
+                    // The previous hold expired meanwhile and is released by the wheel
+                    throw new OutOfStockException("Only " + Math.max(0, stock - total)
+                            + " units of this product are available");
+                }
+            }
+            holds.put(key, wheel.schedule(hold, System.currentTimeMillis() + holdTtlMs));
+            return total + quantity;
+        });
+        heldProductsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(productId);
+        // Undone if the transaction the hold was placed in rolls back
+        AfterTransaction.rollback(() -> restoreHold(key, hold, replaced[0]));
+    }
+
+    /**
+     * Releases a user's hold on a product. Missing holds are ignored. If the
+     * surrounding transaction rolls back, the hold is restored with a fresh TTL.
+     *
+     * @param userId The ID of the user
+     * @param productId The ID of the product
+     */
+    @Override
+    public void releaseHold(Long userId, Long productId) {
+        HoldKey key = new HoldKey(userId, productId);
+        int[] released = new int[1];
+        heldByProduct.computeIfPresent(productId, (id, held) -> {
+            HashedTimingWheel.Timeout<Hold> timeout = holds.get(key);
+            if (timeout == null || !timeout.cancel()) {
+                return held;
+            }
+            holds.remove(key);
+            released[0] = timeout.payload().quantity();
+            int remaining = held - timeout.payload().quantity();
+            return remaining > 0 ? remaining : null;
+        });
+        forgetUserProduct(userId, productId);
+        if (released[0] > 0) {
+            AfterTransaction.rollback(() -> restoreHold(key, null, released[0]));
+        }
+    }
+
+    /**
+     * Releases all holds of a user.
+     *
+     * @param userId The ID of the user
+     */
+    @Override
+    public void releaseHolds(Long userId) {
+        Set<Long> productIds = heldProductsByUser.get(userId);
+        if (productIds == null) {
+            return;
+        }
+        for (Long productId : List.copyOf(productIds)) {
+            releaseHold(userId, productId);
+        }
+    }
+
+    /**
+     * Returns the quantity of a product currently held across all carts.
+     *
+     * @param productId The ID of the product
+     * @return The held quantity
+     */
+    @Override
+    public int getHeldQuantity(Long productId) {
+        return heldByProduct.getOrDefault(productId, 0);
+    }
+
+    /**
+     * Checks that the stock not held by anyone but the buyers covers the quantities of
+     * an order, or of a batch of orders. The buyers' own holds count as available,
+     * since their orders are what the holds were kept for.
+     *
+     * @param quantities The quantity to take per product ID
+     * @param buyerIds The IDs of the users buying the quantities
+     * @throws NoSuchElementException If a product held by others does not exist
+     * @throws IllegalStateException If the stock left after other users' holds is less than the quantity
+     */
+    @Override
+    public void checkAvailable(Map<Long, Integer> quantities, Set<Long> buyerIds) {
+        quantities.forEach((productId, quantity) -> {
+            int heldByOthers = getHeldQuantity(productId);
+            for (Long buyerId : buyerIds) {
+                heldByOthers -= heldQuantity(new HoldKey(buyerId, productId));
+            }
+            // Only products other carts hold need their stock read
+            if (heldByOthers <= 0) {
+                return;
+            }
+            Product product = productService.getProductById(productId);
+            if (product.getStockQuantity() - heldByOthers < quantity) {
+                throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+            }
+        });
+    }
+
+    /**
+     * Returns the number of holds that have neither expired nor been released.
+     *
+     * @return The active hold count
+     */
+    @Override
+    public int getActiveHoldCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Advances the timing wheel to the current time and releases the holds that ran out.
+     */
+    void expireHolds() {
+        try {
+            int expired = wheel.advance(System.currentTimeMillis(), this::expire);
+            if (expired > 0) {
+                log.debug("Released {} expired stock holds", expired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to expire stock holds", e);
+        }
+    }
+
+    private void expire(Hold hold) {
+        HoldKey key = hold.key();
+        heldByProduct.computeIfPresent(key.productId(), (id, held) -> {
+            HashedTimingWheel.Timeout<Hold> current = holds.get(key);
+            if (current != null && current.payload() == hold) {
+                holds.remove(key);
+            }
+            int remaining = held - hold.quantity();
+            return remaining > 0 ? remaining : null;
+        });
+        forgetUserProduct(key.userId(), key.productId());
+    }
+
+    private int heldQuantity(HoldKey key) {
+        HashedTimingWheel.Timeout<Hold> timeout = holds.get(key);
+        return timeout == null || timeout.isExpired() ? 0 : timeout.payload().quantity();
+    }
+
+    // Replaces the placed hold, or the absence of one, by the previous quantity; a hold changed since is left alone
+    private void restoreHold(HoldKey key, Hold placed, int previousQuantity) {
+        heldByProduct.compute(key.productId(), (id, held) -> {
+            int total = held == null ? 0 : held;
+            HashedTimingWheel.Timeout<Hold> current = holds.get(key);
+            boolean unchanged = current == null ? placed == null : current.payload() == placed && current.cancel();
+            if (!unchanged) {
+                return held;
+            }
+            if (current != null) {
+                holds.remove(key);
+                total -= placed.quantity();
+            }
+            if (previousQuantity > 0) {
+                holds.put(key, wheel.schedule(new Hold(key, previousQuantity), System.currentTimeMillis() + holdTtlMs));
+                total += previousQuantity;
+            }
+            return total > 0 ? total : null;
+        });
+        if (holds.containsKey(key)) {
+            heldProductsByUser.computeIfAbsent(key.userId(), id -> ConcurrentHashMap.newKeySet()).add(key.productId());
+        } else {
+            forgetUserProduct(key.userId(), key.productId());
+        }
+    }
+
+    private void forgetUserProduct(Long userId, Long productId) {
+        HoldKey key = new HoldKey(userId, productId);
+        heldProductsByUser.computeIfPresent(userId, (id, productIds) -> {
+            if (!holds.containsKey(key)) {
+                productIds.remove(productId);
+            }
+            return productIds.isEmpty() ? null : productIds;
+        });
+    }
+}
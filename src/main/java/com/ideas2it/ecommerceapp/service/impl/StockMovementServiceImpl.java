@@ -0,0 +1,361 @@
+package com.ideas2it.ecommerceapp.service.impl;
+
+import com.ideas2it.ecommerceapp.dto.StockDrift;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.model.StockSnapshot;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.repository.StockMovementBatchRepository;
+import com.ideas2it.ecommerceapp.repository.StockMovementRepository;
+import com.ideas2it.ecommerceapp.repository.StockSnapshotRepository;
+import com.ideas2it.ecommerceapp.service.InventoryLedgerService;
+import com.ideas2it.ecommerceapp.service.ShardedStockService;
+import com.ideas2it.ecommerceapp.service.StockMovementService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the StockMovementService interface that keeps an append-only
+ * journal of stock movements next to the stock itself. Movements recorded inside a
+ * transaction are buffered and written as one JDBC batch just before it commits, so
+ * the journal and the stock it describes commit or roll back together.
+ *
+ * <p>In LEDGER mode the stock in the products table is written behind, and so is the
+ * journal: the movements of a committed transaction are queued and written in batches
+ * by a background writer, like movements recorded outside any transaction. A crash can
+ * lose up to one flush interval of queued movements, which reconciliation reports.
+ *
+ * <p>A background task periodically folds the movements since the previous snapshot
+ * into a new snapshot per product that moved. Point-in-time queries and
+ * reconciliation start from the latest snapshot and only add the movements after it.
+ */
+@Service
+@Slf4j
+public class StockMovementServiceImpl implements StockMovementService {
+
+    // Before the first snapshot, movements are summed from here
+    private static final LocalDateTime JOURNAL_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private StockMovementBatchRepository batchRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Recovered before the opening balances are taken, and flushed before reconciling
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.journal.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.inventory.journal.snapshot-interval-ms:3600000}")
+    private long snapshotIntervalMs;
+
+    // A snapshot only covers movements older than this, so transactions still committing are not missed
+    @Value("${app.inventory.journal.snapshot-lag-ms:60000}")
+    private long snapshotLagMs;
+
+    private ScheduledExecutorService journalExecutor;
+
+    // Movements waiting for the background writer, oldest first
+    private final List<StockMovement> queued = new ArrayList<>();
+
+    // Movements recorded by one transaction, written just before it commits or queued once it has
+    private final class PendingMovements implements TransactionSynchronization {
+        private final List<StockMovement> movements = new ArrayList<>();
+        private final boolean writeBehind = inventoryLedgerService.isActive();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!writeBehind) {
+                write(movements);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (writeBehind) {
+                enqueue(movements);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (movementRepository.findFirstByOrderByIdAsc().isEmpty()) {
+            Integer opened = transactionTemplate.execute(status -> batchRepository.insertOpeningBalances(LocalDateTime.now()));
+            log.info("Stock journal started with the opening balances of {} products", opened);
+        }
+        journalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        journalExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Stock journal flush failed; queued movements will be retried", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        journalExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (RuntimeException e) {
+                log.error("Stock snapshot failed; the next one covers its movements", e);
+            }
+        }, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        journalExecutor.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Final stock journal flush failed; {} queued movements were lost", queuedCount(), e);
+        }
+    }
+
+    /**
+     * Records a movement of one product's stock.
+     * Inside a transaction it is written when the transaction commits; otherwise it is queued.
+     *
+     * @param productId The ID of the product
+     * @param quantity The change in stock; negative for stock leaving, 0 records nothing
+     * @param type The kind of movement
+     */
+    @Override
+    public void record(Long productId, int quantity, StockMovement.MovementType type) {
+        record(Map.of(productId, quantity), type);
+    }
+
+    /**
+     * Records movements of several products' stock of the same kind.
+     * Inside a transaction they are written when the transaction commits, together with
+     * every other movement it recorded; otherwise they are queued for the background writer.
+     *
+     * @param quantities The change in stock per product ID; zero changes are skipped
+     * @param type The kind of movement
+     */
+    @Override
+    public void record(Map<Long, Integer> quantities, StockMovement.MovementType type) {
+        List<StockMovement> movements = new ArrayList<>(quantities.size());
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            if (quantity != 0) {
+                movements.add(new StockMovement(productId, quantity, type));
+            }
+        });
+        if (movements.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(movements);
+            return;
+        }
+        pendingMovements().movements.addAll(movements);
+    }
+
+    /**
+     * Writes the queued movements as one batch. If the write fails they stay queued.
+     *
+     * @return The number of movements written
+     */
+    @Override
+    public synchronized int flush() {
+        List<StockMovement> batch;
+        synchronized (queued) {
+            if (queued.isEmpty()) {
+                return 0;
+            }
+            batch = new ArrayList<>(queued);
+            queued.clear();
+        }
+        try {
+            batchRepository.insertMovements(batch);
+        } catch (RuntimeException e) {
+            synchronized (queued) {
+                queued.addAll(0, batch);
+            }
+            throw e;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Retrieves a page of a product's movements within a time range, oldest first.
+     *
+     * @param productId The ID of the product
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, inclusive
+     * @param pageable Pagination information
+     * @return A page of movements
+     */
+    @Override
+    public Page<StockMovement> getMovements(Long productId, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        return movementRepository.findByProductIdAndOccurredAtBetweenOrderByOccurredAtAscIdAsc(productId, from, to, pageable);
+    }
+
+    /**
+     * Returns the stock a product had at a point in time according to its journal:
+     * its latest snapshot before then plus the movements between the two.
+     *
+     * @param productId The ID of the product
+     * @param time The point in time
+     * @return The stock at that time
+     * @throws NoSuchElementException If no product with the specified ID exists
+     */
+    @Override
+    public int getStockAt(Long productId, LocalDateTime time) {
+        if (!productRepository.existsById(productId)) {
+            throw new NoSuchElementException("Product not found with id: " + productId);
+        }
+        Optional<StockSnapshot> snapshot =
+                snapshotRepository.findFirstByProductIdAndTakenAtLessThanEqualOrderByTakenAtDesc(productId, time);
+        int stock = snapshot.map(StockSnapshot::getStockQuantity).orElse(0);
+        LocalDateTime from = snapshot.map(StockSnapshot::getTakenAt).orElse(JOURNAL_START);
+        return stock + (int) movementRepository.sumQuantity(productId, from, time);
+    }
+
+    /**
+     * Writes a snapshot for every product that moved since the previous snapshot,
+     * folding those movements into the product's latest snapshot. Movements younger
+     * than the snapshot lag are left to the next snapshot.
+     *
+     * @return The number of snapshots written
+     */
+    @Override
+    public synchronized int takeSnapshot() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(snapshotLagMs * 1_000_000);
+        LocalDateTime previous = snapshotRepository.findLatestTakenAt().orElse(JOURNAL_START);
+        if (!cutoff.isAfter(previous)) {
+            return 0;
+        }
+        Integer written = transactionTemplate.execute(status -> {
+            Map<Long, Integer> moved = toStockMap(movementRepository.sumQuantitiesByProduct(previous, cutoff));
+            if (moved.isEmpty()) {
+                return 0;
+            }
+            // A product without a newer snapshot did not move since its latest one
+            Map<Long, Integer> latest = toStockMap(snapshotRepository.findLatestStocks(moved.keySet()));
+            List<StockSnapshot> snapshots = new ArrayList<>(moved.size());
+            moved.forEach((productId, quantity) ->
+                    snapshots.add(new StockSnapshot(productId, latest.getOrDefault(productId, 0) + quantity, cutoff)));
+            batchRepository.insertSnapshots(snapshots);
+            return snapshots.size();
+        });
+        log.debug("Wrote {} stock snapshots up to {}", written, cutoff);
+        return written == null ? 0 : written;
+    }
+
+    /**
+     * Compares the stored stock of every product with the stock its journal adds up
+     * to. Write-behind stock and queued movements are flushed first, so both are as
+     * current as they can be. Products bought while the comparison runs may show up as drift;
+     * running it again tells a transient difference from a real one.
+     *
+     * @return The products whose stored and journaled stock differ
+     */
+    @Override
+    public List<StockDrift> reconcile() {
+        if (inventoryLedgerService.isActive()) {
+            inventoryLedgerService.flush();
+        }
+        shardedStockService.flush();
+        flush();
+
+        LocalDateTime since = snapshotRepository.findLatestTakenAt().orElse(JOURNAL_START);
+        Map<Long, Integer> journaled = toStockMap(snapshotRepository.findAllLatestStocks());
+        toStockMap(movementRepository.sumQuantitiesByProductSince(since))
+                .forEach((productId, quantity) -> journaled.merge(productId, quantity, Integer::sum));
+
+        List<StockDrift> drifts = new ArrayList<>();
+        for (Object[] row : productRepository.findAllStockQuantities()) {
+            Long productId = (Long) row[0];
+            int stored = (Integer) row[1];
+            int expected = journaled.getOrDefault(productId, 0);
+            if (stored != expected) {
+                drifts.add(new StockDrift(productId, stored, expected));
+            }
+        }
+        if (!drifts.isEmpty()) {
+            log.warn("Stock of {} products differs from their movement journal", drifts.size());
+        }
+        return drifts;
+    }
+
+    private PendingMovements pendingMovements() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingMovements pending) {
+                return pending;
+            }
+        }
+        PendingMovements pending = new PendingMovements();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void write(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        movements.forEach(movement -> movement.setOccurredAt(now));
+        batchRepository.insertMovements(movements);
+    }
+
+    private void enqueue(List<StockMovement> movements) {
+        LocalDateTime now = LocalDateTime.now();
+        movements.forEach(movement -> movement.setOccurredAt(now));
+        synchronized (queued) {
+            queued.addAll(movements);
+        }
+    }
+
+    private int queuedCount() {
+        synchronized (queued) {
+            return queued.size();
+        }
+    }
+
+    private static Map<Long, Integer> toStockMap(List<Object[]> rows) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (Object[] row : rows) {
+            stocks.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return stocks;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ideas2it.ecommerceapp.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work until the current transaction has ended. Called outside a transaction,
+ * work that is meant for a commit runs at once, since there is nothing to wait for,
+ * and work that is meant for a rollback is dropped.
+ *
+ * <p>Actions registered from inside an after-commit or after-completion callback are
+ * not run by Spring; they see the completing transaction as still active.
+ */
+public final class AfterTransaction {
+
+    private AfterTransaction() {
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or at once without one.
+     *
+     * @param action The action to run
+     */
+    public static void commit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs an action once the current transaction ends either way, or at once without one.
+     *
+     * @param action The action to run
+     */
+    public static void completion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs an action if the current transaction ends without committing. Without a
+     * transaction the action is never run.
+     *
+     * @param action The action that undoes work done in the transaction
+     */
+    public static void rollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
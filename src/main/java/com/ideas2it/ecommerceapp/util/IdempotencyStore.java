@@ -0,0 +1,213 @@
+package com.ideas2it.ecommerceapp.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ideas2it.ecommerceapp.exception.IdempotencyConflictException;
+import com.ideas2it.ecommerceapp.exception.IdempotencyKeyMismatchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs an action at most once per idempotency key and owner.
+ * The first request for a key runs the action; a duplicate that arrives while it is
+ * running waits for its result, and one that arrives after it completed gets the same
+ * result back without running the action again. A failed action is not remembered, so
+ * the client can retry it under the same key, unless the store was told to remember that
+ * failure, typically because the action had side effects before it failed; such a
+ * failure is replayed like a result. Duplicates already waiting on an action get its
+ * failure either way.
+ *
+ * <p>Each key also records a fingerprint of its request, a SHA-256 digest of its
+ * canonical form, and reusing a key for a different request is rejected. Completed
+ * results expire after the configured TTL and their number is capped, so memory stays
+ * bounded. Keys still running are held apart from that cap until they complete, since
+ * evicting one would let a duplicate run the action a second time. Outcomes are counted
+ * in the {@code idempotency.requests} meter, tagged with the store name and one of
+ * executed, replayed, mismatched or timeout.
+ *
+ * @param <V> The result type
+ */
+public class IdempotencyStore<V> {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private record Key(String owner, String key) {
+    }
+
+    private record Entry<V>(String fingerprint, CompletableFuture<V> result) {
+    }
+
+    private final ConcurrentMap<Key, Entry<V>> running = new ConcurrentHashMap<>();
+    private final Cache<Key, Entry<V>> completed;
+    private final String name;
+    private final Duration waitTimeout;
+    private final Predicate<Throwable> remembersFailure;
+    private final Counter executedRequests;
+    private final Counter replayedRequests;
+    private final Counter mismatchedRequests;
+    private final Counter timedOutRequests;
+
+    public IdempotencyStore(String name, Duration ttl, long maxKeys, Duration waitTimeout, MeterRegistry meterRegistry) {
+        this(name, ttl, maxKeys, waitTimeout, failure -> false, meterRegistry);
+    }
+
+    /**
+     * Creates a store that replays the failures matching the given predicate.
+     *
+     * @param name The store name, tagged on its meters
+     * @param ttl How long completed results are remembered
+     * @param maxKeys The maximum number of completed results remembered
+     * @param waitTimeout How long a duplicate waits for a request still running
+     * @param remembersFailure Selects the failures that are remembered and replayed rather than retried
+     * @param meterRegistry The registry the outcome counters are bound to
+     */
+    public IdempotencyStore(String name, Duration ttl, long maxKeys, Duration waitTimeout,
+                            Predicate<Throwable> remembersFailure, MeterRegistry meterRegistry) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || waitTimeout == null || waitTimeout.isNegative()
+                || waitTimeout.isZero()) {
+            throw new IllegalArgumentException("TTL and wait timeout must be positive");
+        }
+        this.completed = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxKeys).build();
+        this.name = name;
+        this.waitTimeout = waitTimeout;
+        this.remembersFailure = remembersFailure;
+        this.executedRequests = counter(meterRegistry, "executed");
+        this.replayedRequests = counter(meterRegistry, "replayed");
+        this.mismatchedRequests = counter(meterRegistry, "mismatched");
+        this.timedOutRequests = counter(meterRegistry, "timeout");
+    }
+
+    /**
+     * Runs the action for the key, or returns the result of the request that already used it.
+     *
+     * @param owner The owner of the key, so that keys chosen by different users never collide
+     * @param key The idempotency key sent by the client
+     * @param fingerprint The {@link #fingerprint} of the request, used to detect a key reused for another request
+     * @param action The action to run if the key is new
+     * @return The result of the action, run now or earlier
+     * @throws IllegalArgumentException If the key is blank or longer than {@value #MAX_KEY_LENGTH} characters
+     * @throws IdempotencyKeyMismatchException If the key was used for a different request
+     * @throws IdempotencyConflictException If waiting for the request still running under the key
+     *         timed out or was interrupted
+     */
+    public V execute(String owner, String key, String fingerprint, Supplier<V> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        Key entryKey = new Key(owner, key);
+        Entry<V> existing = completed.getIfPresent(entryKey);
+        while (existing == null) {
+            Entry<V> entry = new Entry<>(fingerprint, new CompletableFuture<>());
+            // The completed results are checked again under the key's lock, as a request
+            // that finishes moves its entry there before leaving the running map
+            existing = running.computeIfAbsent(entryKey, k -> completed.getIfPresent(k) == null ? entry : null);
+            if (existing == entry) {
+                return run(entryKey, entry, action);
+            }
+            if (existing == null) {
+                existing = completed.getIfPresent(entryKey);
+            }
+        }
+
+        if (!existing.fingerprint().equals(fingerprint)) {
+            mismatchedRequests.increment();
+            throw new IdempotencyKeyMismatchException("Idempotency key " + key + " was already used for a different request");
+        }
+        replayedRequests.increment();
+        return await(key, existing.result());
+    }
+
+    /**
+     * Digests the canonical form of a request. Requests that mean the same must have the
+     * same canonical form, whatever the order or identity of their parts.
+     *
+     * @param canonicalRequest The canonical form of the request
+     * @return The SHA-256 digest of the request, in hex
+     */
+    public static String fingerprint(String canonicalRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the approximate number of keys held, running or completed.
+     *
+     * @return The key count
+     */
+    public long size() {
+        return running.size() + completed.estimatedSize();
+    }
+
+    /**
+     * Applies pending expiries and evictions now rather than on later accesses.
+     */
+    public void cleanUp() {
+        completed.cleanUp();
+    }
+
+    private V run(Key entryKey, Entry<V> entry, Supplier<V> action) {
+        executedRequests.increment();
+        try {
+            V value = action.get();
+            entry.result().complete(value);
+            completed.put(entryKey, entry);
+            running.remove(entryKey, entry);
+            return value;
+        } catch (RuntimeException | Error e) {
+            entry.result().completeExceptionally(e);
+            if (remembersFailure.test(e)) {
+                completed.put(entryKey, entry);
+            }
+            running.remove(entryKey, entry);
+            throw e;
+        }
+    }
+
+    private V await(String key, CompletableFuture<V> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOutRequests.increment();
+            throw new IdempotencyConflictException("Request with idempotency key " + key + " is still being processed");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for the request with idempotency key " + key);
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an idempotency key, by outcome")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
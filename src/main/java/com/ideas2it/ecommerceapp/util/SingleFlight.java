@@ -0,0 +1,118 @@
+package com.ideas2it.ecommerceapp.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single execution.
+ * The first caller for a key runs the loader on its own thread; callers that arrive
+ * while it is running wait for that result instead of running the loader again.
+ * A failure is rethrown to every waiting caller, and waiters give up after the
+ * configured timeout. Nothing is cached: once a call completes, the next caller
+ * for the key starts a new one.
+ *
+ * <p>Outcomes are counted in the {@code singleflight.calls} meter, tagged with the
+ * flight name and one of leader, coalesced, timeout or failed.
+ *
+ * @param <K> The key type
+ * @param <V> The result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final String name;
+    private final Duration timeout;
+    private final Counter leaderCalls;
+    private final Counter coalescedCalls;
+    private final Counter timedOutCalls;
+    private final Counter failedCalls;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.name = name;
+        this.timeout = timeout;
+        this.leaderCalls = counter(meterRegistry, "leader");
+        this.coalescedCalls = counter(meterRegistry, "coalesced");
+        this.timedOutCalls = counter(meterRegistry, "timeout");
+        this.failedCalls = counter(meterRegistry, "failed");
+    }
+
+    /**
+     * Runs the loader for the key, or joins the call already running for it.
+     *
+     * @param key The key identifying the call
+     * @param loader The computation to run if no call for the key is in flight
+     * @return The result of the shared call
+     * @throws IllegalStateException If waiting for an in-flight call times out or is interrupted
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalescedCalls.increment();
+            return await(key, running);
+        }
+
+        leaderCalls.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failedCalls.increment();
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Returns the number of keys with a call currently in flight.
+     *
+     * @return The in-flight call count
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(K key, CompletableFuture<V> running) {
+        try {
+            return running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOutCalls.increment();
+            throw new IllegalStateException("Timed out after " + timeout.toMillis() + " ms waiting for " + name + " of " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " of " + key, e);
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("singleflight.calls")
+                .description("Calls made through a single-flight group, by outcome")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
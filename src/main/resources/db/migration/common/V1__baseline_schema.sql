@@ -0,0 +1,78 @@
+-- Schema as generated by Hibernate from the entities before migrations were introduced.
+-- Databases created that way are baselined at this version and only receive the
+-- migrations that follow, so everything added since belongs in a later version.
+
+create table users (
+    id bigint generated by default as identity,
+    username varchar(50) not null,
+    password varchar(255) not null,
+    email varchar(255) not null,
+    first_name varchar(50),
+    last_name varchar(50),
+    phone varchar(20),
+    address varchar(255),
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
+
+create table user_roles (
+    user_id bigint not null,
+    role varchar(255)
+);
+
+create table products (
+    id bigint generated by default as identity,
+    name varchar(100) not null,
+    description varchar(1000),
+    price numeric(38,2) not null check (price >= 0),
+    stock_quantity integer not null check (stock_quantity >= 0),
+    image_url varchar(255),
+    active boolean not null,
+    version bigint,
+    primary key (id)
+);
+
+create table orders (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    order_date timestamp(6) not null,
+    status varchar(255) not null check (status in ('PENDING','PROCESSING','SHIPPED','DELIVERED','CANCELLED')),
+    total_amount numeric(38,2) not null,
+    payment_status varchar(255) not null check (payment_status in ('PENDING','COMPLETED','FAILED','REFUNDED')),
+    payment_method varchar(255),
+    shipping_address varchar(255),
+    version bigint,
+    primary key (id)
+);
+
+create table order_items (
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null check (quantity >= 1),
+    unit_price numeric(38,2) not null,
+    subtotal numeric(38,2) not null,
+    primary key (id)
+);
+
+create table cart (
+    id bigint generated by default as identity,
+    user_id bigint,
+    primary key (id)
+);
+
+create table cart_item (
+    id bigint generated by default as identity,
+    cart_id bigint,
+    product_id bigint,
+    quantity integer not null,
+    primary key (id)
+);
+
+alter table user_roles add constraint fk_user_roles_user foreign key (user_id) references users (id);
+alter table orders add constraint fk_orders_user foreign key (user_id) references users (id);
+alter table order_items add constraint fk_order_items_order foreign key (order_id) references orders (id);
+alter table order_items add constraint fk_order_items_product foreign key (product_id) references products (id);
+alter table cart_item add constraint fk_cart_item_cart foreign key (cart_id) references cart (id);
+alter table cart_item add constraint fk_cart_item_product foreign key (product_id) references products (id);
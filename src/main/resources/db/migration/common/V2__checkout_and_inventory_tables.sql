@@ -0,0 +1,94 @@
+-- Tables and columns added since the baseline: checkouts, asynchronous order intake,
+-- order rollups, the stock movement journal, ledger checkpoints and stock shards.
+
+alter table products add column stock_shards integer;
+
+create table product_stock_shards (
+    id bigint generated by default as identity,
+    product_id bigint not null,
+    shard_index integer not null,
+    quantity integer not null,
+    primary key (id),
+    constraint uk_product_stock_shards unique (shard_index, product_id)
+);
+
+create table checkouts (
+    id bigint generated by default as identity,
+    order_id bigint not null,
+    state varchar(255) not null check (state in ('RESERVED','PAYING','CONFIRMED','COMPENSATED','IN_DOUBT')),
+    amount numeric(38,2) not null,
+    payment_method varchar(255) not null,
+    transaction_id varchar(255),
+    failure_reason varchar(255),
+    intake_token varchar(36),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_checkouts_order unique (order_id)
+);
+
+create table order_intakes (
+    id bigint generated by default as identity,
+    token varchar(36) not null,
+    user_id bigint not null,
+    payment_method varchar(255) not null,
+    status varchar(255) not null check (status in ('QUEUED','PROCESSING','COMPLETED','FAILED')),
+    order_id bigint,
+    failure_reason varchar(255),
+    accepted_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_order_intakes_token unique (token)
+);
+
+create table order_intake_lines (
+    intake_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    primary key (intake_id, product_id)
+);
+
+create table order_rollups (
+    id bigint generated by default as identity,
+    granularity varchar(10) not null check (granularity in ('MINUTE','HOUR','DAY')),
+    bucket_start timestamp(6) not null,
+    status varchar(255) not null check (status in ('PENDING','PROCESSING','SHIPPED','DELIVERED','CANCELLED')),
+    order_count bigint not null,
+    revenue numeric(19,2) not null,
+    primary key (id),
+    constraint uk_order_rollups_bucket unique (bucket_start, granularity, status)
+);
+
+create table stock_movements (
+    id bigint generated by default as identity,
+    product_id bigint not null,
+    movement_type varchar(255) not null check (movement_type in ('OPENING','SALE','RESTOCK','ADJUSTMENT')),
+    quantity integer not null,
+    occurred_at timestamp(6) not null,
+    primary key (id)
+);
+
+create table stock_snapshots (
+    id bigint generated by default as identity,
+    product_id bigint not null,
+    stock_quantity integer not null,
+    taken_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_stock_snapshots_product_time unique (product_id, taken_at)
+);
+
+create table inventory_checkpoints (
+    id bigint not null,
+    last_sequence bigint not null,
+    updated_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_checkouts_state on checkouts (state, updated_at);
+create index idx_checkouts_intake on checkouts (intake_token);
+create index idx_order_intakes_status on order_intakes (status, id);
+create index idx_stock_movements_product_time on stock_movements (product_id, occurred_at);
+create index idx_stock_movements_time on stock_movements (occurred_at);
+create index idx_orders_status_date on orders (status, order_date);
+
+alter table order_intake_lines add constraint fk_order_intake_lines_intake foreign key (intake_id) references order_intakes (id);
@@ -0,0 +1,28 @@
+-- Indexes for the repository finders that scanned whole tables.
+
+-- Orders of a user, newest first, and orders placed within a date range
+create index idx_orders_user_date on orders (user_id, order_date);
+create index idx_orders_date on orders (order_date);
+
+-- Items of a page of orders
+create index idx_order_items_order on order_items (order_id);
+
+-- Roles and cart lines loaded with their owner
+create index idx_user_roles_user on user_roles (user_id);
+create index idx_cart_item_cart on cart_item (cart_id);
+
+-- Low-stock reports across the whole catalog
+create index idx_products_stock on products (stock_quantity);
+
+-- Shard rows summed per product
+create index idx_product_stock_shards_product on product_stock_shards (product_id);
+
+-- A user has at most one cart. Lines of any extra carts move to the user's oldest cart first
+update cart_item set cart_id = (
+        select min(c2.id) from cart c2
+        where c2.user_id = (select c.user_id from cart c where c.id = cart_item.cart_id))
+    where cart_id in (
+        select c.id from cart c
+        where c.id > (select min(c2.id) from cart c2 where c2.user_id = c.user_id));
+delete from cart where id > (select min(c2.id) from cart c2 where c2.user_id = cart.user_id);
+create unique index uk_cart_user on cart (user_id);
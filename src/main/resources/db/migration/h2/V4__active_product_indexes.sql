@@ -0,0 +1,12 @@
+-- Catalog reads only ever look at active products. H2 has no partial indexes, so the
+-- flag leads each index instead of filtering it.
+
+-- Keyset listing by id, and the few products with sharded stock
+create index idx_products_active on products (active, id);
+create index idx_products_sharded on products (stock_shards);
+
+-- Keyset listing by price
+create index idx_products_active_price on products (active, price, id);
+
+-- Low-stock listing of the active catalog
+create index idx_products_active_stock on products (active, stock_quantity, id);
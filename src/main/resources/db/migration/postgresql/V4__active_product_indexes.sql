@@ -0,0 +1,11 @@
+-- Catalog reads only ever look at active products, so their indexes leave inactive ones out.
+
+-- Keyset listing by id, and the few products with sharded stock
+create index idx_products_active on products (id) where active;
+create index idx_products_sharded on products (id) where stock_shards is not null;
+
+-- Keyset listing by price
+create index idx_products_active_price on products (price, id) where active;
+
+-- Low-stock listing of the active catalog
+create index idx_products_active_stock on products (stock_quantity, id) where active;
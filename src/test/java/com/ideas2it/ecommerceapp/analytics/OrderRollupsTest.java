@@ -0,0 +1,148 @@
+package com.ideas2it.ecommerceapp.analytics;
+
+import com.ideas2it.ecommerceapp.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRollupsTest {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 12, 30);
+
+    @Test
+    void testSum_RandomRanges_MatchesCountingEveryOrder() {
+        // Arrange: every bucket is still kept, so ranges resolve to the minute
+        OrderRollups rollups = new OrderRollups(30 * DAY_MS, 30 * DAY_MS, NOW);
+        Random random = new Random(42);
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime date = NOW.minusSeconds(random.nextInt(5 * 24 * 60 * 60));
+            dates.add(date);
+            rollups.add(date, Order.OrderStatus.PENDING, 1, 1000);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime start = NOW.minusSeconds(random.nextInt(6 * 24 * 60 * 60));
+            LocalDateTime end = start.plusSeconds(random.nextInt(4 * 24 * 60 * 60) + 1);
+
+            // Act
+            OrderRollups.Totals totals = rollups.sum(start, end);
+
+            // Assert: whole minutes from the one holding start up to and including the one holding end
+            LocalDateTime from = start.truncatedTo(ChronoUnit.MINUTES);
+            LocalDateTime to = end.truncatedTo(ChronoUnit.MINUTES).equals(end) ? end
+                    : end.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            long expected = dates.stream().filter(date -> !date.isBefore(from) && date.isBefore(to)).count();
+            assertEquals(expected, totals.count(Order.OrderStatus.PENDING), "orders from " + start + " to " + end);
+            assertEquals(expected * 1000, totals.revenueCents(Order.OrderStatus.PENDING));
+            assertEquals(from, totals.start());
+            assertEquals(to, totals.end());
+        }
+    }
+
+    @Test
+    void testAdd_StatusChange_MovesOrderBetweenStatuses() {
+        // Arrange
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+        LocalDateTime placed = NOW.minusMinutes(5);
+        rollups.add(placed, Order.OrderStatus.PENDING, 1, 2500);
+
+        // Act
+        rollups.add(placed, Order.OrderStatus.PENDING, -1, -2500);
+        rollups.add(placed, Order.OrderStatus.CANCELLED, 1, 2500);
+
+        // Assert
+        OrderRollups.Totals totals = rollups.sum(null, null);
+        assertEquals(0, totals.count(Order.OrderStatus.PENDING));
+        assertEquals(1, totals.count(Order.OrderStatus.CANCELLED));
+        assertEquals(2500, totals.revenueCents(Order.OrderStatus.CANCELLED));
+        assertEquals(1, totals.totalCount());
+    }
+
+    @Test
+    void testSum_StartBeyondMinuteRetention_WidensToTheHour() {
+        // Arrange: minute buckets are kept for one day
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+        LocalDateTime old = NOW.minusDays(3).withMinute(10);
+        rollups.add(old, Order.OrderStatus.DELIVERED, 1, 100);
+
+        // Act
+        OrderRollups.Totals totals = rollups.sum(old.withMinute(40), null);
+
+        // Assert
+        assertEquals(old.withMinute(0), totals.start());
+        assertEquals(1, totals.count(Order.OrderStatus.DELIVERED));
+        assertNull(rollups.retainedFrom(OrderRollups.Granularity.DAY));
+    }
+
+    @Test
+    void testPrune_DropsExpiredMinuteBucketsButKeepsTotals() {
+        // Arrange
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+        rollups.add(NOW.minusMinutes(1), Order.OrderStatus.PENDING, 1, 100);
+        int before = rollups.size();
+
+        // Act
+        rollups.prune(NOW.plusDays(2));
+
+        // Assert
+        assertEquals(before - 1, rollups.size());
+        assertEquals(1, rollups.sum(NOW.minusDays(1), NOW.plusDays(1)).count(Order.OrderStatus.PENDING));
+    }
+
+    @Test
+    void testDrainPending_ReturnsChangesPerBucketOnce() {
+        // Arrange
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+        rollups.add(NOW, Order.OrderStatus.PENDING, 1, 100);
+        rollups.add(NOW, Order.OrderStatus.PENDING, 1, 200);
+
+        // Act
+        Map<OrderRollups.Bucket, long[]> drained = rollups.drainPending();
+
+        // Assert: one minute, one hour and one day bucket
+        assertEquals(3, drained.size());
+        long[] minute = drained.get(OrderRollups.Bucket.of(OrderRollups.Granularity.MINUTE, NOW));
+        assertEquals(2, minute[Order.OrderStatus.PENDING.ordinal()]);
+        assertEquals(300, minute[Order.OrderStatus.values().length + Order.OrderStatus.PENDING.ordinal()]);
+        assertTrue(rollups.drainPending().isEmpty());
+    }
+
+    @Test
+    void testRestorePending_MergesWithLaterChanges() {
+        // Arrange
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+        rollups.add(NOW, Order.OrderStatus.PENDING, 1, 100);
+        Map<OrderRollups.Bucket, long[]> failed = rollups.drainPending();
+        rollups.add(NOW, Order.OrderStatus.PENDING, 1, 100);
+
+        // Act
+        rollups.restorePending(failed);
+
+        // Assert
+        long[] day = rollups.drainPending().get(OrderRollups.Bucket.of(OrderRollups.Granularity.DAY, NOW));
+        assertEquals(2, day[Order.OrderStatus.PENDING.ordinal()]);
+    }
+
+    @Test
+    void testLoad_DoesNotMarkPending() {
+        // Arrange
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+
+        // Act
+        rollups.load(OrderRollups.Bucket.of(OrderRollups.Granularity.DAY, NOW.minusDays(100)),
+                Order.OrderStatus.DELIVERED, 7, 700);
+
+        // Assert
+        assertEquals(7, rollups.sum(NOW.minusDays(101), NOW).count(Order.OrderStatus.DELIVERED));
+        assertTrue(rollups.drainPending().isEmpty());
+    }
+}
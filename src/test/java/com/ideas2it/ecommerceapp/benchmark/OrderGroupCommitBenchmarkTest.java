@@ -0,0 +1,132 @@
+package com.ideas2it.ecommerceapp.benchmark;
+
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.service.OrderGroupCommitService;
+import com.ideas2it.ecommerceapp.service.OrderService;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.impl.OrderGroupCommitServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many concurrent buyers placing small orders, each committed on its own and then
+ * through the group-commit writer. Run with {@code gradle benchmark}; throughput and
+ * caller latency percentiles are printed per variant.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.inventory.stock-update-mode=ATOMIC"})
+class OrderGroupCommitBenchmarkTest {
+
+    private static final int BUYERS = 32;
+    private static final int ORDERS_PER_BUYER = 200;
+    private static final int PRODUCTS = 64;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderGroupCommitService orderGroupCommitService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void benchmarkOrderPlacement() throws Exception {
+        jdbcTemplate.update("INSERT INTO users (username, password, email) VALUES ('buyer', 'secret1', 'buyer@example.com')");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'buyer'", Long.class);
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(productService.createProduct(new Product(null, "Product " + i, 9.99, 1_000_000)).getId());
+        }
+
+        // Warm up both paths before measuring
+        run(false, userId, productIds, 20);
+        run(true, userId, productIds, 20);
+
+        long[] single = run(false, userId, productIds, ORDERS_PER_BUYER);
+        long[] grouped = run(true, userId, productIds, ORDERS_PER_BUYER);
+
+        int orders = BUYERS * ORDERS_PER_BUYER;
+        System.out.printf("per-order commit %d ms, %.0f orders/s, p50 %.2f ms, p99 %.2f ms%n",
+                single[0], orders * 1000.0 / single[0], single[1] / 1e6, single[2] / 1e6);
+        System.out.printf("group commit     %d ms, %.0f orders/s, p50 %.2f ms, p99 %.2f ms, %.1f orders per commit%n",
+                grouped[0], orders * 1000.0 / grouped[0], grouped[1] / 1e6, grouped[2] / 1e6,
+                meterRegistry.get("order.group_commit.batch_size").summary().mean());
+    }
+
+    // Returns the elapsed milliseconds and the median and 99th percentile caller latency in nanoseconds
+    private long[] run(boolean groupCommit, Long userId, List<Long> productIds, int ordersPerBuyer) throws Exception {
+        OrderGroupCommitServiceImpl writer = AopTestUtils.getUltimateTargetObject(orderGroupCommitService);
+        ReflectionTestUtils.setField(writer, "enabled", groupCommit);
+        if (groupCommit) {
+            writer.init();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> buyers = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            int buyer = b;
+            buyers.add(executor.submit(() -> {
+                start.await();
+                long[] latencies = new long[ordersPerBuyer];
+                for (int i = 0; i < ordersPerBuyer; i++) {
+                    Product product = new Product();
+                    product.setId(productIds.get((buyer * ordersPerBuyer + i) % productIds.size()));
+                    OrderItem item = new OrderItem();
+                    item.setProduct(product);
+                    item.setQuantity(1);
+                    long begin = System.nanoTime();
+                    assertNotNull(orderService.placeOrder(userId, Set.of(item)).getId());
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[BUYERS * ordersPerBuyer];
+        int next = 0;
+        for (Future<long[]> buyer : buyers) {
+            for (long latency : buyer.get()) {
+                all[next++] = latency;
+            }
+        }
+        long elapsedMillis = Math.max((System.nanoTime() - begin) / 1_000_000, 1);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        if (groupCommit) {
+            writer.shutdown();
+            ReflectionTestUtils.setField(writer, "enabled", false);
+        }
+
+        Arrays.sort(all);
+        return new long[] {elapsedMillis, all[all.length / 2], all[(int) (all.length * 0.99)]};
+    }
+}
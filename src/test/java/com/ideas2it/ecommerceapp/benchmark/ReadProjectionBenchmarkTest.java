@@ -0,0 +1,141 @@
+package com.ideas2it.ecommerceapp.benchmark;
+
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.repository.OrderRepository;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares entity loading with the read-only projection path for catalog and order
+ * listings. Run with {@code gradle benchmark}; results are printed per scenario.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadProjectionBenchmarkTest {
+
+    private static final int PRODUCTS = 5_000;
+    private static final int ORDERS = 500;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        orderService = new OrderServiceImpl(orderRepository, null, null, List.of(), null, null, null, null, null, null);
+
+        if (productRepository.count() > 0) {
+            return;
+        }
+        String description = "x".repeat(1000);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO products (name, description, price, stock_quantity, active, version) VALUES (?, ?, ?, ?, true, 0)",
+            java.util.stream.IntStream.range(0, PRODUCTS)
+                .mapToObj(i -> new Object[]{"Product " + i, description, 10 + i % 90, 100})
+                .toList());
+        jdbcTemplate.update("INSERT INTO users (username, password, email) VALUES ('bench', 'secret1', 'bench@example.com')");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'bench'", Long.class);
+        for (int i = 0; i < ORDERS; i++) {
+            jdbcTemplate.update("INSERT INTO orders (user_id, order_date, status, total_amount, payment_status, version) " +
+                "VALUES (?, CURRENT_TIMESTAMP, 'PROCESSING', 30, 'COMPLETED', 0)", userId);
+        }
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, unit_price, subtotal) " +
+            "SELECT o.id, p.id, 1, 10, 10 FROM orders o JOIN products p ON p.id <= " + ITEMS_PER_ORDER);
+    }
+
+    @Test
+    void benchmarkCatalogListing() {
+        Result entities = measure("catalog entities", () -> readWrite.execute(status -> {
+            List<Product> products = productRepository.findByActiveTrue();
+            return products.size();
+        }));
+        Result projections = measure("catalog projections", () -> readOnly.execute(status -> {
+            List<ProductSummaryDto> summaries = productRepository.findActiveSummaries(0L, PageRequest.of(0, PRODUCTS));
+            return summaries.size();
+        }));
+
+        assertEquals(entities.rows(), projections.rows());
+        assertTrue(projections.bytesPerRound() < entities.bytesPerRound(),
+            "Projections should allocate less than entity loading");
+    }
+
+    @Test
+    void benchmarkOrderListing() {
+        Result entities = measure("order entities", () -> readWrite.execute(status -> {
+            List<Order> orders = orderRepository.findWithDetailsByStatus(Order.OrderStatus.PROCESSING);
+            return orders.stream().mapToInt(order -> order.getItems().size()).sum();
+        }));
+        Result projections = measure("order projections", () -> readOnly.execute(status -> {
+            List<OrderDto> orders = orderService.getOrderSummariesByStatus(Order.OrderStatus.PROCESSING);
+            return orders.stream().mapToInt(order -> order.items().size()).sum();
+        }));
+
+        assertEquals(ORDERS * ITEMS_PER_ORDER, entities.rows());
+        assertEquals(entities.rows(), projections.rows());
+        assertTrue(projections.bytesPerRound() < entities.bytesPerRound(),
+            "Projections should allocate less than entity loading");
+    }
+
+    private Result measure(String name, Supplier<Integer> round) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int rows = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            rows = round.get();
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            round.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        Result result = new Result(rows, elapsed / MEASURED_ROUNDS / 1_000, allocated / MEASURED_ROUNDS);
+        System.out.printf("%-20s rows=%d avg=%d us alloc=%d KB/round%n",
+            name, result.rows(), result.microsPerRound(), result.bytesPerRound() / 1024);
+        return result;
+    }
+
+    private record Result(int rows, long microsPerRound, long bytesPerRound) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.ideas2it.ecommerceapp.benchmark;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.InventoryLedgerService;
+import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.ShardedStockService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many concurrent buyers draining the stock of one product, once per stock update
+ * mode and once with the product's stock sharded over several rows. Run with
+ * {@code gradle benchmark}; throughput is printed per variant.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.inventory.stock-update-mode=LEDGER"})
+class StockContentionBenchmarkTest {
+
+    private static final int BUYERS = 32;
+    private static final int STOCK = 3_000;
+    private static final int SHARDS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("inventory-journal");
+        registry.add("app.inventory.ledger.journal-dir", directory::toString);
+    }
+
+    @Test
+    void benchmarkSingleSkuContention() throws Exception {
+        // Warm up all paths before measuring
+        run(ProductService.StockUpdateMode.PESSIMISTIC, 0, 300);
+        run(ProductService.StockUpdateMode.ATOMIC, 0, 300);
+        run(ProductService.StockUpdateMode.ATOMIC, SHARDS, 300);
+        run(ProductService.StockUpdateMode.LEDGER, 0, 300);
+
+        long pessimistic = run(ProductService.StockUpdateMode.PESSIMISTIC, 0, STOCK);
+        long atomic = run(ProductService.StockUpdateMode.ATOMIC, 0, STOCK);
+        long sharded = run(ProductService.StockUpdateMode.ATOMIC, SHARDS, STOCK);
+        long ledger = run(ProductService.StockUpdateMode.LEDGER, 0, STOCK);
+
+        System.out.printf("pessimistic %d ms, %.0f purchases/s%n", pessimistic, STOCK * 1000.0 / pessimistic);
+        System.out.printf("atomic      %d ms, %.0f purchases/s%n", atomic, STOCK * 1000.0 / atomic);
+        System.out.printf("sharded     %d ms, %.0f purchases/s (%d shards)%n", sharded, STOCK * 1000.0 / sharded, SHARDS);
+        System.out.printf("ledger      %d ms, %.0f purchases/s%n", ledger, STOCK * 1000.0 / ledger);
+    }
+
+    private long run(ProductService.StockUpdateMode mode, int shards, int stock) throws Exception {
+        Object target = AopTestUtils.getUltimateTargetObject(productService);
+        ReflectionTestUtils.setField(target, "stockUpdateMode", mode);
+        Product product = productService.createProduct(new Product(null, "Hot SKU " + mode + " " + shards, 9.99, stock));
+        if (shards > 1) {
+            Object shardTarget = AopTestUtils.getUltimateTargetObject(shardedStockService);
+            ReflectionTestUtils.setField(shardTarget, "stockUpdateMode", mode);
+            shardedStockService.setShardCount(product.getId(), shards);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(executor.submit(() -> {
+                start.await();
+                int bought = 0;
+                while (true) {
+                    try {
+                        productService.updateProductStock(product.getId(), 1);
+                        bought++;
+                    } catch (IllegalStateException e) {
+                        return bought;
+                    }
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int sold = 0;
+        for (Future<Integer> buyer : buyers) {
+            sold += buyer.get();
+        }
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+        executor.shutdown();
+
+        // No variant may oversell; the ledger and the shards write their stock back on flush
+        assertEquals(stock, sold);
+        inventoryLedgerService.flush();
+        shardedStockService.flush();
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+        return Math.max(elapsedMillis, 1);
+    }
+}
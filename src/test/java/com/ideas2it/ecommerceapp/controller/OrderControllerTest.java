@@ -2,14 +2,24 @@ package com.ideas2it.ecommerceapp.controller;
 
 import com.ideas2it.ecommerceapp.dto.ApiResponse;
 import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderIntakeStatus;
 import com.ideas2it.ecommerceapp.dto.OrderPaymentRequest;
+import com.ideas2it.ecommerceapp.dto.OrderStats;
+import com.ideas2it.ecommerceapp.exception.CheckoutFailedException;
+import com.ideas2it.ecommerceapp.exception.OrderWriterUnavailableException;
 import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderIntake;
 import com.ideas2it.ecommerceapp.model.OrderItem;
 import com.ideas2it.ecommerceapp.model.Product;
 import com.ideas2it.ecommerceapp.model.User;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentDetails;
+import com.ideas2it.ecommerceapp.service.OrderAnalyticsService;
+import com.ideas2it.ecommerceapp.service.OrderExportService;
+import com.ideas2it.ecommerceapp.service.OrderIntakeService;
 import com.ideas2it.ecommerceapp.service.OrderService;
 import com.ideas2it.ecommerceapp.service.ShoppingCartService;
+import com.ideas2it.ecommerceapp.util.IdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -19,17 +29,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -48,6 +64,15 @@ class OrderControllerTest {
     @Mock
     private ShoppingCartService shoppingCartService;
 
+    @Mock
+    private OrderExportService orderExportService;
+
+    @Mock
+    private OrderIntakeService orderIntakeService;
+
+    @Mock
+    private OrderAnalyticsService orderAnalyticsService;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -63,6 +88,9 @@ class OrderControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(orderController, "orderIdempotencyStore",
+            new IdempotencyStore<Order>("test", Duration.ofMinutes(1), 100, Duration.ofSeconds(1),
+                CheckoutFailedException.class::isInstance, new SimpleMeterRegistry()));
 
         // Setup security context mock
         SecurityContextHolder.setContext(securityContext);
@@ -213,7 +241,7 @@ class OrderControllerTest {
         when(orderService.placeOrder(anyLong(), eq(orderItems))).thenReturn(testOrder);
 
         // Act
-        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrder(orderItems, authentication);
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrder(orderItems, null, authentication);
 
         // Assert
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -222,6 +250,66 @@ class OrderControllerTest {
         assertEquals(1L, response.getBody().getData().getId());
     }
 
+    @Test
+    void testPlaceOrder_WriterUnavailable_ReturnsServiceUnavailable() {
+        // Arrange
+        when(orderService.placeOrder(anyLong(), eq(orderItems)))
+            .thenThrow(new OrderWriterUnavailableException("The order was not written in time and was withdrawn"));
+
+        // Act
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrder(orderItems, null, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void testPlaceOrder_RetriedWithSameKey_ReplaysOrderWithoutPlacingAgain() {
+        // Arrange
+        when(orderService.placeOrder(anyLong(), eq(orderItems))).thenReturn(testOrder);
+
+        // Act
+        orderController.placeOrder(orderItems, "retry-1", authentication);
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrder(orderItems, "retry-1", authentication);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(1L, response.getBody().getData().getId());
+        verify(orderService, times(1)).placeOrder(anyLong(), eq(orderItems));
+    }
+
+    @Test
+    void testPlaceOrder_RetriedWithEqualItems_ReplaysOrder() {
+        // Arrange
+        when(orderService.placeOrder(anyLong(), anySet())).thenReturn(testOrder);
+        OrderItem retriedItem = new OrderItem();
+        retriedItem.setProduct(testProduct);
+        retriedItem.setQuantity(testOrderItem.getQuantity());
+        orderController.placeOrder(orderItems, "retry-1", authentication);
+
+        // Act
+        ResponseEntity<ApiResponse<Order>> response =
+            orderController.placeOrder(new HashSet<>(Set.of(retriedItem)), "retry-1", authentication);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(orderService, times(1)).placeOrder(anyLong(), anySet());
+    }
+
+    @Test
+    void testPlaceOrder_KeyReusedForOtherItems_ReturnsUnprocessableEntity() {
+        // Arrange
+        when(orderService.placeOrder(anyLong(), anySet())).thenReturn(testOrder);
+        orderController.placeOrder(orderItems, "retry-1", authentication);
+
+        // Act
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrder(new HashSet<>(), "retry-1", authentication);
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        verify(orderService, times(1)).placeOrder(anyLong(), anySet());
+    }
+
     @Test
     void testPlaceOrderWithPayment_ProcessesPaymentAndCreatesOrder() {
         // Arrange
@@ -248,7 +336,7 @@ class OrderControllerTest {
             )).thenReturn(testOrder);
 
         // Act
-        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrderWithPayment(paymentRequest, authentication);
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrderWithPayment(paymentRequest, null, authentication);
 
         // Assert
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -283,7 +371,7 @@ class OrderControllerTest {
             )).thenThrow(new RuntimeException("Payment failed: Invalid credit card"));
 
         // Act
-        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrderWithPayment(paymentRequest, authentication);
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrderWithPayment(paymentRequest, null, authentication);
 
         // Assert
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -292,6 +380,27 @@ class OrderControllerTest {
         assertNull(response.getBody().getData());
     }
 
+    @Test
+    void testPlaceOrderWithPayment_RetriedAfterOutcomeUnknown_ReplaysFailureWithoutChargingAgain() {
+        // Arrange
+        OrderPaymentRequest paymentRequest = new OrderPaymentRequest();
+        paymentRequest.setPaymentMethod("CREDIT_CARD");
+        paymentRequest.setPaymentDetails(PaymentDetails.builder().cardNumber("4111111111111111").build());
+        paymentRequest.setItems(orderItems);
+        when(authentication.getName()).thenReturn("testuser");
+        when(orderService.placeOrderWithPayment(anyLong(), anySet(), anyString(), any()))
+            .thenThrow(new CheckoutFailedException(1L, "Payment outcome unknown: Read timed out", null));
+        orderController.placeOrderWithPayment(paymentRequest, "retry-1", authentication);
+
+        // Act
+        ResponseEntity<ApiResponse<Order>> response = orderController.placeOrderWithPayment(paymentRequest, "retry-1", authentication);
+
+        // Assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals("Payment outcome unknown: Read timed out", response.getBody().getMessage());
+        verify(orderService, times(1)).placeOrderWithPayment(anyLong(), anySet(), anyString(), any());
+    }
+
     @Test
     void testUpdateOrderStatus_UpdatesStatus() {
         // Arrange
@@ -322,6 +431,20 @@ class OrderControllerTest {
         assertNull(response.getBody().getData());
     }
 
+    @Test
+    void testCancelOrders_ReturnsCancelledOrderIds() {
+        // Arrange
+        when(orderService.cancelOrders(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+        // Act
+        ResponseEntity<ApiResponse<List<Long>>> response = orderController.cancelOrders(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("1 orders cancelled", response.getBody().getMessage());
+        assertEquals(List.of(1L), response.getBody().getData());
+    }
+
     @Test
     void testUpdatePaymentStatus_UpdatesPaymentStatus() {
         // Arrange
@@ -382,4 +505,116 @@ class OrderControllerTest {
         assertTrue(response.getBody().getMessage().contains("Invalid order status"));
         assertNull(response.getBody().getData());
     }
+
+    @Test
+    void testGetOrderSummariesByStatus_InvalidStatus_ReturnsBadRequest() {
+        // Act
+        ResponseEntity<ApiResponse<List<OrderDto>>> response = orderController.getOrderSummariesByStatus("UNKNOWN");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testExportOrders_Csv_StreamsAttachment() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        ResponseEntity<?> response = orderController.exportOrders("csv", "SHIPPED", null, null);
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("text/csv", response.getHeaders().getContentType().toString());
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("orders.csv"));
+        verify(orderExportService).exportOrders(Order.OrderStatus.SHIPPED, null, null, OrderExportService.Format.CSV, out);
+    }
+
+    @Test
+    void testExportOrders_InvalidFormatOrStatus_ReturnsBadRequest() {
+        // Act
+        ResponseEntity<?> badFormat = orderController.exportOrders("xml", null, null, null);
+        ResponseEntity<?> badStatus = orderController.exportOrders("ndjson", "LOST", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, badFormat.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, badStatus.getStatusCode());
+        verifyNoInteractions(orderExportService);
+    }
+
+    @Test
+    void testSubmitOrderWithPayment_ReturnsAcceptedWithLocation() {
+        // Arrange
+        OrderPaymentRequest request = new OrderPaymentRequest();
+        OrderIntakeStatus intake = new OrderIntakeStatus("abc-123", OrderIntake.IntakeStatus.QUEUED, null, null,
+            LocalDateTime.now(), LocalDateTime.now());
+        when(authentication.getName()).thenReturn("testuser");
+        when(orderIntakeService.submit(0L, request)).thenReturn(intake);
+
+        // Act
+        ResponseEntity<ApiResponse<OrderIntakeStatus>> response = orderController.submitOrderWithPayment(request, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/api/orders/intake/abc-123", response.getHeaders().getLocation().toString());
+        assertEquals(intake, response.getBody().getData());
+    }
+
+    @Test
+    void testSubmitOrderWithPayment_QueueFull_ReturnsServiceUnavailable() {
+        // Arrange
+        OrderPaymentRequest request = new OrderPaymentRequest();
+        when(authentication.getName()).thenReturn("testuser");
+        when(orderIntakeService.submit(0L, request)).thenThrow(new IllegalStateException("Too many orders are waiting"));
+
+        // Act
+        ResponseEntity<ApiResponse<OrderIntakeStatus>> response = orderController.submitOrderWithPayment(request, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void testGetIntakeStatus_UnknownToken_ReturnsNotFound() {
+        // Arrange
+        when(orderIntakeService.getStatus("missing")).thenThrow(new NoSuchElementException("Order intake not found: missing"));
+
+        // Act
+        ResponseEntity<ApiResponse<OrderIntakeStatus>> response = orderController.getIntakeStatus("missing");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetOrderStats_ReturnsRollupTotals() {
+        // Arrange
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 3, 2, 0, 0);
+        OrderStats stats = new OrderStats(start, end, 3, Map.of(Order.OrderStatus.PENDING, 3L),
+            Map.of(Order.OrderStatus.PENDING, new BigDecimal("30.00")));
+        when(orderAnalyticsService.getStats(start, end)).thenReturn(stats);
+
+        // Act
+        ResponseEntity<ApiResponse<OrderStats>> response = orderController.getOrderStats(start, end);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stats, response.getBody().getData());
+    }
+
+    @Test
+    void testGetOrderStats_StartNotBeforeEnd_ReturnsBadRequest() {
+        // Arrange
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+        // Act
+        ResponseEntity<ApiResponse<OrderStats>> response = orderController.getOrderStats(time, time);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(orderAnalyticsService);
+    }
 }
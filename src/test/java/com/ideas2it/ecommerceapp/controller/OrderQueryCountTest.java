@@ -0,0 +1,159 @@
+package com.ideas2it.ecommerceapp.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.OrderRepository;
+import com.ideas2it.ecommerceapp.repository.UserRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the order reads that return entities to a fixed number of SQL statements, however
+ * many orders and items they return. Each response is serialized outside any transaction,
+ * as the controllers do with open-in-view off, so a lazy association missed by the
+ * queries fails the test instead of loading.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderQueryCountTest {
+
+    private static final int ORDERS = 5;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private OrderServiceImpl orderService;
+    private OrderController orderController;
+    private Statistics statistics;
+    private Long userId;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderServiceImpl(orderRepository, userRepository, null, List.of(), null, null, null, null, null, null);
+        orderController = new OrderController();
+        ReflectionTestUtils.setField(orderController, "orderService", orderService);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username = 'reader'", Integer.class) == 0) {
+            jdbcTemplate.update("INSERT INTO users (username, password, email) VALUES ('reader', 'secret1', 'reader@example.com')");
+            Long id = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'reader'", Long.class);
+            jdbcTemplate.update("INSERT INTO user_roles (user_id, role) VALUES (?, 'USER')", id);
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                jdbcTemplate.update("INSERT INTO products (name, price, stock_quantity, active, version) VALUES (?, 10, 100, true, 0)",
+                    "Product " + i);
+            }
+            for (int i = 0; i < ORDERS; i++) {
+                jdbcTemplate.update("INSERT INTO orders (user_id, order_date, status, total_amount, payment_status, version) " +
+                    "VALUES (?, CURRENT_TIMESTAMP, 'PROCESSING', 30, 'COMPLETED', 0)", id);
+            }
+            jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, unit_price, subtotal) " +
+                "SELECT o.id, p.id, 1, 10, 10 FROM orders o CROSS JOIN products p");
+        }
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'reader'", Long.class);
+        orderId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM orders", Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetOrderById_OneStatement() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader", null, "ROLE_USER"));
+
+        // Act
+        ResponseEntity<?> response = countStatements(1, () -> orderController.getOrderById(orderId));
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void testGetAllOrders_OneStatement() {
+        // Act & Assert
+        countStatements(1, () -> orderController.getAllOrders());
+    }
+
+    @Test
+    void testGetOrdersByStatus_OneStatement() {
+        // Act & Assert
+        countStatements(1, () -> orderController.getOrdersByStatus("PROCESSING"));
+    }
+
+    @Test
+    void testGetOrdersByDateRange_OneStatement() {
+        // Act & Assert
+        countStatements(1, () -> orderController.getOrdersByDateRange(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)));
+    }
+
+    @Test
+    void testGetOrdersByUser_TwoStatements() {
+        // Act
+        List<Order> orders = countStatements(2, () -> orderService.getOrdersByUser(userId));
+
+        // Assert
+        assertEquals(ORDERS, orders.size());
+    }
+
+    @Test
+    void testGetOrdersByUserPaginated_FourStatements() {
+        // Act: the user, the page of ids, the count and the orders of the page
+        Page<Order> page = countStatements(4, () -> orderService.getOrdersByUserPaginated(userId, PageRequest.of(0, 2)));
+
+        // Assert
+        assertEquals(2, page.getContent().size());
+        assertEquals(ORDERS, page.getTotalElements());
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> read) {
+        statistics.clear();
+        T result = read.get();
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(result instanceof ResponseEntity<?> response ? response.getBody() : result);
+        } catch (Exception e) {
+            throw new AssertionError("Serializing the result failed", e);
+        }
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements");
+        assertTrue(json.contains("\"product\""), "Items and their products are serialized");
+        return result;
+    }
+}
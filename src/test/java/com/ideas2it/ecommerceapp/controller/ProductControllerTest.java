@@ -1,17 +1,34 @@
 package com.ideas2it.ecommerceapp.controller;
 
 import com.ideas2it.ecommerceapp.dto.ApiResponse;
+import com.ideas2it.ecommerceapp.dto.CatalogSnapshot;
+import com.ideas2it.ecommerceapp.dto.ProductCursorPage;
+import com.ideas2it.ecommerceapp.dto.ProductImportResult;
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
+import com.ideas2it.ecommerceapp.dto.StockDrift;
 import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.service.CatalogSnapshotService;
+import com.ideas2it.ecommerceapp.service.LowStockService;
+import com.ideas2it.ecommerceapp.service.ProductImportService;
+import com.ideas2it.ecommerceapp.service.ProductSearchService;
 import com.ideas2it.ecommerceapp.service.ProductService;
+import com.ideas2it.ecommerceapp.service.ShardedStockService;
+import com.ideas2it.ecommerceapp.service.StockMovementService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -27,6 +44,24 @@ class ProductControllerTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ProductSearchService productSearchService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private ProductImportService productImportService;
+
+    @Mock
+    private LowStockService lowStockService;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private StockMovementService stockMovementService;
+
     private Product testProduct;
 
     @BeforeEach
@@ -176,6 +211,34 @@ class ProductControllerTest {
         assertNull(response.getBody().getData());
     }
 
+    @Test
+    void testSetStockShards_ShardsStock_ReturnsProduct() {
+        // Arrange
+        when(productService.getProductById(1L)).thenReturn(testProduct);
+
+        // Act
+        ResponseEntity<ApiResponse<Product>> response = productController.setStockShards(1L, 8);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(testProduct, response.getBody().getData());
+        verify(shardedStockService).setShardCount(1L, 8);
+    }
+
+    @Test
+    void testSetStockShards_LedgerMode_ReturnsConflict() {
+        // Arrange
+        doThrow(new IllegalStateException("Stock cannot be sharded in LEDGER mode"))
+            .when(shardedStockService).setShardCount(1L, 8);
+
+        // Act
+        ResponseEntity<ApiResponse<Product>> response = productController.setStockShards(1L, 8);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertFalse(response.getBody().isSuccess());
+    }
+
     @Test
     void testDeleteProduct_ExistingProduct_ReturnsSuccessResponse() {
         // Arrange
@@ -240,4 +303,226 @@ class ProductControllerTest {
         assertEquals("Database error", response.getBody().getMessage());
         assertNull(response.getBody().getData());
     }
+
+    @Test
+    void testGetProductPage_ReturnsPage() {
+        // Arrange
+        ProductCursorPage page = new ProductCursorPage(List.of(testProduct), "next", true);
+        when(productService.getProductPage(null, 1, ProductCursorPage.SortKey.PRICE)).thenReturn(page);
+
+        // Act
+        ResponseEntity<ApiResponse<ProductCursorPage>> response = productController.getProductPage(null, 1, "price");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().isSuccess());
+        assertEquals("next", response.getBody().getData().nextCursor());
+    }
+
+    @Test
+    void testGetProductPage_InvalidSort_ReturnsBadRequest() {
+        // Act
+        ResponseEntity<ApiResponse<ProductCursorPage>> response = productController.getProductPage(null, 10, "name");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertFalse(response.getBody().isSuccess());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testGetProductPage_InvalidCursor_ReturnsBadRequest() {
+        // Arrange
+        when(productService.getProductPage("bad", 10, ProductCursorPage.SortKey.ID))
+            .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        // Act
+        ResponseEntity<ApiResponse<ProductCursorPage>> response = productController.getProductPage("bad", 10, "id");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor", response.getBody().getMessage());
+    }
+
+    @Test
+    void testSearchProducts_ReturnsHits() {
+        // Arrange
+        ProductSearchHit hit = new ProductSearchHit(1L, "Test Product", BigDecimal.valueOf(19.99), null, 1.5);
+        when(productSearchService.search("test", null, BigDecimal.TEN, 20)).thenReturn(List.of(hit));
+
+        // Act
+        ResponseEntity<ApiResponse<List<ProductSearchHit>>> response =
+            productController.searchProducts("test", null, BigDecimal.TEN, 20);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getData().size());
+        assertEquals(1L, response.getBody().getData().get(0).id());
+    }
+
+    @Test
+    void testSearchProducts_BlankQuery_ReturnsBadRequest() {
+        // Arrange
+        when(productSearchService.search(" ", null, null, 20))
+            .thenThrow(new IllegalArgumentException("Search query cannot be empty"));
+
+        // Act
+        ResponseEntity<ApiResponse<List<ProductSearchHit>>> response =
+            productController.searchProducts(" ", null, null, 20);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Search query cannot be empty", response.getBody().getMessage());
+    }
+
+    @Test
+    void testGetCatalogSnapshot_ReturnsBytesWithEtag() {
+        // Arrange
+        CatalogSnapshot snapshot = new CatalogSnapshot(new byte[]{'{', '}'}, new byte[]{1}, "\"abc\"", "\"abc-gzip\"");
+        when(catalogSnapshotService.getCatalogSnapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<?> response = productController.getCatalogSnapshot(null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertSame(snapshot.json(), response.getBody());
+    }
+
+    @Test
+    void testGetCatalogSnapshot_GzipAccepted_ReturnsGzipVariant() {
+        // Arrange
+        CatalogSnapshot snapshot = new CatalogSnapshot(new byte[]{'{', '}'}, new byte[]{1}, "\"abc\"", "\"abc-gzip\"");
+        when(catalogSnapshotService.getCatalogSnapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<?> response = productController.getCatalogSnapshot(null, "deflate, gzip;q=0.9");
+
+        // Assert
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"abc-gzip\"", response.getHeaders().getETag());
+        assertSame(snapshot.gzip(), response.getBody());
+    }
+
+    @Test
+    void testGetProductSnapshot_MatchingEtag_ReturnsNotModified() {
+        // Arrange
+        CatalogSnapshot snapshot = new CatalogSnapshot(new byte[]{'{', '}'}, new byte[]{1}, "\"abc\"", "\"abc-gzip\"");
+        when(catalogSnapshotService.getProductSnapshot(1L)).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<?> response = productController.getProductSnapshot(1L, "\"old\", W/\"abc\"", null);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testGetProductSnapshot_UnknownProduct_ReturnsNotFound() {
+        // Arrange
+        when(catalogSnapshotService.getProductSnapshot(99L)).thenThrow(new NoSuchElementException("Product not found with id: 99"));
+
+        // Act
+        ResponseEntity<?> response = productController.getProductSnapshot(99L, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testImportProducts_Csv_ReturnsImportResult() {
+        // Arrange
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ProductImportResult result = new ProductImportResult(2, 2, 0, 1, 5, 400.0, List.of());
+        when(productImportService.importProducts(body, ProductImportService.Format.CSV)).thenReturn(result);
+
+        // Act
+        ResponseEntity<ApiResponse<ProductImportResult>> response = productController.importProducts("csv", body);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(result, response.getBody().getData());
+    }
+
+    @Test
+    void testImportProducts_InvalidFormat_ReturnsBadRequest() {
+        // Act
+        ResponseEntity<ApiResponse<ProductImportResult>> response =
+            productController.importProducts("xml", new ByteArrayInputStream(new byte[0]));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(productImportService);
+    }
+
+    @Test
+    void testStreamLowStockEvents_ReturnsSubscription() {
+        // Arrange
+        SseEmitter emitter = new SseEmitter();
+        when(lowStockService.subscribe()).thenReturn(emitter);
+
+        // Act
+        SseEmitter result = productController.streamLowStockEvents();
+
+        // Assert
+        assertSame(emitter, result);
+    }
+
+    @Test
+    void testGetProductSummaries_ReturnsSummaries() {
+        // Arrange
+        List<ProductSummaryDto> summaries = List.of(new ProductSummaryDto(1L, "Test Product", BigDecimal.valueOf(19.99), 50, null));
+        when(productService.getProductSummaries(null, 50)).thenReturn(summaries);
+
+        // Act
+        ResponseEntity<ApiResponse<List<ProductSummaryDto>>> response = productController.getProductSummaries(null, 50);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(summaries, response.getBody().getData());
+    }
+
+    @Test
+    void testGetStockAt_ReturnsJournaledStock() {
+        // Arrange
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 12, 0);
+        when(stockMovementService.getStockAt(1L, time)).thenReturn(42);
+
+        // Act
+        ResponseEntity<ApiResponse<Integer>> response = productController.getStockAt(1L, time);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(42, response.getBody().getData());
+    }
+
+    @Test
+    void testGetStockAt_UnknownProduct_ReturnsNotFound() {
+        // Arrange
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 12, 0);
+        when(stockMovementService.getStockAt(99L, time)).thenThrow(new NoSuchElementException("Product not found with id: 99"));
+
+        // Act
+        ResponseEntity<ApiResponse<Integer>> response = productController.getStockAt(99L, time);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testReconcileStock_ReturnsDrifts() {
+        // Arrange
+        List<StockDrift> drifts = List.of(new StockDrift(1L, 50, 48));
+        when(stockMovementService.reconcile()).thenReturn(drifts);
+
+        // Act
+        ResponseEntity<ApiResponse<List<StockDrift>>> response = productController.reconcileStock();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(drifts, response.getBody().getData());
+        assertEquals(2, response.getBody().getData().get(0).difference());
+    }
 }
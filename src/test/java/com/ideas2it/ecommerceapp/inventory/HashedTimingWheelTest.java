@@ -0,0 +1,85 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 8, 0);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void testAdvance_DeadlinePassed_ExpiresWithinOneTick() {
+        // Arrange
+        wheel.schedule("a", 25);
+
+        // Act & Assert: never early, at most one tick late
+        assertEquals(0, wheel.advance(25, expired::add));
+        assertEquals(1, wheel.advance(30, expired::add));
+        assertEquals(List.of("a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvance_DeadlineBeyondOneRevolution_WaitsForRemainingRounds() {
+        // Arrange: the wheel covers 80 ms per revolution
+        wheel.schedule("far", 205);
+        wheel.schedule("near", 45);
+
+        // Act
+        wheel.advance(100, expired::add);
+        List<String> afterFirstRevolution = List.copyOf(expired);
+        wheel.advance(210, expired::add);
+
+        // Assert
+        assertEquals(List.of("near"), afterFirstRevolution);
+        assertEquals(List.of("near", "far"), expired);
+    }
+
+    @Test
+    void testCancel_BeforeDeadline_NeverExpires() {
+        // Arrange
+        HashedTimingWheel.Timeout<String> beforeTransfer = wheel.schedule("a", 50);
+        HashedTimingWheel.Timeout<String> afterTransfer = wheel.schedule("b", 50);
+        wheel.advance(10, expired::add);
+
+        // Act
+        boolean first = beforeTransfer.cancel();
+        boolean second = afterTransfer.cancel();
+        wheel.advance(100, expired::add);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        assertTrue(expired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancel_AfterExpiry_ReturnsFalse() {
+        // Arrange
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("a", 5);
+        wheel.advance(10, expired::add);
+
+        // Act & Assert
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void testSchedule_OverdueDeadline_ExpiresOnNextTick() {
+        // Arrange
+        wheel.advance(100, expired::add);
+        wheel.schedule("late", 40);
+
+        // Act
+        wheel.advance(110, expired::add);
+
+        // Assert
+        assertEquals(List.of("late"), expired);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardClaimsTest {
+
+    private final ShardClaims claims = new ShardClaims(3);
+
+    @Test
+    void testClaimAny_StartShardClaimed_ClaimsNextFreeShard() throws InterruptedException {
+        // Arrange
+        assertTrue(claims.tryClaim(1));
+
+        // Act
+        int shard = claims.claimAny(1, 0);
+
+        // Assert
+        assertEquals(2, shard);
+    }
+
+    @Test
+    void testClaimAny_AllShardsClaimed_TimesOut() throws InterruptedException {
+        // Arrange
+        Set<Integer> claimed = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            claimed.add(claims.claimAny(0, 0));
+        }
+
+        // Act & Assert
+        assertEquals(Set.of(0, 1, 2), claimed);
+        assertEquals(-1, claims.claimAny(0, 10));
+        claims.release(1);
+        assertEquals(1, claims.claimAny(0, 0));
+    }
+
+    @Test
+    void testTryClaim_ClaimedOrOutOfRange_ReturnsFalse() {
+        // Act & Assert
+        assertTrue(claims.tryClaim(0));
+        assertFalse(claims.tryClaim(0));
+        assertFalse(claims.tryClaim(3));
+        assertFalse(claims.tryClaim(-1));
+        assertTrue(claims.tryClaim(2));
+    }
+
+    @Test
+    void testClaimAll_ShardClaimed_WaitsForRelease() throws InterruptedException {
+        // Arrange
+        assertTrue(claims.tryClaim(0));
+
+        // Act & Assert
+        assertFalse(claims.claimAll(10));
+        claims.release(0);
+        assertTrue(claims.claimAll(0));
+        assertFalse(claims.tryClaim(1));
+        claims.releaseAll();
+        assertTrue(claims.tryClaim(1));
+    }
+
+    @Test
+    void testClaimAll_WaitingThread_ProceedsOnceShardReleased() throws Exception {
+        // Arrange
+        assertTrue(claims.tryClaim(2));
+        boolean[] result = new boolean[1];
+        Thread rebalance = new Thread(() -> {
+            try {
+                result[0] = claims.claimAll(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Act
+        rebalance.start();
+        Thread.sleep(50);
+        claims.release(2);
+        rebalance.join(5000);
+
+        // Assert
+        assertTrue(result[0]);
+    }
+
+    @Test
+    void testConstructor_NoShards_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ShardClaims(0));
+    }
+}
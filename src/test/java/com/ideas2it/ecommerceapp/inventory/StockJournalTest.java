@@ -0,0 +1,112 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testOpen_ExistingJournal_ReplaysEntriesAboveCheckpoint() {
+        // Arrange
+        try (StockJournal journal = new StockJournal(directory, 1024, false)) {
+            journal.open(0, entry -> { });
+            journal.append(1L, -2);
+            journal.append(2L, -1);
+            journal.append(1L, 5);
+        }
+        List<StockJournal.Entry> replayed = new ArrayList<>();
+
+        // Act
+        long lastSequence;
+        try (StockJournal journal = new StockJournal(directory, 1024, false)) {
+            lastSequence = journal.open(1, replayed::add);
+            // Appending continues after the last entry
+            assertEquals(4, journal.append(3L, -1));
+        }
+
+        // Assert
+        assertEquals(3, lastSequence);
+        assertEquals(List.of(new StockJournal.Entry(2, 2L, -1), new StockJournal.Entry(3, 1L, 5)), replayed);
+    }
+
+    @Test
+    void testOpen_TornLastRecord_IsDiscarded() throws IOException {
+        // Arrange
+        try (StockJournal journal = new StockJournal(directory, 1024, false)) {
+            journal.open(0, entry -> { });
+            journal.append(1L, -1);
+            journal.append(1L, -1);
+        }
+        Path segment = onlySegment();
+        // Simulate a crash half way through writing a third record
+        Files.write(segment, new byte[StockJournal.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+        List<StockJournal.Entry> replayed = new ArrayList<>();
+
+        // Act
+        try (StockJournal journal = new StockJournal(directory, 1024, false)) {
+            journal.open(0, replayed::add);
+            journal.append(1L, -1);
+        }
+
+        // Assert
+        assertEquals(2, replayed.size());
+        assertEquals(3L * StockJournal.RECORD_SIZE, Files.size(segment));
+    }
+
+    @Test
+    void testTruncate_FullSegment_RollsAndDropsCheckpointedSegments() throws IOException {
+        // Arrange
+        StockJournal journal = new StockJournal(directory, 2L * StockJournal.RECORD_SIZE, false);
+        journal.open(0, entry -> { });
+        journal.append(1L, -1);
+        journal.append(1L, -1);
+
+        // Act
+        journal.truncate(1);
+        journal.append(1L, -1);
+        journal.truncate(2);
+        journal.close();
+
+        // Assert
+        assertEquals(1, segmentCount());
+        List<StockJournal.Entry> replayed = new ArrayList<>();
+        try (StockJournal reopened = new StockJournal(directory, 2L * StockJournal.RECORD_SIZE, false)) {
+            assertEquals(3, reopened.open(2, replayed::add));
+        }
+        assertEquals(List.of(new StockJournal.Entry(3, 1L, -1)), replayed);
+    }
+
+    @Test
+    void testAppend_NotOpen_ThrowsException() {
+        // Arrange
+        StockJournal journal = new StockJournal(directory, 1024, false);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> journal.append(1L, -1));
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ideas2it.ecommerceapp.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    private StockJournal journal;
+    private StockLedger ledger;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        journal = new StockJournal(directory, 1 << 20, false);
+        journal.open(0, entry -> { });
+        ledger = new StockLedger(journal, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void testReserve_EnoughStock_TakesStockAndJournals() {
+        // Act
+        boolean first = ledger.reserve(1L, 3, this::load);
+        boolean second = ledger.reserve(1L, 8, this::load);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(7, ledger.available(1L));
+        assertEquals(1, loads.get());
+        assertEquals(1, journal.lastSequence());
+    }
+
+    @Test
+    void testDrain_AfterMovements_ReturnsNetDeltasAndSequence() {
+        // Arrange
+        ledger.reserve(1L, 3, this::load);
+        ledger.reserve(2L, 1, this::load);
+        ledger.release(1L, 1, this::load);
+
+        // Act
+        StockLedger.Drain drain = ledger.drain();
+        StockLedger.Drain empty = ledger.drain();
+
+        // Assert
+        assertEquals(Map.of(1L, -2, 2L, -1), drain.deltas());
+        assertEquals(3, drain.sequence());
+        assertTrue(empty.deltas().isEmpty());
+    }
+
+    @Test
+    void testRestore_FailedWrite_DeltasReturnInNextDrain() {
+        // Arrange
+        ledger.reserve(1L, 3, this::load);
+        StockLedger.Drain failed = ledger.drain();
+        ledger.reserve(1L, 1, this::load);
+
+        // Act
+        ledger.restore(failed);
+
+        // Assert
+        assertEquals(Map.of(1L, -4), ledger.drain().deltas());
+    }
+
+    @Test
+    void testResync_ExternalChange_KeepsUnwrittenMovements() {
+        // Arrange
+        ledger.reserve(1L, 3, this::load);
+
+        // Act: an administrator set the stored stock to 50 while -3 was still unwritten
+        ledger.resync(1L, 50);
+
+        // Assert
+        assertEquals(47, ledger.available(1L));
+    }
+
+    @Test
+    void testReserve_ConcurrentBuyers_NeverOversells() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> buyers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            buyers.add(executor.submit(() -> {
+                start.await();
+                int bought = 0;
+                while (ledger.reserve(1L, 1, this::load)) {
+                    bought++;
+                }
+                return bought;
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int sold = 0;
+        for (Future<Integer> buyer : buyers) {
+            sold += buyer.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(10, sold);
+        assertEquals(0, ledger.available(1L));
+        assertEquals(Map.of(1L, -10), ledger.drain().deltas());
+    }
+
+    private int load(long productId) {
+        loads.incrementAndGet();
+        return 10;
+    }
+}
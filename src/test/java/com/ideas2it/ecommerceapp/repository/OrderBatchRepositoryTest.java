@@ -0,0 +1,90 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderBatchRepositoryTest {
+
+    @InjectMocks
+    private OrderBatchRepository orderBatchRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet keys;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Object>>any())).thenAnswer(invocation ->
+            invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement(anyString(), any(String[].class))).thenReturn(statement);
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+    }
+
+    @Test
+    void testInsertOrders_FewerGeneratedKeysThanRows_ThrowsException() throws Exception {
+        // Arrange
+        when(keys.next()).thenReturn(true, false);
+        when(keys.getLong(1)).thenReturn(41L);
+        List<Order> orders = List.of(order(), order());
+
+        // Act & Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> orderBatchRepository.insertOrders(orders));
+        assertTrue(e.getMessage().contains("got 1 generated ids"));
+        assertNull(orders.get(0).getId());
+    }
+
+    @Test
+    void testInsertOrders_OneKeyPerRow_AssignsIds() throws Exception {
+        // Arrange
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getLong(1)).thenReturn(41L, 42L);
+        List<Order> orders = List.of(order(), order());
+
+        // Act
+        orderBatchRepository.insertOrders(orders);
+
+        // Assert
+        assertEquals(41L, orders.get(0).getId());
+        assertEquals(42L, orders.get(1).getId());
+    }
+
+    private static Order order() {
+        User user = new User();
+        user.setId(1L);
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        order.setTotalAmount(BigDecimal.TEN);
+        return order;
+    }
+}
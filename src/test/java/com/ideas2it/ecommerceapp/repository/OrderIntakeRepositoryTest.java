@@ -0,0 +1,58 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import com.ideas2it.ecommerceapp.model.OrderIntake;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class OrderIntakeRepositoryTest {
+
+    @Autowired
+    private OrderIntakeRepository intakeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testCompleteByCheckout_CompletesOnlyIntakesWithLiveCheckout() {
+        // Arrange
+        OrderIntake paid = intake("token-paid", 41L, Checkout.CheckoutState.CONFIRMED);
+        OrderIntake compensated = intake("token-compensated", 42L, Checkout.CheckoutState.COMPENSATED);
+        OrderIntake unplaced = intake("token-unplaced", null, null);
+        entityManager.flush();
+
+        // Act
+        int completed = intakeRepository.completeByCheckout(LocalDateTime.now());
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, completed);
+        OrderIntake reloaded = intakeRepository.findById(paid.getId()).orElseThrow();
+        assertEquals(OrderIntake.IntakeStatus.COMPLETED, reloaded.getStatus());
+        assertEquals(41L, reloaded.getOrderId());
+        assertEquals(OrderIntake.IntakeStatus.PROCESSING, intakeRepository.findById(compensated.getId()).orElseThrow().getStatus());
+        assertEquals(OrderIntake.IntakeStatus.PROCESSING, intakeRepository.findById(unplaced.getId()).orElseThrow().getStatus());
+    }
+
+    private OrderIntake intake(String token, Long orderId, Checkout.CheckoutState state) {
+        OrderIntake intake = new OrderIntake(token, 1L, Map.of(5L, 1), "credit_card");
+        intake.setStatus(OrderIntake.IntakeStatus.PROCESSING);
+        entityManager.persist(intake);
+        if (orderId != null) {
+            Checkout checkout = new Checkout(orderId, "credit_card", BigDecimal.TEN);
+            checkout.setState(state);
+            checkout.setIntakeToken(token);
+            entityManager.persist(checkout);
+        }
+        return intake;
+    }
+}
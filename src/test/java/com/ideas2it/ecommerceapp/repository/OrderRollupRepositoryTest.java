@@ -0,0 +1,62 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.analytics.OrderRollups;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import(OrderRollupRepository.class)
+class OrderRollupRepositoryTest {
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 12, 30);
+
+    @Autowired
+    private OrderRollupRepository rollupRepository;
+
+    @Test
+    void testSumSpans_MatchesInMemorySum() {
+        // Arrange
+        OrderRollups rollups = new OrderRollups(DAY_MS, 30 * DAY_MS, NOW);
+        rollups.add(NOW.minusMinutes(5), Order.OrderStatus.PENDING, 1, 1250);
+        rollups.add(NOW.minusHours(30), Order.OrderStatus.PENDING, 2, 4000);
+        rollups.add(NOW.minusDays(4), Order.OrderStatus.DELIVERED, 1, 999);
+        rollups.add(NOW.minusDays(20), Order.OrderStatus.DELIVERED, 5, 5000);
+        rollupRepository.applyDeltas(rollups.drainPending());
+        OrderRollups.Cover cover = rollups.cover(NOW.minusDays(10), NOW);
+
+        // Act
+        List<OrderRollup> rows = new ArrayList<>();
+        rollupRepository.sumSpans(cover.spans(), rows::add);
+
+        // Assert
+        OrderRollups.Totals expected = rollups.sum(NOW.minusDays(10), NOW);
+        assertEquals(2, rows.size());
+        for (OrderRollup row : rows) {
+            assertEquals(expected.count(row.getStatus()), row.getOrderCount());
+            assertEquals(0, BigDecimal.valueOf(expected.revenueCents(row.getStatus()), 2).compareTo(row.getRevenue()));
+        }
+    }
+
+    @Test
+    void testClaimBuild_AlreadyClaimed_ThrowsException() {
+        // Arrange
+        rollupRepository.claimBuild();
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> rollupRepository.claimBuild());
+        assertFalse(rollupRepository.isEmpty());
+    }
+}
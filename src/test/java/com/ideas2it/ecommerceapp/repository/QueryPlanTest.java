@@ -0,0 +1,191 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every query method declared on the order, product and cart repositories against the
+ * migrated schema, records the SQL it issues and fails if the database plans a full scan of
+ * any table for it. The plans are H2's, read from EXPLAIN. The tables are nearly empty, so
+ * H2 picks any index that fits and a scan means no index serves the query. A new query method
+ * fails the test until it is added here.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.ideas2it.ecommerceapp.repository.QueryPlanTest$StatementRecorder")
+class QueryPlanTest {
+
+    // Methods that read every row by design
+    private static final Set<String> FULL_READS = Set.of("findAllWithDetails", "findAllStockQuantities");
+
+    private static final List<Long> IDS = List.of(1L, 2L, 3L);
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("planner");
+        user.setPassword("secret1");
+        user.setEmail("planner@example.com");
+        entityManager.persistAndFlush(user);
+    }
+
+    @Test
+    void testOrderRepository_NoQueryScansWholeTable() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Checkout.CheckoutState> active = List.of(Checkout.CheckoutState.RESERVED, Checkout.CheckoutState.PAYING);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByStatus", () -> orderRepository.findByStatus(Order.OrderStatus.PENDING));
+        queries.put("findWithDetailsById", () -> orderRepository.findWithDetailsById(1L));
+        queries.put("findAllWithDetails", () -> orderRepository.findAllWithDetails());
+        queries.put("findWithDetailsByUser", () -> orderRepository.findWithDetailsByUser(user));
+        queries.put("findWithDetailsByStatus", () -> orderRepository.findWithDetailsByStatus(Order.OrderStatus.PENDING));
+        queries.put("findWithDetailsByOrderDateBetween", () ->
+            orderRepository.findWithDetailsByOrderDateBetween(now.minusDays(1), now));
+        queries.put("findWithDetailsByIdIn", () -> orderRepository.findWithDetailsByIdIn(IDS));
+        queries.put("findIdsByUser", () -> orderRepository.findIdsByUser(user, PageRequest.of(1, 20)));
+        queries.put("findStaleOrders", () ->
+            orderRepository.findStaleOrders(Order.OrderStatus.PENDING, now, 0L, active, PAGE));
+        queries.put("countStaleOrders", () -> orderRepository.countStaleOrders(Order.OrderStatus.PENDING, now, active));
+        queries.put("findAllByIdAndStatusNotForUpdate", () ->
+            orderRepository.findAllByIdAndStatusNotForUpdate(IDS, Order.OrderStatus.CANCELLED));
+        queries.put("sumQuantitiesByProduct", () -> orderRepository.sumQuantitiesByProduct(IDS));
+        queries.put("updatePayment", () ->
+            orderRepository.updatePayment(1L, Order.PaymentStatus.COMPLETED, Order.OrderStatus.PROCESSING));
+        queries.put("countOrdersSince", () -> orderRepository.countOrdersSince(now.minusDays(1)));
+        queries.put("countOrdersByStatusAndDateRange", () ->
+            orderRepository.countOrdersByStatusAndDateRange(Order.OrderStatus.PENDING, now.minusDays(1), now));
+        queries.put("findDtosByUserId", () -> orderRepository.findDtosByUserId(user.getId(), PageRequest.of(1, 20)));
+        queries.put("findDtosByStatus", () -> orderRepository.findDtosByStatus(Order.OrderStatus.PENDING));
+        queries.put("findItemDtosByOrderIds", () -> orderRepository.findItemDtosByOrderIds(IDS));
+
+        // Act & Assert
+        assertNoTableScans(OrderRepository.class, queries);
+    }
+
+    @Test
+    void testProductRepository_NoQueryScansWholeTable() {
+        BigDecimal price = BigDecimal.TEN;
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByActiveTrue", () -> productRepository.findByActiveTrue());
+        queries.put("findByIdWithPessimisticLock", () -> productRepository.findByIdWithPessimisticLock(1L));
+        queries.put("findAllByIdForUpdate", () -> productRepository.findAllByIdForUpdate(IDS));
+        queries.put("decrementStock", () -> productRepository.decrementStock(1L, 1));
+        queries.put("findStockShardCounts", () -> productRepository.findStockShardCounts());
+        queries.put("findStockShardsById", () -> productRepository.findStockShardsById(1L));
+        queries.put("copyShardedStock", () -> productRepository.copyShardedStock(IDS));
+        queries.put("findStockQuantityById", () -> productRepository.findStockQuantityById(1L));
+        queries.put("findByStockQuantityLessThan", () -> productRepository.findByStockQuantityLessThan(5));
+        queries.put("findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc", () ->
+            productRepository.findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc(5));
+        queries.put("findByActiveTrueAndIdGreaterThanOrderByIdAsc", () ->
+            productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(0L, PAGE));
+        queries.put("findByActiveTrueOrderByPriceAscIdAsc", () -> productRepository.findByActiveTrueOrderByPriceAscIdAsc(PAGE));
+        queries.put("findActiveAfterPriceAndId", () -> productRepository.findActiveAfterPriceAndId(price, 0L, PAGE));
+        queries.put("streamActiveProducts", () -> {
+            try (Stream<?> products = productRepository.streamActiveProducts()) {
+                products.count();
+            }
+        });
+        queries.put("findActiveSummaries", () -> productRepository.findActiveSummaries(0L, PAGE));
+        queries.put("findIdsByFilter", () -> productRepository.findIdsByFilter(0L, true, price, price, PAGE));
+        queries.put("scalePrices", () -> productRepository.scalePrices(IDS, BigDecimal.ONE));
+        queries.put("setPrices", () -> productRepository.setPrices(IDS, price));
+        queries.put("adjustPrices", () -> productRepository.adjustPrices(IDS, BigDecimal.ONE));
+        queries.put("lockAdjustableStock", () -> productRepository.lockAdjustableStock(IDS, 1));
+        queries.put("findActiveIds", () -> productRepository.findActiveIds(IDS));
+        queries.put("findAllStockQuantities", () -> productRepository.findAllStockQuantities());
+        queries.put("adjustStock", () -> productRepository.adjustStock(IDS, 1));
+        queries.put("setActive", () -> productRepository.setActive(IDS, false));
+
+        // Act & Assert
+        assertNoTableScans(ProductRepository.class, queries);
+    }
+
+    @Test
+    void testCartRepository_NoQueryScansWholeTable() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByUserId", () -> cartRepository.findByUserId(user.getId()));
+
+        // Act & Assert
+        assertNoTableScans(CartRepository.class, queries);
+    }
+
+    private void assertNoTableScans(Class<?> repository, Map<String, Runnable> queries) {
+        Set<String> declared = Arrays.stream(repository.getDeclaredMethods())
+            .map(Method::getName)
+            .collect(Collectors.toCollection(TreeSet::new));
+        assertEquals(declared, new TreeSet<>(queries.keySet()), "Query methods of " + repository.getSimpleName());
+
+        List<String> scans = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            StatementRecorder.STATEMENTS.clear();
+            query.run();
+            assertFalse(StatementRecorder.STATEMENTS.isEmpty(), name + " issued no SQL");
+            if (FULL_READS.contains(name)) {
+                return;
+            }
+            for (String sql : StatementRecorder.STATEMENTS) {
+                String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+                if (plan.contains(".tableScan")) {
+                    scans.add(name + ":\n" + plan);
+                }
+            }
+        });
+        assertTrue(scans.isEmpty(), "Full table scans planned for\n" + String.join("\n\n", scans));
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class StatementRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
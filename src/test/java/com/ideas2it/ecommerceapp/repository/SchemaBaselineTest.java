@@ -0,0 +1,47 @@
+package com.ideas2it.ecommerceapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A database created by Hibernate before migrations existed holds exactly the baseline
+ * schema. It is baselined at version 1, receives every later migration and then passes
+ * Hibernate's schema validation, which the context startup runs.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.order.reaper.enabled=false"})
+class SchemaBaselineTest {
+
+    private static final String URL = "jdbc:h2:mem:baselined;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void preMigrationDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "password")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/common/V1__baseline_schema.sql"));
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    void testMigrate_PreMigrationDatabase_BaselinedAndMigrated() {
+        // Assert
+        assertEquals("1", jdbcTemplate.queryForObject(
+            "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"type\" = 'BASELINE'", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_stock_shards", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM checkouts", Integer.class));
+    }
+}
@@ -0,0 +1,94 @@
+package com.ideas2it.ecommerceapp.search;
+
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.replaceAll(List.of(
+            ProductSearchIndex.analyze(1L, "Wireless Mouse", "Ergonomic mouse with USB receiver", BigDecimal.valueOf(25), null),
+            ProductSearchIndex.analyze(2L, "Mechanical Keyboard", "Keyboard with a wireless mode", BigDecimal.valueOf(90), null),
+            ProductSearchIndex.analyze(3L, "USB Cable", "Braided cable", BigDecimal.valueOf(8), null)
+        ));
+    }
+
+    @Test
+    void testTokenize_LowercasesAndDropsStopWords() {
+        assertEquals(List.of("usb", "c", "cable", "2m"), ProductSearchIndex.tokenize("The USB-C cable, 2m"));
+    }
+
+    @Test
+    void testSearch_NameMatchOutranksDescriptionMatch() {
+        // Act
+        List<ProductSearchHit> hits = index.search("wireless", null, null, 10);
+
+        // Assert
+        assertEquals(2, hits.size());
+        assertEquals(1L, hits.get(0).id());
+        assertEquals(2L, hits.get(1).id());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void testSearch_PrefixMatchesLongerTerms() {
+        // Act
+        List<ProductSearchHit> hits = index.search("keyb", null, null, 10);
+
+        // Assert
+        assertEquals(1, hits.size());
+        assertEquals(2L, hits.get(0).id());
+    }
+
+    @Test
+    void testSearch_PriceRangeFiltersHits() {
+        // Act
+        List<ProductSearchHit> hits = index.search("usb", BigDecimal.ONE, BigDecimal.TEN, 10);
+
+        // Assert
+        assertEquals(1, hits.size());
+        assertEquals(3L, hits.get(0).id());
+    }
+
+    @Test
+    void testSearch_LimitKeepsBestHits() {
+        // Act
+        List<ProductSearchHit> hits = index.search("wireless", null, null, 1);
+
+        // Assert
+        assertEquals(1, hits.size());
+        assertEquals(1L, hits.get(0).id());
+    }
+
+    @Test
+    void testUpsert_ReplacesPreviousTerms() {
+        // Act
+        index.upsert(ProductSearchIndex.analyze(3L, "HDMI Adapter", null, BigDecimal.valueOf(8), null));
+
+        // Assert
+        assertTrue(index.search("cable", null, null, 10).isEmpty());
+        assertEquals(3L, index.search("hdmi", null, null, 10).get(0).id());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testRemove_DropsProductFromResults() {
+        // Act
+        index.remove(1L);
+
+        // Assert
+        List<ProductSearchHit> hits = index.search("mouse", null, null, 10);
+        assertTrue(hits.isEmpty());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,152 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ideas2it.ecommerceapp.dto.CatalogSnapshot;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.service.impl.CatalogSnapshotServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogSnapshotServiceTest {
+
+    @InjectMocks
+    private CatalogSnapshotServiceImpl catalogSnapshotService;
+
+    @Mock
+    private ProductService productService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(catalogSnapshotService, "rebuildDelayMs", 60_000L);
+        ReflectionTestUtils.setField(catalogSnapshotService, "stockRebuildDelayMs", 60_000L);
+        ReflectionTestUtils.setField(catalogSnapshotService, "maxProductSnapshots", 100L);
+        catalogSnapshotService.init();
+
+        testProduct = new Product(1L, "Test Product", 19.99, 50);
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(0);
+            consumer.accept(testProduct);
+            return null;
+        }).when(productService).streamActiveProducts(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogSnapshotService.shutdown();
+    }
+
+    @Test
+    void testGetCatalogSnapshot_SerializesActiveCatalogInApiResponse() throws IOException {
+        // Act
+        CatalogSnapshot snapshot = catalogSnapshotService.getCatalogSnapshot();
+
+        // Assert
+        JsonNode json = objectMapper.readTree(snapshot.json());
+        assertEquals("SUCCESS", json.get("result").asText());
+        assertEquals("Products retrieved successfully", json.get("message").asText());
+        assertEquals("Test Product", json.get("data").get(0).get("name").asText());
+        assertTrue(json.get("success").asBoolean());
+        assertArrayEquals(snapshot.json(), gunzip(snapshot.gzip()));
+        assertNotEquals(snapshot.etag(), snapshot.gzipEtag());
+    }
+
+    @Test
+    void testGetCatalogSnapshot_ServedFromMemoryAfterFirstBuild() {
+        // Act
+        CatalogSnapshot first = catalogSnapshotService.getCatalogSnapshot();
+        CatalogSnapshot second = catalogSnapshotService.getCatalogSnapshot();
+
+        // Assert
+        assertSame(first, second);
+        verify(productService, times(1)).streamActiveProducts(any());
+    }
+
+    @Test
+    void testRebuildCatalog_ChangedContentChangesEtag() {
+        // Arrange
+        String before = catalogSnapshotService.getCatalogSnapshot().etag();
+        testProduct.setStockQuantity(49);
+
+        // Act
+        catalogSnapshotService.rebuildCatalog();
+
+        // Assert
+        assertNotEquals(before, catalogSnapshotService.getCatalogSnapshot().etag());
+    }
+
+    @Test
+    void testGetProductSnapshot_CachesUntilProductChanges() throws IOException {
+        // Arrange
+        when(productService.getProductById(1L)).thenReturn(testProduct);
+        CatalogSnapshot first = catalogSnapshotService.getProductSnapshot(1L);
+        assertSame(first, catalogSnapshotService.getProductSnapshot(1L));
+
+        // Act
+        testProduct.setName("Renamed Product");
+        catalogSnapshotService.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.UPDATED));
+
+        // Assert
+        CatalogSnapshot refreshed = catalogSnapshotService.getProductSnapshot(1L);
+        assertNotEquals(first.etag(), refreshed.etag());
+        assertEquals("Renamed Product", objectMapper.readTree(refreshed.json()).get("data").get("name").asText());
+        verify(productService, times(2)).getProductById(1L);
+    }
+
+    @Test
+    void testGetProductSnapshot_UnknownProduct_ThrowsException() {
+        // Arrange
+        when(productService.getProductById(99L)).thenThrow(new NoSuchElementException("Product not found with id: 99"));
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> catalogSnapshotService.getProductSnapshot(99L));
+    }
+
+    @Test
+    void testOnProductChanged_StockChanged_RefreshesProductButNotCatalog() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(catalogSnapshotService, "rebuildDelayMs", 10L);
+        when(productService.getProductById(1L)).thenReturn(testProduct);
+        catalogSnapshotService.getCatalogSnapshot();
+        CatalogSnapshot first = catalogSnapshotService.getProductSnapshot(1L);
+
+        // Act
+        testProduct.setStockQuantity(12);
+        catalogSnapshotService.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+        Thread.sleep(200);
+
+        // Assert
+        CatalogSnapshot refreshed = catalogSnapshotService.getProductSnapshot(1L);
+        assertNotEquals(first.etag(), refreshed.etag());
+        assertEquals(12, objectMapper.readTree(refreshed.json()).get("data").get("stockQuantity").asInt());
+        verify(productService, times(1)).streamActiveProducts(any());
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.CheckoutRepository;
+import com.ideas2it.ecommerceapp.service.impl.CheckoutServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CheckoutServiceTest {
+
+    @InjectMocks
+    private CheckoutServiceImpl checkoutService;
+
+    @Mock
+    private CheckoutRepository checkoutRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(checkoutService, "staleAfterMs", 300000L);
+        ReflectionTestUtils.setField(checkoutService, "batchSize", 10);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void testRecover_ReservedCheckout_CancelsOrderAndFailsPayment() {
+        // Arrange
+        Checkout checkout = checkout(1L, 11L, Checkout.CheckoutState.RESERVED);
+        when(checkoutRepository.findStale(anyList(), any(), any())).thenReturn(List.of(checkout));
+        when(checkoutRepository.markCompensated(eq(1L), eq(List.of(Checkout.CheckoutState.RESERVED)), anyString(), any()))
+            .thenReturn(1);
+
+        // Act
+        int settled = checkoutService.recover();
+
+        // Assert
+        assertEquals(1, settled);
+        verify(orderService).cancelOrders(List.of(11L));
+        verify(orderService).updatePaymentStatus(11L, Order.PaymentStatus.FAILED);
+    }
+
+    @Test
+    void testRecover_PayingCheckout_MarksInDoubtWithoutCancelling() {
+        // Arrange
+        Checkout checkout = checkout(2L, 12L, Checkout.CheckoutState.PAYING);
+        when(checkoutRepository.findStale(anyList(), any(), any())).thenReturn(List.of(checkout));
+        when(checkoutRepository.transition(eq(2L), eq(List.of(Checkout.CheckoutState.PAYING)),
+            eq(Checkout.CheckoutState.IN_DOUBT), any())).thenReturn(1);
+
+        // Act
+        int settled = checkoutService.recover();
+
+        // Assert
+        assertEquals(1, settled);
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testRecover_CheckoutMovedOnMeanwhile_LeavesOrderAlone() {
+        // Arrange
+        Checkout checkout = checkout(3L, 13L, Checkout.CheckoutState.RESERVED);
+        when(checkoutRepository.findStale(anyList(), any(), any())).thenReturn(List.of(checkout));
+
+        // Act
+        int settled = checkoutService.recover();
+
+        // Assert
+        assertEquals(0, settled);
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testRecover_OneCheckoutFails_OthersStillSettled() {
+        // Arrange
+        Checkout failing = checkout(4L, 14L, Checkout.CheckoutState.RESERVED);
+        Checkout paying = checkout(5L, 15L, Checkout.CheckoutState.PAYING);
+        when(checkoutRepository.findStale(anyList(), any(), any())).thenReturn(List.of(failing, paying));
+        when(checkoutRepository.markCompensated(eq(4L), anyList(), anyString(), any())).thenReturn(1);
+        when(orderService.cancelOrders(List.of(14L))).thenThrow(new RuntimeException("Deadlock"));
+        when(checkoutRepository.transition(eq(5L), anyList(), eq(Checkout.CheckoutState.IN_DOUBT), any())).thenReturn(1);
+
+        // Act
+        int settled = checkoutService.recover();
+
+        // Assert
+        assertEquals(1, settled);
+    }
+
+    @Test
+    void testReconcile_PaymentTaken_ConfirmsOrderWithTransactionId() {
+        // Arrange
+        Order order = new Order();
+        order.setId(16L);
+        when(checkoutRepository.findByOrderId(16L)).thenReturn(Optional.of(checkout(6L, 16L, Checkout.CheckoutState.IN_DOUBT)));
+        when(checkoutRepository.markConfirmed(eq(6L), eq(List.of(Checkout.CheckoutState.IN_DOUBT)), eq("TX-16"), any()))
+            .thenReturn(1);
+        when(orderService.updatePaymentStatus(16L, Order.PaymentStatus.COMPLETED)).thenReturn(order);
+
+        // Act
+        Order reconciled = checkoutService.reconcile(16L, true, "TX-16");
+
+        // Assert
+        assertSame(order, reconciled);
+        verify(orderService, never()).cancelOrders(any());
+    }
+
+    @Test
+    void testReconcile_PaymentNotTaken_CancelsOrderAndReturnsStock() {
+        // Arrange
+        when(checkoutRepository.findByOrderId(17L)).thenReturn(Optional.of(checkout(7L, 17L, Checkout.CheckoutState.IN_DOUBT)));
+        when(checkoutRepository.markCompensated(eq(7L), eq(List.of(Checkout.CheckoutState.IN_DOUBT)), anyString(), any()))
+            .thenReturn(1);
+
+        // Act
+        checkoutService.reconcile(17L, false, null);
+
+        // Assert
+        verify(orderService).cancelOrders(List.of(17L));
+        verify(orderService).updatePaymentStatus(17L, Order.PaymentStatus.FAILED);
+        verify(checkoutRepository, never()).markConfirmed(anyLong(), anyList(), anyString(), any());
+    }
+
+    @Test
+    void testReconcile_CheckoutNotInDoubt_ThrowsException() {
+        // Arrange
+        when(checkoutRepository.findByOrderId(18L)).thenReturn(Optional.of(checkout(8L, 18L, Checkout.CheckoutState.CONFIRMED)));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> checkoutService.reconcile(18L, false, null));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testReconcile_PaidWithoutTransactionId_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> checkoutService.reconcile(19L, true, " "));
+        verifyNoInteractions(checkoutRepository, orderService);
+    }
+
+    private Checkout checkout(Long id, Long orderId, Checkout.CheckoutState state) {
+        Checkout checkout = new Checkout(orderId, "CREDIT_CARD", BigDecimal.TEN);
+        checkout.setId(id);
+        checkout.setState(state);
+        return checkout;
+    }
+}
@@ -0,0 +1,210 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.inventory.StockJournal;
+import com.ideas2it.ecommerceapp.model.InventoryCheckpoint;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.InventoryCheckpointRepository;
+import com.ideas2it.ecommerceapp.repository.ProductBatchRepository;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.impl.InventoryLedgerServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InventoryLedgerServiceTest {
+
+    @InjectMocks
+    private InventoryLedgerServiceImpl inventoryLedgerService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductBatchRepository productBatchRepository;
+
+    @Mock
+    private InventoryCheckpointRepository checkpointRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path journalDir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(inventoryLedgerService, "stockUpdateMode", ProductService.StockUpdateMode.LEDGER);
+        ReflectionTestUtils.setField(inventoryLedgerService, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(inventoryLedgerService, "segmentBytes", 1L << 20);
+        ReflectionTestUtils.setField(inventoryLedgerService, "stripes", 4);
+        // Long enough that only explicit flushes run during a test
+        ReflectionTestUtils.setField(inventoryLedgerService, "flushIntervalMs", 60_000L);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(checkpointRepository.findById(InventoryCheckpoint.LEDGER_ID))
+            .thenReturn(Optional.of(new InventoryCheckpoint(InventoryCheckpoint.LEDGER_ID, 0L)));
+        when(productRepository.findStockQuantityById(1L)).thenReturn(Optional.of(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryLedgerService.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testReserve_ThenFlush_WritesNetStockAndCheckpoint() {
+        // Arrange
+        inventoryLedgerService.init();
+        inventoryLedgerService.reserve(1L, 3);
+        inventoryLedgerService.reserve(1L, 2);
+
+        // Act
+        int written = inventoryLedgerService.flush();
+
+        // Assert
+        assertEquals(1, written);
+        verify(productBatchRepository).adjustStock(Map.of(1L, -5));
+        verify(checkpointRepository).advance(eq(InventoryCheckpoint.LEDGER_ID), eq(2L), any());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testReserve_InsufficientStock_ThrowsException() {
+        // Arrange
+        inventoryLedgerService.init();
+        inventoryLedgerService.reserve(1L, 8);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> inventoryLedgerService.reserve(1L, 3));
+    }
+
+    @Test
+    void testReserve_UnknownProduct_ThrowsException() {
+        // Arrange
+        inventoryLedgerService.init();
+        when(productRepository.findStockQuantityById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> inventoryLedgerService.reserve(99L, 1));
+    }
+
+    @Test
+    void testReserve_NotLedgerMode_ThrowsException() {
+        // Arrange
+        ReflectionTestUtils.setField(inventoryLedgerService, "stockUpdateMode", ProductService.StockUpdateMode.ATOMIC);
+        inventoryLedgerService.init();
+
+        // Act & Assert
+        assertFalse(inventoryLedgerService.isActive());
+        assertThrows(IllegalStateException.class, () -> inventoryLedgerService.reserve(1L, 1));
+    }
+
+    @Test
+    void testReserve_TransactionRolledBack_ReturnsStock() {
+        // Arrange
+        inventoryLedgerService.init();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        inventoryLedgerService.reserve(1L, 10);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Assert: the full stock can be reserved again and nothing net is written
+        inventoryLedgerService.reserve(1L, 10);
+        inventoryLedgerService.release(1L, 10);
+        inventoryLedgerService.flush();
+        verify(productBatchRepository, never()).adjustStock(any());
+        verify(checkpointRepository).advance(eq(InventoryCheckpoint.LEDGER_ID), eq(4L), any());
+    }
+
+    @Test
+    void testFlush_DatabaseFailure_RetriesOnNextFlush() {
+        // Arrange
+        inventoryLedgerService.init();
+        inventoryLedgerService.reserve(1L, 3);
+        doThrow(new QueryTimeoutException("timeout")).doReturn(new int[] {1})
+            .when(productBatchRepository).adjustStock(anyMap());
+
+        // Act
+        assertThrows(QueryTimeoutException.class, () -> inventoryLedgerService.flush());
+        inventoryLedgerService.reserve(1L, 1);
+        inventoryLedgerService.flush();
+
+        // Assert
+        verify(productBatchRepository).adjustStock(Map.of(1L, -3));
+        verify(productBatchRepository).adjustStock(Map.of(1L, -4));
+        verify(checkpointRepository).advance(eq(InventoryCheckpoint.LEDGER_ID), eq(2L), any());
+    }
+
+    @Test
+    void testInit_JournalAboveCheckpoint_ReplaysAndWritesBack() {
+        // Arrange: three reservations were journaled, but only the first reached the database
+        try (StockJournal journal = new StockJournal(journalDir, 1L << 20, false)) {
+            journal.open(0, entry -> { });
+            journal.append(1L, -2);
+            journal.append(1L, -3);
+            journal.append(1L, -1);
+        }
+        when(checkpointRepository.findById(InventoryCheckpoint.LEDGER_ID))
+            .thenReturn(Optional.of(new InventoryCheckpoint(InventoryCheckpoint.LEDGER_ID, 1L)));
+        when(productRepository.findStockQuantityById(1L)).thenReturn(Optional.of(8));
+
+        // Act
+        inventoryLedgerService.init();
+
+        // Assert
+        verify(productBatchRepository).adjustStock(Map.of(1L, -4));
+        verify(checkpointRepository).advance(eq(InventoryCheckpoint.LEDGER_ID), eq(3L), any());
+        // 8 stored - 4 replayed leaves 4 available
+        inventoryLedgerService.reserve(1L, 4);
+        assertThrows(IllegalStateException.class, () -> inventoryLedgerService.reserve(1L, 1));
+    }
+
+    @Test
+    void testOnProductChanged_ExternalStockChange_ResyncsOnFlush() {
+        // Arrange
+        inventoryLedgerService.init();
+        inventoryLedgerService.reserve(1L, 10);
+        inventoryLedgerService.flush();
+        when(productRepository.findStockQuantityById(1L)).thenReturn(Optional.of(5));
+
+        // Act: an order cancellation restored five units in the database
+        inventoryLedgerService.onProductChanged(
+            new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+        inventoryLedgerService.flush();
+
+        // Assert
+        inventoryLedgerService.reserve(1L, 5);
+        assertThrows(IllegalStateException.class, () -> inventoryLedgerService.reserve(1L, 1));
+    }
+}
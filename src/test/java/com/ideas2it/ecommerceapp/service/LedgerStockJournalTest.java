@@ -0,0 +1,82 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.model.User;
+import com.ideas2it.ecommerceapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Orders placed in LEDGER mode, where both the stock and the movement journal are
+ * written behind, still leave the journal in step with the stock.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "app.inventory.stock-update-mode=LEDGER",
+    "app.order.reaper.enabled=false"
+})
+class LedgerStockJournalTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockMovementService stockMovementService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("inventory-journal");
+        registry.add("app.inventory.ledger.journal-dir", directory::toString);
+    }
+
+    @Test
+    void testPlaceOrder_LedgerMode_JournalsSaleAndReconciles() {
+        // Arrange
+        LocalDateTime start = LocalDateTime.now().minusSeconds(1);
+        User user = new User();
+        user.setUsername("ledger-buyer");
+        user.setPassword("secret1");
+        user.setEmail("ledger-buyer@example.com");
+        user = userRepository.save(user);
+        Product product = productService.createProduct(new Product(null, "Ledger Product", 9.99, 10));
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(3);
+
+        // Act
+        Order order = orderService.placeOrder(user.getId(), Set.of(item));
+        List<?> drifts = stockMovementService.reconcile();
+
+        // Assert
+        assertNotNull(order.getId());
+        assertTrue(drifts.isEmpty(), "Drifted products: " + drifts);
+        List<StockMovement> movements = stockMovementService
+            .getMovements(product.getId(), start, LocalDateTime.now().plusSeconds(1), PageRequest.of(0, 10))
+            .getContent();
+        assertTrue(movements.stream().anyMatch(movement ->
+            movement.getType() == StockMovement.MovementType.SALE && movement.getQuantity() == -3));
+        assertEquals(7, stockMovementService.getStockAt(product.getId(), LocalDateTime.now().plusSeconds(1)));
+    }
+}
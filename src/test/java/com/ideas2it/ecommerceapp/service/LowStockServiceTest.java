@@ -0,0 +1,138 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.notification.observer.LowStockEvent;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.impl.LowStockServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LowStockServiceTest {
+
+    @InjectMocks
+    private LowStockServiceImpl lowStockService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private Product lowProduct;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(lowStockService, "thresholds", new int[]{10, 5});
+        lowStockService.init();
+
+        lowProduct = product(1L, 3, 0L);
+        when(productRepository.findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc(10))
+            .thenReturn(List.of(lowProduct, product(2L, 7, 0L)));
+        lowStockService.rebuild();
+        clearInvocations(productRepository);
+    }
+
+    @Test
+    void testGetLowStockProducts_ServedFromMemoryInStockOrder() {
+        // Act
+        List<Product> belowTen = lowStockService.getLowStockProducts(10);
+        List<Product> belowFive = lowStockService.getLowStockProducts(5);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), belowTen.stream().map(Product::getId).toList());
+        assertEquals(List.of(1L), belowFive.stream().map(Product::getId).toList());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetLowStockProducts_ThresholdAboveTracked_QueriesDatabase() {
+        // Arrange
+        when(productRepository.findByActiveTrueAndStockQuantityLessThanOrderByStockQuantityAscIdAsc(50))
+            .thenReturn(List.of(lowProduct));
+
+        // Act
+        List<Product> result = lowStockService.getLowStockProducts(50);
+
+        // Assert
+        assertEquals(List.of(lowProduct), result);
+    }
+
+    @Test
+    void testOnProductChanged_StockDrops_PublishesBelowCrossings() {
+        // Arrange
+        when(productRepository.findAllById(Set.of(2L))).thenReturn(List.of(product(2L, 4, 1L)));
+
+        // Act
+        lowStockService.onProductChanged(new ProductChangedEvent(2L, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+
+        // Assert
+        ArgumentCaptor<LowStockEvent> captor = ArgumentCaptor.forClass(LowStockEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(5, captor.getValue().getThreshold());
+        assertEquals(LowStockEvent.Crossing.BELOW, captor.getValue().getCrossing());
+        assertEquals(List.of(1L, 2L), lowStockService.getLowStockProducts(5).stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void testOnProductChanged_Restocked_ClearsEveryThreshold() {
+        // Arrange
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(product(1L, 40, 1L)));
+
+        // Act
+        lowStockService.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+
+        // Assert
+        ArgumentCaptor<LowStockEvent> captor = ArgumentCaptor.forClass(LowStockEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertTrue(captor.getAllValues().stream().allMatch(event -> event.getCrossing() == LowStockEvent.Crossing.CLEARED));
+        assertTrue(lowStockService.getLowStockProducts(10).stream().noneMatch(product -> product.getId() == 1L));
+    }
+
+    @Test
+    void testOnProductChanged_Deactivated_RemovedFromList() {
+        // Arrange
+        Product inactive = product(1L, 3, 1L);
+        inactive.setActive(false);
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(inactive));
+
+        // Act
+        lowStockService.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.DELETED));
+
+        // Assert
+        assertEquals(List.of(2L), lowStockService.getLowStockProducts(10).stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void testOnProductChanged_StaleVersion_Ignored() {
+        // Arrange
+        when(productRepository.findAllById(Set.of(2L))).thenReturn(List.of(product(2L, 4, 2L)));
+        lowStockService.onProductChanged(new ProductChangedEvent(2L, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+        when(productRepository.findAllById(Set.of(2L))).thenReturn(List.of(product(2L, 8, 1L)));
+
+        // Act
+        lowStockService.onProductChanged(new ProductChangedEvent(2L, ProductChangedEvent.ChangeType.STOCK_CHANGED));
+
+        // Assert
+        assertEquals(4, lowStockService.getLowStockProducts(5).get(1).getStockQuantity());
+    }
+
+    private static Product product(Long id, int stock, Long version) {
+        Product product = new Product(id, "Product " + id, 9.99, stock);
+        product.setVersion(version);
+        return product;
+    }
+}
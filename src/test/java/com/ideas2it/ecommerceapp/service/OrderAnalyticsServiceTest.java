@@ -0,0 +1,237 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.analytics.OrderRollups;
+import com.ideas2it.ecommerceapp.dto.OrderStats;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderRollup;
+import com.ideas2it.ecommerceapp.repository.OrderRollupRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderAnalyticsServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderAnalyticsServiceTest {
+
+    @InjectMocks
+    private OrderAnalyticsServiceImpl analyticsService;
+
+    @Mock
+    private OrderRollupRepository rollupRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Captor
+    private ArgumentCaptor<List<OrderRollups.Span>> spansCaptor;
+
+    @Captor
+    private ArgumentCaptor<Map<OrderRollups.Bucket, long[]>> deltasCaptor;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(analyticsService, "flushIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(analyticsService, "minuteRetentionMs", 172800000L);
+        ReflectionTestUtils.setField(analyticsService, "hourRetentionMs", 7776000000L);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(rollupRepository.applyDeltas(anyMap())).thenAnswer(invocation -> invocation.<Map<?, ?>>getArgument(0).size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+        analyticsService.shutdown();
+    }
+
+    @Test
+    void testInit_NoRollupsYet_BuildsThemFromOrdersAndWritesThem() {
+        // Arrange
+        when(rollupRepository.isEmpty()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Consumer<OrderRollup>>getArgument(0).accept(minuteRow(now.minusMinutes(3), Order.OrderStatus.PENDING, 4, "40.00"));
+            return null;
+        }).when(rollupRepository).sumOrdersByMinute(any());
+
+        // Act
+        analyticsService.init();
+
+        // Assert
+        verify(rollupRepository).claimBuild();
+        verify(rollupRepository).applyDeltas(deltasCaptor.capture());
+        assertEquals(3, deltasCaptor.getValue().size());
+        assertEquals(0, analyticsService.flush());
+    }
+
+    @Test
+    void testInit_AnotherInstanceClaimedBuild_LeavesRollupsAlone() {
+        // Arrange
+        when(rollupRepository.isEmpty()).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("uk_order_rollups_bucket")).when(rollupRepository).claimBuild();
+
+        // Act
+        analyticsService.init();
+
+        // Assert
+        verify(rollupRepository, never()).sumOrdersByMinute(any());
+        verify(rollupRepository, never()).applyDeltas(anyMap());
+        assertEquals(0, analyticsService.flush());
+    }
+
+    @Test
+    void testInit_RollupsExist_SkipsBuild() {
+        // Arrange
+        when(rollupRepository.isEmpty()).thenReturn(false);
+
+        // Act
+        analyticsService.init();
+
+        // Assert
+        verify(rollupRepository, never()).claimBuild();
+        verify(rollupRepository, never()).sumOrdersByMinute(any());
+        assertEquals(0, analyticsService.flush());
+    }
+
+    @Test
+    void testCountOrders_AddsUnwrittenChangesToTable() {
+        // Arrange
+        analyticsService.init();
+        doAnswer(invocation -> {
+            invocation.<Consumer<OrderRollup>>getArgument(1).accept(row(null, null, Order.OrderStatus.DELIVERED, 9, "90.00"));
+            return null;
+        }).when(rollupRepository).sumSpans(anyList(), any());
+        analyticsService.recordPlaced(order(now.minusMinutes(1), Order.OrderStatus.DELIVERED, "10.00"));
+
+        // Act
+        OrderStats stats = analyticsService.getStats(now.minusYears(1), now.plusMinutes(1));
+
+        // Assert
+        assertEquals(10L, stats.orders().get(Order.OrderStatus.DELIVERED));
+        assertEquals(new BigDecimal("100.00"), stats.revenue().get(Order.OrderStatus.DELIVERED));
+    }
+
+    @Test
+    void testCountOrders_ReadsSpansCoveringRange() {
+        // Arrange
+        analyticsService.init();
+        LocalDateTime start = now.minusDays(3).withHour(10).withMinute(15);
+        LocalDateTime end = now.minusDays(1).withHour(10).withMinute(15);
+
+        // Act
+        analyticsService.countOrders(null, start, end);
+
+        // Assert: the start is past the minute retention and widens to its hour; the end stays exact
+        verify(rollupRepository).sumSpans(spansCaptor.capture(), any());
+        List<OrderRollups.Span> spans = spansCaptor.getValue();
+        assertEquals(List.of(OrderRollups.Granularity.MINUTE, OrderRollups.Granularity.HOUR,
+                OrderRollups.Granularity.DAY, OrderRollups.Granularity.HOUR),
+            spans.stream().map(OrderRollups.Span::granularity).toList());
+        assertEquals(end, spans.get(0).end());
+        assertEquals(start.withMinute(0), spans.get(1).start());
+    }
+
+    @Test
+    void testRecordPlaced_InsideTransaction_CountsOnlyAfterCommit() {
+        // Arrange
+        analyticsService.init();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        analyticsService.recordPlaced(order(now.minusMinutes(1), Order.OrderStatus.PENDING, "12.50"));
+        long beforeCommit = analyticsService.countOrders(null, now.minusHours(1), null);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertEquals(0, beforeCommit);
+        assertEquals(1, analyticsService.countOrders(Order.OrderStatus.PENDING, now.minusHours(1), null));
+    }
+
+    @Test
+    void testRecordStatusChange_MovesOrderAndRevenue() {
+        // Arrange
+        analyticsService.init();
+        Order order = order(now.minusMinutes(10), Order.OrderStatus.PENDING, "12.50");
+        analyticsService.recordPlaced(order);
+
+        // Act
+        analyticsService.recordStatusChange(order, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+        OrderStats stats = analyticsService.getStats(now.minusHours(1), now.plusMinutes(1));
+
+        // Assert
+        assertEquals(1, stats.totalOrders());
+        assertEquals(0L, stats.orders().get(Order.OrderStatus.PENDING));
+        assertEquals(1L, stats.orders().get(Order.OrderStatus.CANCELLED));
+        assertEquals(new BigDecimal("12.50"), stats.revenue().get(Order.OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void testFlush_WriteFails_KeepsChangesForNextFlush() {
+        // Arrange
+        analyticsService.init();
+        analyticsService.recordPlaced(order(now, Order.OrderStatus.PENDING, "5.00"));
+        when(rollupRepository.applyDeltas(anyMap()))
+            .thenThrow(new RuntimeException("database unavailable"))
+            .thenAnswer(invocation -> invocation.<Map<?, ?>>getArgument(0).size());
+
+        // Act
+        assertThrows(RuntimeException.class, () -> analyticsService.flush());
+        int written = analyticsService.flush();
+
+        // Assert
+        assertEquals(3, written);
+        assertEquals(0, analyticsService.flush());
+    }
+
+    private static Order order(LocalDateTime orderDate, Order.OrderStatus status, String total) {
+        Order order = new Order();
+        order.setOrderDate(orderDate);
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal(total));
+        return order;
+    }
+
+    private static OrderRollup minuteRow(LocalDateTime start, Order.OrderStatus status, long count, String revenue) {
+        return row(OrderRollups.Granularity.MINUTE, start, status, count, revenue);
+    }
+
+    private static OrderRollup dayRow(LocalDateTime start, Order.OrderStatus status, long count, String revenue) {
+        return row(OrderRollups.Granularity.DAY, start.truncatedTo(ChronoUnit.DAYS), status, count, revenue);
+    }
+
+    private static OrderRollup row(OrderRollups.Granularity granularity, LocalDateTime start, Order.OrderStatus status,
+                                   long count, String revenue) {
+        OrderRollup row = new OrderRollup();
+        row.setGranularity(granularity);
+        row.setBucketStart(start);
+        row.setStatus(status);
+        row.setOrderCount(count);
+        row.setRevenue(new BigDecimal(revenue));
+        return row;
+    }
+}
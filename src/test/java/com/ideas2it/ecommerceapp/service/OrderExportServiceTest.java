@@ -0,0 +1,101 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderItemDto;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.OrderExportRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderExportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderExportServiceTest {
+
+    @InjectMocks
+    private OrderExportServiceImpl orderExportService;
+
+    @Mock
+    private OrderExportRepository orderExportRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private OrderDto shippedOrder;
+    private OrderDto emptyOrder;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(orderExportService, "fetchSize", 100);
+
+        LocalDateTime orderDate = LocalDateTime.of(2024, 3, 1, 10, 30);
+        Set<OrderItemDto> items = new LinkedHashSet<>();
+        items.add(new OrderItemDto(10L, 5L, 2, BigDecimal.valueOf(5), BigDecimal.TEN, "Cable, \"USB-C\""));
+        items.add(new OrderItemDto(11L, 6L, 1, BigDecimal.ONE, BigDecimal.ONE, "Mouse"));
+        shippedOrder = new OrderDto(1L, 7L, orderDate, Order.OrderStatus.SHIPPED, BigDecimal.valueOf(11),
+            Order.PaymentStatus.COMPLETED, "CARD", "1 Main St").withItems(items);
+        emptyOrder = new OrderDto(2L, 7L, orderDate, Order.OrderStatus.PENDING, BigDecimal.ZERO,
+            Order.PaymentStatus.PENDING, null, null);
+
+        when(orderExportRepository.streamOrders(any(), any(), any(), eq(100), any())).thenAnswer(invocation -> {
+            Consumer<OrderDto> consumer = invocation.getArgument(4);
+            consumer.accept(shippedOrder);
+            consumer.accept(emptyOrder);
+            return 2L;
+        });
+    }
+
+    @Test
+    void testExportOrders_Csv_OneRowPerLineWithEscaping() {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long exported = orderExportService.exportOrders(null, null, null, OrderExportService.Format.CSV, out);
+
+        // Assert
+        assertEquals(2, exported);
+        List<String> rows = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(4, rows.size());
+        assertTrue(rows.get(0).startsWith("order_id,user_id,"));
+        assertEquals("1,7,2024-03-01T10:30,SHIPPED,11,COMPLETED,CARD,1 Main St,10,5,\"Cable, \"\"USB-C\"\"\",2,5,10", rows.get(1));
+        assertTrue(rows.get(2).startsWith("1,7,") && rows.get(2).endsWith(",11,6,Mouse,1,1,1"));
+        assertEquals("2,7,2024-03-01T10:30,PENDING,0,PENDING,,,,,,,,", rows.get(3));
+    }
+
+    @Test
+    void testExportOrders_Ndjson_OneOrderPerLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderExportService.exportOrders(Order.OrderStatus.SHIPPED, null, null, OrderExportService.Format.NDJSON, out);
+
+        // Assert
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals(2, objectMapper.readTree(lines.get(0)).get("items").size());
+        assertEquals("2024-03-01T10:30:00", objectMapper.readTree(lines.get(0)).get("orderDate").asText());
+        verify(orderExportRepository).streamOrders(eq(Order.OrderStatus.SHIPPED), isNull(), isNull(), eq(100), any());
+    }
+}
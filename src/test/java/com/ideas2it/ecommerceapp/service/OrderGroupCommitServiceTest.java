@@ -0,0 +1,262 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.exception.OrderWriterUnavailableException;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.User;
+import com.ideas2it.ecommerceapp.repository.OrderBatchRepository;
+import com.ideas2it.ecommerceapp.repository.UserRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderGroupCommitServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderGroupCommitServiceTest {
+
+    @InjectMocks
+    private OrderGroupCommitServiceImpl groupCommitService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private StockHoldService stockHoldService;
+
+    @Mock
+    private OrderBatchRepository orderBatchRepository;
+
+    @Mock
+    private OrderAnalyticsService orderAnalyticsService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Captor
+    private ArgumentCaptor<Map<Long, Integer>> quantitiesCaptor;
+
+    private MeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(groupCommitService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(groupCommitService, "enabled", true);
+        ReflectionTestUtils.setField(groupCommitService, "windowMs", 200L);
+        ReflectionTestUtils.setField(groupCommitService, "maxBatch", 4);
+        ReflectionTestUtils.setField(groupCommitService, "maxQueued", 100);
+        ReflectionTestUtils.setField(groupCommitService, "waitTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(groupCommitService, "shutdownTimeoutMs", 5000L);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(productService.reserveStock(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Product> products = new HashMap<>();
+            invocation.<Map<Long, Integer>>getArgument(0).keySet().forEach(id -> products.put(id, new Product(id, "P" + id, 2.0, 10)));
+            return products;
+        });
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            invocation.<List<Order>>getArgument(0).forEach(order -> order.setId(ids.incrementAndGet()));
+            return null;
+        }).when(orderBatchRepository).insertOrders(anyList());
+        executor = Executors.newFixedThreadPool(4);
+        groupCommitService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        groupCommitService.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPlaceOrder_ConcurrentCallers_ShareOneCommit() throws Exception {
+        // Arrange
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Order>> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            long productId = i + 1;
+            callers.add(executor.submit(() -> {
+                start.await();
+                return groupCommitService.placeOrder(1L, items(productId, 3));
+            }));
+        }
+
+        // Act
+        start.countDown();
+        Set<Long> orderIds = new HashSet<>();
+        for (Future<Order> caller : callers) {
+            orderIds.add(caller.get().getId());
+        }
+
+        // Assert
+        assertEquals(4, orderIds.size());
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(productService).reserveStock(quantitiesCaptor.capture());
+        assertEquals(Map.of(1L, 3, 2L, 3, 3L, 3, 4L, 3), quantitiesCaptor.getValue());
+        assertEquals(4, meterRegistry.counter("order.group_commit.orders", "outcome", "committed").count());
+        assertEquals(4, meterRegistry.get("order.group_commit.latency").timer().count());
+    }
+
+    @Test
+    void testPlaceOrder_PricesOrderFromReservedProducts() {
+        // Act
+        Order order = groupCommitService.placeOrder(1L, items(7L, 3));
+
+        // Assert
+        assertEquals(0, new BigDecimal("6.0").compareTo(order.getTotalAmount()));
+        assertEquals(Order.OrderStatus.PENDING, order.getStatus());
+        verify(stockHoldService).releaseHold(1L, 7L);
+    }
+
+    @Test
+    void testPlaceOrder_OneOrderLacksStock_OnlyThatOrderFails() throws Exception {
+        // Arrange
+        when(productService.reserveStock(anyMap())).thenAnswer(invocation -> {
+            Map<Long, Integer> quantities = invocation.getArgument(0);
+            if (quantities.containsKey(9L)) {
+                throw new IllegalStateException("Insufficient stock for product: P9");
+            }
+            Map<Long, Product> products = new HashMap<>();
+            quantities.keySet().forEach(id -> products.put(id, new Product(id, "P" + id, 2.0, 10)));
+            return products;
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Order> good = executor.submit(() -> {
+            start.await();
+            return groupCommitService.placeOrder(1L, items(1L, 1));
+        });
+        Future<Order> bad = executor.submit(() -> {
+            start.await();
+            return groupCommitService.placeOrder(1L, items(9L, 1));
+        });
+
+        // Act
+        start.countDown();
+
+        // Assert
+        assertNotNull(good.get().getId());
+        Exception error = assertThrows(Exception.class, bad::get);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(1, meterRegistry.counter("order.group_commit.orders", "outcome", "failed").count());
+    }
+
+    @Test
+    void testPlaceOrder_WriterStalls_CallersGiveUpAndQueuedOrderIsWithdrawn() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(groupCommitService, "waitTimeoutMs", 300L);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stallWriter(stalled, release);
+        Future<?> first = executor.submit(() -> groupCommitService.placeOrder(1L, items(1L, 1)));
+        stalled.await();
+
+        try {
+            // Act & Assert
+            OrderWriterUnavailableException queued = assertThrows(OrderWriterUnavailableException.class,
+                () -> groupCommitService.placeOrder(1L, items(2L, 1)));
+            assertTrue(queued.getMessage().contains("withdrawn"));
+            Exception taken = assertThrows(Exception.class, first::get);
+            assertInstanceOf(OrderWriterUnavailableException.class, taken.getCause());
+        } finally {
+            release.countDown();
+        }
+        groupCommitService.shutdown();
+        verify(productService, times(1)).reserveStock(anyMap());
+    }
+
+    @Test
+    void testShutdown_WriterStalled_RefusesQueuedOrders() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(groupCommitService, "shutdownTimeoutMs", 100L);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stallWriter(stalled, release);
+        executor.submit(() -> groupCommitService.placeOrder(1L, items(1L, 1)));
+        stalled.await();
+        Future<Order> queued = executor.submit(() -> groupCommitService.placeOrder(1L, items(2L, 1)));
+        while (!queued.isDone() && ((Queue<?>) ReflectionTestUtils.getField(groupCommitService, "queue")).isEmpty()) {
+            Thread.onSpinWait();
+        }
+
+        try {
+            // Act
+            groupCommitService.shutdown();
+
+            // Assert
+            Exception refused = assertThrows(Exception.class, () -> queued.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(OrderWriterUnavailableException.class, refused.getCause());
+            assertThrows(OrderWriterUnavailableException.class, () -> groupCommitService.placeOrder(1L, items(3L, 1)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testPlaceOrder_Disabled_Refused() {
+        // Arrange
+        groupCommitService.shutdown();
+        OrderGroupCommitServiceImpl disabled = new OrderGroupCommitServiceImpl();
+        ReflectionTestUtils.setField(disabled, "meterRegistry", meterRegistry);
+        disabled.init();
+
+        // Act & Assert
+        assertFalse(disabled.isEnabled());
+        assertThrows(IllegalStateException.class, () -> disabled.placeOrder(1L, items(1L, 1)));
+    }
+
+    // The writer blocks in its first reservation until released
+    private void stallWriter(CountDownLatch stalled, CountDownLatch release) {
+        when(productService.reserveStock(anyMap())).thenAnswer(invocation -> {
+            stalled.countDown();
+            release.await();
+            return Map.of(1L, new Product(1L, "P1", 2.0, 10));
+        });
+    }
+
+    private Set<OrderItem> items(Long productId, int quantity) {
+        Product product = new Product();
+        product.setId(productId);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        return new HashSet<>(Set.of(item));
+    }
+}
@@ -0,0 +1,244 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.OrderIntakeStatus;
+import com.ideas2it.ecommerceapp.dto.OrderPaymentRequest;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.model.OrderIntake;
+import com.ideas2it.ecommerceapp.model.OrderItem;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.payment.strategy.PaymentDetails;
+import com.ideas2it.ecommerceapp.payment.strategy.PaymentStrategyFactory;
+import com.ideas2it.ecommerceapp.repository.OrderIntakeRepository;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.repository.UserRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderIntakeServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderIntakeServiceTest {
+
+    @InjectMocks
+    private OrderIntakeServiceImpl orderIntakeService;
+
+    @Mock
+    private OrderIntakeRepository intakeRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private PaymentStrategyFactory paymentStrategyFactory;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Captor
+    private ArgumentCaptor<Set<OrderItem>> itemsCaptor;
+
+    private PaymentDetails cardDetails;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(orderIntakeService, "workers", 2);
+        ReflectionTestUtils.setField(orderIntakeService, "batchSize", 10);
+        ReflectionTestUtils.setField(orderIntakeService, "pollIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(orderIntakeService, "maxQueued", 100);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(productRepository.findActiveIds(anyCollection())).thenReturn(List.of(5L));
+        when(intakeRepository.save(any(OrderIntake.class))).thenAnswer(invocation -> {
+            OrderIntake intake = invocation.getArgument(0);
+            intake.setId(7L);
+            return intake;
+        });
+        cardDetails = PaymentDetails.builder().cardNumber("4111111111111111").cvv("123").build();
+        orderIntakeService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderIntakeService.shutdown();
+    }
+
+    @Test
+    void testSubmit_ValidRequest_QueuesIntakeWithoutPaymentDetails() {
+        // Act
+        OrderIntakeStatus status = orderIntakeService.submit(1L, request(5L, 2, 5L, 1));
+
+        // Assert
+        assertEquals(OrderIntake.IntakeStatus.QUEUED, status.status());
+        assertNotNull(status.token());
+        ArgumentCaptor<OrderIntake> captor = ArgumentCaptor.forClass(OrderIntake.class);
+        verify(intakeRepository).save(captor.capture());
+        assertEquals(Map.of(5L, 3), captor.getValue().getQuantities());
+        assertFalse(captor.getValue().toString().contains("4111111111111111"));
+    }
+
+    @Test
+    void testSubmit_UnknownProduct_ThrowsException() {
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> orderIntakeService.submit(1L, request(6L, 1)));
+        verify(intakeRepository, never()).save(any());
+    }
+
+    @Test
+    void testSubmit_InvalidQuantity_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> orderIntakeService.submit(1L, request(5L, 0)));
+    }
+
+    @Test
+    void testSubmit_TooManyWaiting_ThrowsException() {
+        // Arrange
+        ReflectionTestUtils.setField(orderIntakeService, "maxQueued", 1);
+        orderIntakeService.submit(1L, request(5L, 1));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> orderIntakeService.submit(1L, request(5L, 1)));
+    }
+
+    @Test
+    void testDrain_QueuedIntake_PlacesOrderWithRetainedDetails() {
+        // Arrange
+        OrderIntakeStatus status = orderIntakeService.submit(1L, request(5L, 2));
+        OrderIntake intake = queuedIntake(status.token());
+        Order order = new Order();
+        order.setId(42L);
+        when(orderService.placeOrderWithPayment(eq(1L), anySet(), eq("credit_card"), same(cardDetails), eq(status.token())))
+            .thenReturn(order);
+
+        // Act
+        int claimed = orderIntakeService.drain();
+        orderIntakeService.shutdown();
+
+        // Assert
+        assertEquals(1, claimed);
+        verify(intakeRepository).updateStatus(eq(List.of(7L)), eq(OrderIntake.IntakeStatus.QUEUED),
+            eq(OrderIntake.IntakeStatus.PROCESSING), any());
+        verify(orderService).placeOrderWithPayment(eq(1L), itemsCaptor.capture(), eq("credit_card"),
+            same(cardDetails), eq(status.token()));
+        assertEquals(5L, itemsCaptor.getValue().iterator().next().getProduct().getId());
+        verify(intakeRepository).markCompleted(eq(intake.getId()), eq(42L), any());
+    }
+
+    @Test
+    void testDrain_PaymentFails_MarksIntakeFailed() {
+        // Arrange
+        OrderIntakeStatus status = orderIntakeService.submit(1L, request(5L, 2));
+        queuedIntake(status.token());
+        when(orderService.placeOrderWithPayment(anyLong(), anySet(), anyString(), any(), anyString()))
+            .thenThrow(new RuntimeException("Payment failed: card declined"));
+
+        // Act
+        orderIntakeService.drain();
+        orderIntakeService.shutdown();
+
+        // Assert
+        verify(intakeRepository).markFailed(eq(7L), eq("Payment failed: card declined"), any());
+        verify(intakeRepository, never()).markCompleted(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void testDrain_CompletingIntakeFails_NeverMarksPlacedOrderFailed() {
+        // Arrange
+        OrderIntakeStatus status = orderIntakeService.submit(1L, request(5L, 2));
+        queuedIntake(status.token());
+        Order order = new Order();
+        order.setId(42L);
+        when(orderService.placeOrderWithPayment(anyLong(), anySet(), anyString(), any(), anyString())).thenReturn(order);
+        when(intakeRepository.markCompleted(anyLong(), anyLong(), any())).thenThrow(new RuntimeException("Connection reset"));
+
+        // Act
+        orderIntakeService.drain();
+        orderIntakeService.shutdown();
+
+        // Assert
+        verify(intakeRepository).markCompleted(eq(7L), eq(42L), any());
+        verify(intakeRepository, never()).markFailed(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void testDrain_DetailsLost_MarksIntakeFailedWithoutPlacing() {
+        // Arrange
+        queuedIntake("unknown-token");
+
+        // Act
+        orderIntakeService.drain();
+        orderIntakeService.shutdown();
+
+        // Assert
+        verify(intakeRepository).markFailed(eq(7L), contains("no longer available"), any());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testInit_CompletesPlacedIntakesThenFailsTheRest() {
+        // Assert
+        InOrder inOrder = inOrder(intakeRepository);
+        inOrder.verify(intakeRepository).completeByCheckout(any());
+        inOrder.verify(intakeRepository).markFailedByStatus(
+            eq(List.of(OrderIntake.IntakeStatus.QUEUED, OrderIntake.IntakeStatus.PROCESSING)), anyString(), any());
+    }
+
+    private OrderIntake queuedIntake(String token) {
+        OrderIntake intake = new OrderIntake(token, 1L, Map.of(5L, 2), "credit_card");
+        intake.setId(7L);
+        when(intakeRepository.findIdsByStatus(eq(OrderIntake.IntakeStatus.QUEUED), any())).thenReturn(List.of(7L));
+        when(intakeRepository.findAllWithLinesByIdIn(List.of(7L))).thenReturn(List.of(intake));
+        return intake;
+    }
+
+    private OrderPaymentRequest request(Object... productsAndQuantities) {
+        Set<OrderItem> items = new HashSet<>();
+        for (int i = 0; i < productsAndQuantities.length; i += 2) {
+            Product product = new Product();
+            product.setId((Long) productsAndQuantities[i]);
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity((Integer) productsAndQuantities[i + 1]);
+            // Keeps two lines of the same product apart in the set
+            item.setUnitPrice(BigDecimal.valueOf(i));
+            items.add(item);
+        }
+        OrderPaymentRequest request = new OrderPaymentRequest();
+        request.setItems(items);
+        request.setPaymentMethod("credit_card");
+        request.setPaymentDetails(cardDetails);
+        return request;
+    }
+}
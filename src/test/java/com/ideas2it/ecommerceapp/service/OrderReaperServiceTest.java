@@ -0,0 +1,124 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Checkout;
+import com.ideas2it.ecommerceapp.model.Order;
+import com.ideas2it.ecommerceapp.repository.OrderRepository;
+import com.ideas2it.ecommerceapp.service.impl.OrderReaperServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderReaperServiceTest {
+
+    @InjectMocks
+    private OrderReaperServiceImpl reaperService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(reaperService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(reaperService, "enabled", false);
+        ReflectionTestUtils.setField(reaperService, "staleAfterMs", 86400000L);
+        ReflectionTestUtils.setField(reaperService, "batchSize", 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(orderService.cancelOrders(anyCollection())).thenAnswer(invocation ->
+            List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+        when(orderRepository.countStaleOrders(eq(Order.OrderStatus.PENDING), any(), anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[]{0L, null}));
+        reaperService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reaperService.shutdown();
+    }
+
+    @Test
+    void testReap_WalksStaleOrdersInChunksAfterTheLastId() {
+        // Arrange
+        when(orderRepository.findStaleOrders(eq(Order.OrderStatus.PENDING), any(), eq(0L), anyCollection(), any()))
+            .thenReturn(List.of(order(1L), order(2L)));
+        when(orderRepository.findStaleOrders(eq(Order.OrderStatus.PENDING), any(), eq(2L), anyCollection(), any()))
+            .thenReturn(List.of(order(5L)));
+
+        // Act
+        int cancelled = reaperService.reap();
+
+        // Assert
+        assertEquals(3, cancelled);
+        verify(orderService).cancelOrders(List.of(1L, 2L));
+        verify(orderService).cancelOrders(List.of(5L));
+        verify(orderRepository, never()).findStaleOrders(any(), any(), eq(5L), anyCollection(), any());
+        assertEquals(3.0, meterRegistry.get("order.reaper.cancelled").counter().count());
+    }
+
+    @Test
+    void testReap_SkipsOrdersWithActiveCheckouts() {
+        // Arrange
+        when(orderRepository.findStaleOrders(any(), any(), anyLong(), anyCollection(), any())).thenReturn(List.of());
+
+        // Act
+        reaperService.reap();
+
+        // Assert
+        verify(orderRepository).findStaleOrders(eq(Order.OrderStatus.PENDING), any(), eq(0L),
+            eq(List.of(Checkout.CheckoutState.RESERVED, Checkout.CheckoutState.PAYING, Checkout.CheckoutState.IN_DOUBT)),
+            eq(PageRequest.of(0, 2)));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void testReap_OrdersLeft_ReportsBacklogAndLag() {
+        // Arrange: one order locked elsewhere is left, an hour past the stale age
+        when(orderRepository.findStaleOrders(any(), any(), anyLong(), anyCollection(), any())).thenReturn(List.of());
+        LocalDateTime oldest = LocalDateTime.now().minusDays(1).minusHours(1);
+        when(orderRepository.countStaleOrders(eq(Order.OrderStatus.PENDING), any(), anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, oldest}));
+
+        // Act
+        reaperService.reap();
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("order.reaper.backlog").gauge().value());
+        double lag = meterRegistry.get("order.reaper.lag").gauge().value();
+        assertTrue(lag >= 3599 && lag <= 3601, "lag was " + lag);
+        assertEquals(1, meterRegistry.get("order.reaper.run").timer().count());
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(Order.OrderStatus.PENDING);
+        return order;
+    }
+}
@@ -1,5 +1,9 @@
 package com.ideas2it.ecommerceapp.service;
 
+import com.ideas2it.ecommerceapp.dto.OrderDto;
+import com.ideas2it.ecommerceapp.dto.OrderItemDto;
+import com.ideas2it.ecommerceapp.exception.CheckoutFailedException;
+import com.ideas2it.ecommerceapp.model.Checkout;
 import com.ideas2it.ecommerceapp.model.Order;
 import com.ideas2it.ecommerceapp.model.OrderItem;
 import com.ideas2it.ecommerceapp.model.Product;
@@ -9,21 +13,27 @@ import com.ideas2it.ecommerceapp.payment.strategy.PaymentDetails;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentProcessingException;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentStrategy;
 import com.ideas2it.ecommerceapp.payment.strategy.PaymentStrategyFactory;
+import com.ideas2it.ecommerceapp.repository.CheckoutRepository;
 import com.ideas2it.ecommerceapp.repository.OrderRepository;
 import com.ideas2it.ecommerceapp.repository.UserRepository;
 import com.ideas2it.ecommerceapp.service.impl.OrderServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,9 +51,6 @@ class OrderServiceTest {
     @Mock
     private ProductService productService;
 
-    @Mock
-    private List<NotificationObserver> notificationObservers;
-
     @Mock
     private PaymentStrategyFactory paymentStrategyFactory;
 
@@ -53,6 +60,21 @@ class OrderServiceTest {
     @Mock
     private NotificationObserver notificationObserver;
 
+    @Mock
+    private StockHoldService stockHoldService;
+
+    @Mock
+    private CheckoutRepository checkoutRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private OrderGroupCommitService orderGroupCommitService;
+
+    @Mock
+    private OrderAnalyticsService orderAnalyticsService;
+
     private User testUser;
     private Product testProduct;
     private Order testOrder;
@@ -64,7 +86,7 @@ class OrderServiceTest {
         MockitoAnnotations.openMocks(this);
 
         // Initialize the list of notification observers
-        when(notificationObservers.get(0)).thenReturn(notificationObserver);
+        List<NotificationObserver> notificationObservers = List.of(notificationObserver);
 
         // Create OrderService with constructor injection
         orderService = new OrderServiceImpl(
@@ -72,8 +94,28 @@ class OrderServiceTest {
             userRepository,
             productService,
             notificationObservers,
-            paymentStrategyFactory
+            paymentStrategyFactory,
+            stockHoldService,
+            checkoutRepository,
+            transactionTemplate,
+            orderGroupCommitService,
+            orderAnalyticsService
         );
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(checkoutRepository.save(any(Checkout.class))).thenAnswer(invocation -> {
+            Checkout checkout = invocation.getArgument(0);
+            checkout.setId(9L);
+            return checkout;
+        });
+        when(checkoutRepository.transition(eq(9L), eq(List.of(Checkout.CheckoutState.RESERVED)),
+            eq(Checkout.CheckoutState.PAYING), any())).thenReturn(1);
+        when(checkoutRepository.markConfirmed(eq(9L), anyList(), anyString(), any())).thenReturn(1);
+        when(orderRepository.updatePayment(anyLong(), any(), any())).thenReturn(1);
 
         // Create test user
         testUser = new User();
@@ -115,20 +157,20 @@ class OrderServiceTest {
     void testGetAllOrders_ReturnsAllOrders() {
         // Arrange
         List<Order> orders = Arrays.asList(testOrder, new Order());
-        when(orderRepository.findAll()).thenReturn(orders);
+        when(orderRepository.findAllWithDetails()).thenReturn(orders);
 
         // Act
         List<Order> result = orderService.getAllOrders();
 
         // Assert
         assertEquals(2, result.size());
-        verify(orderRepository).findAll();
+        verify(orderRepository).findAllWithDetails();
     }
 
     @Test
     void testGetOrderById_ExistingOrder_ReturnsOrder() {
         // Arrange
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testOrder));
 
         // Act
         Order result = orderService.getOrderById(1L);
@@ -136,19 +178,19 @@ class OrderServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(1L, result.getId());
-        verify(orderRepository).findById(1L);
+        verify(orderRepository).findWithDetailsById(1L);
     }
 
     @Test
     void testGetOrderById_NonExistingOrder_ThrowsException() {
         // Arrange
-        when(orderRepository.findById(99L)).thenReturn(Optional.empty());
+        when(orderRepository.findWithDetailsById(99L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(NoSuchElementException.class, () -> {
             orderService.getOrderById(99L);
         });
-        verify(orderRepository).findById(99L);
+        verify(orderRepository).findWithDetailsById(99L);
     }
 
     @Test
@@ -156,7 +198,7 @@ class OrderServiceTest {
         // Arrange
         List<Order> userOrders = Arrays.asList(testOrder);
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(orderRepository.findByUser(testUser)).thenReturn(userOrders);
+        when(orderRepository.findWithDetailsByUser(testUser)).thenReturn(userOrders);
 
         // Act
         List<Order> result = orderService.getOrdersByUser(1L);
@@ -164,33 +206,50 @@ class OrderServiceTest {
         // Assert
         assertEquals(1, result.size());
         verify(userRepository).findById(1L);
-        verify(orderRepository).findByUser(testUser);
+        verify(orderRepository).findWithDetailsByUser(testUser);
     }
 
     @Test
     void testGetOrdersByUserPaginated_ReturnsPaginatedUserOrders() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        List<Order> userOrders = Arrays.asList(testOrder);
-        Page<Order> orderPage = new PageImpl<>(userOrders, pageable, 1);
+        Order secondOrder = new Order();
+        secondOrder.setId(2L);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(orderRepository.findByUser(testUser, pageable)).thenReturn(orderPage);
+        when(orderRepository.findIdsByUser(testUser, pageable)).thenReturn(new PageImpl<>(List.of(2L, 1L), pageable, 12));
+        when(orderRepository.findWithDetailsByIdIn(List.of(2L, 1L))).thenReturn(List.of(testOrder, secondOrder));
 
         // Act
         Page<Order> result = orderService.getOrdersByUserPaginated(1L, pageable);
 
         // Assert
-        assertEquals(1, result.getTotalElements());
+        assertEquals(12, result.getTotalElements());
+        assertEquals(List.of(secondOrder, testOrder), result.getContent());
         verify(userRepository).findById(1L);
-        verify(orderRepository).findByUser(testUser, pageable);
+    }
+
+    @Test
+    void testGetOrdersByUserPaginated_PageBeyondLast_SkipsDetailsQuery() {
+        // Arrange
+        Pageable pageable = PageRequest.of(5, 10);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(orderRepository.findIdsByUser(testUser, pageable)).thenReturn(new PageImpl<>(List.of(), pageable, 12));
+
+        // Act
+        Page<Order> result = orderService.getOrdersByUserPaginated(1L, pageable);
+
+        // Assert
+        assertTrue(result.getContent().isEmpty());
+        assertEquals(12, result.getTotalElements());
+        verify(orderRepository, never()).findWithDetailsByIdIn(any());
     }
 
     @Test
     void testPlaceOrder_CreatesAndReturnsOrder() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(productService.getProductById(1L)).thenReturn(testProduct);
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
             Order savedOrder = invocation.getArgument(0);
             savedOrder.setId(1L);
@@ -205,8 +264,64 @@ class OrderServiceTest {
         assertEquals(Order.OrderStatus.PENDING, result.getStatus());
         assertEquals(Order.PaymentStatus.PENDING, result.getPaymentStatus());
         assertEquals(testUser, result.getUser());
-        verify(productService).updateProductStock(1L, 2);
+        verify(stockHoldService).checkAvailable(Map.of(1L, 2), Set.of(1L));
+        verify(productService).reserveStock(Map.of(1L, 2));
+        verify(productService, never()).updateProductStock(any(), anyInt());
+        verify(stockHoldService).releaseHold(1L, 1L);
         verify(orderRepository).save(any(Order.class));
+        verify(orderAnalyticsService).recordPlaced(result);
+    }
+
+    @Test
+    void testPlaceOrder_StockHeldByOtherCarts_ThrowsWithoutReserving() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        doThrow(new IllegalStateException("Insufficient stock for product: Test Product"))
+            .when(stockHoldService).checkAvailable(Map.of(1L, 2), Set.of(1L));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> orderService.placeOrder(1L, orderItems));
+        verify(productService, never()).reserveStock(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void testPlaceOrder_MultipleLines_ReservesAllInOneCall() {
+        // Arrange
+        Product secondProduct = new Product(2L, "Second Product", 5.0, 50);
+        OrderItem secondLine = new OrderItem();
+        secondLine.setProduct(secondProduct);
+        secondLine.setQuantity(3);
+        OrderItem repeatedLine = new OrderItem();
+        repeatedLine.setProduct(testProduct);
+        repeatedLine.setQuantity(1);
+        Set<OrderItem> lines = new HashSet<>(Set.of(testOrderItem, secondLine, repeatedLine));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(productService.reserveStock(Map.of(1L, 3, 2L, 3)))
+            .thenReturn(Map.of(1L, testProduct, 2L, secondProduct));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Order result = orderService.placeOrder(1L, lines);
+
+        // Assert
+        verify(productService).reserveStock(Map.of(1L, 3, 2L, 3));
+        verifyNoMoreInteractions(productService);
+        assertEquals(0, new BigDecimal("45.0").compareTo(result.getTotalAmount()));
+    }
+
+    @Test
+    void testPlaceOrder_GroupCommitEnabled_HandsOrderToWriter() {
+        // Arrange
+        when(orderGroupCommitService.isEnabled()).thenReturn(true);
+        when(orderGroupCommitService.placeOrder(1L, orderItems)).thenReturn(testOrder);
+
+        // Act
+        Order result = orderService.placeOrder(1L, orderItems);
+
+        // Assert
+        assertSame(testOrder, result);
+        verifyNoInteractions(productService, orderRepository, transactionTemplate);
     }
 
     @Test
@@ -219,7 +334,7 @@ class OrderServiceTest {
             .build();
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(productService.getProductById(1L)).thenReturn(testProduct);
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
         when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
         when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class))).thenReturn("TX123456");
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
@@ -237,11 +352,11 @@ class OrderServiceTest {
         assertEquals(Order.PaymentStatus.COMPLETED, result.getPaymentStatus());
         verify(paymentStrategy).processPayment(any(BigDecimal.class), eq(paymentDetails));
         verify(orderRepository).save(any(Order.class));
-        verify(notificationObservers.get(0)).notify(result, "Order placed and payment completed.");
+        verify(notificationObserver).notify(result, "Order placed and payment completed.");
     }
 
     @Test
-    void testPlaceOrderWithPayment_FailedPayment_ThrowsException() throws PaymentProcessingException {
+    void testPlaceOrderWithPayment_FailedPayment_CancelsOrderAndReturnsStock() throws PaymentProcessingException {
         // Arrange
         PaymentDetails paymentDetails = PaymentDetails.builder()
             .cardNumber("4111111111111111")
@@ -250,50 +365,251 @@ class OrderServiceTest {
             .build();
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(productService.getProductById(1L)).thenReturn(testProduct);
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
         when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
         when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class)))
             .thenThrow(new PaymentProcessingException("Payment declined"));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setId(1L);
+            return savedOrder;
+        });
+        when(checkoutRepository.markCompensated(eq(9L), eq(List.of(Checkout.CheckoutState.PAYING)), eq("Payment declined"), any()))
+            .thenReturn(1);
+        when(orderRepository.findAllByIdAndStatusNotForUpdate(List.of(1L), Order.OrderStatus.CANCELLED))
+            .thenReturn(List.of(testOrder));
+        when(orderRepository.sumQuantitiesByProduct(List.of(1L)))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
 
         // Act & Assert
-        assertThrows(RuntimeException.class, () -> {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> {
             orderService.placeOrderWithPayment(1L, orderItems, "CREDIT_CARD", paymentDetails);
         });
+        assertEquals("Payment failed: Payment declined", error.getMessage());
+        verify(productService).restockProducts(Map.of(1L, 2));
+        assertEquals(Order.OrderStatus.CANCELLED, testOrder.getStatus());
+        assertEquals(Order.PaymentStatus.FAILED, testOrder.getPaymentStatus());
+        verify(orderRepository, never()).updatePayment(anyLong(), any(), any());
+    }
+
+    @Test
+    void testPlaceOrderWithPayment_GatewayCalledAfterReservationCommits() throws PaymentProcessingException {
+        // Arrange
+        PaymentDetails paymentDetails = PaymentDetails.builder().cardNumber("4111111111111111").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
+        when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
+        when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class))).thenReturn("TX123456");
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setId(1L);
+            return savedOrder;
+        });
+
+        // Act
+        Order result = orderService.placeOrderWithPayment(1L, orderItems, "CREDIT_CARD", paymentDetails);
+
+        // Assert
+        InOrder steps = inOrder(productService, checkoutRepository, paymentStrategy, orderRepository);
+        steps.verify(productService).reserveStock(Map.of(1L, 2));
+        steps.verify(checkoutRepository).save(any(Checkout.class));
+        steps.verify(checkoutRepository).transition(eq(9L), eq(List.of(Checkout.CheckoutState.RESERVED)),
+            eq(Checkout.CheckoutState.PAYING), any());
+        steps.verify(paymentStrategy).processPayment(any(BigDecimal.class), eq(paymentDetails));
+        steps.verify(checkoutRepository).markConfirmed(eq(9L), anyList(), eq("TX123456"), any());
+        steps.verify(orderRepository).updatePayment(1L, Order.PaymentStatus.COMPLETED, Order.OrderStatus.PROCESSING);
+        assertEquals(Order.PaymentStatus.COMPLETED, result.getPaymentStatus());
+        assertEquals("CREDIT_CARD", result.getPaymentMethod());
+    }
+
+    @Test
+    void testPlaceOrderWithPayment_FailedPaymentCheckoutMovedOn_LeavesOrderAsStored() throws PaymentProcessingException {
+        // Arrange
+        PaymentDetails paymentDetails = PaymentDetails.builder().cardNumber("4111111111111111").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
+        when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
+        when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class)))
+            .thenThrow(new PaymentProcessingException("Payment declined"));
+        List<Order> saved = new ArrayList<>();
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setId(1L);
+            saved.add(savedOrder);
+            return savedOrder;
+        });
+
+        // Act
+        assertThrows(RuntimeException.class, () ->
+            orderService.placeOrderWithPayment(1L, orderItems, "CREDIT_CARD", paymentDetails));
+
+        // Assert: the checkout was settled elsewhere, so the order is not reported as cancelled
+        assertEquals(Order.OrderStatus.PENDING, saved.get(0).getStatus());
+        assertEquals(Order.PaymentStatus.PENDING, saved.get(0).getPaymentStatus());
+        verify(productService, never()).restockProducts(any());
+    }
+
+    @Test
+    void testPlaceOrderWithPayment_CheckoutSettledDuringPayment_RefundsWithoutConfirming() throws PaymentProcessingException {
+        // Arrange
+        PaymentDetails paymentDetails = PaymentDetails.builder().cardNumber("4111111111111111").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
+        when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
+        when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class))).thenReturn("TX123456");
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setId(1L);
+            return savedOrder;
+        });
+        when(checkoutRepository.markConfirmed(eq(9L), anyList(), anyString(), any())).thenReturn(0);
+
+        // Act & Assert
+        CheckoutFailedException error = assertThrows(CheckoutFailedException.class, () ->
+            orderService.placeOrderWithPayment(1L, orderItems, "CREDIT_CARD", paymentDetails));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        verify(paymentStrategy).refundPayment(eq("TX123456"), any(BigDecimal.class), eq(paymentDetails));
+        verify(orderRepository, never()).updatePayment(anyLong(), any(), any());
+        verify(orderAnalyticsService, never()).recordStatusChange(any(), any(), eq(Order.OrderStatus.PROCESSING));
+    }
+
+    @Test
+    void testPlaceOrderWithPayment_OrderCancelledDuringPayment_RefundsWithoutConfirming() throws PaymentProcessingException {
+        // Arrange
+        PaymentDetails paymentDetails = PaymentDetails.builder().cardNumber("4111111111111111").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
+        when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
+        when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class))).thenReturn("TX123456");
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setId(1L);
+            return savedOrder;
+        });
+        when(orderRepository.updatePayment(anyLong(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        CheckoutFailedException error = assertThrows(CheckoutFailedException.class, () ->
+            orderService.placeOrderWithPayment(1L, orderItems, "CREDIT_CARD", paymentDetails));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        verify(paymentStrategy).refundPayment(eq("TX123456"), any(BigDecimal.class), eq(paymentDetails));
+        verify(orderAnalyticsService, never()).recordStatusChange(any(), any(), eq(Order.OrderStatus.PROCESSING));
+        verify(notificationObserver, never()).notify(any(), anyString());
+    }
+
+    @Test
+    void testPlaceOrderWithPayment_GatewayError_LeavesCheckoutInDoubtWithStockReserved() throws PaymentProcessingException {
+        // Arrange
+        PaymentDetails paymentDetails = PaymentDetails.builder().cardNumber("4111111111111111").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(productService.reserveStock(Map.of(1L, 2))).thenReturn(Map.of(1L, testProduct));
+        when(paymentStrategyFactory.getStrategy("CREDIT_CARD")).thenReturn(paymentStrategy);
+        when(paymentStrategy.processPayment(any(BigDecimal.class), any(PaymentDetails.class)))
+            .thenThrow(new IllegalStateException("Read timed out"));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act & Assert
+        assertThrows(CheckoutFailedException.class, () ->
+            orderService.placeOrderWithPayment(1L, orderItems, "CREDIT_CARD", paymentDetails));
+        verify(checkoutRepository).transition(eq(9L), eq(List.of(Checkout.CheckoutState.PAYING)),
+            eq(Checkout.CheckoutState.IN_DOUBT), any());
+        verify(productService, never()).restockProducts(any());
+        verify(checkoutRepository, never()).markCompensated(anyLong(), anyList(), anyString(), any());
     }
 
     @Test
     void testUpdateOrderStatus_UpdatesStatus() {
         // Arrange
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
 
+        Order.OrderStatus previous = testOrder.getStatus();
+
         // Act
         Order result = orderService.updateOrderStatus(1L, Order.OrderStatus.SHIPPED);
 
         // Assert
         assertEquals(Order.OrderStatus.SHIPPED, result.getStatus());
         verify(orderRepository).save(testOrder);
+        verify(orderAnalyticsService).recordStatusChange(testOrder, previous, Order.OrderStatus.SHIPPED);
     }
 
     @Test
     void testUpdateOrderStatus_CancelledOrder_RestoresInventory() {
         // Arrange
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
-        when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+        when(orderRepository.findAllByIdAndStatusNotForUpdate(List.of(1L), Order.OrderStatus.CANCELLED))
+            .thenReturn(List.of(testOrder));
+        when(orderRepository.sumQuantitiesByProduct(List.of(1L)))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+        Order.OrderStatus previous = testOrder.getStatus();
 
         // Act
         Order result = orderService.updateOrderStatus(1L, Order.OrderStatus.CANCELLED);
 
         // Assert
         assertEquals(Order.OrderStatus.CANCELLED, result.getStatus());
-        assertEquals(102, testProduct.getStockQuantity()); // Original 100 + returned 2
-        verify(orderRepository).save(testOrder);
+        verify(productService).restockProducts(Map.of(1L, 2));
+        verify(orderAnalyticsService).recordStatusChange(testOrder, previous, Order.OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void testUpdateOrderStatus_AlreadyCancelledOrder_DoesNotRestockAgain() {
+        // Arrange
+        testOrder.setStatus(Order.OrderStatus.CANCELLED);
+        when(orderRepository.findAllByIdAndStatusNotForUpdate(List.of(1L), Order.OrderStatus.CANCELLED))
+            .thenReturn(List.of());
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testOrder));
+
+        // Act
+        Order result = orderService.updateOrderStatus(1L, Order.OrderStatus.CANCELLED);
+
+        // Assert
+        assertSame(testOrder, result);
+        verify(productService, never()).restockProducts(any());
+    }
+
+    @Test
+    void testUpdateOrderStatus_CheckoutInProgress_RefusesToCancel() {
+        // Arrange
+        when(orderRepository.findAllByIdAndStatusNotForUpdate(List.of(1L), Order.OrderStatus.CANCELLED))
+            .thenReturn(List.of(testOrder));
+        when(checkoutRepository.findOrderIdsByState(List.of(1L), Checkout.UNSETTLED_STATES)).thenReturn(List.of(1L));
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testOrder));
+        Order.OrderStatus previous = testOrder.getStatus();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus(1L, Order.OrderStatus.CANCELLED));
+        assertEquals(previous, testOrder.getStatus());
+        verify(productService, never()).restockProducts(any());
+        verifyNoInteractions(orderAnalyticsService);
+    }
+
+    @Test
+    void testCancelOrders_SomeAlreadyCancelled_RestocksOthersInOneBatch() {
+        // Arrange
+        Order secondOrder = new Order();
+        secondOrder.setId(3L);
+        secondOrder.setStatus(Order.OrderStatus.PROCESSING);
+        List<Long> orderIds = List.of(3L, 2L, 1L);
+        when(orderRepository.findAllByIdAndStatusNotForUpdate(orderIds, Order.OrderStatus.CANCELLED))
+            .thenReturn(List.of(testOrder, secondOrder));
+        when(orderRepository.sumQuantitiesByProduct(List.of(1L, 3L)))
+            .thenReturn(List.of(new Object[]{1L, 5L}, new Object[]{2L, 1L}));
+
+        // Act
+        List<Long> cancelled = orderService.cancelOrders(orderIds);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), cancelled);
+        assertEquals(Order.OrderStatus.CANCELLED, secondOrder.getStatus());
+        verify(productService, times(1)).restockProducts(Map.of(1L, 5, 2L, 1));
+        verify(orderRepository, never()).findWithDetailsById(any());
     }
 
     @Test
     void testUpdatePaymentStatus_UpdatesPaymentStatus() {
         // Arrange
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(testOrder));
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.of(testOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
 
         // Act
@@ -309,14 +625,14 @@ class OrderServiceTest {
     void testGetOrdersByStatus_ReturnsOrdersWithStatus() {
         // Arrange
         List<Order> pendingOrders = Arrays.asList(testOrder);
-        when(orderRepository.findByStatus(Order.OrderStatus.PENDING)).thenReturn(pendingOrders);
+        when(orderRepository.findWithDetailsByStatus(Order.OrderStatus.PENDING)).thenReturn(pendingOrders);
 
         // Act
         List<Order> result = orderService.getOrdersByStatus(Order.OrderStatus.PENDING);
 
         // Assert
         assertEquals(1, result.size());
-        verify(orderRepository).findByStatus(Order.OrderStatus.PENDING);
+        verify(orderRepository).findWithDetailsByStatus(Order.OrderStatus.PENDING);
     }
 
     @Test
@@ -326,27 +642,62 @@ class OrderServiceTest {
         LocalDateTime end = LocalDateTime.now();
         List<Order> recentOrders = Arrays.asList(testOrder);
 
-        when(orderRepository.findByOrderDateBetween(start, end)).thenReturn(recentOrders);
+        when(orderRepository.findWithDetailsByOrderDateBetween(start, end)).thenReturn(recentOrders);
 
         // Act
         List<Order> result = orderService.getOrdersInDateRange(start, end);
 
         // Assert
         assertEquals(1, result.size());
-        verify(orderRepository).findByOrderDateBetween(start, end);
+        verify(orderRepository).findWithDetailsByOrderDateBetween(start, end);
     }
 
     @Test
-    void testCountRecentOrders_ReturnsCount() {
+    void testCountRecentOrders_ReadsRollupsInsteadOfCounting() {
         // Arrange
         LocalDateTime since = LocalDateTime.now().minusDays(1);
-        when(orderRepository.countOrdersSince(since)).thenReturn(5L);
+        when(orderAnalyticsService.countOrders(null, since, null)).thenReturn(5L);
 
         // Act
         Long result = orderService.countRecentOrders(since);
 
         // Assert
         assertEquals(5L, result);
-        verify(orderRepository).countOrdersSince(since);
+        verify(orderRepository, never()).countOrdersSince(any());
+    }
+
+    @Test
+    void testGetOrderSummariesByUser_AttachesItemsFromSecondQuery() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        OrderDto first = new OrderDto(1L, 1L, LocalDateTime.now(), Order.OrderStatus.PENDING, BigDecimal.TEN,
+            Order.PaymentStatus.PENDING, null, null);
+        OrderDto second = new OrderDto(2L, 1L, LocalDateTime.now(), Order.OrderStatus.SHIPPED, BigDecimal.ONE,
+            Order.PaymentStatus.COMPLETED, null, null);
+        OrderItemDto item = new OrderItemDto(5L, 1L, 2, BigDecimal.valueOf(5), BigDecimal.TEN, "Test Product");
+        when(orderRepository.findDtosByUserId(1L, pageable)).thenReturn(new PageImpl<>(List.of(first, second), pageable, 2));
+        when(orderRepository.findItemDtosByOrderIds(List.of(1L, 2L))).thenReturn(List.<Object[]>of(new Object[]{1L, item}));
+
+        // Act
+        Page<OrderDto> result = orderService.getOrderSummariesByUser(1L, pageable);
+
+        // Assert
+        assertEquals(2, result.getTotalElements());
+        assertEquals(Set.of(item), result.getContent().get(0).items());
+        assertTrue(result.getContent().get(1).items().isEmpty());
+        verify(orderRepository, never()).findIdsByUser(any(User.class), any(Pageable.class));
+    }
+
+    @Test
+    void testGetOrderSummariesByStatus_NoOrders_SkipsItemQuery() {
+        // Arrange
+        when(orderRepository.findDtosByStatus(Order.OrderStatus.PENDING)).thenReturn(List.of());
+
+        // Act
+        List<OrderDto> result = orderService.getOrderSummariesByStatus(Order.OrderStatus.PENDING);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(orderRepository, never()).findItemDtosByOrderIds(any());
     }
 }
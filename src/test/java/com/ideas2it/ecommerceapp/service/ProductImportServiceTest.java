@@ -0,0 +1,211 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ideas2it.ecommerceapp.dto.ProductImportResult;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductBatchRepository;
+import com.ideas2it.ecommerceapp.service.impl.ProductImportServiceImpl;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceTest {
+
+    @InjectMocks
+    private ProductImportServiceImpl productImportService;
+
+    @Mock
+    private ProductBatchRepository productBatchRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockMovementService stockMovementService;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<List<Product>> insertedBatches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(productImportService, "batchSize", 2);
+        ReflectionTestUtils.setField(productImportService, "maxReportedErrors", 10);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productBatchRepository.insertProducts(anyList())).thenAnswer(invocation -> {
+            List<Product> batch = invocation.getArgument(0);
+            insertedBatches.add(List.copyOf(batch));
+            return new int[batch.size()];
+        });
+    }
+
+    @Test
+    void testImportProducts_Csv_InsertsInBatches() {
+        // Arrange
+        String csv = "name,description,price,stockQuantity,imageUrl,active\n" +
+            "Mouse,\"Wireless, ergonomic\",25.50,10,,true\n" +
+            "Keyboard,,90,5,,\n" +
+            "Cable,\"Says \"\"hi\"\"\",8,100,,false\n";
+
+        // Act
+        ProductImportResult result = productImportService.importProducts(stream(csv), ProductImportService.Format.CSV);
+
+        // Assert
+        assertEquals(3, result.rowsRead());
+        assertEquals(3, result.imported());
+        assertEquals(0, result.failed());
+        assertEquals(2, result.batches());
+        assertEquals(2, insertedBatches.get(0).size());
+        Product mouse = insertedBatches.get(0).get(0);
+        assertEquals("Wireless, ergonomic", mouse.getDescription());
+        assertEquals(new BigDecimal("25.50"), mouse.getPrice());
+        assertTrue(insertedBatches.get(0).get(1).getActive());
+        assertEquals("Says \"hi\"", insertedBatches.get(1).get(0).getDescription());
+        assertFalse(insertedBatches.get(1).get(0).getActive());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testImportProducts_InvalidRows_ReportedWithLineNumbers() {
+        // Arrange
+        String csv = "name,price,stockQuantity\n" +
+            "X,1,1\n" +
+            "Valid,abc,1\n" +
+            "Valid,5,-1\n" +
+            "Valid,5,1\n";
+
+        // Act
+        ProductImportResult result = productImportService.importProducts(stream(csv), ProductImportService.Format.CSV);
+
+        // Assert
+        assertEquals(4, result.rowsRead());
+        assertEquals(1, result.imported());
+        assertEquals(3, result.failed());
+        assertEquals(List.of(2L, 3L, 4L), result.errors().stream().map(ProductImportResult.RowError::row).toList());
+        assertTrue(result.errors().get(0).message().contains("between 2 and 100"));
+    }
+
+    @Test
+    void testImportProducts_Jsonl_IgnoresClientIds() {
+        // Arrange
+        String jsonl = "{\"id\": 42, \"name\": \"Mouse\", \"price\": 25, \"stockQuantity\": 3}\n" +
+            "\n" +
+            "{not json}\n";
+
+        // Act
+        ProductImportResult result = productImportService.importProducts(stream(jsonl), ProductImportService.Format.JSONL);
+
+        // Assert
+        assertEquals(2, result.rowsRead());
+        assertEquals(1, result.imported());
+        assertEquals(3L, result.errors().get(0).row());
+        Product mouse = insertedBatches.get(0).get(0);
+        assertNull(mouse.getId());
+        assertTrue(mouse.getActive());
+    }
+
+    @Test
+    void testImportProducts_JsonlNullRow_RejectedAsMalformed() {
+        // Arrange
+        String jsonl = "null\n" +
+            "{\"name\": \"Mouse\", \"price\": 25, \"stockQuantity\": 3}\n";
+
+        // Act
+        ProductImportResult result = productImportService.importProducts(stream(jsonl), ProductImportService.Format.JSONL);
+
+        // Assert
+        assertEquals(2, result.rowsRead());
+        assertEquals(1, result.imported());
+        assertEquals(1L, result.errors().get(0).row());
+        assertTrue(result.errors().get(0).message().startsWith("Malformed row"));
+    }
+
+    @Test
+    void testImportProducts_InsertedProducts_JournalsOpeningStock() {
+        // Arrange
+        doAnswer(invocation -> {
+            List<Product> batch = invocation.getArgument(0);
+            long id = 1;
+            for (Product product : batch) {
+                product.setId(id++);
+            }
+            return new int[batch.size()];
+        }).when(productBatchRepository).insertProducts(anyList());
+        String csv = "name,price,stockQuantity\n" +
+            "Mouse,25,10\n" +
+            "Keyboard,90,5\n";
+
+        // Act
+        productImportService.importProducts(stream(csv), ProductImportService.Format.CSV);
+
+        // Assert
+        verify(stockMovementService).record(Map.of(1L, 10, 2L, 5), StockMovement.MovementType.OPENING);
+    }
+
+    @Test
+    void testImportProducts_BatchRejected_RetriesRowByRow() {
+        // Arrange
+        doAnswer(invocation -> {
+            List<Product> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(p -> p.getName().equals("Duplicate"))) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            insertedBatches.add(List.copyOf(batch));
+            return new int[batch.size()];
+        }).when(productBatchRepository).insertProducts(anyList());
+        String csv = "name,price,stockQuantity\nGood,1,1\nDuplicate,1,1\n";
+
+        // Act
+        ProductImportResult result = productImportService.importProducts(stream(csv), ProductImportService.Format.CSV);
+
+        // Assert
+        assertEquals(1, result.imported());
+        assertEquals(1, result.failed());
+        assertEquals(3L, result.errors().get(0).row());
+        assertEquals("Good", insertedBatches.get(0).get(0).getName());
+    }
+
+    @Test
+    void testImportProducts_UnknownCsvColumn_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productImportService.importProducts(stream("name,price,stockQuantity,colour\n"), ProductImportService.Format.CSV));
+        verifyNoInteractions(productBatchRepository);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.ProductSearchHit;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.service.impl.ProductSearchServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductSearchServiceTest {
+
+    @InjectMocks
+    private ProductSearchServiceImpl searchService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        searchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.shutdown();
+    }
+
+    @Test
+    void testRebuildIndex_ProductRenamedDuringRebuild_KeepsNewName() {
+        // Arrange: the catalog is read before the rename, which commits while the rebuild runs
+        Product renamed = new Product(2L, "Trackball", 30.0, 5);
+        when(productRepository.findAllById(any())).thenReturn(List.of(renamed));
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(0);
+            consumer.accept(new Product(1L, "Wireless Mouse", 25.0, 5));
+            searchService.onProductChanged(new ProductChangedEvent(2L, ProductChangedEvent.ChangeType.UPDATED));
+            consumer.accept(new Product(2L, "Optical Mouse", 20.0, 5));
+            return null;
+        }).when(productService).streamActiveProducts(any());
+
+        // Act
+        searchService.rebuildIndex();
+
+        // Assert
+        assertEquals(1, searchService.search("trackball", null, null, 10).size());
+        assertEquals(List.of(1L), searchService.search("mouse", null, null, 10).stream().map(ProductSearchHit::id).toList());
+    }
+
+    @Test
+    void testOnProductChanged_BulkImported_RebuildsOffCallerThread() throws InterruptedException {
+        // Arrange
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        doAnswer(invocation -> {
+            assertNotSame(caller, Thread.currentThread());
+            invocation.<Consumer<Product>>getArgument(0).accept(new Product(1L, "Wireless Mouse", 25.0, 5));
+            rebuilt.countDown();
+            return null;
+        }).when(productService).streamActiveProducts(any());
+
+        // Act
+        searchService.onProductChanged(new ProductChangedEvent(Set.of(), ProductChangedEvent.ChangeType.BULK_IMPORTED));
+
+        // Assert
+        assertTrue(rebuilt.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (searchService.search("mouse", null, null, 10).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, searchService.search("mouse", null, null, 10).size());
+    }
+}
@@ -1,19 +1,49 @@
 package com.ideas2it.ecommerceapp.service;
 
+import com.ideas2it.ecommerceapp.config.CacheConfig;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateRequest;
+import com.ideas2it.ecommerceapp.dto.ProductBulkUpdateResult;
+import com.ideas2it.ecommerceapp.dto.ProductCursorPage;
+import com.ideas2it.ecommerceapp.dto.ProductSummaryDto;
 import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductBatchRepository;
 import com.ideas2it.ecommerceapp.repository.ProductRepository;
 import com.ideas2it.ecommerceapp.service.impl.ProductServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,11 +56,53 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache productsCache;
+
+    @Mock
+    private LowStockService lowStockService;
+
+    @Mock
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Mock
+    private ProductBatchRepository productBatchRepository;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private StockMovementService stockMovementService;
+
+    @Captor
+    private ArgumentCaptor<Map<Long, Integer>> quantitiesCaptor;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private Product testProduct;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(productService, "bulkUpdateChunkSize", 2);
+        ReflectionTestUtils.setField(productService, "loadCoalescingTimeoutMs", 1000L);
+        productService.init();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE)).thenReturn(productsCache);
 
         // Create a test product
         testProduct = new Product();
@@ -97,6 +169,7 @@ class ProductServiceTest {
     void testCreateProduct_SavesAndReturnsProduct() {
         // Arrange
         Product newProduct = new Product();
+        newProduct.setId(3L);
         newProduct.setName("New Product");
         newProduct.setPrice(BigDecimal.valueOf(9.99));
         newProduct.setStockQuantity(10);
@@ -110,6 +183,11 @@ class ProductServiceTest {
         assertNotNull(result);
         assertEquals("New Product", result.getName());
         verify(productRepository).save(newProduct);
+
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(java.util.Set.of(3L), event.getValue().getProductIds());
+        assertEquals(ProductChangedEvent.ChangeType.CREATED, event.getValue().getChangeType());
     }
 
     @Test
@@ -137,11 +215,13 @@ class ProductServiceTest {
         assertEquals("updated-image.jpg", result.getImageUrl());
         assertTrue(result.getActive());
         verify(productRepository).save(testProduct);
+        verify(stockMovementService).record(1L, 25, StockMovement.MovementType.ADJUSTMENT);
     }
 
     @Test
     void testUpdateProductStock_DecreasesStock() {
         // Arrange
+        ReflectionTestUtils.setField(productService, "stockUpdateMode", ProductService.StockUpdateMode.PESSIMISTIC);
         Product product = new Product(1L, "Test Product", 19.99, 50);
         when(productRepository.findByIdWithPessimisticLock(1L)).thenReturn(Optional.of(product));
         when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -157,6 +237,7 @@ class ProductServiceTest {
     @Test
     void testUpdateProductStock_InsufficientStock_ThrowsException() {
         // Arrange
+        ReflectionTestUtils.setField(productService, "stockUpdateMode", ProductService.StockUpdateMode.PESSIMISTIC);
         Product product = new Product(1L, "Test Product", 19.99, 5);
         when(productRepository.findByIdWithPessimisticLock(1L)).thenReturn(Optional.of(product));
 
@@ -178,6 +259,267 @@ class ProductServiceTest {
         // Assert
         assertFalse(testProduct.getActive());
         verify(productRepository).save(testProduct);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testUpdateProductStock_AtomicMode_UsesGuardedUpdate() {
+        // Arrange
+        when(productRepository.decrementStock(1L, 10)).thenReturn(1);
+
+        // Act
+        productService.updateProductStock(1L, 10);
+
+        // Assert
+        verify(productRepository, never()).findByIdWithPessimisticLock(any());
+        verify(productRepository, never()).save(any(Product.class));
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testUpdateProductStock_AtomicModeInsufficientStock_ThrowsException() {
+        // Arrange
+        when(productRepository.decrementStock(1L, 10)).thenReturn(0);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> productService.updateProductStock(1L, 10));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testUpdateProductStock_LedgerMode_ReservesFromLedger() {
+        // Arrange
+        ReflectionTestUtils.setField(productService, "stockUpdateMode", ProductService.StockUpdateMode.LEDGER);
+
+        // Act
+        productService.updateProductStock(1L, 10);
+
+        // Assert
+        verify(inventoryLedgerService).reserve(1L, 10);
+        verify(productRepository, never()).decrementStock(any(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testReserveStock_AtomicMode_DecrementsInOneBatchInIdOrder() {
+        // Arrange
+        Product second = new Product(2L, "Second Product", 5.0, 10);
+        when(productRepository.findAllById(any())).thenReturn(List.of(second, testProduct));
+        when(productBatchRepository.decrementStock(anyMap())).thenReturn(new int[] {1, 1});
+
+        // Act
+        Map<Long, Product> products = productService.reserveStock(Map.of(2L, 1, 1L, 3));
+
+        // Assert
+        verify(productBatchRepository).decrementStock(quantitiesCaptor.capture());
+        assertEquals(List.of(1L, 2L), List.copyOf(quantitiesCaptor.getValue().keySet()));
+        assertEquals(Set.of(1L, 2L), products.keySet());
+        verify(productRepository, never()).decrementStock(any(), anyInt());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testReserveStock_LedgerMode_JournalsSaleWithoutAnnouncing() {
+        // Arrange
+        ReflectionTestUtils.setField(productService, "stockUpdateMode", ProductService.StockUpdateMode.LEDGER);
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct));
+
+        // Act
+        productService.reserveStock(Map.of(1L, 3));
+
+        // Assert
+        verify(inventoryLedgerService).reserve(1L, 3);
+        verify(stockMovementService).record(Map.of(1L, -3), StockMovement.MovementType.SALE);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testReserveStock_AtomicModeOneLineShort_ThrowsException() {
+        // Arrange
+        Product second = new Product(2L, "Second Product", 5.0, 0);
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct, second));
+        when(productBatchRepository.decrementStock(anyMap())).thenReturn(new int[] {1, 0});
+
+        // Act & Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> productService.reserveStock(Map.of(1L, 1, 2L, 1)));
+        assertTrue(e.getMessage().contains("Second Product"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testReserveStock_PessimisticMode_LocksAllRowsInOneQuery() {
+        // Arrange
+        ReflectionTestUtils.setField(productService, "stockUpdateMode", ProductService.StockUpdateMode.PESSIMISTIC);
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct));
+
+        // Act
+        productService.reserveStock(Map.of(1L, 4));
+
+        // Assert
+        assertEquals(46, testProduct.getStockQuantity());
+        verify(productRepository).findAllByIdForUpdate(any());
+        verify(productRepository, never()).findByIdWithPessimisticLock(any());
+        verifyNoInteractions(productBatchRepository);
+    }
+
+    @Test
+    void testReserveStock_UnknownProduct_ThrowsException() {
+        // Arrange
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct));
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> productService.reserveStock(Map.of(1L, 1, 99L, 1)));
+        verifyNoInteractions(productBatchRepository);
+    }
+
+    @Test
+    void testUpdateProductStock_AtomicModeUnknownProduct_ThrowsException() {
+        // Arrange
+        when(productRepository.decrementStock(99L, 1)).thenReturn(0);
+        when(productRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> productService.updateProductStock(99L, 1));
+    }
+
+    @Test
+    void testUpdateProductStock_ShardedProduct_TakesFromShard() {
+        // Arrange
+        when(shardedStockService.isSharded(1L)).thenReturn(true);
+
+        // Act
+        productService.updateProductStock(1L, 3);
+
+        // Assert
+        verify(shardedStockService).reserve(1L, 3);
+        verify(productRepository, never()).decrementStock(any(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testUpdateProductStock_ShardedWhileWaiting_FallsBackToShards() {
+        // Arrange
+        testProduct.setStockShards(4);
+        when(productRepository.decrementStock(1L, 2)).thenReturn(0);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        // Act
+        productService.updateProductStock(1L, 2);
+
+        // Assert
+        verify(shardedStockService).reserve(1L, 2);
+    }
+
+    @Test
+    void testGetProductById_ShardedProduct_ReturnsShardTotal() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(shardedStockService.isSharded(1L)).thenReturn(true);
+        when(shardedStockService.getStocks(List.of(1L))).thenReturn(Map.of(1L, 37));
+
+        // Act
+        Product result = productService.getProductById(1L);
+
+        // Assert
+        assertEquals(37, result.getStockQuantity());
+    }
+
+    @Test
+    void testReserveStock_ShardedLine_SkipsRowBatch() {
+        // Arrange
+        Product hot = new Product(2L, "Hot Product", 5.0, 1000);
+        hot.setStockShards(8);
+        when(shardedStockService.isSharded(2L)).thenReturn(true);
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct, hot));
+        when(productBatchRepository.decrementStock(anyMap())).thenReturn(new int[] {1});
+
+        // Act
+        productService.reserveStock(Map.of(1L, 2, 2L, 1));
+
+        // Assert
+        verify(productBatchRepository).decrementStock(Map.of(1L, 2));
+        verify(shardedStockService).reserve(2L, 1);
+        ArgumentCaptor<ProductChangedEvent> captor = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(Set.of(1L), captor.getValue().getProductIds());
+    }
+
+    @Test
+    void testRestockProducts_AtomicMode_IncrementsInOneBatchInIdOrder() {
+        // Arrange
+        when(productBatchRepository.incrementStock(anyMap())).thenReturn(new int[] {1, 1});
+
+        // Act
+        productService.restockProducts(Map.of(2L, 1, 1L, 3));
+
+        // Assert
+        verify(productBatchRepository).incrementStock(quantitiesCaptor.capture());
+        assertEquals(List.of(1L, 2L), List.copyOf(quantitiesCaptor.getValue().keySet()));
+        verify(productRepository, never()).findAllById(any());
+        verifyNoInteractions(shardedStockService);
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testReserveStock_JournalsEveryLineAsSale() {
+        // Arrange
+        Product second = new Product(2L, "Second Product", 5.0, 10);
+        when(productRepository.findAllById(any())).thenReturn(List.of(testProduct, second));
+        when(productBatchRepository.decrementStock(anyMap())).thenReturn(new int[] {1, 1});
+
+        // Act
+        productService.reserveStock(Map.of(1L, 3, 2L, 1));
+
+        // Assert
+        verify(stockMovementService).record(Map.of(1L, -3, 2L, -1), StockMovement.MovementType.SALE);
+    }
+
+    @Test
+    void testRestockProducts_JournalsRestock() {
+        // Arrange
+        when(productBatchRepository.incrementStock(anyMap())).thenReturn(new int[] {1});
+
+        // Act
+        productService.restockProducts(Map.of(1L, 3));
+
+        // Assert
+        verify(stockMovementService).record(Map.of(1L, 3), StockMovement.MovementType.RESTOCK);
+    }
+
+    @Test
+    void testRestockProducts_ShardedProduct_ReturnsStockToShard() {
+        // Arrange
+        when(productBatchRepository.incrementStock(anyMap())).thenReturn(new int[] {1, 0});
+
+        // Act
+        productService.restockProducts(Map.of(1L, 3, 2L, 5));
+
+        // Assert
+        verify(shardedStockService).release(2L, 5);
+        verify(shardedStockService, never()).release(eq(1L), anyInt());
+    }
+
+    @Test
+    void testRestockProducts_LedgerMode_AdjustsProductRows() {
+        // Arrange
+        ReflectionTestUtils.setField(productService, "stockUpdateMode", ProductService.StockUpdateMode.LEDGER);
+
+        // Act
+        productService.restockProducts(Map.of(1L, 3));
+
+        // Assert
+        verify(productBatchRepository).adjustStock(Map.of(1L, 3));
+        verify(productBatchRepository, never()).incrementStock(anyMap());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void testRestockProducts_NonPositiveQuantity_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productService.restockProducts(Map.of(1L, 0)));
+        verifyNoInteractions(productBatchRepository);
     }
 
     @Test
@@ -187,13 +529,225 @@ class ProductServiceTest {
             new Product(3L, "Low Stock Product 1", 9.99, 5),
             new Product(4L, "Low Stock Product 2", 14.99, 3)
         );
-        when(productRepository.findByStockQuantityLessThan(10)).thenReturn(lowStockProducts);
+        when(lowStockService.getLowStockProducts(10)).thenReturn(lowStockProducts);
 
         // Act
         List<Product> result = productService.getLowStockProducts(10);
 
         // Assert
         assertEquals(2, result.size());
-        verify(productRepository).findByStockQuantityLessThan(10);
+        verify(lowStockService).getLowStockProducts(10);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetProductPage_MoreRowsThanSize_ReturnsCursor() {
+        // Arrange
+        List<Product> rows = Arrays.asList(
+            new Product(1L, "First", 1.0, 5),
+            new Product(2L, "Second", 2.0, 5),
+            new Product(3L, "Third", 3.0, 5)
+        );
+        when(productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3))).thenReturn(rows);
+
+        // Act
+        ProductCursorPage page = productService.getProductPage(null, 2, ProductCursorPage.SortKey.ID);
+
+        // Assert
+        assertEquals(2, page.items().size());
+        assertTrue(page.hasMore());
+        assertNotNull(page.nextCursor());
+
+        // The cursor resumes after the last returned id
+        when(productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 3)))
+            .thenReturn(List.of(rows.get(2)));
+        ProductCursorPage next = productService.getProductPage(page.nextCursor(), 2, ProductCursorPage.SortKey.ID);
+        assertEquals(1, next.items().size());
+        assertFalse(next.hasMore());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void testGetProductPage_PriceCursor_ResumesAfterPriceAndId() {
+        // Arrange
+        List<Product> rows = Arrays.asList(new Product(7L, "Cheap", 1.5, 5), new Product(4L, "Dear", 9.0, 5));
+        when(productRepository.findByActiveTrueOrderByPriceAscIdAsc(PageRequest.of(0, 2))).thenReturn(rows);
+
+        // Act
+        ProductCursorPage page = productService.getProductPage(null, 1, ProductCursorPage.SortKey.PRICE);
+        productService.getProductPage(page.nextCursor(), 1, ProductCursorPage.SortKey.PRICE);
+
+        // Assert
+        verify(productRepository).findActiveAfterPriceAndId(new BigDecimal("1.5"), 7L, PageRequest.of(0, 2));
+    }
+
+    @Test
+    void testGetProductPage_CursorForOtherSort_ThrowsException() {
+        // Arrange
+        when(productRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+            .thenReturn(Arrays.asList(testProduct, new Product(2L, "Second", 2.0, 5)));
+        String idCursor = productService.getProductPage(null, 1, ProductCursorPage.SortKey.ID).nextCursor();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProductPage(idCursor, 1, ProductCursorPage.SortKey.PRICE));
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProductPage("not-a-cursor", 1, ProductCursorPage.SortKey.ID));
+    }
+
+    @Test
+    void testGetProductPage_InvalidSize_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.getProductPage(null, 0, ProductCursorPage.SortKey.ID));
+    }
+
+    @Test
+    void testStreamActiveProducts_DetachesEachProduct() {
+        // Arrange
+        Product second = new Product(2L, "Another Product", 29.99, 30);
+        when(productRepository.streamActiveProducts()).thenReturn(Stream.of(testProduct, second));
+        List<Product> received = new ArrayList<>();
+
+        // Act
+        productService.streamActiveProducts(received::add);
+
+        // Assert
+        assertEquals(List.of(testProduct, second), received);
+        verify(entityManager).detach(testProduct);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void testBulkUpdateProducts_PricePercentById_UpdatesInChunks() {
+        // Arrange
+        ProductBulkUpdateRequest request = new ProductBulkUpdateRequest(
+            List.of(1L, 2L, 2L, 3L), null, ProductBulkUpdateRequest.Operation.PRICE_PERCENT, BigDecimal.valueOf(-10));
+        when(productRepository.scalePrices(List.of(1L, 2L), new BigDecimal("0.900000"))).thenReturn(2);
+        when(productRepository.scalePrices(List.of(3L), new BigDecimal("0.900000"))).thenReturn(0);
+
+        // Act
+        ProductBulkUpdateResult result = productService.bulkUpdateProducts(request);
+
+        // Assert
+        assertEquals(new ProductBulkUpdateResult(3, 2, 1, 2), result);
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void testBulkUpdateProducts_StockDeltaByFilter_PagesThroughMatchingIds() {
+        // Arrange
+        ProductBulkUpdateRequest.Filter filter = new ProductBulkUpdateRequest.Filter(true, null, BigDecimal.TEN);
+        ProductBulkUpdateRequest request = new ProductBulkUpdateRequest(
+            null, filter, ProductBulkUpdateRequest.Operation.STOCK_DELTA, BigDecimal.valueOf(5));
+        when(productRepository.findIdsByFilter(0L, true, null, BigDecimal.TEN, PageRequest.of(0, 2)))
+            .thenReturn(List.of(4L, 7L));
+        when(productRepository.findIdsByFilter(7L, true, null, BigDecimal.TEN, PageRequest.of(0, 2)))
+            .thenReturn(List.of(9L));
+        when(productRepository.lockAdjustableStock(anyCollection(), eq(5))).thenAnswer(invocation ->
+            List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+        when(productRepository.adjustStock(anyCollection(), eq(5))).thenAnswer(invocation ->
+            invocation.<List<Long>>getArgument(0).size());
+
+        // Act
+        ProductBulkUpdateResult result = productService.bulkUpdateProducts(request);
+
+        // Assert
+        assertEquals(new ProductBulkUpdateResult(3, 3, 0, 2), result);
+        ArgumentCaptor<ProductChangedEvent> captor = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertEquals(ProductChangedEvent.ChangeType.STOCK_CHANGED, captor.getValue().getChangeType());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void testBulkUpdateProducts_StockDelta_JournalsOnlyAdjustedProducts() {
+        // Arrange
+        ProductBulkUpdateRequest request = new ProductBulkUpdateRequest(
+            List.of(1L, 2L), null, ProductBulkUpdateRequest.Operation.STOCK_DELTA, BigDecimal.valueOf(-3));
+        when(productRepository.lockAdjustableStock(List.of(1L, 2L), -3)).thenReturn(List.of(2L));
+        when(productRepository.adjustStock(List.of(2L), -3)).thenReturn(1);
+
+        // Act
+        ProductBulkUpdateResult result = productService.bulkUpdateProducts(request);
+
+        // Assert
+        assertEquals(new ProductBulkUpdateResult(2, 1, 1, 1), result);
+        verify(stockMovementService).record(Map.of(2L, -3), StockMovement.MovementType.ADJUSTMENT);
+    }
+
+    @Test
+    void testBulkUpdateProducts_BothIdsAndFilter_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new ProductBulkUpdateRequest(
+            List.of(1L), new ProductBulkUpdateRequest.Filter(null, null, null),
+            ProductBulkUpdateRequest.Operation.ACTIVATE, null));
+    }
+
+    @Test
+    void testEvictChangedProducts_EvictsEveryChangedId() {
+        // Act
+        productService.evictChangedProducts(new ProductChangedEvent(Set.of(1L, 2L), ProductChangedEvent.ChangeType.STOCK_CHANGED));
+
+        // Assert
+        verify(productsCache).evict(1L);
+        verify(productsCache).evict(2L);
+    }
+
+    @Test
+    void testGetProductSummaries_FirstPage_StartsAfterIdZero() {
+        // Arrange
+        List<ProductSummaryDto> summaries = List.of(new ProductSummaryDto(1L, "Test Product", BigDecimal.valueOf(19.99), 50, null));
+        when(productRepository.findActiveSummaries(0L, PageRequest.of(0, 20))).thenReturn(summaries);
+
+        // Act
+        List<ProductSummaryDto> result = productService.getProductSummaries(null, 20);
+
+        // Assert
+        assertEquals(summaries, result);
+        verify(productRepository, never()).findByActiveTrue();
+    }
+
+    @Test
+    void testGetProductSummaries_SizeTooLarge_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productService.getProductSummaries(null, 500));
+    }
+
+    @Test
+    void testGetProductById_ConcurrentMisses_ShareOneLoad() throws Exception {
+        // Arrange
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(productRepository.findById(1L)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await();
+            return Optional.of(testProduct);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            Future<Product> leader = executor.submit(() -> productService.getProductById(1L));
+            loadStarted.await();
+            List<Future<Product>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(executor.submit(() -> productService.getProductById(1L)));
+            }
+            while (meterRegistry.counter("singleflight.calls", "name", "product-load", "outcome", "coalesced").count() < 3) {
+                Thread.onSpinWait();
+            }
+            releaseLoad.countDown();
+
+            // Assert
+            assertSame(testProduct, leader.get());
+            for (Future<Product> follower : followers) {
+                assertSame(testProduct, follower.get());
+            }
+            verify(productRepository, times(1)).findById(1L);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 }
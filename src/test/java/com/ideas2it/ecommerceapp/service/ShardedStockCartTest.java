@@ -0,0 +1,51 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reading a sharded product inside a transaction, as adding it to a cart does, shows
+ * the live shard total without writing it to the products row.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "app.inventory.sharding.flush-interval-ms=3600000",
+    "app.order.reaper.enabled=false"
+})
+class ShardedStockCartTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void testAddProductToCart_ShardedProduct_LeavesProductRowUntouched() {
+        // Arrange
+        Product product = productService.createProduct(new Product(null, "Sharded Product", 4.99, 100));
+        shardedStockService.setShardCount(product.getId(), 4);
+        productService.updateProductStock(product.getId(), 1);
+        Product before = productRepository.findById(product.getId()).orElseThrow();
+
+        // Act
+        shoppingCartService.addProductToCart(9001L, product.getId(), 2);
+
+        // Assert
+        Product after = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(before.getVersion(), after.getVersion());
+        assertEquals(before.getStockQuantity(), after.getStockQuantity());
+        assertEquals(99, productService.getProductById(product.getId()).getStockQuantity());
+    }
+}
@@ -0,0 +1,224 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.model.ProductStockShard;
+import com.ideas2it.ecommerceapp.notification.observer.ProductChangedEvent;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.repository.ProductStockShardRepository;
+import com.ideas2it.ecommerceapp.service.impl.ShardedStockServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShardedStockServiceTest {
+
+    @InjectMocks
+    private ShardedStockServiceImpl shardedStockService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductStockShardRepository shardRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Captor
+    private ArgumentCaptor<List<ProductStockShard>> shardsCaptor;
+
+    private Product hotProduct;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(shardedStockService, "stockUpdateMode", ProductService.StockUpdateMode.ATOMIC);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        hotProduct = new Product(1L, "Hot SKU", 10.0, 10);
+        when(productRepository.findByIdWithPessimisticLock(1L)).thenReturn(Optional.of(hotProduct));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(hotProduct));
+        when(productRepository.findStockShardsById(1L)).thenAnswer(invocation -> Optional.ofNullable(hotProduct.getStockShards()));
+    }
+
+    @Test
+    void testSetShardCount_SpreadsStockEvenly() {
+        // Act
+        shardedStockService.setShardCount(1L, 4);
+
+        // Assert
+        verify(shardRepository).saveAll(shardsCaptor.capture());
+        assertEquals(List.of(3, 3, 2, 2),
+            shardsCaptor.getValue().stream().map(ProductStockShard::getQuantity).toList());
+        assertEquals(4, hotProduct.getStockShards());
+        assertTrue(shardedStockService.isSharded(1L));
+    }
+
+    @Test
+    void testSetShardCount_Zero_GathersStockIntoProductRow() {
+        // Arrange
+        hotProduct.setStockShards(2);
+        when(shardRepository.findByProductIdForUpdate(1L))
+            .thenReturn(List.of(new ProductStockShard(1L, 0, 4), new ProductStockShard(1L, 1, 3)));
+
+        // Act
+        shardedStockService.setShardCount(1L, 0);
+
+        // Assert
+        verify(shardRepository).deleteByProductId(1L);
+        verify(shardRepository, never()).saveAll(any());
+        assertNull(hotProduct.getStockShards());
+        assertEquals(7, hotProduct.getStockQuantity());
+        assertFalse(shardedStockService.isSharded(1L));
+    }
+
+    @Test
+    void testSetShardCount_LedgerMode_ThrowsException() {
+        // Arrange
+        ReflectionTestUtils.setField(shardedStockService, "stockUpdateMode", ProductService.StockUpdateMode.LEDGER);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> shardedStockService.setShardCount(1L, 4));
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    void testReserve_ChosenShardHasStock_TakesOnlyFromIt() {
+        // Arrange
+        hotProduct.setStockShards(4);
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(2))).thenReturn(1);
+
+        // Act
+        shardedStockService.reserve(1L, 2);
+
+        // Assert
+        verify(shardRepository).takeStock(eq(1L), anyInt(), eq(2));
+        verify(shardRepository, never()).findShardIndexesWithStock(any(), anyInt());
+        verify(shardRepository, never()).findByProductIdForUpdate(any());
+    }
+
+    @Test
+    void testReserve_NoShardCanServeAlone_RebalancesRemainder() {
+        // Arrange
+        hotProduct.setStockShards(3);
+        List<ProductStockShard> shards = List.of(
+            new ProductStockShard(1L, 0, 1), new ProductStockShard(1L, 1, 1), new ProductStockShard(1L, 2, 2));
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(3))).thenReturn(0);
+        when(shardRepository.findShardIndexesWithStock(1L, 3)).thenReturn(List.of());
+        when(shardRepository.sumStock(1L)).thenReturn(4L);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(shards);
+
+        // Act
+        shardedStockService.reserve(1L, 3);
+
+        // Assert
+        assertEquals(List.of(1, 0, 0), shards.stream().map(ProductStockShard::getQuantity).toList());
+    }
+
+    @Test
+    void testReserve_TotalTooLow_ThrowsExceptionWithoutLockingShards() {
+        // Arrange
+        hotProduct.setStockShards(2);
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(5))).thenReturn(0);
+        when(shardRepository.findShardIndexesWithStock(1L, 5)).thenReturn(List.of());
+        when(shardRepository.sumStock(1L)).thenReturn(4L);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> shardedStockService.reserve(1L, 5));
+        verify(shardRepository, never()).findByProductIdForUpdate(any());
+    }
+
+    @Test
+    void testReserve_TotalDrainedWhileWaitingForShards_ThrowsException() {
+        // Arrange
+        hotProduct.setStockShards(2);
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(5))).thenReturn(0);
+        when(shardRepository.findShardIndexesWithStock(1L, 5)).thenReturn(List.of());
+        when(shardRepository.sumStock(1L)).thenReturn(6L);
+        when(shardRepository.findByProductIdForUpdate(1L))
+            .thenReturn(List.of(new ProductStockShard(1L, 0, 2), new ProductStockShard(1L, 1, 2)));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> shardedStockService.reserve(1L, 5));
+    }
+
+    @Test
+    void testReserve_UnshardedProduct_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> shardedStockService.reserve(1L, 1));
+        verify(shardRepository, never()).takeStock(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testReserve_UnshardedByAnotherInstance_DropsStaleClaims() {
+        // Arrange: sharded as far as this instance knows, then gathered back elsewhere
+        hotProduct.setStockShards(2);
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(1))).thenReturn(1, 0);
+        shardedStockService.reserve(1L, 1);
+        hotProduct.setStockShards(null);
+        when(shardRepository.findShardIndexesWithStock(1L, 1)).thenReturn(List.of());
+        when(shardRepository.sumStock(1L)).thenReturn(0L);
+
+        // Act & Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> shardedStockService.reserve(1L, 1));
+        assertTrue(e.getMessage().contains("not sharded"));
+        assertFalse(shardedStockService.isSharded(1L));
+    }
+
+    @Test
+    void testGetStocks_ShardRowsGone_DropsStaleClaims() {
+        // Arrange
+        hotProduct.setStockShards(2);
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(1))).thenReturn(1);
+        shardedStockService.reserve(1L, 1);
+        hotProduct.setStockShards(null);
+
+        // Act
+        Map<Long, Integer> stocks = shardedStockService.getStocks(List.of(1L));
+
+        // Assert
+        assertTrue(stocks.isEmpty());
+        assertFalse(shardedStockService.isSharded(1L));
+    }
+
+    @Test
+    void testFlush_CopiesChangedTotalsOnce() {
+        // Arrange
+        hotProduct.setStockShards(2);
+        when(shardRepository.takeStock(eq(1L), anyInt(), eq(1))).thenReturn(1);
+        shardedStockService.reserve(1L, 1);
+        shardedStockService.reserve(1L, 1);
+
+        // Act
+        int flushed = shardedStockService.flush();
+
+        // Assert
+        assertEquals(1, flushed);
+        verify(productRepository).copyShardedStock(List.of(1L));
+        ArgumentCaptor<ProductChangedEvent> captor = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(Set.of(1L), captor.getValue().getProductIds());
+        assertEquals(ProductChangedEvent.ChangeType.STOCK_CHANGED, captor.getValue().getChangeType());
+        assertEquals(0, shardedStockService.flush());
+    }
+}
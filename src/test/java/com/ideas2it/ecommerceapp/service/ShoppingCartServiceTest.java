@@ -36,6 +36,8 @@ class ShoppingCartServiceTest {
     private CartRepository cartRepository;
     @Mock
     private CartItemRepository cartItemRepository;
+    @Mock
+    private StockHoldService stockHoldService;
 
     @BeforeEach
     void setUp() {
@@ -116,6 +118,29 @@ class ShoppingCartServiceTest {
         });
     }
 
+    @Test
+    void testAddProductToCart_NewProduct_PlacesHold() {
+        Long userId = 1L;
+        Long productId = 100L;
+        Product product = new Product(productId, "Test Product", 10.0, 100);
+        when(productService.getProductById(productId)).thenReturn(product);
+        shoppingCartService.addProductToCart(userId, productId, 3);
+        verify(stockHoldService).placeHold(userId, productId, 3);
+    }
+
+    @Test
+    void testAddProductToCart_StockHeldByOtherCarts_ThrowsException() {
+        Long userId = 1L;
+        Long productId = 100L;
+        Product product = new Product(productId, "Test Product", 10.0, 5);
+        when(productService.getProductById(productId)).thenReturn(product);
+        doThrow(new OutOfStockException("Only 1 units of this product are available"))
+                .when(stockHoldService).placeHold(userId, productId, 2);
+        assertThrows(OutOfStockException.class, () ->
+                shoppingCartService.addProductToCart(userId, productId, 2));
+        verify(cartItemRepository, never()).save(any(CartItem.class));
+    }
+
     @Test
     void testUpdateProductQuantity_ValidQuantity_UpdatesQuantity() {
         Long userId = 1L;
@@ -164,6 +189,7 @@ class ShoppingCartServiceTest {
         shoppingCartService.removeProductFromCart(userId, productId);
         Cart cart = shoppingCartService.getCartForUser(userId);
         assertTrue(cart.getItems().isEmpty());
+        verify(stockHoldService).releaseHold(userId, productId);
     }
 
     @Test
@@ -189,6 +215,7 @@ class ShoppingCartServiceTest {
         shoppingCartService.clearCart(userId);
         Cart cart = shoppingCartService.getCartForUser(userId);
         assertTrue(cart.getItems().isEmpty());
+        verify(stockHoldService).releaseHolds(userId);
     }
 
     // 2. Cart Viewing & Calculation
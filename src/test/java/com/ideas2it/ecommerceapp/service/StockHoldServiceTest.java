@@ -0,0 +1,193 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.exception.OutOfStockException;
+import com.ideas2it.ecommerceapp.model.Product;
+import com.ideas2it.ecommerceapp.service.impl.StockHoldServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StockHoldServiceTest {
+
+    @InjectMocks
+    private StockHoldServiceImpl stockHoldService;
+
+    @Mock
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockHoldService, "holdTtlMs", 60_000L);
+        ReflectionTestUtils.setField(stockHoldService, "tickMs", 10L);
+        ReflectionTestUtils.setField(stockHoldService, "wheelSize", 64);
+        stockHoldService.init();
+        when(productService.getProductById(1L)).thenReturn(new Product(1L, "Hot SKU", 10.0, 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        stockHoldService.shutdown();
+    }
+
+    // Runs the action as if in a transaction that ends with the given status
+    private void inTransaction(Runnable action, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testPlaceHold_StockHeldByOtherUser_ThrowsException() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 4);
+
+        // Act & Assert
+        OutOfStockException e = assertThrows(OutOfStockException.class, () -> stockHoldService.placeHold(2L, 1L, 2));
+        assertTrue(e.getMessage().contains("Only 1 units"));
+        assertEquals(4, stockHoldService.getHeldQuantity(1L));
+    }
+
+    @Test
+    void testPlaceHold_SameUser_ReplacesPreviousHold() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 2);
+
+        // Act
+        stockHoldService.placeHold(1L, 1L, 5);
+
+        // Assert
+        assertEquals(5, stockHoldService.getHeldQuantity(1L));
+        assertEquals(1, stockHoldService.getActiveHoldCount());
+    }
+
+    @Test
+    void testReleaseHolds_AllUserHolds_FreesStock() {
+        // Arrange
+        when(productService.getProductById(2L)).thenReturn(new Product(2L, "Other SKU", 10.0, 5));
+        stockHoldService.placeHold(1L, 1L, 5);
+        stockHoldService.placeHold(1L, 2L, 1);
+
+        // Act
+        stockHoldService.releaseHolds(1L);
+
+        // Assert
+        assertEquals(0, stockHoldService.getHeldQuantity(1L));
+        assertEquals(0, stockHoldService.getHeldQuantity(2L));
+        assertEquals(0, stockHoldService.getActiveHoldCount());
+        assertDoesNotThrow(() -> stockHoldService.placeHold(2L, 1L, 5));
+    }
+
+    @Test
+    void testPlaceHold_TtlElapsed_HoldExpires() throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(stockHoldService, "holdTtlMs", 30L);
+        stockHoldService.placeHold(1L, 1L, 5);
+
+        // Act
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (stockHoldService.getHeldQuantity(1L) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertEquals(0, stockHoldService.getHeldQuantity(1L));
+        assertEquals(0, stockHoldService.getActiveHoldCount());
+        assertDoesNotThrow(() -> stockHoldService.placeHold(2L, 1L, 5));
+    }
+
+    @Test
+    void testPlaceHold_NonPositiveQuantity_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> stockHoldService.placeHold(1L, 1L, 0));
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testPlaceHold_TransactionRolledBack_RestoresReplacedHold() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 2);
+
+        // Act
+        inTransaction(() -> stockHoldService.placeHold(1L, 1L, 5), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Assert
+        assertEquals(2, stockHoldService.getHeldQuantity(1L));
+        assertEquals(1, stockHoldService.getActiveHoldCount());
+        assertDoesNotThrow(() -> stockHoldService.placeHold(2L, 1L, 3));
+    }
+
+    @Test
+    void testPlaceHold_FirstHoldRolledBack_ReleasesHold() {
+        // Act
+        inTransaction(() -> stockHoldService.placeHold(1L, 1L, 5), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Assert
+        assertEquals(0, stockHoldService.getHeldQuantity(1L));
+        assertEquals(0, stockHoldService.getActiveHoldCount());
+    }
+
+    @Test
+    void testPlaceHold_TransactionCommitted_KeepsNewHold() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 2);
+
+        // Act
+        inTransaction(() -> stockHoldService.placeHold(1L, 1L, 5), TransactionSynchronization.STATUS_COMMITTED);
+
+        // Assert
+        assertEquals(5, stockHoldService.getHeldQuantity(1L));
+    }
+
+    @Test
+    void testReleaseHold_TransactionRolledBack_RestoresHold() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 4);
+
+        // Act
+        inTransaction(() -> stockHoldService.releaseHold(1L, 1L), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Assert
+        assertEquals(4, stockHoldService.getHeldQuantity(1L));
+        assertThrows(OutOfStockException.class, () -> stockHoldService.placeHold(2L, 1L, 2));
+    }
+
+    @Test
+    void testCheckAvailable_StockHeldByOtherUser_ThrowsException() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 4);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> stockHoldService.checkAvailable(Map.of(1L, 2), Set.of(2L)));
+        assertDoesNotThrow(() -> stockHoldService.checkAvailable(Map.of(1L, 1), Set.of(2L)));
+    }
+
+    @Test
+    void testCheckAvailable_BuyerOwnHold_CountsAsAvailable() {
+        // Arrange
+        stockHoldService.placeHold(1L, 1L, 4);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> stockHoldService.checkAvailable(Map.of(1L, 5), Set.of(1L)));
+    }
+}
@@ -0,0 +1,261 @@
+package com.ideas2it.ecommerceapp.service;
+
+import com.ideas2it.ecommerceapp.dto.StockDrift;
+import com.ideas2it.ecommerceapp.model.StockMovement;
+import com.ideas2it.ecommerceapp.model.StockSnapshot;
+import com.ideas2it.ecommerceapp.repository.ProductRepository;
+import com.ideas2it.ecommerceapp.repository.StockMovementBatchRepository;
+import com.ideas2it.ecommerceapp.repository.StockMovementRepository;
+import com.ideas2it.ecommerceapp.repository.StockSnapshotRepository;
+import com.ideas2it.ecommerceapp.service.impl.StockMovementServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StockMovementServiceTest {
+
+    @InjectMocks
+    private StockMovementServiceImpl stockMovementService;
+
+    @Mock
+    private StockMovementRepository movementRepository;
+
+    @Mock
+    private StockSnapshotRepository snapshotRepository;
+
+    @Mock
+    private StockMovementBatchRepository batchRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Captor
+    private ArgumentCaptor<List<StockMovement>> movementsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<StockSnapshot>> snapshotsCaptor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockMovementService, "flushIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(stockMovementService, "snapshotIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(stockMovementService, "snapshotLagMs", 60000L);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void testRecord_NoTransaction_QueuesUntilFlushWithoutZeros() {
+        // Act
+        stockMovementService.record(Map.of(2L, -3, 1L, 5, 3L, 0), StockMovement.MovementType.ADJUSTMENT);
+
+        // Assert
+        verifyNoInteractions(batchRepository);
+        assertEquals(2, stockMovementService.flush());
+        assertEquals(0, stockMovementService.flush());
+        verify(batchRepository).insertMovements(movementsCaptor.capture());
+        List<StockMovement> movements = movementsCaptor.getValue();
+        assertEquals(List.of(1L, 2L), movements.stream().map(StockMovement::getProductId).toList());
+        assertEquals(List.of(5, -3), movements.stream().map(StockMovement::getQuantity).toList());
+        assertNotNull(movements.get(0).getOccurredAt());
+    }
+
+    @Test
+    void testRecord_InTransaction_WritesAllMovementsBeforeCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        stockMovementService.record(1L, -2, StockMovement.MovementType.SALE);
+        stockMovementService.record(Map.of(2L, 4), StockMovement.MovementType.RESTOCK);
+
+        // Assert
+        verifyNoInteractions(batchRepository);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.get(0).beforeCommit(false);
+        verify(batchRepository).insertMovements(movementsCaptor.capture());
+        assertEquals(List.of(StockMovement.MovementType.SALE, StockMovement.MovementType.RESTOCK),
+            movementsCaptor.getValue().stream().map(StockMovement::getType).toList());
+    }
+
+    @Test
+    void testRecord_LedgerMode_QueuesMovementsAfterCommit() {
+        // Arrange
+        when(inventoryLedgerService.isActive()).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        stockMovementService.record(1L, -2, StockMovement.MovementType.SALE);
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        synchronization.beforeCommit(false);
+        synchronization.afterCommit();
+
+        // Assert
+        verifyNoInteractions(batchRepository);
+        assertEquals(1, stockMovementService.flush());
+        verify(batchRepository).insertMovements(anyList());
+    }
+
+    @Test
+    void testFlush_WriteFails_KeepsMovementsQueued() {
+        // Arrange
+        stockMovementService.record(1L, 3, StockMovement.MovementType.RESTOCK);
+        doThrow(new RuntimeException("database unavailable")).doReturn(new int[1])
+            .when(batchRepository).insertMovements(anyList());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> stockMovementService.flush());
+        assertEquals(1, stockMovementService.flush());
+    }
+
+    @Test
+    void testGetStockAt_AddsMovementsSinceLatestSnapshot() {
+        // Arrange
+        LocalDateTime snapshotTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime time = snapshotTime.plusHours(5);
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(snapshotRepository.findFirstByProductIdAndTakenAtLessThanEqualOrderByTakenAtDesc(1L, time))
+            .thenReturn(Optional.of(new StockSnapshot(1L, 40, snapshotTime)));
+        when(movementRepository.sumQuantity(1L, snapshotTime, time)).thenReturn(-7L);
+
+        // Act
+        int stock = stockMovementService.getStockAt(1L, time);
+
+        // Assert
+        assertEquals(33, stock);
+    }
+
+    @Test
+    void testGetStockAt_UnknownProduct_ThrowsException() {
+        // Arrange
+        when(productRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> stockMovementService.getStockAt(99L, LocalDateTime.now()));
+        verifyNoInteractions(movementRepository);
+    }
+
+    @Test
+    void testTakeSnapshot_FoldsMovementsIntoLatestSnapshots() {
+        // Arrange
+        LocalDateTime previous = LocalDateTime.now().minusHours(2);
+        when(snapshotRepository.findLatestTakenAt()).thenReturn(Optional.of(previous));
+        when(movementRepository.sumQuantitiesByProduct(eq(previous), any(LocalDateTime.class)))
+            .thenReturn(List.of(new Object[] {1L, -5L}, new Object[] {2L, 8L}));
+        when(snapshotRepository.findLatestStocks(anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[] {1L, 20}));
+
+        // Act
+        int written = stockMovementService.takeSnapshot();
+
+        // Assert
+        assertEquals(2, written);
+        verify(batchRepository).insertSnapshots(snapshotsCaptor.capture());
+        Map<Long, Integer> stocks = snapshotsCaptor.getValue().stream()
+            .collect(Collectors.toMap(StockSnapshot::getProductId, StockSnapshot::getStockQuantity));
+        assertEquals(Map.of(1L, 15, 2L, 8), stocks);
+        assertTrue(snapshotsCaptor.getValue().get(0).getTakenAt().isBefore(LocalDateTime.now().minusSeconds(59)));
+    }
+
+    @Test
+    void testTakeSnapshot_NoMovements_WritesNothing() {
+        // Arrange
+        when(snapshotRepository.findLatestTakenAt()).thenReturn(Optional.empty());
+        when(movementRepository.sumQuantitiesByProduct(any(), any())).thenReturn(List.of());
+
+        // Act
+        int written = stockMovementService.takeSnapshot();
+
+        // Assert
+        assertEquals(0, written);
+        verify(batchRepository, never()).insertSnapshots(anyList());
+    }
+
+    @Test
+    void testReconcile_ReportsProductsThatDifferFromJournal() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(inventoryLedgerService.isActive()).thenReturn(true);
+        when(snapshotRepository.findLatestTakenAt()).thenReturn(Optional.of(since));
+        when(snapshotRepository.findAllLatestStocks())
+            .thenReturn(List.of(new Object[] {1L, 10}, new Object[] {2L, 30}));
+        when(movementRepository.sumQuantitiesByProductSince(since))
+            .thenReturn(List.<Object[]>of(new Object[] {2L, -4L}));
+        when(productRepository.findAllStockQuantities())
+            .thenReturn(List.of(new Object[] {1L, 10}, new Object[] {2L, 25}));
+
+        // Act
+        List<StockDrift> drifts = stockMovementService.reconcile();
+
+        // Assert
+        assertEquals(List.of(new StockDrift(2L, 25, 26)), drifts);
+        verify(inventoryLedgerService).flush();
+        verify(shardedStockService).flush();
+    }
+
+    @Test
+    void testInit_EmptyJournal_WritesOpeningBalances() {
+        // Arrange
+        when(movementRepository.findFirstByOrderByIdAsc()).thenReturn(Optional.empty());
+
+        // Act
+        stockMovementService.init();
+        stockMovementService.shutdown();
+
+        // Assert
+        verify(batchRepository).insertOpeningBalances(any(LocalDateTime.class));
+    }
+
+    @Test
+    void testInit_ExistingJournal_KeepsIt() {
+        // Arrange
+        when(movementRepository.findFirstByOrderByIdAsc())
+            .thenReturn(Optional.of(new StockMovement(1L, 5, StockMovement.MovementType.OPENING)));
+
+        // Act
+        stockMovementService.init();
+        stockMovementService.shutdown();
+
+        // Assert
+        verify(batchRepository, never()).insertOpeningBalances(any());
+    }
+}
@@ -0,0 +1,75 @@
+package com.ideas2it.ecommerceapp.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AfterTransactionTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testNoTransaction_CommitAndCompletionRunAtOnce_RollbackDropped() {
+        // Act
+        AfterTransaction.commit(() -> ran.add("commit"));
+        AfterTransaction.completion(() -> ran.add("completion"));
+        AfterTransaction.rollback(() -> ran.add("rollback"));
+
+        // Assert
+        assertEquals(List.of("commit", "completion"), ran);
+    }
+
+    @Test
+    void testCommittedTransaction_RunsCommitAndCompletionOnly() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        registerAll();
+
+        // Act
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Assert
+        assertEquals(List.of("commit", "completion"), ran);
+    }
+
+    @Test
+    void testRolledBackTransaction_RunsCompletionAndRollbackOnly() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        registerAll();
+
+        // Act
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Assert
+        assertEquals(List.of("completion", "rollback"), ran);
+    }
+
+    private void registerAll() {
+        AfterTransaction.commit(() -> ran.add("commit"));
+        AfterTransaction.completion(() -> ran.add("completion"));
+        AfterTransaction.rollback(() -> ran.add("rollback"));
+        assertTrue(ran.isEmpty());
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+}
@@ -0,0 +1,229 @@
+package com.ideas2it.ecommerceapp.util;
+
+import com.ideas2it.ecommerceapp.exception.IdempotencyConflictException;
+import com.ideas2it.ecommerceapp.exception.IdempotencyKeyMismatchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private MeterRegistry meterRegistry;
+    private IdempotencyStore<String> store;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyStore<>("test", Duration.ofMinutes(1), 100, Duration.ofMillis(200), meterRegistry);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecute_SameKeyAgain_ReplaysFirstResult() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        String first = store.execute("alice", "k1", "f1", () -> "order-" + runs.incrementAndGet());
+        String second = store.execute("alice", "k1", "f1", () -> "order-" + runs.incrementAndGet());
+
+        // Assert
+        assertEquals("order-1", first);
+        assertEquals("order-1", second);
+        assertEquals(1, runs.get());
+        assertEquals(1, outcome("replayed"));
+    }
+
+    @Test
+    void testExecute_SameKeyOtherOwner_RunsAgain() {
+        // Arrange
+        AtomicInteger runs = new AtomicInteger();
+
+        // Act
+        store.execute("alice", "k1", "f1", () -> "order-" + runs.incrementAndGet());
+        String other = store.execute("bob", "k1", "f1", () -> "order-" + runs.incrementAndGet());
+
+        // Assert
+        assertEquals("order-2", other);
+        assertEquals(2, outcome("executed"));
+    }
+
+    @Test
+    void testExecute_DifferentRequest_ThrowsMismatch() {
+        // Arrange
+        store.execute("alice", "k1", "f1", () -> "order-1");
+
+        // Act & Assert
+        assertThrows(IdempotencyKeyMismatchException.class, () -> store.execute("alice", "k1", "f2", () -> "order-2"));
+        assertEquals(1, outcome("mismatched"));
+    }
+
+    @Test
+    void testExecute_DuplicateWhileRunning_WaitsForFirstResult() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Future<String> first = executor.submit(() -> store.execute("alice", "k1", "f1", () -> {
+            started.countDown();
+            await(release);
+            return "order-" + runs.incrementAndGet();
+        }));
+        started.await();
+
+        // Act
+        Future<String> duplicate = executor.submit(() -> store.execute("alice", "k1", "f1", () -> "order-" + runs.incrementAndGet()));
+        while (outcome("replayed") < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        assertEquals("order-1", first.get());
+        assertEquals("order-1", duplicate.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testExecute_ManyKeysWhileRunning_DuplicateStillWaits() throws Exception {
+        // Arrange
+        store = new IdempotencyStore<>("test", Duration.ofMinutes(1), 2, Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Future<String> first = executor.submit(() -> store.execute("alice", "k1", "f1", () -> {
+            started.countDown();
+            await(release);
+            return "order-" + runs.incrementAndGet();
+        }));
+        started.await();
+        for (int i = 0; i < 100; i++) {
+            store.execute("bob", "k" + i, "f1", () -> "other");
+        }
+        store.cleanUp();
+
+        // Act
+        Future<String> duplicate = executor.submit(() -> store.execute("alice", "k1", "f1", () -> "order-" + runs.incrementAndGet()));
+        while (outcome("replayed") < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        assertEquals("order-1", first.get());
+        assertEquals("order-1", duplicate.get());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testExecute_FirstStillRunning_DuplicateTimesOut() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> store.execute("alice", "k1", "f1", () -> {
+            started.countDown();
+            await(release);
+            return "late";
+        }));
+        started.await();
+
+        try {
+            // Act & Assert
+            assertThrows(IdempotencyConflictException.class, () -> store.execute("alice", "k1", "f1", () -> "unused"));
+            assertEquals(1, outcome("timeout"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testExecute_RememberedFailure_ReplaysFailureWithoutRunningAgain() {
+        // Arrange
+        store = new IdempotencyStore<>("test", Duration.ofMinutes(1), 100, Duration.ofMillis(200),
+            IllegalStateException.class::isInstance, meterRegistry);
+        IllegalStateException failure = new IllegalStateException("Payment outcome unknown");
+        assertThrows(IllegalStateException.class, () -> store.execute("alice", "k1", "f1", () -> {
+            throw failure;
+        }));
+
+        // Act
+        IllegalStateException replayed = assertThrows(IllegalStateException.class,
+            () -> store.execute("alice", "k1", "f1", () -> "order-2"));
+
+        // Assert
+        assertSame(failure, replayed);
+        assertEquals(1, outcome("executed"));
+        assertEquals(1, outcome("replayed"));
+    }
+
+    @Test
+    void testExecute_ActionFails_RetryRunsAgain() {
+        // Arrange
+        assertThrows(RuntimeException.class, () -> store.execute("alice", "k1", "f1", () -> {
+            throw new RuntimeException("Payment failed");
+        }));
+
+        // Act
+        String retried = store.execute("alice", "k1", "f1", () -> "order-2");
+
+        // Assert
+        assertEquals("order-2", retried);
+        assertEquals(2, outcome("executed"));
+    }
+
+    @Test
+    void testExecute_BlankOrLongKey_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> store.execute("alice", " ", "f1", () -> "order"));
+        assertThrows(IllegalArgumentException.class, () -> store.execute("alice", "k".repeat(256), "f1", () -> "order"));
+    }
+
+    @Test
+    void testExecute_ManyKeys_SizeStaysBounded() {
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            store.execute("alice", "k" + i, "f1", () -> "order");
+        }
+        store.cleanUp();
+
+        // Assert
+        assertTrue(store.size() <= 100);
+    }
+
+    @Test
+    void testFingerprint_DigestsCanonicalRequest() {
+        // Act & Assert
+        assertEquals(IdempotencyStore.fingerprint("1x2;CARD"), IdempotencyStore.fingerprint("1x2;CARD"));
+        assertNotEquals(IdempotencyStore.fingerprint("1x2;CARD"), IdempotencyStore.fingerprint("1x3;CARD"));
+        assertEquals(64, IdempotencyStore.fingerprint("").length());
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("idempotency.requests", "name", "test", "outcome", outcome).count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
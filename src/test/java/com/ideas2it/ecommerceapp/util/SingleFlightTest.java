@@ -0,0 +1,118 @@
+package com.ideas2it.ecommerceapp.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private MeterRegistry meterRegistry;
+    private SingleFlight<String, String> singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", Duration.ofMillis(200), meterRegistry);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecute_SequentialCalls_EachRunsLoader() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        singleFlight.execute("a", () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute("a", () -> "v" + loads.incrementAndGet());
+
+        // Assert
+        assertEquals("v2", second);
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals(2, outcome("leader"));
+    }
+
+    @Test
+    void testExecute_LeaderFails_FailurePropagatesToWaiter() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("a", () -> {
+            started.countDown();
+            await(release);
+            throw new NoSuchElementException("missing");
+        }));
+        started.await();
+
+        // Act
+        Future<String> waiter = executor.submit(() -> singleFlight.execute("a", () -> "unused"));
+        while (outcome("coalesced") < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+        ExecutionException waiterError = assertThrows(ExecutionException.class, waiter::get);
+        assertInstanceOf(NoSuchElementException.class, leaderError.getCause());
+        assertSame(leaderError.getCause(), waiterError.getCause());
+        assertEquals(1, outcome("failed"));
+    }
+
+    @Test
+    void testExecute_LeaderTooSlow_WaiterTimesOut() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> singleFlight.execute("a", () -> {
+            started.countDown();
+            await(release);
+            return "late";
+        }));
+        started.await();
+
+        try {
+            // Act & Assert
+            assertThrows(IllegalStateException.class, () -> singleFlight.execute("a", () -> "unused"));
+            assertEquals(1, outcome("timeout"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testConstructor_NonPositiveTimeout_ThrowsException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new SingleFlight<>("test", Duration.ZERO, meterRegistry));
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("singleflight.calls", "name", "test", "outcome", outcome).count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}